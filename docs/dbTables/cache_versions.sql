@@ -0,0 +1,37 @@
+#
+# Adds the CACHE_VERSIONS table that JDBC job stores need when
+#
+# org.quartz.jobStore.cacheSize
+#
+# is set above 0 to an existing Quartz schema; the tables_*.sql scripts
+# create it already. Run the statements for your database, with your table
+# prefix if it isn't QRTZ_.
+#
+
+# MySQL, PostgreSQL, HSQLDB, H2, Derby, DB2, Informix, Firebird, SQL Server:
+CREATE TABLE QRTZ_CACHE_VERSIONS
+  (
+    CACHE_NAME VARCHAR(40) NOT NULL,
+    CACHE_VERSION BIGINT NOT NULL,
+    PRIMARY KEY (CACHE_NAME)
+);
+
+# Oracle:
+# CREATE TABLE QRTZ_CACHE_VERSIONS
+#   (
+#     CACHE_NAME VARCHAR2(40) NOT NULL,
+#     CACHE_VERSION NUMBER(19) NOT NULL,
+#     PRIMARY KEY (CACHE_NAME)
+# );
+
+# Sybase:
+# CREATE TABLE QRTZ_CACHE_VERSIONS
+#   (
+#     CACHE_NAME VARCHAR(40) NOT NULL,
+#     CACHE_VERSION NUMERIC(19,0) NOT NULL,
+#     PRIMARY KEY (CACHE_NAME)
+# );
+
+INSERT INTO QRTZ_CACHE_VERSIONS VALUES('JOBS_AND_CALENDARS', 0);
+
+commit;
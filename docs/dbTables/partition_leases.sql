@@ -0,0 +1,39 @@
+#
+# Adds the PARTITION_LEASES table that clustered JDBC job stores need when
+#
+# org.quartz.jobStore.partitionCount
+#
+# is set above 0 to an existing Quartz schema; the tables_*.sql scripts
+# create it already. Run the statements for your database, with your table
+# prefix if it isn't QRTZ_. The rows are created by the scheduler instances
+# as they join the cluster.
+#
+
+# MySQL, PostgreSQL, HSQLDB, H2, Derby, DB2, Informix, Firebird:
+CREATE TABLE QRTZ_PARTITION_LEASES
+  (
+    PARTITION_ID INTEGER NOT NULL,
+    INSTANCE_NAME VARCHAR(200) NOT NULL,
+    ACTIVE_TIME BIGINT NOT NULL,
+    PRIMARY KEY (PARTITION_ID)
+);
+
+# Oracle:
+# CREATE TABLE QRTZ_PARTITION_LEASES
+#   (
+#     PARTITION_ID NUMBER(10) NOT NULL,
+#     INSTANCE_NAME VARCHAR2(200) NOT NULL,
+#     ACTIVE_TIME NUMBER(19) NOT NULL,
+#     PRIMARY KEY (PARTITION_ID)
+# );
+
+# SQL Server, Sybase:
+# CREATE TABLE QRTZ_PARTITION_LEASES
+#   (
+#     PARTITION_ID INTEGER NOT NULL,
+#     INSTANCE_NAME VARCHAR(200) NOT NULL,
+#     ACTIVE_TIME NUMERIC(13,0) NOT NULL,
+#     PRIMARY KEY (PARTITION_ID)
+# );
+
+commit;
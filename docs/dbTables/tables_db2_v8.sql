@@ -13,7 +13,9 @@ DROP TABLE QRTZ_TRIGGER_LISTENERS;
 DROP TABLE QRTZ_FIRED_TRIGGERS;
 DROP TABLE QRTZ_PAUSED_TRIGGER_GRPS;
 DROP TABLE QRTZ_SCHEDULER_STATE;
+DROP TABLE QRTZ_PARTITION_LEASES;
 DROP TABLE QRTZ_LOCKS;
+DROP TABLE QRTZ_CACHE_VERSIONS;
 DROP TABLE QRTZ_SIMPLE_TRIGGERS;
 DROP TABLE QRTZ_CRON_TRIGGERS;
 DROP TABLE QRTZ_TRIGGERS;
@@ -59,6 +61,7 @@ end_time bigint,
 calendar_name varchar(80),
 misfire_instr smallint,
 job_data blob(2000),
+trigger_version bigint default 0 not null,
 primary key (trigger_name,trigger_group),
 foreign key (job_name,job_group) references qrtz_job_details(job_name,job_group)
 );
@@ -132,6 +135,13 @@ checkin_interval bigint not null,
 primary key (instance_name)
 );
 
+create table qrtz_partition_leases(
+partition_id integer not null,
+instance_name varchar(80) not null,
+active_time bigint not null,
+primary key (partition_id)
+);
+
 create table qrtz_locks(
 lock_name varchar(40) not null,
 primary key (lock_name)
@@ -142,3 +152,11 @@ insert into qrtz_locks values('JOB_ACCESS');
 insert into qrtz_locks values('CALENDAR_ACCESS');
 insert into qrtz_locks values('STATE_ACCESS');
 insert into qrtz_locks values('MISFIRE_ACCESS'); 
+
+create table qrtz_cache_versions(
+cache_name varchar(40) not null,
+cache_version bigint not null,
+primary key (cache_name)
+);
+
+insert into qrtz_cache_versions values('JOBS_AND_CALENDARS', 0);
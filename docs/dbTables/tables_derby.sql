@@ -45,6 +45,7 @@ end_time bigint,
 calendar_name varchar(200),
 misfire_instr smallint,
 job_data blob,
+trigger_version bigint default 0 not null,
 primary key (trigger_name,trigger_group),
 foreign key (job_name,job_group) references qrtz_job_details(job_name,job_group)
 );
@@ -120,6 +121,14 @@ create table qrtz_scheduler_state
 primary key (instance_name)
 );
 
+create table qrtz_partition_leases
+  (
+    partition_id integer not null,
+    instance_name varchar(200) not null,
+    active_time bigint not null,
+primary key (partition_id)
+);
+
 create table qrtz_locks
   (
     lock_name varchar(40) not null,
@@ -132,3 +141,12 @@ insert into qrtz_locks values('CALENDAR_ACCESS');
 insert into qrtz_locks values('STATE_ACCESS');
 insert into qrtz_locks values('MISFIRE_ACCESS');
 
+create table qrtz_cache_versions
+  (
+    cache_name varchar(40) not null,
+    cache_version bigint not null,
+primary key (cache_name)
+);
+
+insert into qrtz_cache_versions values('JOBS_AND_CALENDARS', 0);
+
@@ -9,7 +9,9 @@ DROP TABLE QRTZ_TRIGGER_LISTENERS;
 DROP TABLE QRTZ_FIRED_TRIGGERS;
 DROP TABLE QRTZ_PAUSED_TRIGGER_GRPS;
 DROP TABLE QRTZ_SCHEDULER_STATE;
+DROP TABLE QRTZ_PARTITION_LEASES;
 DROP TABLE QRTZ_LOCKS;
+DROP TABLE QRTZ_CACHE_VERSIONS;
 DROP TABLE QRTZ_SIMPLE_TRIGGERS;
 DROP TABLE QRTZ_CRON_TRIGGERS;
 DROP TABLE QRTZ_BLOB_TRIGGERS;
@@ -57,6 +59,7 @@ CREATE TABLE QRTZ_TRIGGERS (
     CALENDAR_NAME VARCHAR(60),
     MISFIRE_INSTR SMALLINT,
     JOB_DATA BLOB,
+    TRIGGER_VERSION BIGINT DEFAULT 0 NOT NULL,
     CONSTRAINT PK_QRTZ_TRIGGERS PRIMARY KEY (TRIGGER_NAME,TRIGGER_GROUP),
     CONSTRAINT FK_QRTZ_TRIGGERS_1 FOREIGN KEY (JOB_NAME,JOB_GROUP) 
     REFERENCES QRTZ_JOB_DETAILS(JOB_NAME,JOB_GROUP) 
@@ -135,6 +138,13 @@ CREATE TABLE QRTZ_SCHEDULER_STATE (
     CONSTRAINT PK_QRTZ_SCHEDULER_STATE PRIMARY KEY (INSTANCE_NAME)
 );
 
+CREATE TABLE QRTZ_PARTITION_LEASES (
+    PARTITION_ID INTEGER NOT NULL,
+    INSTANCE_NAME VARCHAR(80) NOT NULL,
+    ACTIVE_TIME BIGINT NOT NULL,
+    CONSTRAINT PK_QRTZ_PARTITION_LEASES PRIMARY KEY (PARTITION_ID)
+);
+
 CREATE TABLE QRTZ_LOCKS (
     LOCK_NAME  VARCHAR(40) NOT NULL, 
     CONSTRAINT PK_QRTZ_LOCKS PRIMARY KEY (LOCK_NAME)
@@ -146,4 +156,12 @@ INSERT INTO QRTZ_LOCKS VALUES('CALENDAR_ACCESS');
 INSERT INTO QRTZ_LOCKS VALUES('STATE_ACCESS');
 INSERT INTO QRTZ_LOCKS VALUES('MISFIRE_ACCESS');
 
+CREATE TABLE QRTZ_CACHE_VERSIONS (
+    CACHE_NAME  VARCHAR(40) NOT NULL,
+    CACHE_VERSION BIGINT NOT NULL,
+    CONSTRAINT PK_QRTZ_CACHE_VERSIONS PRIMARY KEY (CACHE_NAME)
+);
+
+INSERT INTO QRTZ_CACHE_VERSIONS VALUES('JOBS_AND_CALENDARS', 0);
+
 COMMIT;
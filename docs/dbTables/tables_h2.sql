@@ -45,10 +45,21 @@ CREATE TABLE QRTZ_SCHEDULER_STATE (
   CHECKIN_INTERVAL BIGINT NOT NULL
 );
 
+CREATE TABLE QRTZ_PARTITION_LEASES (
+  PARTITION_ID INTEGER  NOT NULL ,
+  INSTANCE_NAME VARCHAR (200)  NOT NULL ,
+  ACTIVE_TIME BIGINT NOT NULL
+);
+
 CREATE TABLE QRTZ_LOCKS (
   LOCK_NAME VARCHAR (40)  NOT NULL 
 );
 
+CREATE TABLE QRTZ_CACHE_VERSIONS (
+  CACHE_NAME VARCHAR (40)  NOT NULL ,
+  CACHE_VERSION BIGINT NOT NULL
+);
+
 CREATE TABLE QRTZ_JOB_DETAILS (
   JOB_NAME VARCHAR (200)  NOT NULL ,
   JOB_GROUP VARCHAR (200)  NOT NULL ,
@@ -103,7 +114,8 @@ CREATE TABLE QRTZ_TRIGGERS (
   END_TIME BIGINT NULL ,
   CALENDAR_NAME VARCHAR (200)  NULL ,
   MISFIRE_INSTR SMALLINT NULL ,
-  JOB_DATA IMAGE NULL
+  JOB_DATA IMAGE NULL ,
+  TRIGGER_VERSION BIGINT DEFAULT 0 NOT NULL
 );
 
 ALTER TABLE QRTZ_CALENDARS  ADD
@@ -137,12 +149,24 @@ ALTER TABLE QRTZ_SCHEDULER_STATE  ADD
     INSTANCE_NAME
   );
 
+ALTER TABLE QRTZ_PARTITION_LEASES  ADD
+  CONSTRAINT PK_QRTZ_PARTITION_LEASES PRIMARY KEY  
+  (
+    PARTITION_ID
+  );
+
 ALTER TABLE QRTZ_LOCKS  ADD
   CONSTRAINT PK_QRTZ_LOCKS PRIMARY KEY  
   (
     LOCK_NAME
   );
 
+ALTER TABLE QRTZ_CACHE_VERSIONS  ADD
+  CONSTRAINT PK_QRTZ_CACHE_VERSIONS PRIMARY KEY  
+  (
+    CACHE_NAME
+  );
+
 ALTER TABLE QRTZ_JOB_DETAILS  ADD
   CONSTRAINT PK_QRTZ_JOB_DETAILS PRIMARY KEY  
   (
@@ -235,4 +259,5 @@ INSERT INTO QRTZ_LOCKS VALUES('JOB_ACCESS');
 INSERT INTO QRTZ_LOCKS VALUES('CALENDAR_ACCESS');
 INSERT INTO QRTZ_LOCKS VALUES('STATE_ACCESS');
 INSERT INTO QRTZ_LOCKS VALUES('MISFIRE_ACCESS');
+INSERT INTO QRTZ_CACHE_VERSIONS VALUES('JOBS_AND_CALENDARS', 0);
 COMMIT;
@@ -4,7 +4,9 @@
 #
 
 DROP TABLE qrtz_locks IF EXISTS;
+DROP TABLE qrtz_cache_versions IF EXISTS;
 DROP TABLE qrtz_scheduler_state IF EXISTS;
+DROP TABLE qrtz_partition_leases IF EXISTS;
 DROP TABLE qrtz_fired_triggers IF EXISTS;
 DROP TABLE qrtz_paused_trigger_grps IF EXISTS;
 DROP TABLE qrtz_calendars IF EXISTS;
@@ -58,6 +60,7 @@ END_TIME NUMERIC(13) NULL,
 CALENDAR_NAME VARCHAR(200) NULL,
 MISFIRE_INSTR NUMERIC(2) NULL,
 JOB_DATA BINARY NULL,
+TRIGGER_VERSION BIGINT DEFAULT 0 NOT NULL,
 PRIMARY KEY (TRIGGER_NAME,TRIGGER_GROUP),
 FOREIGN KEY (JOB_NAME,JOB_GROUP)
 REFERENCES QRTZ_JOB_DETAILS(JOB_NAME,JOB_GROUP)
@@ -144,6 +147,14 @@ CHECKIN_INTERVAL NUMERIC(13) NOT NULL,
 PRIMARY KEY (INSTANCE_NAME)
 );
 
+CREATE TABLE qrtz_partition_leases
+(
+PARTITION_ID INTEGER NOT NULL,
+INSTANCE_NAME VARCHAR(200) NOT NULL,
+ACTIVE_TIME NUMERIC(13) NOT NULL,
+PRIMARY KEY (PARTITION_ID)
+);
+
 CREATE TABLE qrtz_locks
 (
 LOCK_NAME VARCHAR(40) NOT NULL,
@@ -155,3 +166,12 @@ INSERT INTO qrtz_locks values('JOB_ACCESS');
 INSERT INTO qrtz_locks values('CALENDAR_ACCESS');
 INSERT INTO qrtz_locks values('STATE_ACCESS');
 INSERT INTO qrtz_locks values('MISFIRE_ACCESS');
+
+CREATE TABLE qrtz_cache_versions
+(
+CACHE_NAME VARCHAR(40) NOT NULL,
+CACHE_VERSION BIGINT NOT NULL,
+PRIMARY KEY (CACHE_NAME)
+);
+
+INSERT INTO qrtz_cache_versions values('JOBS_AND_CALENDARS', 0);
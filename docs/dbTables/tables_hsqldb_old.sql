@@ -51,6 +51,7 @@ END_TIME NUMERIC(13) NULL,
 CALENDAR_NAME LONGVARCHAR(80) NULL,
 MISFIRE_INSTR NUMERIC(2) NULL,
 JOB_DATA OTHER NULL,
+TRIGGER_VERSION BIGINT DEFAULT 0 NOT NULL,
 PRIMARY KEY (TRIGGER_NAME,TRIGGER_GROUP),
 FOREIGN KEY (JOB_NAME,JOB_GROUP)
 REFERENCES QRTZ_JOB_DETAILS(JOB_NAME,JOB_GROUP)
@@ -137,6 +138,14 @@ CREATE TABLE qrtz_scheduler_state
     PRIMARY KEY (INSTANCE_NAME)
 );
 
+CREATE TABLE qrtz_partition_leases 
+  (
+    PARTITION_ID INTEGER NOT NULL,
+    INSTANCE_NAME LONGVARCHAR(80) NOT NULL,
+    ACTIVE_TIME NUMERIC(13) NOT NULL,
+    PRIMARY KEY (PARTITION_ID)
+);
+
 CREATE TABLE qrtz_locks
   (
     LOCK_NAME  LONGVARCHAR(40) NOT NULL, 
@@ -150,4 +159,13 @@ INSERT INTO qrtz_locks values('CALENDAR_ACCESS');
 INSERT INTO qrtz_locks values('STATE_ACCESS');
 INSERT INTO qrtz_locks values('MISFIRE_ACCESS');
 
+CREATE TABLE qrtz_cache_versions
+  (
+    CACHE_NAME  LONGVARCHAR(40) NOT NULL,
+    CACHE_VERSION BIGINT NOT NULL,
+    PRIMARY KEY (CACHE_NAME)
+);
+
+INSERT INTO qrtz_cache_versions values('JOBS_AND_CALENDARS', 0);
+
 commit;
@@ -72,9 +72,18 @@ LAST_CHECKIN_TIME numeric(13) NOT NULL,
 CHECKIN_INTERVAL numeric(13) NOT NULL
 );
 
+CREATE TABLE qpartition_leases (
+PARTITION_ID integer NOT NULL,
+INSTANCE_NAME varchar(80) NOT NULL,
+ACTIVE_TIME numeric(13) NOT NULL
+);
+
 ALTER TABLE qscheduler_state
 ADD CONSTRAINT PRIMARY KEY (INSTANCE_NAME);
 
+ALTER TABLE qpartition_leases
+ADD CONSTRAINT PRIMARY KEY (PARTITION_ID);
+
 
 CREATE TABLE qlocks (
 LOCK_NAME  varchar(40) NOT NULL
@@ -83,10 +92,19 @@ LOCK_NAME  varchar(40) NOT NULL
 ALTER TABLE qlocks
 ADD CONSTRAINT PRIMARY KEY (LOCK_NAME);
 
+CREATE TABLE qcache_versions (
+CACHE_NAME  varchar(40) NOT NULL,
+CACHE_VERSION BIGINT NOT NULL
+);
+
+ALTER TABLE qcache_versions
+ADD CONSTRAINT PRIMARY KEY (CACHE_NAME);
+
 INSERT INTO qlocks values('TRIGGER_ACCESS');
 INSERT INTO qlocks values('JOB_ACCESS');
 INSERT INTO qlocks values('CALENDAR_ACCESS');
 INSERT INTO qlocks values('STATE_ACCESS');
+INSERT INTO qcache_versions values('JOBS_AND_CALENDARS', 0);
 
 
 
@@ -159,7 +177,8 @@ START_TIME numeric(13) NOT NULL,
 END_TIME numeric(13),
 CALENDAR_NAME varchar(80),
 MISFIRE_INSTR numeric(2),
-JOB_DATA byte in table
+JOB_DATA byte in table,
+TRIGGER_VERSION BIGINT DEFAULT 0 NOT NULL
 );
 
 
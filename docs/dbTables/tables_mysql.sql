@@ -10,7 +10,9 @@ DROP TABLE IF EXISTS QRTZ_TRIGGER_LISTENERS;
 DROP TABLE IF EXISTS QRTZ_FIRED_TRIGGERS;
 DROP TABLE IF EXISTS QRTZ_PAUSED_TRIGGER_GRPS;
 DROP TABLE IF EXISTS QRTZ_SCHEDULER_STATE;
+DROP TABLE IF EXISTS QRTZ_PARTITION_LEASES;
 DROP TABLE IF EXISTS QRTZ_LOCKS;
+DROP TABLE IF EXISTS QRTZ_CACHE_VERSIONS;
 DROP TABLE IF EXISTS QRTZ_SIMPLE_TRIGGERS;
 DROP TABLE IF EXISTS QRTZ_CRON_TRIGGERS;
 DROP TABLE IF EXISTS QRTZ_BLOB_TRIGGERS;
@@ -61,6 +63,7 @@ CREATE TABLE QRTZ_TRIGGERS
     CALENDAR_NAME VARCHAR(200) NULL,
     MISFIRE_INSTR SMALLINT(2) NULL,
     JOB_DATA BLOB NULL,
+    TRIGGER_VERSION BIGINT DEFAULT 0 NOT NULL,
     PRIMARY KEY (TRIGGER_NAME,TRIGGER_GROUP),
     FOREIGN KEY (JOB_NAME,JOB_GROUP)
         REFERENCES QRTZ_JOB_DETAILS(JOB_NAME,JOB_GROUP)
@@ -150,6 +153,14 @@ CREATE TABLE QRTZ_SCHEDULER_STATE
     PRIMARY KEY (INSTANCE_NAME)
 );
 
+CREATE TABLE QRTZ_PARTITION_LEASES
+  (
+    PARTITION_ID INTEGER NOT NULL,
+    INSTANCE_NAME VARCHAR(200) NOT NULL,
+    ACTIVE_TIME BIGINT(13) NOT NULL,
+    PRIMARY KEY (PARTITION_ID)
+);
+
 CREATE TABLE QRTZ_LOCKS
   (
     LOCK_NAME  VARCHAR(40) NOT NULL, 
@@ -163,5 +174,14 @@ INSERT INTO QRTZ_LOCKS values('CALENDAR_ACCESS');
 INSERT INTO QRTZ_LOCKS values('STATE_ACCESS');
 INSERT INTO QRTZ_LOCKS values('MISFIRE_ACCESS');
 
+CREATE TABLE QRTZ_CACHE_VERSIONS
+  (
+    CACHE_NAME  VARCHAR(40) NOT NULL,
+    CACHE_VERSION BIGINT NOT NULL,
+    PRIMARY KEY (CACHE_NAME)
+);
+
+INSERT INTO QRTZ_CACHE_VERSIONS values('JOBS_AND_CALENDARS', 0);
+
 
 commit;
@@ -11,7 +11,9 @@ DROP TABLE IF EXISTS QRTZ_TRIGGER_LISTENERS;
 DROP TABLE IF EXISTS QRTZ_FIRED_TRIGGERS;
 DROP TABLE IF EXISTS QRTZ_PAUSED_TRIGGER_GRPS;
 DROP TABLE IF EXISTS QRTZ_SCHEDULER_STATE;
+DROP TABLE IF EXISTS QRTZ_PARTITION_LEASES;
 DROP TABLE IF EXISTS QRTZ_LOCKS;
+DROP TABLE IF EXISTS QRTZ_CACHE_VERSIONS;
 DROP TABLE IF EXISTS QRTZ_SIMPLE_TRIGGERS;
 DROP TABLE IF EXISTS QRTZ_CRON_TRIGGERS;
 DROP TABLE IF EXISTS QRTZ_BLOB_TRIGGERS;
@@ -58,6 +60,7 @@ END_TIME BIGINT(13) NULL,
 CALENDAR_NAME VARCHAR(200) NULL,
 MISFIRE_INSTR SMALLINT(2) NULL,
 JOB_DATA BLOB NULL,
+TRIGGER_VERSION BIGINT DEFAULT 0 NOT NULL,
 PRIMARY KEY (TRIGGER_NAME,TRIGGER_GROUP),
 INDEX (JOB_NAME, JOB_GROUP),
 FOREIGN KEY (JOB_NAME,JOB_GROUP)
@@ -141,6 +144,13 @@ CHECKIN_INTERVAL BIGINT(13) NOT NULL,
 PRIMARY KEY (INSTANCE_NAME))
 TYPE=InnoDB;
 
+CREATE TABLE QRTZ_PARTITION_LEASES (
+PARTITION_ID INTEGER NOT NULL,
+INSTANCE_NAME VARCHAR(200) NOT NULL,
+ACTIVE_TIME BIGINT(13) NOT NULL,
+PRIMARY KEY (PARTITION_ID))
+TYPE=InnoDB;
+
 CREATE TABLE QRTZ_LOCKS (
 LOCK_NAME VARCHAR(40) NOT NULL,
 PRIMARY KEY (LOCK_NAME))
@@ -151,4 +161,12 @@ INSERT INTO QRTZ_LOCKS values('JOB_ACCESS');
 INSERT INTO QRTZ_LOCKS values('CALENDAR_ACCESS');
 INSERT INTO QRTZ_LOCKS values('STATE_ACCESS');
 INSERT INTO QRTZ_LOCKS values('MISFIRE_ACCESS');
+
+CREATE TABLE QRTZ_CACHE_VERSIONS (
+CACHE_NAME VARCHAR(40) NOT NULL,
+CACHE_VERSION BIGINT NOT NULL,
+PRIMARY KEY (CACHE_NAME))
+TYPE=InnoDB;
+
+INSERT INTO QRTZ_CACHE_VERSIONS values('JOBS_AND_CALENDARS', 0);
 commit; 
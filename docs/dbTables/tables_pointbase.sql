@@ -18,7 +18,9 @@ delete from qrtz_job_details;
 delete from qrtz_calendars;
 delete from qrtz_paused_trigger_grps;
 delete from qrtz_locks;
+delete from qrtz_cache_versions;
 delete from qrtz_scheduler_state;
+delete from qrtz_partition_leases;
 
 drop table qrtz_calendars;
 drop table qrtz_fired_triggers;
@@ -31,7 +33,9 @@ drop table qrtz_job_listeners;
 drop table qrtz_job_details;
 drop table qrtz_paused_trigger_grps;
 drop table qrtz_locks;
+drop table qrtz_cache_versions;
 drop table qrtz_scheduler_state;
+drop table qrtz_partition_leases;
  
 
 CREATE TABLE qrtz_job_details
@@ -76,6 +80,7 @@ CREATE TABLE qrtz_triggers
     CALENDAR_NAME VARCHAR2(80) NULL,
     MISFIRE_INSTR NUMBER(2) NULL,
     JOB_DATA BLOB(4K) NULL,
+    TRIGGER_VERSION NUMBER(19) DEFAULT 0 NOT NULL,
     PRIMARY KEY (TRIGGER_NAME,TRIGGER_GROUP),
     FOREIGN KEY (JOB_NAME,JOB_GROUP) 
 	REFERENCES QRTZ_JOB_DETAILS(JOB_NAME,JOB_GROUP) 
@@ -162,6 +167,14 @@ CREATE TABLE qrtz_scheduler_state
     PRIMARY KEY (INSTANCE_NAME)
 );
 
+CREATE TABLE qrtz_partition_leases 
+  (
+    PARTITION_ID NUMBER(10) NOT NULL,
+    INSTANCE_NAME VARCHAR2(80) NOT NULL,
+    ACTIVE_TIME NUMBER(13) NOT NULL,
+    PRIMARY KEY (PARTITION_ID)
+);
+
 CREATE TABLE qrtz_locks
   (
     LOCK_NAME  VARCHAR2(40) NOT NULL, 
@@ -175,4 +188,13 @@ INSERT INTO qrtz_locks values('CALENDAR_ACCESS');
 INSERT INTO qrtz_locks values('STATE_ACCESS');
 INSERT INTO qrtz_locks values('MISFIRE_ACCESS');
 
+CREATE TABLE qrtz_cache_versions
+  (
+    CACHE_NAME  VARCHAR2(40) NOT NULL,
+    CACHE_VERSION NUMBER(19) NOT NULL,
+    PRIMARY KEY (CACHE_NAME)
+);
+
+INSERT INTO qrtz_cache_versions values('JOBS_AND_CALENDARS', 0);
+
 commit;
@@ -8,7 +8,9 @@ drop table qrtz_trigger_listeners;
 drop table qrtz_fired_triggers;
 DROP TABLE QRTZ_PAUSED_TRIGGER_GRPS;
 DROP TABLE QRTZ_SCHEDULER_STATE;
+DROP TABLE QRTZ_PARTITION_LEASES;
 DROP TABLE QRTZ_LOCKS;
+DROP TABLE QRTZ_CACHE_VERSIONS;
 drop table qrtz_simple_triggers;
 drop table qrtz_cron_triggers;
 DROP TABLE QRTZ_BLOB_TRIGGERS;
@@ -58,6 +60,7 @@ CREATE TABLE qrtz_triggers
     CALENDAR_NAME VARCHAR(80) NULL,
     MISFIRE_INSTR SMALLINT NULL,
     JOB_DATA BYTEA NULL,
+    TRIGGER_VERSION BIGINT DEFAULT 0 NOT NULL,
     PRIMARY KEY (TRIGGER_NAME,TRIGGER_GROUP),
     FOREIGN KEY (JOB_NAME,JOB_GROUP) 
 	REFERENCES QRTZ_JOB_DETAILS(JOB_NAME,JOB_GROUP) 
@@ -146,6 +149,14 @@ CREATE TABLE qrtz_scheduler_state
     PRIMARY KEY (INSTANCE_NAME)
 );
 
+CREATE TABLE qrtz_partition_leases 
+  (
+    PARTITION_ID INTEGER NOT NULL,
+    INSTANCE_NAME VARCHAR(80) NOT NULL,
+    ACTIVE_TIME BIGINT NOT NULL,
+    PRIMARY KEY (PARTITION_ID)
+);
+
 CREATE TABLE qrtz_locks
   (
     LOCK_NAME  VARCHAR(40) NOT NULL, 
@@ -159,4 +170,13 @@ INSERT INTO qrtz_locks values('CALENDAR_ACCESS');
 INSERT INTO qrtz_locks values('STATE_ACCESS');
 INSERT INTO qrtz_locks values('MISFIRE_ACCESS');
 
+CREATE TABLE qrtz_cache_versions
+  (
+    CACHE_NAME  VARCHAR(40) NOT NULL,
+    CACHE_VERSION BIGINT NOT NULL,
+    PRIMARY KEY (CACHE_NAME)
+);
+
+INSERT INTO qrtz_cache_versions values('JOBS_AND_CALENDARS', 0);
+
 commit;
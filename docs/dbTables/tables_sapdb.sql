@@ -46,6 +46,7 @@ CREATE TABLE QRTZ_TRIGGERS
     CALENDAR_NAME VARCHAR(200) NULL,
     MISFIRE_INSTR FIXED(2) NULL,
     JOB_DATA LONG BYTE NULL,
+    TRIGGER_VERSION FIXED(19) DEFAULT 0 NOT NULL,
     PRIMARY KEY (TRIGGER_NAME,TRIGGER_GROUP),
     FOREIGN KEY (JOB_NAME,JOB_GROUP) REFERENCES QRTZ_JOB_DETAILS(JOB_NAME,JOB_GROUP) 
 );
@@ -130,6 +131,14 @@ CREATE TABLE QRTZ_SCHEDULER_STATE
     PRIMARY KEY (INSTANCE_NAME)
 );
 
+CREATE TABLE QRTZ_PARTITION_LEASES
+  (
+    PARTITION_ID FIXED(10) NOT NULL,
+    INSTANCE_NAME VARCHAR(200) NOT NULL,
+    ACTIVE_TIME FIXED(13) NOT NULL,
+    PRIMARY KEY (PARTITION_ID)
+);
+
 CREATE TABLE QRTZ_LOCKS
   (
     LOCK_NAME  VARCHAR(40) NOT NULL, 
@@ -143,4 +152,13 @@ INSERT INTO QRTZ_LOCKS values('CALENDAR_ACCESS');
 INSERT INTO QRTZ_LOCKS values('STATE_ACCESS');
 INSERT INTO QRTZ_LOCKS values('MISFIRE_ACCESS');
 
+CREATE TABLE QRTZ_CACHE_VERSIONS
+  (
+    CACHE_NAME  VARCHAR(40) NOT NULL,
+    CACHE_VERSION FIXED(19) NOT NULL,
+    PRIMARY KEY (CACHE_NAME)
+);
+
+INSERT INTO QRTZ_CACHE_VERSIONS values('JOBS_AND_CALENDARS', 0);
+
 commit;
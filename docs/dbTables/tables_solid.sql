@@ -1,5 +1,7 @@
  DROP TABLE qrtz2_locks;
+DROP TABLE qrtz2_cache_versions;
 DROP TABLE qrtz2_scheduler_state;
+DROP TABLE qrtz2_partition_leases;
 DROP TABLE qrtz2_fired_triggers;
 DROP TABLE qrtz2_paused_trigger_grps;
 DROP TABLE qrtz2_calendars;
@@ -49,6 +51,7 @@ create table qrtz2_triggers(
 	calendar_name varchar(80),
 	misfire_instr smallint,
 	job_data long varbinary,
+	trigger_version numeric(19) default 0 not null,
 primary key (trigger_name,trigger_group),
 foreign key (job_name,job_group) references qrtz2_job_details(job_name,job_group)
 );
@@ -124,6 +127,14 @@ create table qrtz2_scheduler_state
 primary key (instance_name)
 );
 
+create table qrtz2_partition_leases 
+  (
+    partition_id integer not null,
+    instance_name varchar(80) not null,
+    active_time numeric(13) not null,
+primary key (partition_id)
+);
+
 create table qrtz2_locks
   (
     lock_name  varchar(40) not null, 
@@ -136,4 +147,13 @@ insert into qrtz2_locks values('CALENDAR_ACCESS');
 insert into qrtz2_locks values('STATE_ACCESS');
 insert into qrtz2_locks values('MISFIRE_ACCESS');
 
+create table qrtz2_cache_versions
+  (
+    cache_name  varchar(40) not null,
+    cache_version numeric(19) not null,
+primary key (cache_name)
+);
+
+insert into qrtz2_cache_versions values('JOBS_AND_CALENDARS', 0);
+
 commit work;
@@ -71,10 +71,18 @@ IF EXISTS (SELECT * FROM dbo.sysobjects WHERE id = OBJECT_ID(N'[dbo].[QRTZ_SCHED
 DROP TABLE [dbo].[QRTZ_SCHEDULER_STATE]
 GO
 
+IF EXISTS (SELECT * FROM dbo.sysobjects WHERE id = OBJECT_ID(N'[dbo].[QRTZ_PARTITION_LEASES]') AND OBJECTPROPERTY(id, N'ISUSERTABLE') = 1)
+DROP TABLE [dbo].[QRTZ_PARTITION_LEASES]
+GO
+
 IF EXISTS (SELECT * FROM dbo.sysobjects WHERE id = OBJECT_ID(N'[dbo].[QRTZ_LOCKS]') AND OBJECTPROPERTY(id, N'ISUSERTABLE') = 1)
 DROP TABLE [dbo].[QRTZ_LOCKS]
 GO
 
+IF EXISTS (SELECT * FROM dbo.sysobjects WHERE id = OBJECT_ID(N'[dbo].[QRTZ_CACHE_VERSIONS]') AND OBJECTPROPERTY(id, N'ISUSERTABLE') = 1)
+DROP TABLE [dbo].[QRTZ_CACHE_VERSIONS]
+GO
+
 IF EXISTS (SELECT * FROM dbo.sysobjects WHERE id = OBJECT_ID(N'[dbo].[QRTZ_JOB_DETAILS]') AND OBJECTPROPERTY(id, N'ISUSERTABLE') = 1)
 DROP TABLE [dbo].[QRTZ_JOB_DETAILS]
 GO
@@ -137,11 +145,24 @@ CREATE TABLE [dbo].[QRTZ_SCHEDULER_STATE] (
 ) ON [PRIMARY]
 GO
 
+CREATE TABLE [dbo].[QRTZ_PARTITION_LEASES] (
+  [PARTITION_ID] [INTEGER]  NOT NULL ,
+  [INSTANCE_NAME] [VARCHAR] (200)  NOT NULL ,
+  [ACTIVE_TIME] [BIGINT] NOT NULL
+) ON [PRIMARY]
+GO
+
 CREATE TABLE [dbo].[QRTZ_LOCKS] (
   [LOCK_NAME] [VARCHAR] (40)  NOT NULL 
 ) ON [PRIMARY]
 GO
 
+CREATE TABLE [dbo].[QRTZ_CACHE_VERSIONS] (
+  [CACHE_NAME] [VARCHAR] (40)  NOT NULL ,
+  [CACHE_VERSION] [BIGINT] NOT NULL
+) ON [PRIMARY]
+GO
+
 CREATE TABLE [dbo].[QRTZ_JOB_DETAILS] (
   [JOB_NAME] [VARCHAR] (200)  NOT NULL ,
   [JOB_GROUP] [VARCHAR] (200)  NOT NULL ,
@@ -201,7 +222,8 @@ CREATE TABLE [dbo].[QRTZ_TRIGGERS] (
   [END_TIME] [BIGINT] NULL ,
   [CALENDAR_NAME] [VARCHAR] (200)  NULL ,
   [MISFIRE_INSTR] [SMALLINT] NULL ,
-  [JOB_DATA] [IMAGE] NULL
+  [JOB_DATA] [IMAGE] NULL ,
+  [TRIGGER_VERSION] [BIGINT] DEFAULT 0 NOT NULL
 ) ON [PRIMARY]
 GO
 
@@ -241,6 +263,13 @@ ALTER TABLE [dbo].[QRTZ_SCHEDULER_STATE] WITH NOCHECK ADD
   )  ON [PRIMARY]
 GO
 
+ALTER TABLE [dbo].[QRTZ_PARTITION_LEASES] WITH NOCHECK ADD
+  CONSTRAINT [PK_QRTZ_PARTITION_LEASES] PRIMARY KEY  CLUSTERED
+  (
+    [PARTITION_ID]
+  )  ON [PRIMARY]
+GO
+
 ALTER TABLE [dbo].[QRTZ_LOCKS] WITH NOCHECK ADD
   CONSTRAINT [PK_QRTZ_LOCKS] PRIMARY KEY  CLUSTERED
   (
@@ -248,6 +277,13 @@ ALTER TABLE [dbo].[QRTZ_LOCKS] WITH NOCHECK ADD
   )  ON [PRIMARY]
 GO
 
+ALTER TABLE [dbo].[QRTZ_CACHE_VERSIONS] WITH NOCHECK ADD
+  CONSTRAINT [PK_QRTZ_CACHE_VERSIONS] PRIMARY KEY  CLUSTERED
+  (
+    [CACHE_NAME]
+  )  ON [PRIMARY]
+GO
+
 ALTER TABLE [dbo].[QRTZ_JOB_DETAILS] WITH NOCHECK ADD
   CONSTRAINT [PK_QRTZ_JOB_DETAILS] PRIMARY KEY  CLUSTERED
   (
@@ -350,3 +386,4 @@ INSERT INTO [dbo].[QRTZ_LOCKS] VALUES('JOB_ACCESS');
 INSERT INTO [dbo].[QRTZ_LOCKS] VALUES('CALENDAR_ACCESS');
 INSERT INTO [dbo].[QRTZ_LOCKS] VALUES('STATE_ACCESS');
 INSERT INTO [dbo].[QRTZ_LOCKS] VALUES('MISFIRE_ACCESS');
+INSERT INTO [dbo].[QRTZ_CACHE_VERSIONS] VALUES('JOBS_AND_CALENDARS', 0);
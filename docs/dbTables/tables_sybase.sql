@@ -31,9 +31,15 @@ go
 IF OBJECT_ID('QRTZ_SCHEDULER_STATE') IS NOT NULL 
 delete from QRTZ_SCHEDULER_STATE
 go
+IF OBJECT_ID('QRTZ_PARTITION_LEASES') IS NOT NULL 
+delete from QRTZ_PARTITION_LEASES
+go
 IF OBJECT_ID('QRTZ_LOCKS') IS NOT NULL 
 delete from QRTZ_LOCKS
 go
+IF OBJECT_ID('QRTZ_CACHE_VERSIONS') IS NOT NULL 
+delete from QRTZ_CACHE_VERSIONS
+go
 IF OBJECT_ID('QRTZ_SIMPLE_TRIGGERS') IS NOT NULL 
 delete from QRTZ_SIMPLE_TRIGGERS
 go
@@ -95,8 +101,12 @@ drop table QRTZ_PAUSED_TRIGGER_GRPS
 go
 drop table QRTZ_SCHEDULER_STATE
 go
+drop table QRTZ_PARTITION_LEASES
+go
 drop table QRTZ_LOCKS
 go
+drop table QRTZ_CACHE_VERSIONS
+go
 drop table QRTZ_SIMPLE_TRIGGERS
 go
 drop table QRTZ_CRON_TRIGGERS
@@ -156,11 +166,24 @@ CHECKIN_INTERVAL numeric(13,0) not null,
 )
 go
 
+create table QRTZ_PARTITION_LEASES (
+PARTITION_ID int not null,
+INSTANCE_NAME varchar(80) not null,
+ACTIVE_TIME numeric(13,0) not null,
+)
+go
+
 create table QRTZ_LOCKS (
 LOCK_NAME  varchar(40) not null, 
 )
 go
 
+create table QRTZ_CACHE_VERSIONS (
+CACHE_NAME  varchar(40) not null,
+CACHE_VERSION numeric(19,0) not null
+)
+go
+
 insert into QRTZ_LOCKS values('TRIGGER_ACCESS')
 go
 insert into QRTZ_LOCKS values('JOB_ACCESS')
@@ -169,6 +192,8 @@ insert into QRTZ_LOCKS values('CALENDAR_ACCESS')
 go
 insert into QRTZ_LOCKS values('STATE_ACCESS')
 go
+insert into QRTZ_CACHE_VERSIONS values('JOBS_AND_CALENDARS', 0)
+go
 
 
 create table QRTZ_JOB_DETAILS (
@@ -230,7 +255,8 @@ START_TIME numeric(13,0) not null,
 END_TIME numeric(13,0) null,
 CALENDAR_NAME varchar(80) null,
 MISFIRE_INSTR smallint null,
-JOB_DATA image null
+JOB_DATA image null,
+TRIGGER_VERSION numeric(19,0) default 0 not null
 )
 go
 
@@ -258,10 +284,18 @@ alter table QRTZ_SCHEDULER_STATE
 add constraint PK_qrtz_scheduler_state primary key clustered (INSTANCE_NAME)
 go
 
+alter table QRTZ_PARTITION_LEASES
+add constraint PK_qrtz_partition_leases primary key clustered (PARTITION_ID)
+go
+
 alter table QRTZ_LOCKS
 add constraint PK_qrtz_locks primary key clustered (LOCK_NAME)
 go
 
+alter table QRTZ_CACHE_VERSIONS
+add constraint PK_qrtz_cache_versions primary key clustered (CACHE_NAME)
+go
+
 alter table QRTZ_JOB_DETAILS
 add constraint PK_qrtz_job_details primary key clustered (JOB_NAME, JOB_GROUP)
 go
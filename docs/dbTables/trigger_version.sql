@@ -0,0 +1,20 @@
+#
+# Adds the TRIGGER_VERSION column that JDBC job stores need when
+#
+# org.quartz.jobStore.useOptimisticConcurrency = true
+#
+# to an existing Quartz schema; the tables_*.sql scripts create it already.
+# Run the statement for your database, with your table prefix if it isn't
+# QRTZ_.
+#
+
+# MySQL, PostgreSQL, HSQLDB, H2, Derby, DB2, Informix, Firebird, SQL Server:
+ALTER TABLE QRTZ_TRIGGERS ADD TRIGGER_VERSION BIGINT DEFAULT 0 NOT NULL;
+
+# Oracle:
+# ALTER TABLE QRTZ_TRIGGERS ADD TRIGGER_VERSION NUMBER(19) DEFAULT 0 NOT NULL;
+
+# Sybase:
+# ALTER TABLE QRTZ_TRIGGERS ADD TRIGGER_VERSION NUMERIC(19,0) DEFAULT 0 NOT NULL;
+
+commit;
@@ -0,0 +1,78 @@
+/* 
+ * Copyright 2001-2009 James House 
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not 
+ * use this file except in compliance with the License. You may obtain a copy 
+ * of the License at 
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0 
+ *   
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT 
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the 
+ * License for the specific language governing permissions and limitations 
+ * under the License.
+ */
+package org.quartz;
+
+import java.text.ParseException;
+import java.util.Date;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures <code>CronExpression</code> evaluation, as done by
+ * <code>CronTrigger.getFireTimeAfter()</code> for every fire, misfire and
+ * schedule change.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CronExpressionBenchmark {
+
+    @Param({"0 15 10 * * ?", "30 0/5 8-17 ? * MON-FRI", "0 0 12 ? * 6L", "0 0 0 29 2 ?"})
+    public String expression;
+
+    private CronExpression cronExpression;
+
+    private Date afterTime;
+
+    private long time;
+
+    @Setup
+    public void setUp() throws ParseException {
+        cronExpression = new CronExpression(expression);
+        cronExpression.setTimeZone(TimeZone.getTimeZone("America/New_York"));
+        afterTime = new Date(1230000000000L);
+        time = afterTime.getTime();
+    }
+
+    @Benchmark
+    public Date getTimeAfter() {
+        return cronExpression.getTimeAfter(afterTime);
+    }
+
+    /**
+     * Steps through successive fire times, as a long-running trigger does.
+     */
+    @Benchmark
+    public Date getTimeAfterSuccessive() {
+        Date next = cronExpression.getTimeAfter(new Date(time));
+        time = (next == null) ? afterTime.getTime() : next.getTime();
+        return next;
+    }
+
+    @Benchmark
+    public boolean isSatisfiedBy() {
+        return cronExpression.isSatisfiedBy(afterTime);
+    }
+}
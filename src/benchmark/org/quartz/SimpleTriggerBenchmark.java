@@ -0,0 +1,69 @@
+/* 
+ * Copyright 2001-2009 James House 
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not 
+ * use this file except in compliance with the License. You may obtain a copy 
+ * of the License at 
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0 
+ *   
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT 
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the 
+ * License for the specific language governing permissions and limitations 
+ * under the License.
+ */
+package org.quartz;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures <code>SimpleTrigger</code> fire time computation, for a trigger
+ * that has been repeating at the given interval for a year.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SimpleTriggerBenchmark {
+
+    private static final long START_TIME = 1230000000000L;
+
+    private static final long YEAR = 365L * 24L * 60L * 60L * 1000L;
+
+    @Param({"1000", "60000", "3600000"})
+    public long repeatInterval;
+
+    private SimpleTrigger trigger;
+
+    private Date afterTime;
+
+    private Date startTime;
+
+    @Setup
+    public void setUp() {
+        startTime = new Date(START_TIME);
+        trigger = new SimpleTrigger("trigger", "group", startTime, null,
+                SimpleTrigger.REPEAT_INDEFINITELY, repeatInterval);
+        afterTime = new Date(START_TIME + YEAR + 123);
+    }
+
+    @Benchmark
+    public Date getFireTimeAfter() {
+        return trigger.getFireTimeAfter(afterTime);
+    }
+
+    @Benchmark
+    public int computeNumTimesFiredBetween() {
+        return trigger.computeNumTimesFiredBetween(startTime, afterTime);
+    }
+}
@@ -0,0 +1,75 @@
+/* 
+ * Copyright 2001-2009 James House 
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not 
+ * use this file except in compliance with the License. You may obtain a copy 
+ * of the License at 
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0 
+ *   
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT 
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the 
+ * License for the specific language governing permissions and limitations 
+ * under the License.
+ */
+package org.quartz.impl.calendar;
+
+import java.text.ParseException;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures <code>isTimeIncluded</code> and <code>getNextIncludedTime</code>
+ * through a chain of base calendars: business hours, on weekdays, outside
+ * of holidays and a monthly maintenance window.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CalendarChainBenchmark {
+
+    private static final long DAY = 24L * 60L * 60L * 1000L;
+
+    private org.quartz.Calendar calendar;
+
+    private long time;
+
+    private long excludedTime;
+
+    @Setup
+    public void setUp() throws ParseException {
+        long startTime = 1230000000000L;
+
+        HolidayCalendar holidays = new HolidayCalendar();
+        for (int i = 0; i < 40; i++) {
+            holidays.addExcludedDate(new Date(startTime + i * 9 * DAY));
+        }
+        WeeklyCalendar weekdays = new WeeklyCalendar(holidays);
+        CronCalendar maintenance = new CronCalendar(weekdays, "* * 0-3 1 * ?");
+        DailyCalendar businessHours = new DailyCalendar(maintenance, "08:00", "18:00");
+        businessHours.setInvertTimeRange(true);
+        calendar = businessHours;
+
+        time = startTime + 3 * DAY + 10L * 60L * 60L * 1000L;
+        excludedTime = startTime + 18L * 60L * 60L * 1000L;
+    }
+
+    @Benchmark
+    public boolean isTimeIncluded() {
+        return calendar.isTimeIncluded(time);
+    }
+
+    @Benchmark
+    public long getNextIncludedTime() {
+        return calendar.getNextIncludedTime(excludedTime);
+    }
+}
@@ -0,0 +1,90 @@
+/* 
+ * Copyright 2001-2009 James House 
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not 
+ * use this file except in compliance with the License. You may obtain a copy 
+ * of the License at 
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0 
+ *   
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT 
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the 
+ * License for the specific language governing permissions and limitations 
+ * under the License.
+ */
+package org.quartz.impl.jdbcjobstore;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.LogFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.quartz.JobDataMap;
+
+/**
+ * Measures the <code>JobDataMap</code> serialization done for every job and
+ * trigger stored by a JDBC job store, and the reading of it back, for the
+ * serialized-object, properties (<code>useProperties</code>) and
+ * <code>BinaryJobDataMapCodec</code> forms.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class StdJDBCDelegateBenchmark {
+
+    @Param({"0", "10", "100"})
+    public int entryCount;
+
+    @Param({"serialization", "properties", "codec"})
+    public String encoding;
+
+    private StdJDBCDelegate delegate;
+
+    private JobDataMap jobDataMap;
+
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() throws IOException {
+        delegate = new StdJDBCDelegate(LogFactory.getLog(getClass()), "QRTZ_",
+                "INSTANCE", Boolean.valueOf(encoding.equals("properties")));
+        if (encoding.equals("codec")) {
+            delegate.setJobDataMapCodec(new BinaryJobDataMapCodec());
+        }
+        jobDataMap = new JobDataMap();
+        for (int i = 0; i < entryCount; i++) {
+            jobDataMap.put("key" + i, "value" + i);
+        }
+        encoded = delegate.serializeJobData(jobDataMap).toByteArray();
+    }
+
+    @Benchmark
+    public ByteArrayOutputStream serializeJobData() throws IOException {
+        return delegate.serializeJobData(jobDataMap);
+    }
+
+    @Benchmark
+    public Object deserializeJobData() throws Exception {
+        ByteArrayInputStream in = new ByteArrayInputStream(encoded);
+        if (encoding.equals("codec")) {
+            return delegate.getJobDataMapCodec().decode(in);
+        } else if (encoding.equals("properties")) {
+            Properties properties = new Properties();
+            properties.load(in);
+            return properties;
+        }
+        return (encoded.length == 0) ? null : new ObjectInputStream(in).readObject();
+    }
+}
@@ -0,0 +1,115 @@
+/* 
+ * Copyright 2001-2009 James House 
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not 
+ * use this file except in compliance with the License. You may obtain a copy 
+ * of the License at 
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0 
+ *   
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT 
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the 
+ * License for the specific language governing permissions and limitations 
+ * under the License.
+ */
+package org.quartz.simpl;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.quartz.JobDetail;
+import org.quartz.SimpleTrigger;
+import org.quartz.Trigger;
+import org.quartz.jobs.NoOpJob;
+import org.quartz.spi.JobStore;
+import org.quartz.spi.SchedulerSignaler;
+import org.quartz.spi.TriggerFiredBundle;
+import org.quartz.spi.TriggerFiredResult;
+
+/**
+ * Measures the acquire, fire and complete cycle the scheduler thread runs
+ * against a <code>RAMJobStore</code> holding the given number of repeating
+ * triggers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class RAMJobStoreBenchmark {
+
+    @Param({"1000", "100000"})
+    public int triggerCount;
+
+    @Param({"RAMJobStore", "ConcurrentRAMJobStore", "TimingWheel"})
+    public String store;
+
+    private JobStore jobStore;
+
+    @Setup
+    public void setUp() throws Exception {
+        if ("ConcurrentRAMJobStore".equals(store)) {
+            jobStore = new ConcurrentRAMJobStore();
+        } else {
+            RAMJobStore ramJobStore = new RAMJobStore();
+            ramJobStore.setUseTimingWheel("TimingWheel".equals(store));
+            jobStore = ramJobStore;
+        }
+        jobStore.initialize(null, new NoOpSignaler());
+
+        // fire times in the future, so that none misfire while measured
+        long startTime = System.currentTimeMillis() + 60L * 60L * 1000L;
+        for (int i = 0; i < triggerCount; i++) {
+            JobDetail job = new JobDetail("job" + i, "group" + (i % 10), NoOpJob.class);
+            SimpleTrigger trigger = new SimpleTrigger("trigger" + i, "group" + (i % 10),
+                    new Date(startTime + i), null, SimpleTrigger.REPEAT_INDEFINITELY, 1000);
+            trigger.setJobName(job.getName());
+            trigger.setJobGroup(job.getGroup());
+            trigger.computeFirstFireTime(null);
+            jobStore.storeJobAndTrigger(null, job, trigger);
+        }
+    }
+
+    @Benchmark
+    public Trigger acquireFireComplete() throws Exception {
+        Trigger trigger = jobStore.acquireNextTrigger(null, Long.MAX_VALUE);
+        TriggerFiredBundle bundle = jobStore.triggerFired(null, trigger);
+        jobStore.triggeredJobComplete(null, trigger, bundle.getJobDetail(),
+                Trigger.INSTRUCTION_NOOP);
+        return trigger;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(10)
+    public List acquireFireCompleteBatch() throws Exception {
+        List triggers = jobStore.acquireNextTriggers(null, Long.MAX_VALUE, 10, 1000L);
+        List results = jobStore.triggersFired(null, triggers);
+        for (int i = 0; i < results.size(); i++) {
+            TriggerFiredResult result = (TriggerFiredResult) results.get(i);
+            jobStore.triggeredJobComplete(null, result.getTrigger(),
+                    result.getTriggerFiredBundle().getJobDetail(),
+                    Trigger.INSTRUCTION_NOOP);
+        }
+        return results;
+    }
+
+    static class NoOpSignaler implements SchedulerSignaler {
+        public void notifyTriggerListenersMisfired(Trigger trigger) {
+        }
+
+        public void notifySchedulerListenersFinalized(Trigger trigger) {
+        }
+
+        public void signalSchedulingChange(long candidateNewNextFireTime) {
+        }
+    }
+}
@@ -234,6 +234,27 @@ public class CronExpression implements Serializable, Cloneable {
     protected transient boolean lastdayOfMonth = false;
     protected transient boolean nearestWeekday = false;
     protected transient boolean expressionParsed = false;
+
+    /*
+     * The compiled form of the expression: one bit per allowed value of each
+     * field, used by getTimeAfter() for expressions that don't use the 'L',
+     * 'W' or '#' characters.
+     */
+    private static final int MIN_COMPILED_YEAR = 1970;
+    private static final int MAX_COMPILED_YEAR = 2099;
+    private static final long MILLIS_PER_DAY = 24L * 60L * 60L * 1000L;
+    private static final long NO_TIME_AFTER = Long.MIN_VALUE;
+    private static final long USE_SETS = Long.MAX_VALUE;
+
+    private transient boolean compiled = false;
+    private transient boolean dayOfMonthSpecified = false;
+    private transient long secondsMask;
+    private transient long minutesMask;
+    private transient long hoursMask;
+    private transient long daysOfMonthMask;
+    private transient long monthsMask;
+    private transient long daysOfWeekMask;
+    private transient long[] yearsMask;
     
     /**
      * Constructs a new <CODE>CronExpression</CODE> based on the specified 
@@ -265,6 +286,15 @@ public class CronExpression implements Serializable, Cloneable {
      *         expression
      */
     public boolean isSatisfiedBy(Date date) {
+        if (compiled) {
+            long time = date.getTime();
+            time -= ((time % 1000) + 1000) % 1000;
+            long timeAfter = getTimeAfterCompiled(time - 1000);
+            if (timeAfter != USE_SETS) {
+                return (timeAfter == time);
+            }
+        }
+
         Calendar testDateCal = Calendar.getInstance(getTimeZone());
         testDateCal.setTime(date);
         testDateCal.set(Calendar.MILLISECOND, 0);
@@ -457,6 +487,8 @@ public class CronExpression implements Serializable, Cloneable {
                 throw new ParseException(
                         "Support for specifying both a day-of-week AND a day-of-month parameter is not implemented.", 0);
             }
+
+            compileExpression();
         } catch (ParseException pe) {
             throw pe;
         } catch (Exception e) {
@@ -1090,6 +1122,237 @@ public class CronExpression implements Serializable, Cloneable {
     ////////////////////////////////////////////////////////////////////////////
 
     protected Date getTimeAfter(Date afterTime) {
+        if (compiled) {
+            long timeAfter = getTimeAfterCompiled(afterTime.getTime());
+            if (timeAfter == NO_TIME_AFTER) {
+                return null;
+            }
+            if (timeAfter != USE_SETS) {
+                return new Date(timeAfter);
+            }
+        }
+
+        return getTimeAfterUsingSets(afterTime);
+    }
+
+    /**
+     * Computes the next time after the given time using the compiled bit
+     * masks, walking the fields from year down to second.  No objects are
+     * allocated, and no <code>Calendar</code> is used: the wall-clock fields
+     * are derived from the time zone's offset directly.
+     * 
+     * @return the matching time, <code>NO_TIME_AFTER</code> if there is
+     *         none, or <code>USE_SETS</code> if either end of the search lies
+     *         close to a daylight saving (or other offset) transition, whose
+     *         resolution is left to <code>getTimeAfterUsingSets()</code>.
+     */
+    private long getTimeAfterCompiled(long afterTime) {
+        TimeZone tz = getTimeZone();
+
+        // move ahead one second, since we're computing the time *after* the
+        // given time
+        long start = afterTime + 1000;
+        if (!isOffsetStable(tz, start)) {
+            return USE_SETS;
+        }
+        long local = start + tz.getOffset(start);
+        if (local < 0) {
+            return USE_SETS;
+        }
+
+        long days = local / MILLIS_PER_DAY;
+        int secondOfDay = (int) ((local % MILLIS_PER_DAY) / 1000);
+        int sec = secondOfDay % 60;
+        int min = (secondOfDay / 60) % 60;
+        int hr = secondOfDay / 3600;
+
+        // civil date from the day number, per the proleptic Gregorian calendar
+        int doe = (int) ((days + 719468) % 146097);
+        int yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+        int doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+        int mp = (5 * doy + 2) / 153;
+        int day = doy - (153 * mp + 2) / 5 + 1;
+        int mon = (mp < 10) ? mp + 3 : mp - 9;
+        int year = (int) ((days + 719468) / 146097) * 400 + yoe
+            + ((mon <= 2) ? 1 : 0);
+
+        while (true) {
+            // get year...................................................
+            int t = nextYear(year);
+            if (t < 0) {
+                return NO_TIME_AFTER; // ran out of years...
+            }
+            if (t != year) {
+                year = t;
+                mon = 1;
+                day = 1;
+                hr = min = sec = 0;
+            }
+
+            // get month...................................................
+            t = nextSetBit(monthsMask, mon);
+            if (t < 0) {
+                year++;
+                mon = 1;
+                day = 1;
+                hr = min = sec = 0;
+                continue;
+            }
+            if (t != mon) {
+                mon = t;
+                day = 1;
+                hr = min = sec = 0;
+            }
+
+            // get day...................................................
+            if (dayOfMonthSpecified) {
+                t = nextSetBit(daysOfMonthMask, day);
+            } else {
+                int dow = (int) ((daysFromCivil(year, mon, day) + 4) % 7) + 1;
+                int nextDow = nextSetBit(daysOfWeekMask, dow);
+                if (nextDow < 0) {
+                    nextDow = nextSetBit(daysOfWeekMask, 1) + 7;
+                }
+                t = day + nextDow - dow;
+            }
+            if (t < 0 || t > getLastDayOfMonth(mon, year)) {
+                mon++;
+                day = 1;
+                hr = min = sec = 0;
+                continue;
+            }
+            if (t != day) {
+                day = t;
+                hr = min = sec = 0;
+            }
+
+            // get hour...................................................
+            t = nextSetBit(hoursMask, hr);
+            if (t < 0) {
+                day++;
+                hr = min = sec = 0;
+                continue;
+            }
+            if (t != hr) {
+                hr = t;
+                min = sec = 0;
+            }
+
+            // get minute.................................................
+            t = nextSetBit(minutesMask, min);
+            if (t < 0) {
+                hr++;
+                min = sec = 0;
+                continue;
+            }
+            if (t != min) {
+                min = t;
+                sec = 0;
+            }
+
+            // get second.................................................
+            t = nextSetBit(secondsMask, sec);
+            if (t < 0) {
+                min++;
+                sec = 0;
+                continue;
+            }
+            sec = t;
+
+            break;
+        }
+
+        local = (daysFromCivil(year, mon, day) * 86400L
+            + hr * 3600 + min * 60 + sec) * 1000L;
+        long time = local - tz.getOffset(start);
+        if (time + tz.getOffset(time) != local || !isOffsetStable(tz, time)) {
+            return USE_SETS;
+        }
+
+        return time;
+    }
+
+    /**
+     * Whether the time zone's offset is the same for half a day either side
+     * of the given time, so the wall-clock time there is unambiguous.
+     */
+    private static boolean isOffsetStable(TimeZone tz, long time) {
+        int offset = tz.getOffset(time);
+        return (tz.getOffset(time - MILLIS_PER_DAY / 2) == offset)
+            && (tz.getOffset(time + MILLIS_PER_DAY / 2) == offset);
+    }
+
+    /**
+     * Returns the number of days from 1970-01-01 to the given date, which
+     * must not be before 1970.  The day may run past the end of its month.
+     */
+    private static long daysFromCivil(int year, int month, int day) {
+        if (month <= 2) {
+            year--;
+        }
+        int era = year / 400;
+        int yoe = year - era * 400;
+        int doy = (153 * ((month > 2) ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        int doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+        return era * 146097L + doe - 719468;
+    }
+
+    private int nextYear(int year) {
+        for (int i = Math.max(year, MIN_COMPILED_YEAR) - MIN_COMPILED_YEAR; 
+                i <= MAX_COMPILED_YEAR - MIN_COMPILED_YEAR; i = (i | 63) + 1) {
+            int bit = nextSetBit(yearsMask[i >> 6], i & 63);
+            if (bit >= 0) {
+                return MIN_COMPILED_YEAR + (i & ~63) + bit;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the lowest set bit of the mask at or above the given one, or -1.
+     */
+    private static int nextSetBit(long mask, int from) {
+        if (from >= 64) {
+            return -1;
+        }
+        mask &= (-1L << from);
+        if (mask == 0) {
+            return -1;
+        }
+
+        int bit = 0;
+        if ((mask & 0xFFFFFFFFL) == 0) {
+            bit += 32;
+            mask >>>= 32;
+        }
+        if ((mask & 0xFFFFL) == 0) {
+            bit += 16;
+            mask >>>= 16;
+        }
+        if ((mask & 0xFFL) == 0) {
+            bit += 8;
+            mask >>>= 8;
+        }
+        if ((mask & 0xFL) == 0) {
+            bit += 4;
+            mask >>>= 4;
+        }
+        if ((mask & 0x3L) == 0) {
+            bit += 2;
+            mask >>>= 2;
+        }
+        if ((mask & 0x1L) == 0) {
+            bit += 1;
+        }
+        return bit;
+    }
+
+    /**
+     * Computes the next time after the given time by walking the
+     * <code>TreeSet</code> of each field.  Handles every expression, and is
+     * used for those that can't be compiled into bit masks.
+     */
+    protected Date getTimeAfterUsingSets(Date afterTime) {
 
         Calendar cl = Calendar.getInstance(getTimeZone());
 
@@ -1552,6 +1815,50 @@ public class CronExpression implements Serializable, Cloneable {
     }
     
 
+    /**
+     * Builds the bit masks used by <code>getTimeAfter()</code> from the parsed
+     * field sets, if the expression uses no 'L', 'W' or '#' characters.
+     */
+    protected void compileExpression() {
+        compiled = !lastdayOfWeek && nthdayOfWeek == 0 && !lastdayOfMonth
+            && !nearestWeekday;
+        if (!compiled) {
+            return;
+        }
+
+        dayOfMonthSpecified = !daysOfMonth.contains(NO_SPEC);
+        secondsMask = toMask(seconds, 0, 59);
+        minutesMask = toMask(minutes, 0, 59);
+        hoursMask = toMask(hours, 0, 23);
+        daysOfMonthMask = toMask(daysOfMonth, 1, 31);
+        monthsMask = toMask(months, 1, 12);
+        daysOfWeekMask = toMask(daysOfWeek, 1, 7);
+
+        // years before 1970 can never be reached, and neither can years
+        // after 2099, as with getTimeAfterUsingSets()
+        yearsMask = new long[(MAX_COMPILED_YEAR - MIN_COMPILED_YEAR) / 64 + 1];
+        Iterator itr = years.iterator();
+        while (itr.hasNext()) {
+            int year = ((Integer) itr.next()).intValue();
+            if (year >= MIN_COMPILED_YEAR && year <= MAX_COMPILED_YEAR) {
+                int i = year - MIN_COMPILED_YEAR;
+                yearsMask[i >> 6] |= (1L << (i & 63));
+            }
+        }
+    }
+
+    private static long toMask(TreeSet set, int min, int max) {
+        long mask = 0;
+        Iterator itr = set.iterator();
+        while (itr.hasNext()) {
+            int val = ((Integer) itr.next()).intValue();
+            if (val >= min && val <= max) {
+                mask |= (1L << val);
+            }
+        }
+        return mask;
+    }
+
     private void readObject(java.io.ObjectInputStream stream)
         throws java.io.IOException, ClassNotFoundException {
         
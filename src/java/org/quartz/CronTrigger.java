@@ -25,6 +25,8 @@ import java.util.Calendar;
 import java.util.Date;
 import java.util.TimeZone;
 
+import org.quartz.impl.calendar.IndexedCalendar;
+
 
 /**
  * <p>
@@ -740,7 +742,7 @@ public class CronTrigger extends Trigger {
             Date newFireTime = getFireTimeAfter(new Date());
             while (newFireTime != null && cal != null
                     && !cal.isTimeIncluded(newFireTime.getTime())) {
-                newFireTime = getFireTimeAfter(newFireTime);
+                newFireTime = getFireTimeAfterExcluded(newFireTime, cal);
             }
             setNextFireTime(newFireTime);
         } else if (instr == MISFIRE_INSTRUCTION_FIRE_ONCE_NOW) {
@@ -881,7 +883,7 @@ public class CronTrigger extends Trigger {
 
         while (nextFireTime != null && calendar != null
                 && !calendar.isTimeIncluded(nextFireTime.getTime())) {
-            nextFireTime = getFireTimeAfter(nextFireTime);
+            nextFireTime = getFireTimeAfterExcluded(nextFireTime, calendar);
         }
     }
 
@@ -900,7 +902,10 @@ public class CronTrigger extends Trigger {
         Date now = new Date();
         while (nextFireTime != null && !calendar.isTimeIncluded(nextFireTime.getTime())) {
 
-            nextFireTime = getFireTimeAfter(nextFireTime);
+            // misfired times are stepped over one by one, as below
+            nextFireTime = nextFireTime.before(now)
+                ? getFireTimeAfter(nextFireTime)
+                : getFireTimeAfterExcluded(nextFireTime, calendar);
 
             if(nextFireTime == null)
             	break;
@@ -944,12 +949,31 @@ public class CronTrigger extends Trigger {
 
         while (nextFireTime != null && calendar != null
                 && !calendar.isTimeIncluded(nextFireTime.getTime())) {
-            nextFireTime = getFireTimeAfter(nextFireTime);
+            nextFireTime = getFireTimeAfterExcluded(nextFireTime, calendar);
         }
 
         return nextFireTime;
     }
 
+    /**
+     * <p>
+     * Get the fire time after the given one, which the calendar excludes.
+     * An <code>{@link IndexedCalendar}</code> can say when the time it
+     * excludes ends, so the fire times up to then are skipped at once,
+     * rather than checked one by one.
+     * </p>
+     */
+    private Date getFireTimeAfterExcluded(Date fireTime, org.quartz.Calendar calendar) {
+        if (calendar instanceof IndexedCalendar) {
+            long includedTime = calendar.getNextIncludedTime(fireTime.getTime());
+            if (includedTime > fireTime.getTime()) {
+                return getFireTimeAfter(new Date(includedTime - 1));
+            }
+        }
+
+        return getFireTimeAfter(fireTime);
+    }
+
     public String getExpressionSummary() {
         return cronEx == null ? null : cronEx.getExpressionSummary();
     }
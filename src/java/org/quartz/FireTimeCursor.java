@@ -0,0 +1,224 @@
+/*
+ * Copyright 2001-2009 James House
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.quartz;
+
+import java.util.Date;
+
+import org.quartz.impl.calendar.IndexedCalendar;
+
+/**
+ * <p>
+ * Steps through the upcoming fire times of a <code>{@link Trigger}</code>,
+ * one at a time, as <code>long</code> milliseconds, without collecting them.
+ * </p>
+ *
+ * <pre>
+ *   FireTimeCursor cursor = new FireTimeCursor(trigger, cal);
+ *   while (cursor.next()) {
+ *       long fireTime = cursor.getFireTime();
+ *       ...
+ *   }
+ * </pre>
+ *
+ * <p>
+ * The trigger is cloned, so its state is not altered.  The fire times of a
+ * <code>SimpleTrigger</code> without a calendar are computed directly;
+ * other triggers are stepped as the scheduler would step them, by calling
+ * <code>triggered()</code> on the clone.  A calendar that can be indexed is
+ * (see <code>{@link IndexedCalendar#index(Calendar)}</code>), so it must not
+ * be changed while the cursor is in use.
+ * </p>
+ *
+ * @see TriggerUtils#computeFireTimes(Trigger, Calendar, int)
+ * @see TriggerUtils#computeFireTimesBetween(Trigger, Calendar, Date, Date)
+ */
+public class FireTimeCursor {
+
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     * Data members.
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    private final Trigger trigger;
+
+    private final Calendar calendar;
+
+    private final long from;
+
+    private final long to;
+
+    private boolean started = false;
+
+    private long fireTime = -1;
+
+    // the state of a SimpleTrigger stepped directly, if it is
+    private boolean simple;
+
+    private int timesTriggered;
+
+    private long startTime;
+
+    private long endTime;
+
+    private int repeatCount;
+
+    private long repeatInterval;
+
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     * Constructors.
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    /**
+     * <p>
+     * Create a cursor over all the upcoming fire times of the given trigger,
+     * starting with its next fire time (computing its first fire time if it
+     * has none).
+     * </p>
+     *
+     * @param calendar the calendar to apply to the trigger's schedule, or
+     *        <code>null</code>.
+     */
+    public FireTimeCursor(Trigger trigger, Calendar calendar) {
+        this(trigger, calendar, null, null);
+    }
+
+    /**
+     * <p>
+     * Create a cursor over the upcoming fire times of the given trigger that
+     * fall within the given range, inclusive.  If the trigger has no next
+     * fire time, it is given the range as its start and end time before its
+     * first fire time is computed.
+     * </p>
+     *
+     * @param calendar the calendar to apply to the trigger's schedule, or
+     *        <code>null</code>.
+     */
+    public FireTimeCursor(Trigger trigger, Calendar calendar, Date from, Date to) {
+        this.trigger = (Trigger) trigger.clone();
+        this.calendar = IndexedCalendar.index(calendar);
+        this.from = (from == null) ? Long.MIN_VALUE : from.getTime();
+        this.to = (to == null) ? Long.MAX_VALUE : to.getTime();
+
+        if (this.trigger.getNextFireTime() == null) {
+            if (from != null) {
+                this.trigger.setStartTime(from);
+                this.trigger.setEndTime(to);
+            }
+            this.trigger.computeFirstFireTime(this.calendar);
+        }
+
+        if (this.calendar == null && this.trigger.getClass() == SimpleTrigger.class) {
+            SimpleTrigger st = (SimpleTrigger) this.trigger;
+            simple = true;
+            timesTriggered = st.getTimesTriggered();
+            startTime = st.getStartTime().getTime();
+            endTime = (st.getEndTime() == null)
+                    ? Long.MAX_VALUE : st.getEndTime().getTime();
+            repeatCount = st.getRepeatCount();
+            repeatInterval = st.getRepeatInterval();
+        }
+    }
+
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     * Interface.
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    /**
+     * <p>
+     * Move on to the next fire time (the first, on the first call).
+     * </p>
+     *
+     * @return <code>false</code> if the trigger won't fire again (within the
+     *         range, if there is one).
+     */
+    public boolean next() {
+        do {
+            if (!started) {
+                started = true;
+                Date next = trigger.getNextFireTime();
+                fireTime = (next == null) ? -1 : next.getTime();
+            } else if (fireTime >= 0) {
+                fireTime = simple ? getSimpleFireTimeAfter() : getFireTimeAfter();
+            }
+        } while (fireTime >= 0 && fireTime < from);
+
+        if (fireTime > to) {
+            fireTime = -1;
+        }
+        return fireTime >= 0;
+    }
+
+    /**
+     * <p>
+     * Get the fire time the cursor is on, in milliseconds.
+     * </p>
+     *
+     * @return -1 before the first call to <code>next()</code>, or once it
+     *         has returned <code>false</code>.
+     */
+    public long getFireTime() {
+        return fireTime;
+    }
+
+    private long getFireTimeAfter() {
+        trigger.triggered(calendar);
+        Date next = trigger.getNextFireTime();
+        return (next == null) ? -1 : next.getTime();
+    }
+
+    /**
+     * Does what <code>SimpleTrigger.triggered()</code> does without a
+     * calendar, without creating any <code>Date</code>s.
+     */
+    private long getSimpleFireTimeAfter() {
+        timesTriggered++;
+
+        if (repeatCount != SimpleTrigger.REPEAT_INDEFINITELY
+                && timesTriggered > repeatCount) {
+            return -1;
+        }
+        if (repeatCount == 0 && fireTime >= startTime) {
+            return -1;
+        }
+        if (endTime <= fireTime) {
+            return -1;
+        }
+        if (fireTime < startTime) {
+            return startTime;
+        }
+
+        long numberOfTimesExecuted = ((fireTime - startTime) / repeatInterval) + 1;
+        if (repeatCount != SimpleTrigger.REPEAT_INDEFINITELY
+                && numberOfTimesExecuted > repeatCount) {
+            return -1;
+        }
+
+        long time = startTime + (numberOfTimesExecuted * repeatInterval);
+        return (endTime <= time) ? -1 : time;
+    }
+}
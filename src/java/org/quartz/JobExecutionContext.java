@@ -133,10 +133,6 @@ public class JobExecutionContext implements java.io.Serializable {
         this.scheduledFireTime = firedBundle.getScheduledFireTime();
         this.prevFireTime = firedBundle.getPrevFireTime();
         this.nextFireTime = firedBundle.getNextFireTime();
-        
-        this.jobDataMap = new JobDataMap();
-        this.jobDataMap.putAll(jobDetail.getJobDataMap());
-        this.jobDataMap.putAll(trigger.getJobDataMap());
     }
 
     /*
@@ -221,6 +217,12 @@ public class JobExecutionContext implements java.io.Serializable {
      * 
      */
     public JobDataMap getMergedJobDataMap() {
+        // merged on first use, as the maps may be loaded lazily
+        if (jobDataMap == null) {
+            jobDataMap = new JobDataMap();
+            jobDataMap.putAll(jobDetail.getJobDataMap());
+            jobDataMap.putAll(trigger.getJobDataMap());
+        }
         return jobDataMap;
     }
 
@@ -21,6 +21,8 @@ import java.text.NumberFormat;
 import java.util.Date;
 import java.util.TimeZone;
 
+import org.quartz.impl.calendar.IndexedCalendar;
+
 /**
  * A trigger which fires on the N<SUP>th</SUP> day of every interval type 
  * ({@link #INTERVAL_TYPE_WEEKLY}, {@link #INTERVAL_TYPE_MONTHLY} or 
@@ -110,6 +112,8 @@ public class NthIncludedDayTrigger extends Trigger {
      */
     public static final int INTERVAL_TYPE_WEEKLY = 3;
     
+    private static final long MILLISECONDS_IN_DAY = 24L * 60L * 60L * 1000L;
+    
     private Date startTime = new Date();
     private Date endTime;
     private Date previousFireTime;
@@ -822,13 +826,18 @@ public class NthIncludedDayTrigger extends Trigger {
                 //treating a null calendar as an all-inclusive calendar,
                 // increment currN if the current date being tested is included
                 // on the calendar
-                if ((calendar == null) 
-                        || (calendar.isTimeIncluded(currCal.getTime().getTime()))) {
+                boolean included = (calendar == null) 
+                        || (calendar.isTimeIncluded(currCal.getTime().getTime()));
+                if (included) {
                     currN++;
                 }
 
                 if (currN != this.n) {
-                    currCal.add(java.util.Calendar.DATE, 1);
+                    if (included) {
+                        currCal.add(java.util.Calendar.DATE, 1);
+                    } else {
+                        skipExcludedDays(currCal, java.util.Calendar.WEEK_OF_YEAR);
+                    }
                 }
                 
                 //if we pass endTime, drop out and return null.
@@ -911,13 +920,18 @@ public class NthIncludedDayTrigger extends Trigger {
                 //treating a null calendar as an all-inclusive calendar,
                 // increment currN if the current date being tested is included
                 // on the calendar
-                if ((calendar == null) 
-                        || (calendar.isTimeIncluded(currCal.getTime().getTime()))) {
+                boolean included = (calendar == null) 
+                        || (calendar.isTimeIncluded(currCal.getTime().getTime()));
+                if (included) {
                     currN++;
                 }
 
                 if (currN != this.n) {
-                    currCal.add(java.util.Calendar.DATE, 1);
+                    if (included) {
+                        currCal.add(java.util.Calendar.DATE, 1);
+                    } else {
+                        skipExcludedDays(currCal, java.util.Calendar.MONTH);
+                    }
                 }
                 
                 //if we pass endTime, drop out and return null.
@@ -994,13 +1008,18 @@ public class NthIncludedDayTrigger extends Trigger {
                 //treating a null calendar as an all-inclusive calendar,
                 // increment currN if the current date being tested is included
                 // on the calendar
-                if ((calendar == null) 
-                        || (calendar.isTimeIncluded(currCal.getTime().getTime()))) {
+                boolean included = (calendar == null) 
+                        || (calendar.isTimeIncluded(currCal.getTime().getTime()));
+                if (included) {
                     currN++;
                 }
 
                 if (currN != this.n) {
-                    currCal.add(java.util.Calendar.DATE, 1);
+                    if (included) {
+                        currCal.add(java.util.Calendar.DATE, 1);
+                    } else {
+                        skipExcludedDays(currCal, java.util.Calendar.YEAR);
+                    }
                 }
                 
                 //if we pass endTime, drop out and return null.
@@ -1032,4 +1051,57 @@ public class NthIncludedDayTrigger extends Trigger {
             return null;
         }
     }
+
+    /**
+     * Moves the given fire time, which the calendar excludes, on to the next
+     * day that may be included. An <CODE>{@link IndexedCalendar}</CODE> can
+     * say when the time it excludes ends, so the days whose fire times fall
+     * before then are skipped at once, though never past the end of the
+     * current week, month or year (given by <CODE>periodField</CODE>), so
+     * that the callers still see each new period begin.
+     * 
+     * @param currCal the excluded fire time, moved on in place
+     * @param periodField the field of <CODE>currCal</CODE> that the caller 
+     *                    counts periods by
+     */
+    private void skipExcludedDays(java.util.Calendar currCal, int periodField) {
+        int days = 1;
+        
+        if (calendar instanceof IndexedCalendar) {
+            long fireTime = currCal.getTime().getTime();
+            long includedTime = calendar.getNextIncludedTime(fireTime);
+            if (includedTime > fireTime) {
+                long daysExcluded = 
+                    (includedTime - fireTime + MILLISECONDS_IN_DAY - 1) / MILLISECONDS_IN_DAY;
+                days = (int) Math.max(1, 
+                        Math.min(daysExcluded, getDaysLeftInPeriod(currCal, periodField)));
+            }
+            
+            //across a daylight savings change the last day skipped may not
+            // fire before the included time after all
+            if (days > 1) {
+                java.util.Calendar lastSkipped = (java.util.Calendar) currCal.clone();
+                lastSkipped.add(java.util.Calendar.DATE, days - 1);
+                if (lastSkipped.getTime().getTime() >= includedTime) {
+                    days--;
+                }
+            }
+        }
+        
+        currCal.add(java.util.Calendar.DATE, days);
+    }
+    
+    private int getDaysLeftInPeriod(java.util.Calendar currCal, int periodField) {
+        switch (periodField) {
+            case java.util.Calendar.WEEK_OF_YEAR:
+                return (currCal.getFirstDayOfWeek() 
+                        - currCal.get(java.util.Calendar.DAY_OF_WEEK) + 6) % 7;
+            case java.util.Calendar.MONTH:
+                return currCal.getActualMaximum(java.util.Calendar.DAY_OF_MONTH) 
+                        - currCal.get(java.util.Calendar.DAY_OF_MONTH);
+            default:
+                return currCal.getActualMaximum(java.util.Calendar.DAY_OF_YEAR) 
+                        - currCal.get(java.util.Calendar.DAY_OF_YEAR);
+        }
+    }
 }
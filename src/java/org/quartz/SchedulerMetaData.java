@@ -69,6 +69,8 @@ public class SchedulerMetaData implements java.io.Serializable {
 
     private String version;
 
+    private SchedulerMetrics metrics;
+
     /*
      * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
      * 
@@ -82,6 +84,16 @@ public class SchedulerMetaData implements java.io.Serializable {
             boolean isInStandbyMode, boolean shutdown, Date startTime, int numJobsExec,
             Class jsClass, boolean jsPersistent, Class tpClass, int tpSize,
             String version) {
+        this(schedName, schedInst, schedClass, isRemote, started, 
+                isInStandbyMode, shutdown, startTime, numJobsExec, jsClass, 
+                jsPersistent, tpClass, tpSize, version, null);
+    }
+
+    public SchedulerMetaData(String schedName, String schedInst,
+            Class schedClass, boolean isRemote, boolean started,
+            boolean isInStandbyMode, boolean shutdown, Date startTime, int numJobsExec,
+            Class jsClass, boolean jsPersistent, Class tpClass, int tpSize,
+            String version, SchedulerMetrics metrics) {
         this.schedName = schedName;
         this.schedInst = schedInst;
         this.schedClass = schedClass;
@@ -96,6 +108,7 @@ public class SchedulerMetaData implements java.io.Serializable {
         this.tpClass = tpClass;
         this.tpSize = tpSize;
         this.version = version;
+        this.metrics = metrics;
     }
 
     /*
@@ -278,6 +291,18 @@ public class SchedulerMetaData implements java.io.Serializable {
         return version;
     }
 
+    /**
+     * <p>
+     * Returns a snapshot of the timings recorded by the <code>Scheduler</code>,
+     * taken when this meta-data was.
+     * </p>
+     * 
+     * @return null if the <code>Scheduler</code> did not provide them.
+     */
+    public SchedulerMetrics getMetrics() {
+        return metrics;
+    }
+
     /**
      * <p>
      * Return a simple string representation of this object.
@@ -368,6 +393,11 @@ public class SchedulerMetaData implements java.io.Serializable {
         }
         str.append("\n");
 
+        if (getMetrics() != null) {
+            str.append("  Metrics:\n");
+            str.append(getMetrics().getSummary());
+        }
+
         return str.toString();
     }
 
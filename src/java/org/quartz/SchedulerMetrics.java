@@ -0,0 +1,376 @@
+/*
+ * Copyright 2001-2009 James House
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.quartz;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeSet;
+
+import org.quartz.utils.Histogram;
+
+/**
+ * <p>
+ * Timings recorded by a <code>Scheduler</code> while firing triggers, to
+ * tell where the time between a trigger's scheduled fire time and the end
+ * of its job's execution goes. All times are in milliseconds.
+ * </p>
+ *
+ * <ul>
+ * <li><b>fire lateness</b> - from the scheduled fire time to the start of
+ * the job's execution</li>
+ * <li><b>thread wait</b> - spent by the scheduler thread waiting for the
+ * <code>ThreadPool</code> to have threads available</li>
+ * <li><b>acquire</b> - spent in the <code>JobStore</code> acquiring the next
+ * triggers to fire</li>
+ * <li><b>trigger fired</b> - spent in the <code>JobStore</code> marking
+ * acquired triggers as fired</li>
+ * <li><b>lock wait</b> - spent waiting for database locks, by JDBC job
+ * stores</li>
+ * <li><b>cluster recovery</b> - spent by clustered JDBC job stores
+ * recovering the jobs of failed instances</li>
+ * <li><b>job run time</b> - of job executions, by job group</li>
+ * </ul>
+ *
+ * <p>
+ * Counts are kept too, of misfires, statement cache hits and misses, and
+ * acquired triggers the scheduler gave back to the <code>JobStore</code>
+ * without firing them.
+ * </p>
+ *
+ * <p>
+ * The instance held by the scheduler is updated as it runs; the one from
+ * <code>{@link SchedulerMetaData#getMetrics()}</code> is a snapshot.
+ * </p>
+ *
+ * @see org.quartz.utils.Histogram
+ */
+public class SchedulerMetrics implements java.io.Serializable {
+
+    private static final long serialVersionUID = -2403866435938146735L;
+
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     * Data members.
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    private Histogram fireLateness = new Histogram();
+
+    private Histogram threadWaitTime = new Histogram();
+
+    private Histogram acquireTime = new Histogram();
+
+    private Histogram triggerFiredTime = new Histogram();
+
+    private Histogram lockWaitTime = new Histogram();
+
+    private Histogram clusterRecoveryTime = new Histogram();
+
+    private Histogram jobRunTime = new Histogram();
+
+    private HashMap jobRunTimeByGroup = new HashMap();
+
+    private long misfireCount = 0;
+
+    private long statementCacheHits = 0;
+
+    private long statementCacheMisses = 0;
+
+    private long releasedTriggerCount = 0;
+
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     * Interface.
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    public void recordFireLateness(long millis) {
+        fireLateness.record(millis);
+    }
+
+    public void recordThreadWaitTime(long millis) {
+        threadWaitTime.record(millis);
+    }
+
+    public void recordAcquireTime(long millis) {
+        acquireTime.record(millis);
+    }
+
+    public void recordTriggerFiredTime(long millis) {
+        triggerFiredTime.record(millis);
+    }
+
+    public void recordLockWaitTime(long millis) {
+        lockWaitTime.record(millis);
+    }
+
+    public void recordClusterRecoveryTime(long millis) {
+        clusterRecoveryTime.record(millis);
+    }
+
+    public void recordJobRunTime(String jobGroup, long millis) {
+        Histogram groupRunTime;
+        synchronized (jobRunTimeByGroup) {
+            groupRunTime = (Histogram) jobRunTimeByGroup.get(jobGroup);
+            if (groupRunTime == null) {
+                groupRunTime = new Histogram();
+                jobRunTimeByGroup.put(jobGroup, groupRunTime);
+            }
+        }
+        groupRunTime.record(millis);
+        jobRunTime.record(millis);
+    }
+
+    public synchronized void recordMisfire() {
+        misfireCount++;
+    }
+
+    public synchronized void recordReleasedTrigger() {
+        releasedTriggerCount++;
+    }
+
+    public synchronized void recordStatementCacheHit(boolean hit) {
+        if (hit) {
+            statementCacheHits++;
+        } else {
+            statementCacheMisses++;
+        }
+    }
+
+    /**
+     * <p>
+     * Returns the times from triggers' scheduled fire times to the start of
+     * their jobs' execution.
+     * </p>
+     */
+    public Histogram getFireLateness() {
+        return fireLateness;
+    }
+
+    /**
+     * <p>
+     * Returns the times the scheduler thread waited for the
+     * <code>ThreadPool</code> to have threads available.
+     * </p>
+     */
+    public Histogram getThreadWaitTime() {
+        return threadWaitTime;
+    }
+
+    /**
+     * <p>
+     * Returns the times taken to acquire the next triggers to fire.
+     * </p>
+     */
+    public Histogram getAcquireTime() {
+        return acquireTime;
+    }
+
+    /**
+     * <p>
+     * Returns the times taken to mark acquired triggers as fired.
+     * </p>
+     */
+    public Histogram getTriggerFiredTime() {
+        return triggerFiredTime;
+    }
+
+    /**
+     * <p>
+     * Returns the times spent waiting for database locks, when using a JDBC
+     * <code>JobStore</code>.
+     * </p>
+     */
+    public Histogram getLockWaitTime() {
+        return lockWaitTime;
+    }
+
+    /**
+     * <p>
+     * Returns the times spent recovering the jobs of failed instances, when
+     * using a clustered JDBC <code>JobStore</code>.
+     * </p>
+     */
+    public Histogram getClusterRecoveryTime() {
+        return clusterRecoveryTime;
+    }
+
+    /**
+     * <p>
+     * Returns the execution times of all jobs.
+     * </p>
+     */
+    public Histogram getJobRunTime() {
+        return jobRunTime;
+    }
+
+    /**
+     * <p>
+     * Returns the execution times of the jobs in the given group.
+     * </p>
+     *
+     * @return null if no job of the group has run.
+     */
+    public Histogram getJobRunTime(String jobGroup) {
+        synchronized (jobRunTimeByGroup) {
+            return (Histogram) jobRunTimeByGroup.get(jobGroup);
+        }
+    }
+
+    /**
+     * <p>
+     * Returns the names of the job groups that have had jobs run.
+     * </p>
+     */
+    public String[] getJobGroupNames() {
+        synchronized (jobRunTimeByGroup) {
+            return (String[]) new TreeSet(jobRunTimeByGroup.keySet()).toArray(
+                    new String[jobRunTimeByGroup.size()]);
+        }
+    }
+
+    /**
+     * <p>
+     * Returns the number of misfired triggers handled.
+     * </p>
+     */
+    public synchronized long getMisfireCount() {
+        return misfireCount;
+    }
+
+    /**
+     * <p>
+     * Returns the number of statements prepared from a JDBC 
+     * <code>JobStore</code>'s statement cache.
+     * </p>
+     */
+    public synchronized long getStatementCacheHits() {
+        return statementCacheHits;
+    }
+
+    /**
+     * <p>
+     * Returns the number of statements a JDBC <code>JobStore</code> with a 
+     * statement cache had to prepare on the database.
+     * </p>
+     */
+    public synchronized long getStatementCacheMisses() {
+        return statementCacheMisses;
+    }
+
+    /**
+     * <p>
+     * Returns the number of acquired triggers the scheduler released back to
+     * the <code>JobStore</code> without firing them.
+     * </p>
+     */
+    public synchronized long getReleasedTriggerCount() {
+        return releasedTriggerCount;
+    }
+
+    /**
+     * <p>
+     * Clear all the recorded values.
+     * </p>
+     */
+    public void reset() {
+        fireLateness.reset();
+        threadWaitTime.reset();
+        acquireTime.reset();
+        triggerFiredTime.reset();
+        lockWaitTime.reset();
+        clusterRecoveryTime.reset();
+        jobRunTime.reset();
+        synchronized (jobRunTimeByGroup) {
+            jobRunTimeByGroup.clear();
+        }
+        synchronized (this) {
+            misfireCount = 0;
+            statementCacheHits = 0;
+            statementCacheMisses = 0;
+            releasedTriggerCount = 0;
+        }
+    }
+
+    /**
+     * <p>
+     * Returns a copy of the values recorded so far, that is not updated
+     * further.
+     * </p>
+     */
+    public SchedulerMetrics snapshot() {
+        SchedulerMetrics copy = new SchedulerMetrics();
+        copy.fireLateness = (Histogram) fireLateness.clone();
+        copy.threadWaitTime = (Histogram) threadWaitTime.clone();
+        copy.acquireTime = (Histogram) acquireTime.clone();
+        copy.triggerFiredTime = (Histogram) triggerFiredTime.clone();
+        copy.lockWaitTime = (Histogram) lockWaitTime.clone();
+        copy.clusterRecoveryTime = (Histogram) clusterRecoveryTime.clone();
+        copy.jobRunTime = (Histogram) jobRunTime.clone();
+        synchronized (jobRunTimeByGroup) {
+            Iterator itr = jobRunTimeByGroup.entrySet().iterator();
+            while (itr.hasNext()) {
+                Map.Entry entry = (Map.Entry) itr.next();
+                copy.jobRunTimeByGroup.put(entry.getKey(),
+                        ((Histogram) entry.getValue()).clone());
+            }
+        }
+        synchronized (this) {
+            copy.misfireCount = misfireCount;
+            copy.statementCacheHits = statementCacheHits;
+            copy.statementCacheMisses = statementCacheMisses;
+            copy.releasedTriggerCount = releasedTriggerCount;
+        }
+        return copy;
+    }
+
+    /**
+     * <p>
+     * Returns a formatted (human readable) String describing the recorded
+     * values, one line per histogram.
+     * </p>
+     */
+    public String getSummary() {
+        StringBuffer str = new StringBuffer();
+        str.append("  Fire lateness (ms): ").append(fireLateness).append("\n");
+        str.append("  Thread wait (ms): ").append(threadWaitTime).append("\n");
+        str.append("  Acquire triggers (ms): ").append(acquireTime).append("\n");
+        str.append("  Triggers fired (ms): ").append(triggerFiredTime).append("\n");
+        str.append("  Lock wait (ms): ").append(lockWaitTime).append("\n");
+        str.append("  Cluster recovery (ms): ").append(clusterRecoveryTime).append("\n");
+        str.append("  Misfires: ").append(getMisfireCount()).append("\n");
+        str.append("  Statement cache hits/misses: ").append(getStatementCacheHits())
+            .append("/").append(getStatementCacheMisses()).append("\n");
+        str.append("  Released triggers: ").append(getReleasedTriggerCount()).append("\n");
+        str.append("  Job run time (ms): ").append(jobRunTime).append("\n");
+        String[] groups = getJobGroupNames();
+        for (int i = 0; i < groups.length; i++) {
+            str.append("    ").append(groups[i]).append(": ")
+                .append(getJobRunTime(groups[i])).append("\n");
+        }
+        return str.toString();
+    }
+
+    public String toString() {
+        return getSummary();
+    }
+}
@@ -23,6 +23,8 @@ package org.quartz;
 
 import java.util.Date;
 
+import org.quartz.impl.calendar.IndexedCalendar;
+
 
 /**
  * <p>
@@ -556,7 +558,7 @@ public class SimpleTrigger extends Trigger {
             Date newFireTime = getFireTimeAfter(new Date());
             while (newFireTime != null && cal != null
                     && !cal.isTimeIncluded(newFireTime.getTime())) {
-                newFireTime = getFireTimeAfter(newFireTime);
+                newFireTime = getFireTimeAfterExcluded(newFireTime, cal);
 
                 if(newFireTime == null)
                 	break;
@@ -573,7 +575,7 @@ public class SimpleTrigger extends Trigger {
             Date newFireTime = getFireTimeAfter(new Date());
             while (newFireTime != null && cal != null
                     && !cal.isTimeIncluded(newFireTime.getTime())) {
-                newFireTime = getFireTimeAfter(newFireTime);
+                newFireTime = getFireTimeAfterExcluded(newFireTime, cal);
 
                 if(newFireTime == null)
                 	break;
@@ -649,7 +651,7 @@ public class SimpleTrigger extends Trigger {
         while (nextFireTime != null && calendar != null
                 && !calendar.isTimeIncluded(nextFireTime.getTime())) {
         	
-            nextFireTime = getFireTimeAfter(nextFireTime);
+            nextFireTime = getFireTimeAfterExcluded(nextFireTime, calendar);
 
             if(nextFireTime == null)
             	break;
@@ -678,7 +680,10 @@ public class SimpleTrigger extends Trigger {
         Date now = new Date();
         while (nextFireTime != null && !calendar.isTimeIncluded(nextFireTime.getTime())) {
 
-            nextFireTime = getFireTimeAfter(nextFireTime);
+            // misfired times are stepped over one by one, as below
+            nextFireTime = nextFireTime.before(now)
+                ? getFireTimeAfter(nextFireTime)
+                : getFireTimeAfterExcluded(nextFireTime, calendar);
 
             if(nextFireTime == null)
             	break;
@@ -721,7 +726,7 @@ public class SimpleTrigger extends Trigger {
 
         while (nextFireTime != null && calendar != null
                 && !calendar.isTimeIncluded(nextFireTime.getTime())) {
-            nextFireTime = getFireTimeAfter(nextFireTime);
+            nextFireTime = getFireTimeAfterExcluded(nextFireTime, calendar);
             
             if(nextFireTime == null)
             	break;
@@ -889,6 +894,25 @@ public class SimpleTrigger extends Trigger {
         return time;
     }
 
+    /**
+     * <p>
+     * Get the fire time after the given one, which the calendar excludes.
+     * An <code>{@link IndexedCalendar}</code> can say when the time it
+     * excludes ends, so the fire times up to then are skipped at once,
+     * rather than checked one by one.
+     * </p>
+     */
+    private Date getFireTimeAfterExcluded(Date fireTime, Calendar calendar) {
+        if (calendar instanceof IndexedCalendar) {
+            long includedTime = calendar.getNextIncludedTime(fireTime.getTime());
+            if (includedTime > fireTime.getTime()) {
+                return getFireTimeAfter(new Date(includedTime - 1));
+            }
+        }
+
+        return getFireTimeAfter(fireTime);
+    }
+
     /**
      * <p>
      * Returns the last time at which the <code>SimpleTrigger</code> will
@@ -1257,25 +1257,15 @@ public class TriggerUtils {
      * @param numTimes
      *          The number of next fire times to produce
      * @return List of java.util.Date objects
+     * @see FireTimeCursor
      */
     public static List computeFireTimes(Trigger trigg, org.quartz.Calendar cal,
             int numTimes) {
         LinkedList lst = new LinkedList();
 
-        Trigger t = (Trigger) trigg.clone();
-
-        if (t.getNextFireTime() == null) {
-            t.computeFirstFireTime(cal);
-        }
-
-        for (int i = 0; i < numTimes; i++) {
-            Date d = t.getNextFireTime();
-            if (d != null) {
-                lst.add(d);
-                t.triggered(cal);
-            } else {
-                break;
-            }
+        FireTimeCursor cursor = new FireTimeCursor(trigg, cal);
+        for (int i = 0; i < numTimes && cursor.next(); i++) {
+            lst.add(new Date(cursor.getFireTime()));
         }
 
         return java.util.Collections.unmodifiableList(lst);
@@ -1303,36 +1293,15 @@ public class TriggerUtils {
      * @param to
      *          The ending date at which to stop finding fire times
      * @return List of java.util.Date objects
+     * @see FireTimeCursor
      */
     public static List computeFireTimesBetween(Trigger trigg,
             org.quartz.Calendar cal, Date from, Date to) {
         LinkedList lst = new LinkedList();
 
-        Trigger t = (Trigger) trigg.clone();
-
-        if (t.getNextFireTime() == null) {
-            t.setStartTime(from);
-            t.setEndTime(to);
-            t.computeFirstFireTime(cal);
-        }
-
-        // TODO: this method could be more efficient by using logic specific
-        //        to the type of trigger ...
-        while (true) {
-            Date d = t.getNextFireTime();
-            if (d != null) {
-                if (d.before(from)) {
-                    t.triggered(cal);
-                    continue;
-                }
-                if (d.after(to)) {
-                    break;
-                }
-                lst.add(d);
-                t.triggered(cal);
-            } else {
-                break;
-            }
+        FireTimeCursor cursor = new FireTimeCursor(trigg, cal, from, to);
+        while (cursor.next()) {
+            lst.add(new Date(cursor.getFireTime()));
         }
 
         return java.util.Collections.unmodifiableList(lst);
@@ -195,6 +195,11 @@ public class JobRunShell implements Runnable {
     
                 long startTime = System.currentTimeMillis();
                 long endTime = startTime;
+
+                if (jec.getScheduledFireTime() != null) {
+                    qs.getMetrics().recordFireLateness(
+                            startTime - jec.getScheduledFireTime().getTime());
+                }
                 
                 // execute the job
                 try {
@@ -221,6 +226,8 @@ public class JobRunShell implements Runnable {
                 } 
                 
                 jec.setJobRunTime(endTime - startTime);
+                qs.getMetrics().recordJobRunTime(jobDetail.getGroup(),
+                        endTime - startTime);
     
                 // notify all job listeners
                 if (!notifyJobListenersComplete(jec, jobExEx)) {
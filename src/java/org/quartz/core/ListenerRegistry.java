@@ -0,0 +1,207 @@
+/*
+ * Copyright 2001-2009 James House
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.quartz.core;
+
+import java.lang.reflect.Array;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * <p>
+ * The global and named listeners of one kind (job or trigger) registered
+ * with a <code>{@link QuartzScheduler}</code>, together with the chains of
+ * listeners to notify for each set of listener names that jobs or triggers
+ * have asked for.
+ * </p>
+ *
+ * <p>
+ * The registry is copy-on-write: every change replaces the maps it keeps,
+ * under the registry's lock, and throws away the resolved chains, so that
+ * reading it while firing takes no lock and makes no copies.
+ * </p>
+ */
+class ListenerRegistry {
+
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     * Constants.
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    /**
+     * The most chains kept before they are all thrown away, in case the
+     * listener names are made up per trigger.
+     */
+    private static final int MAX_CHAINS = 1000;
+
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     * Data members.
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    private final Class listenerType;
+
+    private volatile Map globalListeners = new HashMap();
+
+    private volatile Map listeners = new HashMap();
+
+    private volatile Object[] globalChain;
+
+    private volatile Map chains = new HashMap();
+
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     * Constructors.
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    /**
+     * @param listenerType the listener interface, used as the component type
+     *        of the chains handed out.
+     */
+    ListenerRegistry(Class listenerType) {
+        this.listenerType = listenerType;
+        this.globalChain = (Object[]) Array.newInstance(listenerType, 0);
+    }
+
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     * Interface.
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    public synchronized void addGlobalListener(String name, Object listener) {
+        Map newGlobalListeners = new HashMap(globalListeners);
+        newGlobalListeners.put(name, listener);
+        globalListeners = newGlobalListeners;
+        listenersChanged();
+    }
+
+    public synchronized void addListener(String name, Object listener) {
+        Map newListeners = new HashMap(listeners);
+        newListeners.put(name, listener);
+        listeners = newListeners;
+        listenersChanged();
+    }
+
+    public synchronized boolean removeGlobalListener(String name) {
+        if (!globalListeners.containsKey(name)) {
+            return false;
+        }
+
+        Map newGlobalListeners = new HashMap(globalListeners);
+        newGlobalListeners.remove(name);
+        globalListeners = newGlobalListeners;
+        listenersChanged();
+        return true;
+    }
+
+    public synchronized boolean removeListener(String name) {
+        if (!listeners.containsKey(name)) {
+            return false;
+        }
+
+        Map newListeners = new HashMap(listeners);
+        newListeners.remove(name);
+        listeners = newListeners;
+        listenersChanged();
+        return true;
+    }
+
+    public Object getGlobalListener(String name) {
+        return globalListeners.get(name);
+    }
+
+    public Object getListener(String name) {
+        return listeners.get(name);
+    }
+
+    public List getGlobalListeners() {
+        return new LinkedList(globalListeners.values());
+    }
+
+    public Set getListenerNames() {
+        return new HashSet(listeners.keySet());
+    }
+
+    /**
+     * <p>
+     * Get the global listeners followed by the named ones, in the order of
+     * the given names.  The returned array is shared, and must not be
+     * modified.
+     * </p>
+     *
+     * @return the chain, or <code>null</code> if one of the names isn't
+     *         registered.
+     */
+    public Object[] getChain(String[] names) {
+        if (names.length == 0) {
+            return globalChain;
+        }
+
+        // the names aren't copied unless the chain is new
+        List key = Arrays.asList(names);
+        Object[] chain = (Object[]) chains.get(key);
+        if (chain != null) {
+            return chain;
+        }
+
+        synchronized (this) {
+            Map currentListeners = listeners;
+            Object[] currentGlobalChain = globalChain;
+
+            chain = (Object[]) Array.newInstance(listenerType,
+                    currentGlobalChain.length + names.length);
+            System.arraycopy(currentGlobalChain, 0, chain, 0,
+                    currentGlobalChain.length);
+            for (int i = 0; i < names.length; i++) {
+                Object listener = currentListeners.get(names[i]);
+                if (listener == null) {
+                    return null;
+                }
+                chain[currentGlobalChain.length + i] = listener;
+            }
+
+            Map newChains = (chains.size() < MAX_CHAINS)
+                    ? new HashMap(chains) : new HashMap();
+            newChains.put(Arrays.asList((String[]) names.clone()), chain);
+            chains = newChains;
+        }
+
+        return chain;
+    }
+
+    private void listenersChanged() {
+        globalChain = globalListeners.values().toArray(
+                (Object[]) Array.newInstance(listenerType, globalListeners.size()));
+        chains = new HashMap();
+    }
+}
@@ -28,10 +28,9 @@ import java.rmi.registry.LocateRegistry;
 import java.rmi.registry.Registry;
 import java.rmi.server.UnicastRemoteObject;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
-import java.util.HashSet;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Properties;
 import java.util.Random;
@@ -53,6 +52,7 @@ import org.quartz.Scheduler;
 import org.quartz.SchedulerContext;
 import org.quartz.SchedulerException;
 import org.quartz.SchedulerListener;
+import org.quartz.SchedulerMetrics;
 import org.quartz.listeners.SchedulerListenerSupport;
 import org.quartz.Trigger;
 import org.quartz.TriggerListener;
@@ -130,15 +130,13 @@ public class QuartzScheduler implements RemotableQuartzScheduler {
 
     private SchedulerContext context = new SchedulerContext();
 
-    private HashMap jobListeners = new HashMap(10);
+    private ListenerRegistry jobListeners = new ListenerRegistry(JobListener.class);
 
-    private HashMap globalJobListeners = new HashMap(10);
+    private ListenerRegistry triggerListeners = new ListenerRegistry(TriggerListener.class);
 
-    private HashMap triggerListeners = new HashMap(10);
+    private volatile SchedulerListener[] schedulerListeners = new SchedulerListener[0];
 
-    private HashMap globalTriggerListeners = new HashMap(10);
-
-    private ArrayList schedulerListeners = new ArrayList(10);
+    private final Object schedulerListenerLock = new Object();
 
     private JobFactory jobFactory = new SimpleJobFactory();
     
@@ -514,6 +512,26 @@ public class QuartzScheduler implements RemotableQuartzScheduler {
         return jobMgr.getNumJobsFired();
     }
 
+    /**
+     * <p>
+     * Returns the <code>SchedulerMetrics</code> that this scheduler records
+     * its timings into.
+     * </p>
+     */
+    public SchedulerMetrics getMetrics() {
+        return resources.getMetrics();
+    }
+
+    /**
+     * <p>
+     * Clears the values recorded in this scheduler's
+     * <code>SchedulerMetrics</code>.
+     * </p>
+     */
+    public void resetMetrics() {
+        resources.getMetrics().reset();
+    }
+
     public Class getJobStoreClass() {
         return resources.getJobStore().getClass();
     }
@@ -1433,9 +1451,7 @@ public class QuartzScheduler implements RemotableQuartzScheduler {
                     "JobListener name cannot be empty.");
         }
         
-        synchronized (globalJobListeners) {
-            globalJobListeners.put(jobListener.getName(), jobListener);
-        }
+        jobListeners.addGlobalListener(jobListener.getName(), jobListener);
     }
 
     /**
@@ -1450,9 +1466,7 @@ public class QuartzScheduler implements RemotableQuartzScheduler {
                     "JobListener name cannot be empty.");
         }
 
-        synchronized (jobListeners) {
-            jobListeners.put(jobListener.getName(), jobListener);
-        }
+        jobListeners.addListener(jobListener.getName(), jobListener);
     }
 
     /**
@@ -1480,9 +1494,7 @@ public class QuartzScheduler implements RemotableQuartzScheduler {
      *         removed.
      */
     public boolean removeGlobalJobListener(String name) {
-        synchronized (globalJobListeners) {
-            return (globalJobListeners.remove(name) != null);
-        }
+        return jobListeners.removeGlobalListener(name);
     }
     
     /**
@@ -1495,9 +1507,7 @@ public class QuartzScheduler implements RemotableQuartzScheduler {
      *         removed.
      */
     public boolean removeJobListener(String name) {
-        synchronized (jobListeners) {
-            return (jobListeners.remove(name) != null);
-        }
+        return jobListeners.removeListener(name);
     }
 
     /**
@@ -1507,9 +1517,7 @@ public class QuartzScheduler implements RemotableQuartzScheduler {
      * </p>
      */
     public List getGlobalJobListeners() {
-        synchronized (globalJobListeners) {
-            return new LinkedList(globalJobListeners.values());
-        }
+        return jobListeners.getGlobalListeners();
     }
 
     /**
@@ -1519,9 +1527,7 @@ public class QuartzScheduler implements RemotableQuartzScheduler {
      * </p>
      */
     public Set getJobListenerNames() {
-        synchronized (jobListeners) {
-            return new HashSet(jobListeners.keySet());
-        }
+        return jobListeners.getListenerNames();
     }
 
     /**
@@ -1531,9 +1537,7 @@ public class QuartzScheduler implements RemotableQuartzScheduler {
      * </p>
      */
     public JobListener getGlobalJobListener(String name) {
-        synchronized (globalJobListeners) {
-            return (JobListener)globalJobListeners.get(name);
-        }
+        return (JobListener) jobListeners.getGlobalListener(name);
     }
 
     /**
@@ -1543,9 +1547,7 @@ public class QuartzScheduler implements RemotableQuartzScheduler {
      * </p>
      */
     public JobListener getJobListener(String name) {
-        synchronized (jobListeners) {
-            return (JobListener) jobListeners.get(name);
-        }
+        return (JobListener) jobListeners.getListener(name);
     }
 
     /**
@@ -1566,9 +1568,7 @@ public class QuartzScheduler implements RemotableQuartzScheduler {
                     "TriggerListener name cannot be empty.");
         }
 
-        synchronized (globalTriggerListeners) {
-            globalTriggerListeners.put(triggerListener.getName(), triggerListener);
-        }
+        triggerListeners.addGlobalListener(triggerListener.getName(), triggerListener);
     }
 
     /**
@@ -1583,9 +1583,7 @@ public class QuartzScheduler implements RemotableQuartzScheduler {
                     "TriggerListener name cannot be empty.");
         }
 
-        synchronized (triggerListeners) {
-            triggerListeners.put(triggerListener.getName(), triggerListener);
-        }
+        triggerListeners.addListener(triggerListener.getName(), triggerListener);
     }
 
     /**
@@ -1613,9 +1611,7 @@ public class QuartzScheduler implements RemotableQuartzScheduler {
      *         removed.
      */
     public boolean removeGlobalTriggerListener(String name) {
-        synchronized (globalTriggerListeners) {
-            return (globalTriggerListeners.remove(name) != null);
-        }
+        return triggerListeners.removeGlobalListener(name);
     }
     
     /**
@@ -1628,9 +1624,7 @@ public class QuartzScheduler implements RemotableQuartzScheduler {
      *         removed.
      */
     public boolean removeTriggerListener(String name) {
-        synchronized (triggerListeners) {
-            return (triggerListeners.remove(name) != null);
-        }
+        return triggerListeners.removeListener(name);
     }
 
     /**
@@ -1640,9 +1634,7 @@ public class QuartzScheduler implements RemotableQuartzScheduler {
      * </p>
      */
     public List getGlobalTriggerListeners() {
-        synchronized (globalTriggerListeners) {
-            return new LinkedList(globalTriggerListeners.values());
-        }
+        return triggerListeners.getGlobalListeners();
     }
 
     /**
@@ -1652,9 +1644,7 @@ public class QuartzScheduler implements RemotableQuartzScheduler {
      * </p>
      */
     public Set getTriggerListenerNames() {
-        synchronized (triggerListeners) {
-            return new HashSet(triggerListeners.keySet());
-        }
+        return triggerListeners.getListenerNames();
     }
 
     /**
@@ -1664,9 +1654,7 @@ public class QuartzScheduler implements RemotableQuartzScheduler {
      * </p>
      */
     public TriggerListener getGlobalTriggerListener(String name) {
-        synchronized (globalTriggerListeners) {
-            return (TriggerListener)globalTriggerListeners.get(name);
-        }
+        return (TriggerListener) triggerListeners.getGlobalListener(name);
     }
     
     /**
@@ -1676,9 +1664,7 @@ public class QuartzScheduler implements RemotableQuartzScheduler {
      * </p>
      */
     public TriggerListener getTriggerListener(String name) {
-        synchronized (triggerListeners) {
-            return (TriggerListener) triggerListeners.get(name);
-        }
+        return (TriggerListener) triggerListeners.getListener(name);
     }
 
     /**
@@ -1688,8 +1674,13 @@ public class QuartzScheduler implements RemotableQuartzScheduler {
      * </p>
      */
     public void addSchedulerListener(SchedulerListener schedulerListener) {
-        synchronized (schedulerListeners) {
-            schedulerListeners.add(schedulerListener);
+        synchronized (schedulerListenerLock) {
+            SchedulerListener[] newListeners =
+                new SchedulerListener[schedulerListeners.length + 1];
+            System.arraycopy(schedulerListeners, 0, newListeners, 0,
+                    schedulerListeners.length);
+            newListeners[schedulerListeners.length] = schedulerListener;
+            schedulerListeners = newListeners;
         }
     }
 
@@ -1703,8 +1694,14 @@ public class QuartzScheduler implements RemotableQuartzScheduler {
      *         removed.
      */
     public boolean removeSchedulerListener(SchedulerListener schedulerListener) {
-        synchronized (schedulerListeners) {
-            return schedulerListeners.remove(schedulerListener);
+        synchronized (schedulerListenerLock) {
+            List newListeners = new ArrayList(Arrays.asList(schedulerListeners));
+            if (!newListeners.remove(schedulerListener)) {
+                return false;
+            }
+            schedulerListeners = (SchedulerListener[]) newListeners
+                    .toArray(new SchedulerListener[newListeners.size()]);
+            return true;
         }
     }
 
@@ -1715,9 +1712,7 @@ public class QuartzScheduler implements RemotableQuartzScheduler {
      * </p>
      */
     public List getSchedulerListeners() {
-        synchronized (schedulerListeners) {
-            return (List)schedulerListeners.clone();
-        }
+        return new ArrayList(Arrays.asList(schedulerListeners));
     }
 
     protected void notifyJobStoreJobComplete(SchedulingContext ctxt,
@@ -1741,54 +1736,62 @@ public class QuartzScheduler implements RemotableQuartzScheduler {
         }
     }
 
-    private List buildTriggerListenerList(String[] additionalLstnrs)
+    /**
+     * Get the global trigger listeners followed by the named ones.  The
+     * chain is shared between firings, and must not be modified.
+     */
+    private TriggerListener[] buildTriggerListenerList(String[] additionalLstnrs)
         throws SchedulerException {
-        List triggerListeners = getGlobalTriggerListeners();
-        for (int i = 0; i < additionalLstnrs.length; i++) {
-            TriggerListener tl = getTriggerListener(additionalLstnrs[i]);
-
-            if (tl != null) {
-                triggerListeners.add(tl);
-            } else {
-                throw new SchedulerException("TriggerListener '"
-                        + additionalLstnrs[i] + "' not found.",
-                        SchedulerException.ERR_TRIGGER_LISTENER_NOT_FOUND);
+        TriggerListener[] chain =
+            (TriggerListener[]) triggerListeners.getChain(additionalLstnrs);
+        if (chain == null) {
+            for (int i = 0; i < additionalLstnrs.length; i++) {
+                if (getTriggerListener(additionalLstnrs[i]) == null) {
+                    throw new SchedulerException("TriggerListener '"
+                            + additionalLstnrs[i] + "' not found.",
+                            SchedulerException.ERR_TRIGGER_LISTENER_NOT_FOUND);
+                }
             }
+            // removed and re-added while resolving it, so try again
+            return buildTriggerListenerList(additionalLstnrs);
         }
 
-        return triggerListeners;
+        return chain;
     }
 
-    private List buildJobListenerList(String[] additionalLstnrs)
+    /**
+     * Get the global job listeners followed by the named ones.  The chain
+     * is shared between firings, and must not be modified.
+     */
+    private JobListener[] buildJobListenerList(String[] additionalLstnrs)
         throws SchedulerException {
-        List jobListeners = getGlobalJobListeners();
-        for (int i = 0; i < additionalLstnrs.length; i++) {
-            JobListener jl = getJobListener(additionalLstnrs[i]);
-
-            if (jl != null) {
-                jobListeners.add(jl);
-            } else {
-                throw new SchedulerException("JobListener '"
-                        + additionalLstnrs[i] + "' not found.",
-                        SchedulerException.ERR_JOB_LISTENER_NOT_FOUND);
+        JobListener[] chain = (JobListener[]) jobListeners.getChain(additionalLstnrs);
+        if (chain == null) {
+            for (int i = 0; i < additionalLstnrs.length; i++) {
+                if (getJobListener(additionalLstnrs[i]) == null) {
+                    throw new SchedulerException("JobListener '"
+                            + additionalLstnrs[i] + "' not found.",
+                            SchedulerException.ERR_JOB_LISTENER_NOT_FOUND);
+                }
             }
+            // removed and re-added while resolving it, so try again
+            return buildJobListenerList(additionalLstnrs);
         }
 
-        return jobListeners;
+        return chain;
     }
 
     public boolean notifyTriggerListenersFired(JobExecutionContext jec)
         throws SchedulerException {
         // build a list of all trigger listeners that are to be notified...
-        List triggerListeners = buildTriggerListenerList(jec.getTrigger()
+        TriggerListener[] triggerListeners = buildTriggerListenerList(jec.getTrigger()
                 .getTriggerListenerNames());
 
         boolean vetoedExecution = false;
         
         // notify all trigger listeners in the list
-        java.util.Iterator itr = triggerListeners.iterator();
-        while (itr.hasNext()) {
-            TriggerListener tl = (TriggerListener) itr.next();
+        for (int i = 0; i < triggerListeners.length; i++) {
+            TriggerListener tl = triggerListeners[i];
             try {
                 tl.triggerFired(jec.getTrigger(), jec);
                 
@@ -1810,14 +1813,15 @@ public class QuartzScheduler implements RemotableQuartzScheduler {
 
     public void notifyTriggerListenersMisfired(Trigger trigger)
         throws SchedulerException {
+        resources.getMetrics().recordMisfire();
+
         // build a list of all trigger listeners that are to be notified...
-        List triggerListeners = buildTriggerListenerList(trigger
+        TriggerListener[] triggerListeners = buildTriggerListenerList(trigger
                 .getTriggerListenerNames());
 
         // notify all trigger listeners in the list
-        java.util.Iterator itr = triggerListeners.iterator();
-        while (itr.hasNext()) {
-            TriggerListener tl = (TriggerListener) itr.next();
+        for (int i = 0; i < triggerListeners.length; i++) {
+            TriggerListener tl = triggerListeners[i];
             try {
                 tl.triggerMisfired(trigger);
             } catch (Exception e) {
@@ -1833,13 +1837,12 @@ public class QuartzScheduler implements RemotableQuartzScheduler {
     public void notifyTriggerListenersComplete(JobExecutionContext jec,
             int instCode) throws SchedulerException {
         // build a list of all trigger listeners that are to be notified...
-        List triggerListeners = buildTriggerListenerList(jec.getTrigger()
+        TriggerListener[] triggerListeners = buildTriggerListenerList(jec.getTrigger()
                 .getTriggerListenerNames());
 
         // notify all trigger listeners in the list
-        java.util.Iterator itr = triggerListeners.iterator();
-        while (itr.hasNext()) {
-            TriggerListener tl = (TriggerListener) itr.next();
+        for (int i = 0; i < triggerListeners.length; i++) {
+            TriggerListener tl = triggerListeners[i];
             try {
                 tl.triggerComplete(jec.getTrigger(), jec, instCode);
             } catch (Exception e) {
@@ -1855,13 +1858,12 @@ public class QuartzScheduler implements RemotableQuartzScheduler {
     public void notifyJobListenersToBeExecuted(JobExecutionContext jec)
         throws SchedulerException {
         // build a list of all job listeners that are to be notified...
-        List jobListeners = buildJobListenerList(jec.getJobDetail()
+        JobListener[] jobListeners = buildJobListenerList(jec.getJobDetail()
                 .getJobListenerNames());
 
         // notify all job listeners
-        java.util.Iterator itr = jobListeners.iterator();
-        while (itr.hasNext()) {
-            JobListener jl = (JobListener) itr.next();
+        for (int i = 0; i < jobListeners.length; i++) {
+            JobListener jl = jobListeners[i];
             try {
                 jl.jobToBeExecuted(jec);
             } catch (Exception e) {
@@ -1877,13 +1879,12 @@ public class QuartzScheduler implements RemotableQuartzScheduler {
     public void notifyJobListenersWasVetoed(JobExecutionContext jec)
         throws SchedulerException {
         // build a list of all job listeners that are to be notified...
-        List jobListeners = buildJobListenerList(jec.getJobDetail()
+        JobListener[] jobListeners = buildJobListenerList(jec.getJobDetail()
                 .getJobListenerNames());
 
         // notify all job listeners
-        java.util.Iterator itr = jobListeners.iterator();
-        while (itr.hasNext()) {
-            JobListener jl = (JobListener) itr.next();
+        for (int i = 0; i < jobListeners.length; i++) {
+            JobListener jl = jobListeners[i];
             try {
                 jl.jobExecutionVetoed(jec);
             } catch (Exception e) {
@@ -1899,13 +1900,12 @@ public class QuartzScheduler implements RemotableQuartzScheduler {
     public void notifyJobListenersWasExecuted(JobExecutionContext jec,
             JobExecutionException je) throws SchedulerException {
         // build a list of all job listeners that are to be notified...
-        List jobListeners = buildJobListenerList(jec.getJobDetail()
+        JobListener[] jobListeners = buildJobListenerList(jec.getJobDetail()
                 .getJobListenerNames());
 
         // notify all job listeners
-        java.util.Iterator itr = jobListeners.iterator();
-        while (itr.hasNext()) {
-            JobListener jl = (JobListener) itr.next();
+        for (int i = 0; i < jobListeners.length; i++) {
+            JobListener jl = jobListeners[i];
             try {
                 jl.jobWasExecuted(jec, je);
             } catch (Exception e) {
@@ -1920,12 +1920,11 @@ public class QuartzScheduler implements RemotableQuartzScheduler {
 
     public void notifySchedulerListenersError(String msg, SchedulerException se) {
         // build a list of all scheduler listeners that are to be notified...
-        List schedListeners = getSchedulerListeners();
+        SchedulerListener[] schedListeners = schedulerListeners;
 
         // notify all scheduler listeners
-        java.util.Iterator itr = schedListeners.iterator();
-        while (itr.hasNext()) {
-            SchedulerListener sl = (SchedulerListener) itr.next();
+        for (int i = 0; i < schedListeners.length; i++) {
+            SchedulerListener sl = schedListeners[i];
             try {
                 sl.schedulerError(msg, se);
             } catch (Exception e) {
@@ -1941,12 +1940,11 @@ public class QuartzScheduler implements RemotableQuartzScheduler {
 
     public void notifySchedulerListenersSchduled(Trigger trigger) {
         // build a list of all scheduler listeners that are to be notified...
-        List schedListeners = getSchedulerListeners();
+        SchedulerListener[] schedListeners = schedulerListeners;
 
         // notify all scheduler listeners
-        java.util.Iterator itr = schedListeners.iterator();
-        while (itr.hasNext()) {
-            SchedulerListener sl = (SchedulerListener) itr.next();
+        for (int i = 0; i < schedListeners.length; i++) {
+            SchedulerListener sl = schedListeners[i];
             try {
                 sl.jobScheduled(trigger);
             } catch (Exception e) {
@@ -1960,12 +1958,11 @@ public class QuartzScheduler implements RemotableQuartzScheduler {
     public void notifySchedulerListenersUnschduled(String triggerName,
             String triggerGroup) {
         // build a list of all scheduler listeners that are to be notified...
-        List schedListeners = getSchedulerListeners();
+        SchedulerListener[] schedListeners = schedulerListeners;
 
         // notify all scheduler listeners
-        java.util.Iterator itr = schedListeners.iterator();
-        while (itr.hasNext()) {
-            SchedulerListener sl = (SchedulerListener) itr.next();
+        for (int i = 0; i < schedListeners.length; i++) {
+            SchedulerListener sl = schedListeners[i];
             try {
                 sl.jobUnscheduled(triggerName, triggerGroup);
             } catch (Exception e) {
@@ -1979,12 +1976,11 @@ public class QuartzScheduler implements RemotableQuartzScheduler {
 
     public void notifySchedulerListenersFinalized(Trigger trigger) {
         // build a list of all scheduler listeners that are to be notified...
-        List schedListeners = getSchedulerListeners();
+        SchedulerListener[] schedListeners = schedulerListeners;
 
         // notify all scheduler listeners
-        java.util.Iterator itr = schedListeners.iterator();
-        while (itr.hasNext()) {
-            SchedulerListener sl = (SchedulerListener) itr.next();
+        for (int i = 0; i < schedListeners.length; i++) {
+            SchedulerListener sl = schedListeners[i];
             try {
                 sl.triggerFinalized(trigger);
             } catch (Exception e) {
@@ -1997,12 +1993,11 @@ public class QuartzScheduler implements RemotableQuartzScheduler {
 
     public void notifySchedulerListenersPausedTrigger(String name, String group) {
         // build a list of all job listeners that are to be notified...
-        List schedListeners = getSchedulerListeners();
+        SchedulerListener[] schedListeners = schedulerListeners;
 
         // notify all scheduler listeners
-        java.util.Iterator itr = schedListeners.iterator();
-        while (itr.hasNext()) {
-            SchedulerListener sl = (SchedulerListener) itr.next();
+        for (int i = 0; i < schedListeners.length; i++) {
+            SchedulerListener sl = schedListeners[i];
             try {
                 sl.triggersPaused(name, group);
             } catch (Exception e) {
@@ -2015,12 +2010,11 @@ public class QuartzScheduler implements RemotableQuartzScheduler {
 
     public void notifySchedulerListenersResumedTrigger(String name, String group) {
         // build a list of all job listeners that are to be notified...
-        List schedListeners = getSchedulerListeners();
+        SchedulerListener[] schedListeners = schedulerListeners;
 
         // notify all scheduler listeners
-        java.util.Iterator itr = schedListeners.iterator();
-        while (itr.hasNext()) {
-            SchedulerListener sl = (SchedulerListener) itr.next();
+        for (int i = 0; i < schedListeners.length; i++) {
+            SchedulerListener sl = schedListeners[i];
             try {
                 sl.triggersResumed(name, group);
             } catch (Exception e) {
@@ -2033,12 +2027,11 @@ public class QuartzScheduler implements RemotableQuartzScheduler {
 
     public void notifySchedulerListenersPausedJob(String name, String group) {
         // build a list of all job listeners that are to be notified...
-        List schedListeners = getSchedulerListeners();
+        SchedulerListener[] schedListeners = schedulerListeners;
 
         // notify all scheduler listeners
-        java.util.Iterator itr = schedListeners.iterator();
-        while (itr.hasNext()) {
-            SchedulerListener sl = (SchedulerListener) itr.next();
+        for (int i = 0; i < schedListeners.length; i++) {
+            SchedulerListener sl = schedListeners[i];
             try {
                 sl.jobsPaused(name, group);
             } catch (Exception e) {
@@ -2051,12 +2044,11 @@ public class QuartzScheduler implements RemotableQuartzScheduler {
 
     public void notifySchedulerListenersResumedJob(String name, String group) {
         // build a list of all job listeners that are to be notified...
-        List schedListeners = getSchedulerListeners();
+        SchedulerListener[] schedListeners = schedulerListeners;
 
         // notify all scheduler listeners
-        java.util.Iterator itr = schedListeners.iterator();
-        while (itr.hasNext()) {
-            SchedulerListener sl = (SchedulerListener) itr.next();
+        for (int i = 0; i < schedListeners.length; i++) {
+            SchedulerListener sl = schedListeners[i];
             try {
                 sl.jobsResumed(name, group);
             } catch (Exception e) {
@@ -2069,12 +2061,11 @@ public class QuartzScheduler implements RemotableQuartzScheduler {
 
     public void notifySchedulerListenersShutdown() {
         // build a list of all job listeners that are to be notified...
-        List schedListeners = getSchedulerListeners();
+        SchedulerListener[] schedListeners = schedulerListeners;
 
         // notify all scheduler listeners
-        java.util.Iterator itr = schedListeners.iterator();
-        while (itr.hasNext()) {
-            SchedulerListener sl = (SchedulerListener) itr.next();
+        for (int i = 0; i < schedListeners.length; i++) {
+            SchedulerListener sl = schedListeners[i];
             try {
                 sl.schedulerShutdown();
             } catch (Exception e) {
@@ -24,6 +24,7 @@ package org.quartz.core;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.quartz.SchedulerMetrics;
 import org.quartz.spi.JobStore;
 import org.quartz.spi.SchedulerPlugin;
 import org.quartz.spi.ThreadPool;
@@ -81,6 +82,12 @@ public class QuartzSchedulerResources {
     private boolean threadsInheritInitializersClassLoadContext = false;
 
     private String rmiBindName;
+
+    private int maxBatchSize = 1;
+
+    private long batchTimeWindow = 0;
+
+    private SchedulerMetrics metrics = new SchedulerMetrics();
     
     private boolean jmxExport;
     
@@ -444,6 +451,60 @@ public class QuartzSchedulerResources {
 		this.threadsInheritInitializersClassLoadContext = threadsInheritInitializersClassLoadContext;
 	}
 
+    /**
+     * Get the maximum number of triggers the scheduling thread acquires
+     * (and fires) at once.
+     */
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    /**
+     * Set the maximum number of triggers the scheduling thread acquires
+     * (and fires) at once.  Defaults to 1.  The actual batch size is also
+     * limited by the number of available threads in the pool.
+     */
+    public void setMaxBatchSize(int maxBatchSize) {
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * Get the amount of time (in millis) that a trigger is allowed to be
+     * acquired and fired ahead of its scheduled fire time, as part of a batch.
+     */
+    public long getBatchTimeWindow() {
+        return batchTimeWindow;
+    }
+
+    /**
+     * Set the amount of time (in millis) that a trigger is allowed to be
+     * acquired and fired ahead of its scheduled fire time, as part of a batch.
+     * Defaults to 0.
+     */
+    public void setBatchTimeWindow(long batchTimeWindow) {
+        this.batchTimeWindow = batchTimeWindow;
+    }
+
+    /**
+     * Get the <code>SchedulerMetrics</code> that the scheduler records its
+     * timings into.
+     */
+    public SchedulerMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Set the <code>SchedulerMetrics</code> that the scheduler records its
+     * timings into.
+     */
+    public void setMetrics(SchedulerMetrics metrics) {
+        if (metrics == null) {
+            throw new IllegalArgumentException("Metrics cannot be null.");
+        }
+
+        this.metrics = metrics;
+    }
+
 	/**
      * Get the name under which to bind the QuartzScheduler in RMI.  Will 
      * return the value of the uniqueIdentifier property if explict RMI bind 
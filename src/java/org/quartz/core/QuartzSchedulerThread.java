@@ -26,8 +26,16 @@ import org.apache.commons.logging.LogFactory;
 import org.quartz.JobPersistenceException;
 import org.quartz.SchedulerException;
 import org.quartz.Trigger;
+import org.quartz.spi.LimitingThreadPool;
+import org.quartz.spi.TriggerAcquisitionLimit;
 import org.quartz.spi.TriggerFiredBundle;
+import org.quartz.spi.TriggerFiredResult;
 
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.ListIterator;
 import java.util.Random;
 
 /**
@@ -63,6 +71,17 @@ public class QuartzSchedulerThread extends Thread {
 
     private boolean halted;
 
+    // set when a limiting thread pool has room for triggers it turned away
+    private boolean capacitySignaled;
+
+    // the acquired batches of triggers waiting to fire, in order of fire 
+    // time, and the number of triggers in them (used by this thread only)
+    private LinkedList acquiredBatches = new LinkedList();
+
+    private int acquiredTriggerCount = 0;
+
+    private boolean lastAcquireFailed = false;
+
     private SchedulingContext ctxt = null;
 
     private Random random = new Random(System.currentTimeMillis());
@@ -120,6 +139,18 @@ public class QuartzSchedulerThread extends Thread {
         
         this.setPriority(threadPrio);
 
+        if (qsRsrcs.getThreadPool() instanceof LimitingThreadPool) {
+            ((LimitingThreadPool) qsRsrcs.getThreadPool()).setCapacitySignal(
+                new Runnable() {
+                    public void run() {
+                        synchronized (sigLock) {
+                            capacitySignaled = true;
+                            sigLock.notifyAll();
+                        }
+                    }
+                });
+        }
+
         // start the underlying thread, but put this object into the 'paused'
         // state
         // so processing doesn't start yet...
@@ -233,12 +264,31 @@ public class QuartzSchedulerThread extends Thread {
      * <p>
      * The main processing loop of the <code>QuartzSchedulerThread</code>.
      * </p>
+     *
+     * <p>
+     * Acquired batches of triggers are queued in order of fire time, and the
+     * loop waits until the first of them is due.  A trigger scheduled to fire
+     * sooner is acquired and queued in front, rather than giving back the
+     * triggers already acquired and acquiring them again.
+     * </p>
      */
     public void run() {
-        boolean lastAcquireFailed = false;
-        
+        // set once a batch has been fired, so the triggers due after it are
+        // acquired in its place
+        boolean acquireAgain = true;
+
         while (!halted) {
             try {
+                // acquired triggers aren't held while paused (or halting), 
+                // so that other schedulers in a cluster can fire them
+                boolean pausing;
+                synchronized (sigLock) {
+                    pausing = paused || halted;
+                }
+                if (pausing) {
+                    releaseAcquiredBatches();
+                }
+
                 // check if we're supposed to pause...
                 synchronized (sigLock) {
                     while (paused && !halted) {
@@ -254,197 +304,322 @@ public class QuartzSchedulerThread extends Thread {
                     }
                 }
 
-                int availTreadCount = qsRsrcs.getThreadPool().blockForAvailableThreads();
-                if(availTreadCount > 0) { // will always be true, due to semantics of blockForAvailableThreads...
-
-                    Trigger trigger = null;
-
-                    long now = System.currentTimeMillis();
-
-                    clearSignaledSchedulingChange();
-                    try {
-                        trigger = qsRsrcs.getJobStore().acquireNextTrigger(
-                                ctxt, now + idleWaitTime);
-                        lastAcquireFailed = false;
-                    } catch (JobPersistenceException jpe) {
-                        if(!lastAcquireFailed) {
-                            qs.notifySchedulerListenersError(
-                                "An error occured while scanning for the next trigger to fire.",
-                                jpe);
-                        }
-                        lastAcquireFailed = true;
-                    } catch (RuntimeException e) {
-                        if(!lastAcquireFailed) {
-                            getLog().error("quartzSchedulerThreadLoop: RuntimeException "
-                                    +e.getMessage(), e);
-                        }
-                        lastAcquireFailed = true;
-                    }
-
-                    if (trigger != null) {
-
-                        now = System.currentTimeMillis();
-                        long triggerTime = trigger.getNextFireTime().getTime();
-                        long timeUntilTrigger = triggerTime - now;
-                        while(timeUntilTrigger > 0) {
-	                        synchronized(sigLock) {
-		                        try {
-		                        	// we could have blocked a long while
-		                        	// on 'synchronize', so we must recompute
-		                        	now = System.currentTimeMillis();
-		                            timeUntilTrigger = triggerTime - now;
-		                            if(timeUntilTrigger >= 1)
-		                            	sigLock.wait(timeUntilTrigger);
-		                        } catch (InterruptedException ignore) {
-		                        }
-	                        }		                        
-	                        if (isScheduleChanged()) {
-	                        	if(isCandidateNewTimeEarlierWithinReason(triggerTime)) {
-	                        		// above call does a clearSignaledSchedulingChange()
-	                        		try {
-		                                qsRsrcs.getJobStore().releaseAcquiredTrigger(
-		                                        ctxt, trigger);
-		                            } catch (JobPersistenceException jpe) {
-		                                qs.notifySchedulerListenersError(
-		                                        "An error occured while releasing trigger '"
-		                                                + trigger.getFullName() + "'",
-		                                        jpe);
-		                                // db connection must have failed... keep
-		                                // retrying until it's up...
-		                                releaseTriggerRetryLoop(trigger);
-		                            } catch (RuntimeException e) {
-		                                getLog().error(
-		                                    "releaseTriggerRetryLoop: RuntimeException "
-		                                    +e.getMessage(), e);
-		                                // db connection must have failed... keep
-		                                // retrying until it's up...
-		                                releaseTriggerRetryLoop(trigger);
-		                            }
-		                            trigger = null;
-		                            break;
-	                        	}
-	                        }
-	                        now = System.currentTimeMillis();
-	                        timeUntilTrigger = triggerTime - now;
-                        }
-                        if(trigger == null)
-                        	continue;
-                        
-                        // set trigger to 'executing'
-                        TriggerFiredBundle bndle = null;
-
-                        boolean goAhead = true;
-                        synchronized(sigLock) {
-                        	goAhead = !halted;
-                        }
-                        if(goAhead) {
-                            try {
-                                bndle = qsRsrcs.getJobStore().triggerFired(ctxt,
-                                        trigger);
-                            } catch (SchedulerException se) {
-                                qs.notifySchedulerListenersError(
-                                        "An error occured while firing trigger '"
-                                                + trigger.getFullName() + "'", se);
-                            } catch (RuntimeException e) {
-                                getLog().error(
-                                    "RuntimeException while firing trigger " +
-                                    trigger.getFullName(), e);
-                                // db connection must have failed... keep
-                                // retrying until it's up...
-                                releaseTriggerRetryLoop(trigger);
-                            }
-                        }
-                        
-                        // it's possible to get 'null' if the trigger was paused,
-                        // blocked, or other similar occurrences that prevent it being
-                        // fired at this time...  or if the scheduler was shutdown (halted)
-                        if (bndle == null) {
-                            try {
-                                qsRsrcs.getJobStore().releaseAcquiredTrigger(ctxt,
-                                        trigger);
-                            } catch (SchedulerException se) {
-                                qs.notifySchedulerListenersError(
-                                        "An error occured while releasing trigger '"
-                                                + trigger.getFullName() + "'", se);
-                                // db connection must have failed... keep retrying
-                                // until it's up...
-                                releaseTriggerRetryLoop(trigger);
-                            }
-                            continue;
-                        }
-
-                        // TODO: improvements:
-                        //
-                        // 2- make sure we can get a job runshell before firing trigger, or
-                        //   don't let that throw an exception (right now it never does,
-                        //   but the signature says it can).
-                        // 3- acquire more triggers at a time (based on num threads available?)
-
+                if (acquiredBatches.isEmpty() || acquireAgain) {
+                    acquireAgain = false;
+                    acquireTriggers(false);
+                } else if (isCapacitySignaled()) {
+                    acquireTriggers(false);
+                } else if (isScheduleChanged() 
+                        && isCandidateNewTimeEarlierWithinReason(
+                                getFireTime((List) acquiredBatches.getFirst()))) {
+                    acquireTriggers(true);
+                }
 
-                        JobRunShell shell = null;
+                if (acquiredBatches.isEmpty()) {
+                    long timeUntilContinue = getRandomizedIdleWaitTime();
+                    synchronized(sigLock) {
                         try {
-                            shell = qsRsrcs.getJobRunShellFactory().borrowJobRunShell();
-                            shell.initialize(qs, bndle);
-                        } catch (SchedulerException se) {
-                            try {
-                                qsRsrcs.getJobStore().triggeredJobComplete(ctxt,
-                                        trigger, bndle.getJobDetail(), Trigger.INSTRUCTION_SET_ALL_JOB_TRIGGERS_ERROR);
-                            } catch (SchedulerException se2) {
-                                qs.notifySchedulerListenersError(
-                                        "An error occured while placing job's triggers in error state '"
-                                                + trigger.getFullName() + "'", se2);
-                                // db connection must have failed... keep retrying
-                                // until it's up...
-                                errorTriggerRetryLoop(bndle);
-                            }
-                            continue;
-                        }
-
-                        if (qsRsrcs.getThreadPool().runInThread(shell) == false) {
-                            try {
-                                // this case should never happen, as it is indicative of the
-                                // scheduler being shutdown or a bug in the thread pool or
-                                // a thread pool being used concurrently - which the docs
-                                // say not to do...
-                                getLog().error("ThreadPool.runInThread() return false!");
-                                qsRsrcs.getJobStore().triggeredJobComplete(ctxt,
-                                        trigger, bndle.getJobDetail(), Trigger.INSTRUCTION_SET_ALL_JOB_TRIGGERS_ERROR);
-                            } catch (SchedulerException se2) {
-                                qs.notifySchedulerListenersError(
-                                        "An error occured while placing job's triggers in error state '"
-                                                + trigger.getFullName() + "'", se2);
-                                // db connection must have failed... keep retrying
-                                // until it's up...
-                                releaseTriggerRetryLoop(trigger);
+                            if (!signaled && !capacitySignaled && !paused && !halted) {
+                                sigLock.wait(timeUntilContinue);
                             }
+                        } catch (InterruptedException ignore) {
                         }
-
-                        continue;
                     }
-                } else { // if(availTreadCount > 0)
-                    continue; // should never happen, if threadPool.blockForAvailableThreads() follows contract
+                    continue;
                 }
 
-                long now = System.currentTimeMillis();
-                long waitTime = now + getRandomizedIdleWaitTime();
-                long timeUntilContinue = waitTime - now;
-                synchronized(sigLock) {
-                	try {
-						sigLock.wait(timeUntilContinue);
-					} catch (InterruptedException ignore) {
-					}
+                List triggers = (List) acquiredBatches.getFirst();
+                if (!waitUntil(getFireTime(triggers))) {
+                    // signaled before the batch was due, so look again at 
+                    // what to do next
+                    continue;
                 }
 
+                acquiredBatches.removeFirst();
+                acquiredTriggerCount -= triggers.size();
+                fireTriggers(triggers);
+                acquireAgain = true;
+
             } catch(RuntimeException re) {
                 getLog().error("Runtime error occured in main trigger firing loop.", re);
             }
         } // loop...
 
+        releaseAcquiredBatches();
+
         // drop references to scheduler stuff to aid garbage collection...
         qs = null;
         qsRsrcs = null;
     }
 
+    /**
+     * <p>
+     * Acquire the next triggers to fire, as many as there are threads
+     * available that aren't already promised to acquired triggers, and queue
+     * them by fire time.
+     * </p>
+     *
+     * @param earlier whether a trigger due before all the acquired ones has
+     *        been signaled, in which case the latest acquired triggers are
+     *        released if there are no threads left for it.
+     */
+    private void acquireTriggers(boolean earlier) {
+        synchronized (sigLock) {
+            capacitySignaled = false;
+        }
+
+        long waitStart = System.currentTimeMillis();
+        int availTreadCount = qsRsrcs.getThreadPool().blockForAvailableThreads();
+        long now = System.currentTimeMillis();
+        qsRsrcs.getMetrics().recordThreadWaitTime(now - waitStart);
+
+        while (earlier && availTreadCount <= acquiredTriggerCount 
+                && !acquiredBatches.isEmpty()) {
+            List latest = (List) acquiredBatches.removeLast();
+            acquiredTriggerCount -= latest.size();
+            releaseAcquiredTriggers(latest);
+        }
+        if (availTreadCount <= acquiredTriggerCount) {
+            return;
+        }
+
+        clearSignaledSchedulingChange();
+        try {
+            // a limiting pool turns away the triggers it has no room 
+            // for, counting those already acquired, which it will 
+            // signal room for later
+            TriggerAcquisitionLimit limit = null;
+            if (qsRsrcs.getThreadPool() instanceof LimitingThreadPool) {
+                List acquired = new ArrayList(acquiredTriggerCount);
+                for (Iterator itr = acquiredBatches.iterator(); itr.hasNext();) {
+                    acquired.addAll((List) itr.next());
+                }
+                limit = ((LimitingThreadPool) qsRsrcs.getThreadPool())
+                    .createAcquisitionLimit(acquired);
+            }
+            List triggers = qsRsrcs.getJobStore().acquireNextTriggers(
+                    ctxt, now + idleWaitTime, 
+                    Math.min(availTreadCount - acquiredTriggerCount, 
+                            qsRsrcs.getMaxBatchSize()), 
+                    qsRsrcs.getBatchTimeWindow(), limit);
+            qsRsrcs.getMetrics().recordAcquireTime(
+                    System.currentTimeMillis() - now);
+            lastAcquireFailed = false;
+
+            if (triggers != null && !triggers.isEmpty()) {
+                addAcquiredBatch(triggers);
+            }
+        } catch (JobPersistenceException jpe) {
+            if(!lastAcquireFailed) {
+                qs.notifySchedulerListenersError(
+                    "An error occured while scanning for the next triggers to fire.",
+                    jpe);
+            }
+            lastAcquireFailed = true;
+        } catch (RuntimeException e) {
+            if(!lastAcquireFailed) {
+                getLog().error("quartzSchedulerThreadLoop: RuntimeException "
+                        +e.getMessage(), e);
+            }
+            lastAcquireFailed = true;
+        }
+    }
+
+    /**
+     * Queue the batch after those due at or before it.
+     */
+    private void addAcquiredBatch(List triggers) {
+        long fireTime = getFireTime(triggers);
+        ListIterator itr = acquiredBatches.listIterator(acquiredBatches.size());
+        while (itr.hasPrevious()) {
+            if (getFireTime((List) itr.previous()) <= fireTime) {
+                itr.next();
+                break;
+            }
+        }
+        itr.add(triggers);
+        acquiredTriggerCount += triggers.size();
+    }
+
+    private static long getFireTime(List triggers) {
+        return ((Trigger) triggers.get(0)).getNextFireTime().getTime();
+    }
+
+    private void releaseAcquiredBatches() {
+        while (!acquiredBatches.isEmpty()) {
+            releaseAcquiredTriggers((List) acquiredBatches.removeFirst());
+        }
+        acquiredTriggerCount = 0;
+    }
+
+    private boolean isCapacitySignaled() {
+        synchronized (sigLock) {
+            return capacitySignaled;
+        }
+    }
+
+    /**
+     * <p>
+     * Wait until the given time, or until signaled of a scheduling change,
+     * room in a limiting thread pool, a pause or a halt.
+     * </p>
+     *
+     * @return true if the time came, false if signaled first.
+     */
+    private boolean waitUntil(long time) {
+        synchronized (sigLock) {
+            // the time is waited for from where it stands after each 
+            // wake up, so waking early doesn't push the firing late
+            long timeUntil = time - System.currentTimeMillis();
+            while (timeUntil > 0) {
+                if (signaled || capacitySignaled || paused || halted) {
+                    return false;
+                }
+                try {
+                    sigLock.wait(timeUntil);
+                } catch (InterruptedException ignore) {
+                }
+                timeUntil = time - System.currentTimeMillis();
+            }
+            return true;
+        }
+    }
+
+    /**
+     * <p>
+     * Mark the given acquired triggers as fired, and run their jobs.
+     * </p>
+     */
+    private void fireTriggers(List triggers) {
+        // set triggers to 'executing'
+        List results = null;
+
+        boolean goAhead = true;
+        synchronized(sigLock) {
+            goAhead = !halted;
+        }
+
+        // a limiting pool may have filled up since the batch was acquired, 
+        // so give back the triggers it has no room for now, rather than 
+        // firing them and waiting for room
+        if (goAhead && qsRsrcs.getThreadPool() instanceof LimitingThreadPool) {
+            TriggerAcquisitionLimit limit = 
+                ((LimitingThreadPool) qsRsrcs.getThreadPool())
+                    .createAcquisitionLimit(null);
+            List roomFor = new ArrayList(triggers.size());
+            for (int i = 0; i < triggers.size(); i++) {
+                Trigger trigger = (Trigger) triggers.get(i);
+                if (limit.acquire(trigger)) {
+                    roomFor.add(trigger);
+                } else {
+                    releaseAcquiredTrigger(trigger);
+                }
+            }
+            if (roomFor.isEmpty()) {
+                return;
+            }
+            triggers = roomFor;
+        }
+
+        if(goAhead) {
+            try {
+                long firedStart = System.currentTimeMillis();
+                results = qsRsrcs.getJobStore().triggersFired(ctxt,
+                        triggers);
+                qsRsrcs.getMetrics().recordTriggerFiredTime(
+                        System.currentTimeMillis() - firedStart);
+            } catch (SchedulerException se) {
+                qs.notifySchedulerListenersError(
+                        "An error occured while firing triggers", se);
+            } catch (RuntimeException e) {
+                getLog().error(
+                    "RuntimeException while firing triggers", e);
+            }
+        }
+
+        // the batch couldn't be fired (or the scheduler was 
+        // shutdown), so give the triggers back...
+        if (results == null) {
+            releaseAcquiredTriggers(triggers);
+            return;
+        }
+
+        for (int i = 0; i < results.size(); i++) {
+            TriggerFiredResult result = (TriggerFiredResult) results.get(i);
+            Trigger trigger = result.getTrigger();
+            TriggerFiredBundle bndle = result.getTriggerFiredBundle();
+            
+            Exception exception = result.getException();
+            if (exception instanceof SchedulerException) {
+                qs.notifySchedulerListenersError(
+                        "An error occured while firing trigger '"
+                                + trigger.getFullName() + "'", 
+                        (SchedulerException) exception);
+            } else if (exception != null) {
+                getLog().error(
+                    "RuntimeException while firing trigger " +
+                    trigger.getFullName(), exception);
+            }
+            
+            // it's possible to get 'null' if the trigger was paused,
+            // blocked, or other similar occurrences that prevent it being
+            // fired at this time...  or if firing it failed
+            if (bndle == null) {
+                releaseAcquiredTrigger(trigger);
+                continue;
+            }
+    
+            // TODO: improvements:
+            //
+            // 2- make sure we can get a job runshell before firing trigger, or
+            //   don't let that throw an exception (right now it never does,
+            //   but the signature says it can).
+    
+            JobRunShell shell = null;
+            try {
+                shell = qsRsrcs.getJobRunShellFactory().borrowJobRunShell();
+                shell.initialize(qs, bndle);
+            } catch (SchedulerException se) {
+                try {
+                    qsRsrcs.getJobStore().triggeredJobComplete(ctxt,
+                            trigger, bndle.getJobDetail(), Trigger.INSTRUCTION_SET_ALL_JOB_TRIGGERS_ERROR);
+                } catch (SchedulerException se2) {
+                    qs.notifySchedulerListenersError(
+                            "An error occured while placing job's triggers in error state '"
+                                    + trigger.getFullName() + "'", se2);
+                    // db connection must have failed... keep retrying
+                    // until it's up...
+                    errorTriggerRetryLoop(bndle);
+                }
+                continue;
+            }
+    
+            boolean assigned = 
+                (qsRsrcs.getThreadPool() instanceof LimitingThreadPool)
+                ? ((LimitingThreadPool) qsRsrcs.getThreadPool())
+                    .runInThread(shell, trigger)
+                : qsRsrcs.getThreadPool().runInThread(shell);
+            if (assigned == false) {
+                try {
+                    // this case should never happen, as it is indicative of the
+                    // scheduler being shutdown or a bug in the thread pool or
+                    // a thread pool being used concurrently - which the docs
+                    // say not to do...
+                    getLog().error("ThreadPool.runInThread() return false!");
+                    qsRsrcs.getJobStore().triggeredJobComplete(ctxt,
+                            trigger, bndle.getJobDetail(), Trigger.INSTRUCTION_SET_ALL_JOB_TRIGGERS_ERROR);
+                } catch (SchedulerException se2) {
+                    qs.notifySchedulerListenersError(
+                            "An error occured while placing job's triggers in error state '"
+                                    + trigger.getFullName() + "'", se2);
+                    // db connection must have failed... keep retrying
+                    // until it's up...
+                    releaseTriggerRetryLoop(trigger);
+                }
+            }
+        }
+    }
+
     private boolean isCandidateNewTimeEarlierWithinReason(long oldTime) {
     	
 		// So here's the deal: We know due to being signaled that 'the schedule'
@@ -488,6 +663,33 @@ public class QuartzSchedulerThread extends Thread {
         }
 	}
 
+    private void releaseAcquiredTriggers(List triggers) {
+        for (int i = 0; i < triggers.size(); i++) {
+            releaseAcquiredTrigger((Trigger) triggers.get(i));
+        }
+    }
+
+    private void releaseAcquiredTrigger(Trigger trigger) {
+        qsRsrcs.getMetrics().recordReleasedTrigger();
+        try {
+            qsRsrcs.getJobStore().releaseAcquiredTrigger(ctxt, trigger);
+        } catch (JobPersistenceException jpe) {
+            qs.notifySchedulerListenersError(
+                    "An error occured while releasing trigger '"
+                            + trigger.getFullName() + "'", jpe);
+            // db connection must have failed... keep retrying
+            // until it's up...
+            releaseTriggerRetryLoop(trigger);
+        } catch (RuntimeException e) {
+            getLog().error(
+                "releaseTriggerRetryLoop: RuntimeException "
+                +e.getMessage(), e);
+            // db connection must have failed... keep retrying
+            // until it's up...
+            releaseTriggerRetryLoop(trigger);
+        }
+    }
+
 	public void errorTriggerRetryLoop(TriggerFiredBundle bndle) {
         int retryCount = 0;
         try {
@@ -34,6 +34,7 @@ import org.quartz.JobListener;
 import org.quartz.SchedulerContext;
 import org.quartz.SchedulerException;
 import org.quartz.SchedulerListener;
+import org.quartz.SchedulerMetrics;
 import org.quartz.Trigger;
 import org.quartz.TriggerListener;
 import org.quartz.UnableToInterruptJobException;
@@ -78,6 +79,8 @@ public interface RemotableQuartzScheduler extends Remote {
 
     int numJobsExecuted() throws RemoteException;
 
+    SchedulerMetrics getMetrics() throws RemoteException;
+
     Class getJobStoreClass() throws RemoteException;
 
     boolean supportsPersistence() throws RemoteException;
@@ -28,6 +28,7 @@ import java.util.List;
 import java.util.TimeZone;
 
 import org.quartz.CronTrigger;
+import org.quartz.FireTimeCursor;
 import org.quartz.Scheduler;
 import org.quartz.SimpleTrigger;
 import org.quartz.Trigger;
@@ -1063,25 +1064,7 @@ public class TriggerUtils {
      */
     public static List computeFireTimes(Trigger trigg, org.quartz.Calendar cal,
             int numTimes) {
-        LinkedList lst = new LinkedList();
-
-        Trigger t = (Trigger) trigg.clone();
-
-        if (t.getNextFireTime() == null) {
-            t.computeFirstFireTime(cal);
-        }
-
-        for (int i = 0; i < numTimes; i++) {
-            Date d = t.getNextFireTime();
-            if (d != null) {
-                lst.add(d);
-                t.triggered(cal);
-            } else {
-                break;
-            }
-        }
-
-        return java.util.Collections.unmodifiableList(lst);
+        return org.quartz.TriggerUtils.computeFireTimes(trigg, cal, numTimes);
     }
 
     /**
@@ -1108,29 +1091,17 @@ public class TriggerUtils {
             org.quartz.Calendar cal, Date from, Date to) {
         LinkedList lst = new LinkedList();
 
-        Trigger t = (Trigger) trigg.clone();
-
-        if (t.getNextFireTime() == null) {
-            t.computeFirstFireTime(cal);
-        }
-
-        // TODO: this method could be more efficient by using logic specific
-        //        to the type of trigger ...
-        while (true) {
-            Date d = t.getNextFireTime();
-            if (d != null) {
-                if (d.before(from)) {
-                    t.triggered(cal);
-                    continue;
-                }
-                if (d.after(to)) {
-                    break;
-                }
-                lst.add(d);
-                t.triggered(cal);
-            } else {
+        // unlike org.quartz.TriggerUtils, this leaves the start and end time
+        // of a trigger without a next fire time alone
+        FireTimeCursor cursor = new FireTimeCursor(trigg, cal);
+        while (cursor.next()) {
+            if (cursor.getFireTime() < from.getTime()) {
+                continue;
+            }
+            if (cursor.getFireTime() > to.getTime()) {
                 break;
             }
+            lst.add(new Date(cursor.getFireTime()));
         }
 
         return java.util.Collections.unmodifiableList(lst);
@@ -33,6 +33,7 @@ import org.quartz.SchedulerContext;
 import org.quartz.SchedulerException;
 import org.quartz.SchedulerListener;
 import org.quartz.SchedulerMetaData;
+import org.quartz.SchedulerMetrics;
 import org.quartz.Trigger;
 import org.quartz.TriggerListener;
 import org.quartz.UnableToInterruptJobException;
@@ -197,7 +198,8 @@ public abstract class RemoteMBeanScheduler implements Scheduler {
                     "jobStoreClass",
                     "threadPoolClass",
                     "threadPoolSize",
-                    "version"
+                    "version",
+                    "metrics"
                 });
         
         return new SchedulerMetaData(
@@ -212,7 +214,9 @@ public abstract class RemoteMBeanScheduler implements Scheduler {
                 ((Boolean)invoke("supportsPersistence", new Object[] {}, new String[] {})).booleanValue(),
                 (Class)attributeList.get(5),
                 ((Integer)attributeList.get(6)).intValue(),
-                (String)attributeList.get(7));
+                (String)attributeList.get(7),
+                // not provided by schedulers older than the metrics
+                (attributeList.size() > 8) ? (SchedulerMetrics)attributeList.get(8) : null);
     }
 
     /**
@@ -175,7 +175,8 @@ public class RemoteScheduler implements Scheduler {
                     isInStandbyMode(), isShutdown(), sched.runningSince(), 
                     sched.numJobsExecuted(), sched.getJobStoreClass(), 
                     sched.supportsPersistence(), sched.getThreadPoolClass(), 
-                    sched.getThreadPoolSize(), sched.getVersion());
+                    sched.getThreadPoolSize(), sched.getVersion(),
+                    sched.getMetrics());
 
         } catch (RemoteException re) {
             throw invalidateHandleCreateException(
@@ -118,7 +118,8 @@ public class StdScheduler implements Scheduler {
                 isInStandbyMode(), isShutdown(), sched.runningSince(), 
                 sched.numJobsExecuted(), sched.getJobStoreClass(), 
                 sched.supportsPersistence(), sched.getThreadPoolClass(), 
-                sched.getThreadPoolSize(), sched.getVersion());
+                sched.getThreadPoolSize(), sched.getVersion(),
+                sched.getMetrics().snapshot());
 
     }
 
@@ -54,6 +54,7 @@ import org.quartz.ee.jta.UserTransactionHelper;
 import org.quartz.impl.jdbcjobstore.JobStoreSupport;
 import org.quartz.impl.jdbcjobstore.Semaphore;
 import org.quartz.impl.jdbcjobstore.TablePrefixAware;
+import org.quartz.simpl.QueuedThreadPool;
 import org.quartz.simpl.RAMJobStore;
 import org.quartz.simpl.SimpleThreadPool;
 import org.quartz.spi.ClassLoadHelper;
@@ -164,6 +165,10 @@ public class StdSchedulerFactory implements SchedulerFactory {
 
     public static final String PROP_SCHED_MAKE_SCHEDULER_THREAD_DAEMON = "org.quartz.scheduler.makeSchedulerThreadDaemon";
 
+    public static final String PROP_SCHED_BATCH_TRIGGER_ACQUISITION_MAX_COUNT = "org.quartz.scheduler.batchTriggerAcquisitionMaxCount";
+
+    public static final String PROP_SCHED_BATCH_TRIGGER_ACQUISITION_FIRE_AHEAD_TIME_WINDOW = "org.quartz.scheduler.batchTriggerAcquisitionFireAheadTimeWindow";
+
     public static final String PROP_SCHED_SCHEDULER_THREADS_INHERIT_CONTEXT_CLASS_LOADER_OF_INITIALIZING_THREAD = "org.quartz.scheduler.threadsInheritContextClassLoaderOfInitializer";
 
     public static final String PROP_SCHED_CLASS_LOAD_HELPER_CLASS = "org.quartz.scheduler.classLoadHelper.class";
@@ -206,6 +211,8 @@ public class StdSchedulerFactory implements SchedulerFactory {
 
     public static final String PROP_DATASOURCE_VALIDATION_QUERY = "validationQuery";
 
+    public static final String PROP_DATASOURCE_MAX_CACHED_STATEMENTS_PER_CONNECTION = "maxCachedStatementsPerConnection";
+
     public static final String PROP_DATASOURCE_JNDI_URL = "jndiURL";
 
     public static final String PROP_DATASOURCE_JNDI_ALWAYS_LOOKUP = "jndiAlwaysLookup";
@@ -611,6 +618,11 @@ public class StdSchedulerFactory implements SchedulerFactory {
         
         boolean threadsInheritInitalizersClassLoader =
         	cfg.getBooleanProperty(PROP_SCHED_SCHEDULER_THREADS_INHERIT_CONTEXT_CLASS_LOADER_OF_INITIALIZING_THREAD);
+
+        int maxBatchSize = cfg.getIntProperty(
+                PROP_SCHED_BATCH_TRIGGER_ACQUISITION_MAX_COUNT, 1);
+        long batchTimeWindow = cfg.getLongProperty(
+                PROP_SCHED_BATCH_TRIGGER_ACQUISITION_FIRE_AHEAD_TIME_WINDOW, 0L);
         
         boolean jmxExport = cfg.getBooleanProperty(PROP_SCHED_JMX_EXPORT);
         boolean jmxProxy = cfg.getBooleanProperty(PROP_SCHED_JMX_PROXY);
@@ -949,6 +961,7 @@ public class StdSchedulerFactory implements SchedulerFactory {
                     String dsPass = pp.getStringProperty(PROP_DATASOURCE_PASSWORD, "");
                     int dsCnt = pp.getIntProperty(PROP_DATASOURCE_MAX_CONNECTIONS, 10);
                     String dsValidation = pp.getStringProperty(PROP_DATASOURCE_VALIDATION_QUERY);
+                    int dsStmtCnt = pp.getIntProperty(PROP_DATASOURCE_MAX_CACHED_STATEMENTS_PER_CONNECTION, 0);
                     
                     if (dsDriver == null) {
                         initException = new SchedulerException(
@@ -965,7 +978,7 @@ public class StdSchedulerFactory implements SchedulerFactory {
                     try {
                         PoolingConnectionProvider cp = new PoolingConnectionProvider(
                                 dsDriver, dsURL, dsUser, dsPass, dsCnt,
-                                dsValidation);
+                                dsValidation, dsStmtCnt);
                         dbMgr = DBConnectionManager.getInstance();
                         dbMgr.addConnectionProvider(dsNames[i], cp);
                     } catch (SQLException sqle) {
@@ -1165,6 +1178,8 @@ public class StdSchedulerFactory implements SchedulerFactory {
         rsrcs.setJobRunShellFactory(jrsf);
         rsrcs.setMakeSchedulerThreadDaemon(makeSchedulerThreadDaemon);
         rsrcs.setThreadsInheritInitializersClassLoadContext(threadsInheritInitalizersClassLoader);
+        rsrcs.setMaxBatchSize(maxBatchSize);
+        rsrcs.setBatchTimeWindow(batchTimeWindow);
         rsrcs.setJMXExport(jmxExport);
         rsrcs.setJMXObjectName(jmxObjectName);
         	
@@ -1181,10 +1196,17 @@ public class StdSchedulerFactory implements SchedulerFactory {
             ((SimpleThreadPool)tp).setThreadNamePrefix(schedName + "_Worker");
             if(threadsInheritInitalizersClassLoader)
             	((SimpleThreadPool)tp).setThreadsInheritContextClassLoaderOfInitializingThread(threadsInheritInitalizersClassLoader);
+        } else if(tp instanceof QueuedThreadPool) {
+            ((QueuedThreadPool)tp).setThreadNamePrefix(schedName + "_Worker");
+            if(threadsInheritInitalizersClassLoader)
+                ((QueuedThreadPool)tp).setThreadsInheritContextClassLoaderOfInitializingThread(threadsInheritInitalizersClassLoader);
         }
         tp.initialize();
         
         rsrcs.setJobStore(js);
+        if (js instanceof JobStoreSupport) {
+            ((JobStoreSupport)js).setSchedulerMetrics(rsrcs.getMetrics());
+        }
 
         // add plugins
         for (int i = 0; i < plugins.length; i++) {
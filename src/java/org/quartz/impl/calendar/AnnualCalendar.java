@@ -27,6 +27,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Iterator;
+import java.util.List;
 import java.util.TimeZone;
 
 import org.quartz.Calendar;
@@ -92,7 +93,14 @@ public class AnnualCalendar extends BaseCalendar implements Calendar,
         if (! super.isTimeIncluded(day.getTime().getTime())) {
          return true;
         } 
-        
+
+        return isDayOfYearExcluded(day);
+    }
+
+    /**
+     * Whether the month and day of month of the given day are excluded.
+     */
+    private boolean isDayOfYearExcluded(java.util.Calendar day) {
         int dmonth = day.get(java.util.Calendar.MONTH);
         int dday = day.get(java.util.Calendar.DAY_OF_MONTH);
 
@@ -258,6 +266,23 @@ public class AnnualCalendar extends BaseCalendar implements Calendar,
 
         return day.getTime().getTime();
     }
+
+    void addExcludedIntervals(long from, long to, List intervals) {
+        addExcludedDays(from, to, intervals);
+    }
+
+    boolean isExcludedDay(java.util.Calendar startOfDay) {
+        return isDayOfYearExcluded(startOfDay);
+    }
+
+    public Object clone() {
+        AnnualCalendar copy = (AnnualCalendar) super.clone();
+        copy.excludeDays = new ArrayList(excludeDays.size());
+        for (int i = 0; i < excludeDays.size(); i++) {
+            copy.excludeDays.add(((java.util.Calendar) excludeDays.get(i)).clone());
+        }
+        return copy;
+    }
 }
 
 class CalendarComparator implements Comparator {
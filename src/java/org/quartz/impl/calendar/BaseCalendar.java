@@ -24,6 +24,7 @@ package org.quartz.impl.calendar;
 
 import java.io.Serializable;
 import java.util.Date;
+import java.util.List;
 import java.util.TimeZone;
 
 import org.quartz.Calendar;
@@ -48,7 +49,7 @@ import org.quartz.Calendar;
  * @author Juergen Donnerstag
  * @author James House
  */
-public class BaseCalendar implements Calendar, Serializable {
+public class BaseCalendar implements Calendar, Serializable, Cloneable {
 
     static final long serialVersionUID = 3106623404629760239L;
     
@@ -191,6 +192,55 @@ public class BaseCalendar implements Calendar, Serializable {
         return timeStamp;
     }
 
+    /**
+     * <p>
+     * Add the intervals of time from <code>from</code> (inclusive) up to
+     * <code>to</code> (exclusive) that this calendar itself excludes, leaving
+     * aside its base calendar, to the given list, as
+     * <code>long[] {start, end}</code> pairs whose ends are exclusive.
+     * </p>
+     *
+     * <p>
+     * <code>BaseCalendar</code> itself excludes nothing.  Intervals may
+     * overlap, and may extend beyond <code>from</code> and <code>to</code>.
+     * </p>
+     *
+     * @see IndexedCalendar
+     */
+    void addExcludedIntervals(long from, long to, List intervals) {
+    }
+
+    /**
+     * <p>
+     * Add each whole day from the day of <code>from</code> up to
+     * <code>to</code> for which <code>{@link #isExcludedDay(java.util.Calendar)}</code>
+     * is <code>true</code> to the given list of excluded intervals.
+     * </p>
+     */
+    void addExcludedDays(long from, long to, List intervals) {
+        java.util.Calendar day = getStartOfDayJavaCalendar(from);
+        long dayStart = day.getTime().getTime();
+        while (dayStart < to) {
+            boolean excluded = isExcludedDay(day);
+            day.add(java.util.Calendar.DATE, 1);
+            long nextDayStart = day.getTime().getTime();
+            if (excluded) {
+                intervals.add(new long[] {dayStart, nextDayStart});
+            }
+            dayStart = nextDayStart;
+        }
+    }
+
+    /**
+     * <p>
+     * Whether this calendar itself, leaving aside its base calendar,
+     * excludes the whole of the day that starts at the given time.
+     * </p>
+     */
+    boolean isExcludedDay(java.util.Calendar startOfDay) {
+        return false;
+    }
+
     /**
      * Utility method. Return the date of excludeDate. The time fraction will
      * be reset to 00.00:00.
@@ -280,4 +330,27 @@ public class BaseCalendar implements Calendar, Serializable {
         endOfDay.set(java.util.Calendar.MILLISECOND, 999);
         return endOfDay;
     }
+
+    /**
+     * <p>
+     * Make a copy of this calendar, and of its base calendars that are
+     * <code>BaseCalendar</code>s, so that changing one doesn't change the
+     * other.
+     * </p>
+     */
+    public Object clone() {
+        BaseCalendar copy;
+        try {
+            copy = (BaseCalendar) super.clone();
+        } catch (CloneNotSupportedException ex) {
+            throw new IncompatibleClassChangeError("Not Cloneable.");
+        }
+        if (baseCalendar instanceof BaseCalendar) {
+            copy.baseCalendar = (Calendar) ((BaseCalendar) baseCalendar).clone();
+        }
+        if (timeZone != null) {
+            copy.timeZone = (TimeZone) timeZone.clone();
+        }
+        return copy;
+    }
 }
@@ -259,4 +259,10 @@ public class CronCalendar extends BaseCalendar {
         
         this.cronExpression = expression;
     }
-}
\ No newline at end of file
+
+    public Object clone() {
+        CronCalendar copy = (CronCalendar) super.clone();
+        copy.cronExpression = (CronExpression) cronExpression.clone();
+        return copy;
+    }
+}
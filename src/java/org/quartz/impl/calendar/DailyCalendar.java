@@ -3,6 +3,7 @@ package org.quartz.impl.calendar;
 import java.text.NumberFormat;
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.List;
 import java.util.StringTokenizer;
 import java.util.TimeZone;
 
@@ -717,6 +718,30 @@ public class DailyCalendar extends BaseCalendar {
         return nextIncludedTime;
     }
 
+    void addExcludedIntervals(long from, long to, List intervals) {
+        Calendar day = getStartOfDayJavaCalendar(from);
+        long dayStart = day.getTime().getTime();
+        while (dayStart < to) {
+            long rangeStart = getTimeRangeStartingTimeInMillis(dayStart);
+            long rangeEnd = getTimeRangeEndingTimeInMillis(dayStart) + oneMillis;
+            long endOfDay = getEndOfDayJavaCalendar(dayStart).getTime().getTime();
+            day.add(Calendar.DATE, 1);
+            long nextDayStart = day.getTime().getTime();
+
+            // as in isTimeIncluded(), the first and last millisecond of the
+            // day are never included
+            if (!invertTimeRange) {
+                intervals.add(new long[] {dayStart, dayStart + oneMillis});
+                intervals.add(new long[] {rangeStart, rangeEnd});
+                intervals.add(new long[] {endOfDay, nextDayStart});
+            } else {
+                intervals.add(new long[] {dayStart, rangeStart});
+                intervals.add(new long[] {rangeEnd, nextDayStart});
+            }
+            dayStart = nextDayStart;
+        }
+    }
+
     /**
      * Returns the start time of the time range (in milliseconds) of the day 
      * specified in <CODE>timeInMillis</CODE>
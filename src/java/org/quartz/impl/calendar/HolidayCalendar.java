@@ -23,6 +23,7 @@ package org.quartz.impl.calendar;
 import java.io.Serializable;
 import java.util.Collections;
 import java.util.Date;
+import java.util.List;
 import java.util.SortedSet;
 import java.util.TimeZone;
 import java.util.TreeSet;
@@ -143,4 +144,18 @@ public class HolidayCalendar extends BaseCalendar implements Calendar,
     public SortedSet getExcludedDates() {
         return Collections.unmodifiableSortedSet(dates);
     }
+
+    void addExcludedIntervals(long from, long to, List intervals) {
+        addExcludedDays(from, to, intervals);
+    }
+
+    boolean isExcludedDay(java.util.Calendar startOfDay) {
+        return dates.contains(startOfDay.getTime());
+    }
+
+    public Object clone() {
+        HolidayCalendar copy = (HolidayCalendar) super.clone();
+        copy.dates = new TreeSet(dates);
+        return copy;
+    }
 }
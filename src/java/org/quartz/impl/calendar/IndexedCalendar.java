@@ -0,0 +1,316 @@
+/*
+ * Copyright 2001-2009 James House
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.quartz.impl.calendar;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.quartz.Calendar;
+
+/**
+ * <p>
+ * A read-only view of a <code>{@link Calendar}</code> and its chain of base
+ * calendars, that answers from an index of the intervals of time the chain
+ * excludes, rather than by asking each calendar in turn.
+ * </p>
+ *
+ * <p>
+ * The index covers a window of a year, from the start of the day of the
+ * first time asked about, and is rebuilt for a new window when a time
+ * outside it is asked about.  Within the window, both
+ * <code>isTimeIncluded()</code> and <code>getNextIncludedTime()</code> take
+ * a binary search, however many days the calendars exclude in a row.
+ * </p>
+ *
+ * <p>
+ * Only chains made up of <code>BaseCalendar</code>,
+ * <code>HolidayCalendar</code>, <code>AnnualCalendar</code>,
+ * <code>MonthlyCalendar</code>, <code>WeeklyCalendar</code> and
+ * <code>DailyCalendar</code> instances (not subclasses) can be indexed; see
+ * <code>{@link #index(Calendar)}</code>.  The calendars must not be changed
+ * once indexed.
+ * </p>
+ */
+public class IndexedCalendar implements Calendar {
+
+    static final long serialVersionUID = -2473839312447316870L;
+
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     * Constants.
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    private static final long WINDOW_LENGTH = 366L * 24L * 60L * 60L * 1000L;
+
+    /**
+     * The number of windows searched for an included time before giving up
+     * and deciding that everything is excluded.
+     */
+    private static final int MAX_WINDOWS_SEARCHED = 10;
+
+    private static final Class[] INDEXABLE_CLASSES = new Class[] {
+        BaseCalendar.class, HolidayCalendar.class, AnnualCalendar.class,
+        MonthlyCalendar.class, WeeklyCalendar.class, DailyCalendar.class };
+
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     * Data members.
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    private final Calendar calendar;
+
+    private transient volatile Window window;
+
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     * Constructors.
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    private IndexedCalendar(Calendar calendar) {
+        this.calendar = calendar;
+    }
+
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     * Interface.
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    /**
+     * <p>
+     * Get an <code>IndexedCalendar</code> for the given calendar, or the
+     * calendar itself if it (or one of its base calendars) can't be indexed,
+     * or it is <code>null</code>.
+     * </p>
+     */
+    public static Calendar index(Calendar calendar) {
+        if (calendar == null || calendar instanceof IndexedCalendar) {
+            return calendar;
+        }
+
+        for (Calendar cal = calendar; cal != null; cal = cal.getBaseCalendar()) {
+            if (!isIndexable(cal)) {
+                return calendar;
+            }
+        }
+
+        return new IndexedCalendar(calendar);
+    }
+
+    /**
+     * <p>
+     * Get the calendar the given one is an index of, or the given calendar
+     * itself if it isn't an <code>IndexedCalendar</code>.
+     * </p>
+     */
+    public static Calendar unwrap(Calendar calendar) {
+        return (calendar instanceof IndexedCalendar)
+            ? ((IndexedCalendar) calendar).getCalendar() : calendar;
+    }
+
+    private static boolean isIndexable(Calendar calendar) {
+        for (int i = 0; i < INDEXABLE_CLASSES.length; i++) {
+            if (calendar.getClass() == INDEXABLE_CLASSES[i]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * <p>
+     * Get the calendar this is an index of.
+     * </p>
+     */
+    public Calendar getCalendar() {
+        return calendar;
+    }
+
+    public Calendar getBaseCalendar() {
+        return calendar.getBaseCalendar();
+    }
+
+    /**
+     * @throws UnsupportedOperationException always, as the index can't be
+     *         changed.
+     */
+    public void setBaseCalendar(Calendar baseCalendar) {
+        throw new UnsupportedOperationException(
+                "An IndexedCalendar can't be changed.");
+    }
+
+    public String getDescription() {
+        return calendar.getDescription();
+    }
+
+    /**
+     * @throws UnsupportedOperationException always, as the index can't be
+     *         changed.
+     */
+    public void setDescription(String description) {
+        throw new UnsupportedOperationException(
+                "An IndexedCalendar can't be changed.");
+    }
+
+    public boolean isTimeIncluded(long timeStamp) {
+        if (timeStamp <= 0) {
+            throw new IllegalArgumentException(
+                    "timeStamp must be greater 0");
+        }
+
+        return getWindow(timeStamp).getExcludedIntervalEnd(timeStamp) < 0;
+    }
+
+    /**
+     * <p>
+     * Determine the first time (in milliseconds), at or after the given
+     * time, that is 'included' by the calendar and all its base calendars.
+     * Return 0 if no time is included for years after the given time.
+     * </p>
+     */
+    public long getNextIncludedTime(long timeStamp) {
+        if (timeStamp <= 0) {
+            throw new IllegalArgumentException(
+                    "timeStamp must be greater 0");
+        }
+
+        for (int i = 0; i < MAX_WINDOWS_SEARCHED; i++) {
+            Window w = getWindow(timeStamp);
+            long excludedUntil = w.getExcludedIntervalEnd(timeStamp);
+            if (excludedUntil < 0) {
+                return timeStamp;
+            }
+
+            // the intervals are merged, so the end of one is included, unless
+            // it is the end of the window, and the next window may exclude it
+            timeStamp = excludedUntil;
+            if (timeStamp < w.to) {
+                return timeStamp;
+            }
+        }
+
+        return 0;
+    }
+
+    public String toString() {
+        return "indexed: " + calendar;
+    }
+
+    private Window getWindow(long timeStamp) {
+        Window w = window;
+        if (w == null || timeStamp < w.from || timeStamp >= w.to) {
+            w = new Window(calendar, timeStamp);
+            window = w;
+        }
+        return w;
+    }
+
+    /**
+     * <p>
+     * The merged, sorted intervals a chain of calendars excludes within a
+     * window of time.
+     * </p>
+     */
+    private static class Window {
+        private final long from;
+
+        private final long to;
+
+        private final long[] starts;
+
+        private final long[] ends;
+
+        Window(Calendar calendar, long timeStamp) {
+            BaseCalendar first = (BaseCalendar) calendar;
+            from = first.getStartOfDayJavaCalendar(timeStamp).getTime().getTime();
+            to = from + WINDOW_LENGTH;
+
+            List intervals = new ArrayList();
+            for (Calendar cal = calendar; cal != null; cal = cal.getBaseCalendar()) {
+                ((BaseCalendar) cal).addExcludedIntervals(from, to, intervals);
+            }
+
+            Collections.sort(intervals, new Comparator() {
+                public int compare(Object o1, Object o2) {
+                    long s1 = ((long[]) o1)[0];
+                    long s2 = ((long[]) o2)[0];
+                    return (s1 < s2) ? -1 : ((s1 == s2) ? 0 : 1);
+                }
+            });
+
+            long[] mergedStarts = new long[intervals.size()];
+            long[] mergedEnds = new long[intervals.size()];
+            int count = 0;
+            for (int i = 0; i < intervals.size(); i++) {
+                long[] interval = (long[]) intervals.get(i);
+                if (interval[1] <= interval[0]) {
+                    continue;
+                }
+                if (count > 0 && interval[0] <= mergedEnds[count - 1]) {
+                    mergedEnds[count - 1] = Math.max(mergedEnds[count - 1], interval[1]);
+                } else {
+                    mergedStarts[count] = interval[0];
+                    mergedEnds[count] = interval[1];
+                    count++;
+                }
+            }
+
+            starts = new long[count];
+            ends = new long[count];
+            System.arraycopy(mergedStarts, 0, starts, 0, count);
+            System.arraycopy(mergedEnds, 0, ends, 0, count);
+        }
+
+        /**
+         * Get the end of the excluded interval the given time is in, capped
+         * to the end of the window, or -1 if the time is included.
+         */
+        long getExcludedIntervalEnd(long timeStamp) {
+            // find the last interval starting at or before the time
+            int low = 0;
+            int high = starts.length - 1;
+            int found = -1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (starts[mid] <= timeStamp) {
+                    found = mid;
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+
+            if (found < 0 || ends[found] <= timeStamp) {
+                return -1;
+            }
+            return Math.min(ends[found], to);
+        }
+    }
+}
@@ -23,6 +23,7 @@
 package org.quartz.impl.calendar;
 
 import java.io.Serializable;
+import java.util.List;
 import java.util.TimeZone;
 
 import org.quartz.Calendar;
@@ -215,4 +216,18 @@ public class MonthlyCalendar extends BaseCalendar implements Calendar,
 
         return cl.getTime().getTime();
     }
+
+    void addExcludedIntervals(long from, long to, List intervals) {
+        addExcludedDays(from, to, intervals);
+    }
+
+    boolean isExcludedDay(java.util.Calendar startOfDay) {
+        return isDayExcluded(startOfDay.get(java.util.Calendar.DAY_OF_MONTH));
+    }
+
+    public Object clone() {
+        MonthlyCalendar copy = (MonthlyCalendar) super.clone();
+        copy.excludeDays = (boolean[]) excludeDays.clone();
+        return copy;
+    }
 }
@@ -23,6 +23,7 @@
 package org.quartz.impl.calendar;
 
 import java.io.Serializable;
+import java.util.List;
 import java.util.TimeZone;
 
 import org.quartz.Calendar;
@@ -197,4 +198,18 @@ public class WeeklyCalendar extends BaseCalendar implements Calendar,
 
         return cl.getTime().getTime();
     }
+
+    void addExcludedIntervals(long from, long to, List intervals) {
+        addExcludedDays(from, to, intervals);
+    }
+
+    boolean isExcludedDay(java.util.Calendar startOfDay) {
+        return isDayExcluded(startOfDay.get(java.util.Calendar.DAY_OF_WEEK));
+    }
+
+    public Object clone() {
+        WeeklyCalendar copy = (WeeklyCalendar) super.clone();
+        copy.excludeDays = (boolean[]) excludeDays.clone();
+        return copy;
+    }
 }
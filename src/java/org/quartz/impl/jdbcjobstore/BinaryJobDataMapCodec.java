@@ -0,0 +1,242 @@
+/*
+ * Copyright 2001-2009 James House
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.quartz.impl.jdbcjobstore;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.StreamCorruptedException;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * A <code>{@link JobDataMapCodec}</code> that writes a compact, tagged
+ * binary form.
+ *
+ * <p>
+ * <code>String</code>s, the primitive wrappers, <code>Date</code>s and nested
+ * <code>HashMap</code>s are written directly; values of any other type are
+ * written with Java serialization, each on its own.  The form begins with a
+ * magic number and a format version, so that it can evolve.
+ * </p>
+ *
+ * <p>
+ * Values are read back as the types they were written as, except that
+ * subclasses of <code>Date</code> and <code>HashMap</code> are serialized so
+ * as to keep their types.
+ * </p>
+ */
+public class BinaryJobDataMapCodec implements JobDataMapCodec {
+
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     * Data members.
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    /** "QJ", which Java serialization streams never start with. */
+    private static final short MAGIC = 0x514A;
+
+    private static final byte FORMAT_VERSION = 1;
+
+    // writeUTF() writes at most 65535 bytes, of up to 3 per char
+    private static final int MAX_SHORT_STRING_LENGTH = 65535 / 3;
+
+    private static final byte TAG_NULL = 0;
+    private static final byte TAG_STRING = 1;
+    private static final byte TAG_LONG_STRING = 2;
+    private static final byte TAG_TRUE = 3;
+    private static final byte TAG_FALSE = 4;
+    private static final byte TAG_INTEGER = 5;
+    private static final byte TAG_LONG = 6;
+    private static final byte TAG_SHORT = 7;
+    private static final byte TAG_BYTE = 8;
+    private static final byte TAG_CHARACTER = 9;
+    private static final byte TAG_FLOAT = 10;
+    private static final byte TAG_DOUBLE = 11;
+    private static final byte TAG_DATE = 12;
+    private static final byte TAG_MAP = 13;
+    private static final byte TAG_SERIALIZED = 14;
+
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     * Interface.
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    public void encode(Map data, OutputStream out) throws IOException {
+        DataOutputStream dos = new DataOutputStream(out);
+        dos.writeShort(MAGIC);
+        dos.writeByte(FORMAT_VERSION);
+        writeMap(dos, data);
+        dos.flush();
+    }
+
+    public Map decode(InputStream in) throws IOException, ClassNotFoundException {
+        DataInputStream dis = new DataInputStream(in);
+        if (dis.readShort() != MAGIC) {
+            throw new StreamCorruptedException("Not an encoded JobDataMap.");
+        }
+        byte version = dis.readByte();
+        if (version != FORMAT_VERSION) {
+            throw new StreamCorruptedException(
+                "Unsupported JobDataMap format version: " + version);
+        }
+        return readMap(dis);
+    }
+
+    private void writeMap(DataOutputStream out, Map map) throws IOException {
+        out.writeInt(map.size());
+        Iterator itr = map.entrySet().iterator();
+        while (itr.hasNext()) {
+            Map.Entry entry = (Map.Entry) itr.next();
+            writeValue(out, entry.getKey());
+            writeValue(out, entry.getValue());
+        }
+    }
+
+    private Map readMap(DataInputStream in) throws IOException, ClassNotFoundException {
+        int size = in.readInt();
+        Map map = new HashMap(Math.max(16, (int) (size / 0.75f) + 1));
+        for (int i = 0; i < size; i++) {
+            Object key = readValue(in);
+            map.put(key, readValue(in));
+        }
+        return map;
+    }
+
+    private void writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(TAG_NULL);
+            return;
+        }
+
+        Class valueClass = value.getClass();
+        if (valueClass == String.class) {
+            String str = (String) value;
+            if (str.length() <= MAX_SHORT_STRING_LENGTH) {
+                out.writeByte(TAG_STRING);
+                out.writeUTF(str);
+            } else {
+                byte[] bytes = str.getBytes("UTF-8");
+                out.writeByte(TAG_LONG_STRING);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+        } else if (valueClass == Boolean.class) {
+            out.writeByte(((Boolean) value).booleanValue() ? TAG_TRUE : TAG_FALSE);
+        } else if (valueClass == Integer.class) {
+            out.writeByte(TAG_INTEGER);
+            out.writeInt(((Integer) value).intValue());
+        } else if (valueClass == Long.class) {
+            out.writeByte(TAG_LONG);
+            out.writeLong(((Long) value).longValue());
+        } else if (valueClass == Short.class) {
+            out.writeByte(TAG_SHORT);
+            out.writeShort(((Short) value).shortValue());
+        } else if (valueClass == Byte.class) {
+            out.writeByte(TAG_BYTE);
+            out.writeByte(((Byte) value).byteValue());
+        } else if (valueClass == Character.class) {
+            out.writeByte(TAG_CHARACTER);
+            out.writeChar(((Character) value).charValue());
+        } else if (valueClass == Float.class) {
+            out.writeByte(TAG_FLOAT);
+            out.writeFloat(((Float) value).floatValue());
+        } else if (valueClass == Double.class) {
+            out.writeByte(TAG_DOUBLE);
+            out.writeDouble(((Double) value).doubleValue());
+        } else if (valueClass == Date.class) {
+            out.writeByte(TAG_DATE);
+            out.writeLong(((Date) value).getTime());
+        } else if (valueClass == HashMap.class) {
+            out.writeByte(TAG_MAP);
+            writeMap(out, (Map) value);
+        } else {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            ObjectOutputStream oos = new ObjectOutputStream(baos);
+            oos.writeObject(value);
+            oos.flush();
+            out.writeByte(TAG_SERIALIZED);
+            out.writeInt(baos.size());
+            baos.writeTo(out);
+        }
+    }
+
+    private Object readValue(DataInputStream in) throws IOException, ClassNotFoundException {
+        byte tag = in.readByte();
+        switch (tag) {
+            case TAG_NULL:
+                return null;
+            case TAG_STRING:
+                return in.readUTF();
+            case TAG_LONG_STRING: {
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                return new String(bytes, "UTF-8");
+            }
+            case TAG_TRUE:
+                return Boolean.TRUE;
+            case TAG_FALSE:
+                return Boolean.FALSE;
+            case TAG_INTEGER:
+                return new Integer(in.readInt());
+            case TAG_LONG:
+                return new Long(in.readLong());
+            case TAG_SHORT:
+                return new Short(in.readShort());
+            case TAG_BYTE:
+                return new Byte(in.readByte());
+            case TAG_CHARACTER:
+                return new Character(in.readChar());
+            case TAG_FLOAT:
+                return new Float(in.readFloat());
+            case TAG_DOUBLE:
+                return new Double(in.readDouble());
+            case TAG_DATE:
+                return new Date(in.readLong());
+            case TAG_MAP:
+                return readMap(in);
+            case TAG_SERIALIZED: {
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                ObjectInputStream ois =
+                    new ObjectInputStream(new ByteArrayInputStream(bytes));
+                try {
+                    return ois.readObject();
+                } finally {
+                    ois.close();
+                }
+            }
+            default:
+                throw new StreamCorruptedException(
+                    "Unknown JobDataMap value tag: " + tag);
+        }
+    }
+}
@@ -66,6 +66,10 @@ public interface Constants {
 
     String TABLE_SCHEDULER_STATE = "SCHEDULER_STATE";
 
+    String TABLE_CACHE_VERSIONS = "CACHE_VERSIONS";
+
+    String TABLE_PARTITION_LEASES = "PARTITION_LEASES";
+
     // TABLE_JOB_DETAILS columns names
     String COL_JOB_NAME = "JOB_NAME";
 
@@ -109,6 +113,8 @@ public interface Constants {
 
     String COL_MISFIRE_INSTRUCTION = "MISFIRE_INSTR";
 
+    String COL_TRIGGER_VERSION = "TRIGGER_VERSION";
+
     String ALIAS_COL_NEXT_FIRE_TIME = "ALIAS_NXT_FR_TM";
 
     // TABLE_SIMPLE_TRIGGERS columns names
@@ -151,6 +157,16 @@ public interface Constants {
 
     String COL_CHECKIN_INTERVAL = "CHECKIN_INTERVAL";
 
+    // TABLE_CACHE_VERSIONS columns names
+    String COL_CACHE_NAME = "CACHE_NAME";
+
+    String COL_CACHE_VERSION = "CACHE_VERSION";
+
+    // TABLE_PARTITION_LEASES columns names
+    String COL_PARTITION_ID = "PARTITION_ID";
+
+    String COL_ACTIVE_TIME = "ACTIVE_TIME";
+
     // MISC CONSTANTS
     String DEFAULT_TABLE_PREFIX = "QRTZ_";
 
@@ -24,6 +24,7 @@ import java.io.IOException;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.quartz.Calendar;
@@ -136,6 +137,26 @@ interface DriverDelegate {
     boolean selectMisfiredTriggersInStates(Connection conn, String state1, String state2,
         long ts, int count, List resultList) throws SQLException;
     
+    /**
+     * <p>
+     * Select the triggers in the given states that have misfired - according
+     * to the given timestamp - along with their listeners, using a single 
+     * joined query for all simple and cron triggers.  No more than count 
+     * will be returned, earliest next fire time first.
+     * </p>
+     * 
+     * @param conn the DB Connection
+     * @param count the most misfired triggers to return, negative for all
+     * @param resultList Output parameter.  A List of 
+     *      <code>{@link org.quartz.Trigger}</code> objects.  Must not be null.
+     *          
+     * @return Whether there are more misfired triggers left to find beyond
+     *         the given count.
+     */
+    boolean selectMisfiredTriggersWithDetailsInStates(Connection conn, 
+        String state1, String state2, long ts, int count, List resultList) 
+        throws SQLException, ClassNotFoundException, IOException;
+    
     /**
      * <p>
      * Get the number of triggers in the given states that have
@@ -501,6 +522,24 @@ interface DriverDelegate {
     int insertSimpleTrigger(Connection conn, SimpleTrigger trigger)
         throws SQLException;
 
+    /**
+     * <p>
+     * Insert each of the given simple triggers, which must not have 
+     * additional properties, and their listeners, as JDBC batches.
+     * </p>
+     * 
+     * @param conn
+     *          the DB Connection
+     * @param triggers
+     *          the <code>SimpleTrigger</code>s to insert
+     * @param state
+     *          the state that the triggers should be stored in
+     * @return the insert count of each trigger, as returned by
+     *         <code>Statement.executeBatch()</code>
+     */
+    int[] insertSimpleTriggers(Connection conn, List triggers, String state)
+        throws SQLException, IOException;
+
     /**
      * <p>
      * Insert the blob trigger data.
@@ -644,6 +683,95 @@ interface DriverDelegate {
         String triggerName, String groupName, String newState,
         String oldState) throws SQLException;
 
+    /**
+     * <p>
+     * Update the fire times, start and end times and state of each of the 
+     * given simple and cron triggers, as after their misfire instructions 
+     * were applied, and the repeat count and times triggered of the simple 
+     * ones, as JDBC batches.  Their other properties are not updated.
+     * </p>
+     * 
+     * @param conn
+     *          the DB connection
+     * @param triggers
+     *          the triggers to update
+     * @param state
+     *          the new state for the triggers
+     * @return the update count of each trigger, as returned by
+     *         <code>Statement.executeBatch()</code>
+     */
+    int[] updateMisfiredTriggers(Connection conn, List triggers, String state)
+        throws SQLException;
+
+    /**
+     * <p>
+     * Update the given trigger to the given new state, and increment its
+     * version, if it is in the given old state.  Requires the
+     * <code>TRIGGER_VERSION</code> column.
+     * </p>
+     * 
+     * @param conn
+     *          the DB connection
+     * @param triggerName
+     *          the name of the trigger
+     * @param groupName
+     *          the group containing the trigger
+     * @param newState
+     *          the new state for the trigger
+     * @param oldState
+     *          the old state the trigger must be in
+     * @return int the number of rows updated
+     * @throws SQLException
+     */
+    int updateTriggerStateAndVersionFromOtherState(Connection conn,
+        String triggerName, String groupName, String newState, String oldState)
+        throws SQLException;
+
+    /**
+     * <p>
+     * Update the state of each of the given triggers to the new state, and
+     * increment its version, if it is still in the given old state, as a 
+     * single JDBC batch.  Requires the <code>TRIGGER_VERSION</code> column.
+     * </p>
+     * 
+     * @param conn
+     *          the DB connection
+     * @param triggerKeys
+     *          the identifiers (Key objects) of the triggers to update
+     * @param newState
+     *          the new state for the triggers
+     * @param oldState
+     *          the state the triggers must be in
+     * @return the update count of each trigger, as returned by
+     *         <code>Statement.executeBatch()</code>
+     */
+    int[] updateTriggerStateAndVersionFromOtherState(Connection conn,
+        List triggerKeys, String newState, String oldState) 
+        throws SQLException;
+
+    /**
+     * <p>
+     * Increment the version of the given trigger, if it is still in the given
+     * state and at the given version.  Requires the 
+     * <code>TRIGGER_VERSION</code> column.
+     * </p>
+     * 
+     * @param conn
+     *          the DB connection
+     * @param triggerName
+     *          the name of the trigger
+     * @param groupName
+     *          the group containing the trigger
+     * @param state
+     *          the state the trigger must be in
+     * @param version
+     *          the version the trigger must be at
+     * @return int the number of rows updated
+     * @throws SQLException
+     */
+    int updateTriggerVersion(Connection conn, String triggerName,
+        String groupName, String state, long version) throws SQLException;
+
     /**
      * <p>
      * Update the given trigger to the given new state, if it is one of the
@@ -781,6 +909,26 @@ interface DriverDelegate {
         String jobName, String groupName, String state, String oldState)
         throws SQLException;
 
+    /**
+     * <p>
+     * Update the states of any triggers associated with each of the given 
+     * jobs, that are in the given current state, as a single JDBC batch.
+     * </p>
+     * 
+     * @param conn
+     *          the DB Connection
+     * @param jobKeys
+     *          the identifiers (Key objects) of the jobs
+     * @param state
+     *          the new state for the triggers
+     * @param oldState
+     *          the old state of the triggers
+     * @return the update count of each job, as returned by
+     *         <code>Statement.executeBatch()</code>
+     */
+    int[] updateTriggerStatesForJobsFromOtherState(Connection conn,
+            List jobKeys, String state, String oldState) throws SQLException;
+
     /**
      * <p>
      * Delete all of the listeners associated with a given trigger.
@@ -1011,6 +1159,26 @@ interface DriverDelegate {
         String groupName) throws SQLException, ClassNotFoundException,
         IOException;
 
+    /**
+     * <p>
+     * Select a trigger's version, if it is in the given state.  Requires the
+     * <code>TRIGGER_VERSION</code> column.
+     * </p>
+     * 
+     * @param conn
+     *          the DB Connection
+     * @param triggerName
+     *          the name of the trigger
+     * @param groupName
+     *          the group containing the trigger
+     * @param state
+     *          the state the trigger must be in
+     * @return the version, or -1 if the trigger does not exist or is in 
+     *         another state
+     */
+    long selectTriggerVersion(Connection conn, String triggerName,
+        String groupName, String state) throws SQLException;
+
     /**
      * <p>
      * Select a trigger' state value.
@@ -1234,6 +1402,92 @@ interface DriverDelegate {
      */
     String[] selectCalendars(Connection conn) throws SQLException;
 
+    //---------------------------------------------------------------------------
+    // cache versions
+    //---------------------------------------------------------------------------
+
+    /**
+     * <p>
+     * Select the current value of the given change counter.  Requires the
+     * <code>CACHE_VERSIONS</code> table.
+     * </p>
+     * 
+     * @param conn
+     *          the DB Connection
+     * @param cacheName
+     *          the name of the counter
+     * @return the value of the counter, or 0 if it has never been incremented
+     */
+    long selectCacheVersion(Connection conn, String cacheName)
+        throws SQLException;
+
+    /**
+     * <p>
+     * Increment the given change counter.  Requires the 
+     * <code>CACHE_VERSIONS</code> table.
+     * </p>
+     * 
+     * @param conn
+     *          the DB Connection
+     * @param cacheName
+     *          the name of the counter
+     */
+    void updateCacheVersion(Connection conn, String cacheName)
+        throws SQLException;
+
+    //---------------------------------------------------------------------------
+    // partition leases
+    //---------------------------------------------------------------------------
+
+    /**
+     * <p>
+     * Select all of the trigger partition leases.  Requires the
+     * <code>PARTITION_LEASES</code> table.
+     * </p>
+     * 
+     * @param conn
+     *          the DB Connection
+     * @return a List of <code>{@link PartitionLeaseRecord}</code>s, in
+     *         partition order
+     */
+    List selectPartitionLeases(Connection conn)
+        throws SQLException;
+
+    /**
+     * <p>
+     * Give the lease of the given partition to the given scheduler instance,
+     * inserting its row if it has none.  Requires the 
+     * <code>PARTITION_LEASES</code> table.
+     * </p>
+     * 
+     * @param conn
+     *          the DB Connection
+     * @param partition
+     *          the partition
+     * @param instanceId
+     *          the id of the instance to hold the lease
+     * @param activeTime
+     *          the time from which the instance may acquire the partition's
+     *          triggers
+     */
+    void updatePartitionLease(Connection conn, int partition, 
+            String instanceId, long activeTime) throws SQLException;
+
+    /**
+     * <p>
+     * Delete the leases of the partitions from the given one on.  Requires 
+     * the <code>PARTITION_LEASES</code> table.
+     * </p>
+     * 
+     * @param conn
+     *          the DB Connection
+     * @param fromPartition
+     *          the lowest partition to delete the lease of
+     * @return the number of rows deleted
+     */
+    int deletePartitionLeases(Connection conn, int fromPartition)
+        throws SQLException;
+
     //---------------------------------------------------------------------------
     // trigger firing
     //---------------------------------------------------------------------------
@@ -1285,6 +1539,181 @@ interface DriverDelegate {
     List selectTriggerToAcquire(Connection conn, long noLaterThan, long noEarlierThan)
         throws SQLException;
 
+    /**
+     * <p>
+     * Select the next triggers which will fire between the two given timestamps
+     * in ascending order of fire time, and then descending by priority.
+     * </p>
+     * 
+     * @param conn
+     *          the DB Connection
+     * @param noLaterThan
+     *          highest value of <code>getNextFireTime()</code> of the triggers (exclusive)
+     * @param noEarlierThan 
+     *          highest value of <code>getNextFireTime()</code> of the triggers (inclusive)
+     * @param maxCount 
+     *          maximum number of trigger keys to return
+     *          
+     * @return A (never null, possibly empty) list of the identifiers (Key objects) of the next triggers to be fired.
+     */
+    List selectTriggerToAcquire(Connection conn, long noLaterThan, long noEarlierThan, int maxCount)
+        throws SQLException;
+
+    /**
+     * <p>
+     * Select the next triggers which will fire between the two given timestamps 
+     * in ascending order of fire time, and then descending by priority, with
+     * the keys of their jobs.
+     * </p>
+     * 
+     * @param conn
+     *          the DB Connection
+     * @param noLaterThan
+     *          highest value of <code>getNextFireTime()</code> of the triggers (exclusive)
+     * @param noEarlierThan 
+     *          highest value of <code>getNextFireTime()</code> of the triggers (inclusive)
+     * @param maxCount 
+     *          maximum number of triggers to return
+     *          
+     * @return A (never null, possibly empty) list of 
+     *         <code>{@link org.quartz.utils.TriggerStatus}</code>es of the 
+     *         next triggers to be fired, with their keys and job keys set.
+     */
+    List selectTriggerStatusesToAcquire(Connection conn, long noLaterThan, 
+            long noEarlierThan, int maxCount) throws SQLException;
+
+    /**
+     * <p>
+     * Select the next triggers which will fire between the two given timestamps 
+     * in ascending order of fire time, and then descending by priority, 
+     * locking their rows until the end of the transaction, and skipping any
+     * rows locked by other transactions, so that concurrent schedulers are
+     * given different triggers.
+     * </p>
+     * 
+     * <p>
+     * If <code>{@link #supportsSkipLocked()}</code> is false, the rows are
+     * neither locked nor skipped.
+     * </p>
+     * 
+     * @param conn
+     *          the DB Connection
+     * @param noLaterThan
+     *          highest value of <code>getNextFireTime()</code> of the triggers (exclusive)
+     * @param noEarlierThan 
+     *          highest value of <code>getNextFireTime()</code> of the triggers (inclusive)
+     * @param maxCount 
+     *          maximum number of trigger keys to return
+     *          
+     * @return A (never null, possibly empty) list of the identifiers (Key objects) of the next triggers to be fired.
+     */
+    List selectTriggerToAcquireSkipLocked(Connection conn, long noLaterThan, 
+            long noEarlierThan, int maxCount) throws SQLException;
+
+    /**
+     * <p>
+     * Whether <code>{@link #selectTriggerToAcquireSkipLocked}</code> locks
+     * the rows it selects, and skips those locked by other transactions.
+     * </p>
+     */
+    boolean supportsSkipLocked();
+
+    /**
+     * <p>
+     * Select the given triggers, along with their listeners, using a single
+     * joined query for all simple and cron triggers.
+     * </p>
+     * 
+     * @param conn
+     *          the DB Connection
+     * @param triggerKeys
+     *          the identifiers (Key objects) of the triggers to select
+     * @return the <code>{@link org.quartz.Trigger}</code>s that still exist,
+     *         in the order of the given keys
+     */
+    List selectTriggers(Connection conn, List triggerKeys)
+        throws SQLException, ClassNotFoundException, IOException;
+
+    /**
+     * <p>
+     * Select which of the given jobs are stateful.
+     * </p>
+     * 
+     * @param conn
+     *          the DB Connection
+     * @param jobKeys
+     *          the identifiers (Key objects) of the jobs to check
+     * @return a <code>Set</code> of the keys of the stateful jobs
+     */
+    Set selectStatefulJobs(Connection conn, List jobKeys)
+        throws SQLException;
+
+    /**
+     * <p>
+     * Select which of the given jobs exist.
+     * </p>
+     * 
+     * @param conn
+     *          the DB Connection
+     * @param jobKeys
+     *          the identifiers (Key objects) of the jobs to check
+     * @return a <code>Set</code> of the keys of the existing jobs
+     */
+    Set selectExistingJobs(Connection conn, List jobKeys)
+        throws SQLException;
+
+    /**
+     * <p>
+     * Select which of the given triggers are in the given state.
+     * </p>
+     * 
+     * @param conn
+     *          the DB Connection
+     * @param triggerKeys
+     *          the identifiers (Key objects) of the triggers to check
+     * @param state
+     *          the state the triggers must be in
+     * @return a <code>Set</code> of the keys of the triggers in the state
+     */
+    Set selectTriggersInState(Connection conn, List triggerKeys, String state)
+        throws SQLException;
+
+    /**
+     * <p>
+     * Select the JobDataMaps of the given triggers.
+     * </p>
+     * 
+     * @param conn
+     *          the DB Connection
+     * @param triggerKeys
+     *          the identifiers (Key objects) of the triggers
+     * @return a <code>Map</code> of the <code>{@link org.quartz.JobDataMap}</code>
+     *         of each of the triggers that exist and have data, by key
+     */
+    Map selectTriggerJobDataMaps(Connection conn, List triggerKeys)
+        throws SQLException, ClassNotFoundException, IOException;
+
+    /**
+     * <p>
+     * Update the state of each of the given triggers to the new state, if it
+     * is still in the given old state, as a single JDBC batch.
+     * </p>
+     * 
+     * @param conn
+     *          the DB connection
+     * @param triggerKeys
+     *          the identifiers (Key objects) of the triggers to update
+     * @param newState
+     *          the new state for the triggers
+     * @param oldState
+     *          the state the triggers must be in
+     * @return the update count of each trigger, as returned by
+     *         <code>Statement.executeBatch()</code>
+     */
+    int[] updateTriggerStateFromOtherState(Connection conn,
+            List triggerKeys, String newState, String oldState)
+        throws SQLException;
+
     /**
      * <p>
      * Insert a fired trigger.
@@ -1301,6 +1730,24 @@ interface DriverDelegate {
     int insertFiredTrigger(Connection conn, Trigger trigger,
         String state, JobDetail jobDetail) throws SQLException;
 
+    /**
+     * <p>
+     * Insert a fired trigger for each of the given (acquired) triggers, as a
+     * single JDBC batch.
+     * </p>
+     * 
+     * @param conn
+     *          the DB Connection
+     * @param triggers
+     *          the triggers
+     * @param state
+     *          the state that the fired triggers should be stored in
+     * @return the insert count of each trigger, as returned by
+     *         <code>Statement.executeBatch()</code>
+     */
+    int[] insertFiredTriggers(Connection conn, List triggers, String state)
+        throws SQLException;
+
     /**
      * <p>
      * Select the states of all fired-trigger records for a given trigger, or
@@ -111,7 +111,7 @@ public class HSQLDBDelegate extends StdJDBCDelegate {
 
     protected Object getJobDetailFromBlob(ResultSet rs, String colName)
         throws ClassNotFoundException, IOException, SQLException {
-        if (canUseProperties()) {
+        if (readJobDataAsStream()) {
             InputStream binaryInput = rs.getBinaryStream(colName);
             return binaryInput;
         }
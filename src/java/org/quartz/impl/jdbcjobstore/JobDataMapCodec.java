@@ -0,0 +1,62 @@
+/*
+ * Copyright 2001-2009 James House
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.quartz.impl.jdbcjobstore;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Map;
+
+/**
+ * An interface for encoding the contents of <code>JobDataMap</code>s into
+ * the BLOB columns of the JDBC <code>JobStore</code>, in place of Java
+ * serialization.
+ *
+ * <p>
+ * Implementations must have a public no-argument constructor, and be
+ * thread-safe.  The encoded form must not begin with the Java serialization
+ * stream magic number (<code>0xACED</code>), by which the delegate
+ * recognizes BLOBs that were written without a codec, and still reads them.
+ * </p>
+ *
+ * @see JobStoreSupport#setJobDataMapCodecClass(String)
+ * @see BinaryJobDataMapCodec
+ */
+public interface JobDataMapCodec {
+
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     * Interface.
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    /**
+     * Write the entries of the given <code>Map</code> to the given stream.
+     *
+     * @throws IOException if an entry can not be encoded.
+     */
+    void encode(Map data, OutputStream out) throws IOException;
+
+    /**
+     * Read back the entries written by <code>{@link #encode(Map, OutputStream)}</code>.
+     *
+     * @return a new, modifiable <code>Map</code>.
+     */
+    Map decode(InputStream in) throws IOException, ClassNotFoundException;
+}
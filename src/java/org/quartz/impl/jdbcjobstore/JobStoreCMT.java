@@ -234,7 +234,9 @@ public class JobStoreCMT extends JobStoreSupport {
                     conn = getConnection();
                 }
                 
+                long lockStart = System.currentTimeMillis();
                 transOwner = getLockHandler().obtainLock(conn, lockName);
+                recordLockWaitTime(System.currentTimeMillis() - lockStart);
             }
 
             if (conn == null) {
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2001-2009 James House
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.quartz.impl.jdbcjobstore;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * <p>
+ * A bounded, least-recently-used cache of the jobs and calendars read by a
+ * <code>{@link JobStoreSupport}</code>, kept coherent with the database
+ * through a change counter that is incremented by every transaction that
+ * changes a job or calendar.
+ * </p>
+ *
+ * <p>
+ * Whenever the store sees that the counter has moved on, it clears the
+ * cache.  Values read from the database are only cached if the cache has
+ * not been cleared, nor had entries removed, since the read began, so that
+ * a read racing with a change can't put back what the change evicted.
+ * </p>
+ *
+ * @see JobStoreSupport#setCacheSize(int)
+ */
+class JobStoreCache {
+
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     * Data members.
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    private final Map entries;
+
+    private long generation = 0;
+
+    private long version = -1;
+
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     * Constructors.
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    JobStoreCache(final int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize must be at least 1");
+        }
+
+        entries = new LinkedHashMap(16, 0.75f, true) {
+            protected boolean removeEldestEntry(Map.Entry eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     * Interface.
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    /**
+     * <p>
+     * Get the cached value for the given key, or null.
+     * </p>
+     */
+    public synchronized Object get(Object key) {
+        return entries.get(key);
+    }
+
+    /**
+     * <p>
+     * Get the generation to pass to <code>{@link #put}</code> for a value
+     * about to be read from the database.
+     * </p>
+     */
+    public synchronized long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * <p>
+     * Cache the given value, unless the cache has been cleared, or had
+     * entries removed, since the given generation.
+     * </p>
+     *
+     * @return whether the value was cached
+     */
+    public synchronized boolean put(Object key, Object value, long readGeneration) {
+        if (readGeneration != generation) {
+            return false;
+        }
+
+        entries.put(key, value);
+        return true;
+    }
+
+    /**
+     * <p>
+     * Remove the value cached for the given key, if any.
+     * </p>
+     */
+    public synchronized void remove(Object key) {
+        entries.remove(key);
+        generation++;
+    }
+
+    /**
+     * <p>
+     * Remove all the cached values.
+     * </p>
+     */
+    public synchronized void clear() {
+        entries.clear();
+        generation++;
+    }
+
+    /**
+     * <p>
+     * Clear the cache if the given value of the database's change counter
+     * differs from the one last validated against.
+     * </p>
+     *
+     * @return whether the cache was cleared
+     */
+    public synchronized boolean validate(long currentVersion) {
+        if (currentVersion == version) {
+            return false;
+        }
+
+        version = currentVersion;
+        clear();
+        return true;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+}
@@ -27,13 +27,18 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Proxy;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.apache.commons.logging.Log;
@@ -47,13 +52,17 @@ import org.quartz.ObjectAlreadyExistsException;
 import org.quartz.Scheduler;
 import org.quartz.SchedulerConfigException;
 import org.quartz.SchedulerException;
+import org.quartz.SchedulerMetrics;
 import org.quartz.SimpleTrigger;
 import org.quartz.Trigger;
 import org.quartz.core.SchedulingContext;
+import org.quartz.impl.calendar.IndexedCalendar;
 import org.quartz.spi.ClassLoadHelper;
 import org.quartz.spi.JobStore;
 import org.quartz.spi.SchedulerSignaler;
+import org.quartz.spi.TriggerAcquisitionLimit;
 import org.quartz.spi.TriggerFiredBundle;
+import org.quartz.spi.TriggerFiredResult;
 import org.quartz.utils.DBConnectionManager;
 import org.quartz.utils.Key;
 import org.quartz.utils.TriggerStatus;
@@ -87,6 +96,11 @@ public abstract class JobStoreSupport implements JobStore, Constants {
 
     protected static final String LOCK_MISFIRE_ACCESS = "MISFIRE_ACCESS";
 
+    protected static final String CACHE_JOBS_AND_CALENDARS = "JOBS_AND_CALENDARS";
+
+    // fewer misfired triggers than this per thread aren't worth a thread
+    private static final int MIN_MISFIRES_PER_THREAD = 256;
+
     /*
      * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
      * 
@@ -106,10 +120,20 @@ public abstract class JobStoreSupport implements JobStore, Constants {
     protected String instanceName;
     
     protected String delegateClassName;
+
+    protected String jobDataMapCodecClassName;
+
+    private boolean loadJobDataLazily = false;
     protected Class delegateClass = StdJDBCDelegate.class;
 
     protected HashMap calendarCache = new HashMap();
 
+    private HashMap calendarIndexes = new HashMap();
+
+    private int cacheSize = 0;
+
+    private JobStoreCache cache = null;
+
     private DriverDelegate delegate;
 
     private long misfireThreshold = 60000L; // one minute
@@ -142,6 +166,12 @@ public abstract class JobStoreSupport implements JobStore, Constants {
     
     private boolean acquireTriggersWithinLock = false;
     
+    private int acquireTriggersScanSize = 5;
+
+    private boolean useOptimisticConcurrency = false;
+
+    private SchedulerMetrics schedulerMetrics = null;
+    
     private long dbRetryInterval = 10000;
     
     private boolean makeThreadsDaemons = false;
@@ -150,6 +180,26 @@ public abstract class JobStoreSupport implements JobStore, Constants {
     private ClassLoader initializersLoader = null;
     
     private boolean doubleCheckLockMisfireHandler = true;
+
+    private boolean useBulkMisfireHandling = false;
+
+    private boolean useBatchedClusterRecovery = false;
+
+    private int partitionCount = 0;
+
+    private boolean useSkipLockedAcquisition = false;
+
+    private int statementCacheSize = 0;
+    
+    private List activePartitionLeases = Collections.EMPTY_LIST;
+    
+    // whether the driver reports the update count of each statement of a 
+    // batch, which is only known once a batch has been executed
+    private static final int BATCH_COUNTS_UNKNOWN = 0;
+    private static final int BATCH_COUNTS_REPORTED = 1;
+    private static final int BATCH_COUNTS_NOT_REPORTED = 2;
+    
+    private volatile int batchUpdateCounts = BATCH_COUNTS_UNKNOWN;
     
     private final Log log = LogFactory.getLog(getClass());
     
@@ -443,6 +493,63 @@ public abstract class JobStoreSupport implements JobStore, Constants {
 		this.acquireTriggersWithinLock = acquireTriggersWithinLock;
 	}
 
+    /**
+     * Get the minimum number of trigger rows to read per query when 
+     * acquiring triggers.
+     */
+    public int getAcquireTriggersScanSize() {
+        return acquireTriggersScanSize;
+    }
+
+    /**
+     * Set the minimum number of trigger rows to read per query when 
+     * acquiring triggers.  More than the number of triggers wanted are read 
+     * so as to make up for rows claimed by other schedulers in the meantime.
+     * Defaults to 5.
+     */
+    public void setAcquireTriggersScanSize(int acquireTriggersScanSize) {
+        if (acquireTriggersScanSize < 1) {
+            throw new IllegalArgumentException(
+                    "acquireTriggersScanSize must be at least 1");
+        }
+        this.acquireTriggersScanSize = acquireTriggersScanSize;
+    }
+
+    public boolean getUseOptimisticConcurrency() {
+        return useOptimisticConcurrency;
+    }
+
+    /**
+     * Whether to fire triggers, and complete the firing of triggers of 
+     * non-stateful jobs, without obtaining the <code>TRIGGER_ACCESS</code> 
+     * lock.  Instead, each trigger's row is claimed by a conditional update 
+     * on its state and version, so that schedulers in a cluster only contend 
+     * on the triggers they fire.  Defaults to <code>false</code>.
+     * 
+     * <p>Requires the <code>TRIGGER_VERSION</code> column on the triggers
+     * table, see <code>docs/dbTables/trigger_version.sql</code>.</p>
+     */
+    public void setUseOptimisticConcurrency(boolean useOptimisticConcurrency) {
+        this.useOptimisticConcurrency = useOptimisticConcurrency;
+    }
+
+    /**
+     * Get the <code>SchedulerMetrics</code> that the time spent waiting for 
+     * locks is recorded into, if any.
+     */
+    public SchedulerMetrics getSchedulerMetrics() {
+        return schedulerMetrics;
+    }
+
+    /**
+     * Set the <code>SchedulerMetrics</code> that the time spent waiting for 
+     * locks is recorded into.  Set by the <code>StdSchedulerFactory</code>
+     * to the scheduler's own.
+     */
+    public void setSchedulerMetrics(SchedulerMetrics schedulerMetrics) {
+        this.schedulerMetrics = schedulerMetrics;
+    }
+
     
     /**
      * <p>
@@ -468,6 +575,75 @@ public abstract class JobStoreSupport implements JobStore, Constants {
         return delegateClassName;
     }
 
+    /**
+     * <p>
+     * Set the class of the <code>{@link JobDataMapCodec}</code> to write 
+     * <code>JobDataMap</code>s with, in place of Java serialization, such as
+     * <code>{@link BinaryJobDataMapCodec}</code>.  Not used if the 
+     * 'useProperties' property is set.
+     * </p>
+     * 
+     * <p>
+     * <code>JobDataMap</code>s written before a codec was set are still read,
+     * but once one is set, all the schedulers sharing the tables must use it.
+     * </p>
+     * 
+     * @param jobDataMapCodecClassName
+     *          the codec class name
+     */
+    public void setJobDataMapCodecClass(String jobDataMapCodecClassName) {
+        this.jobDataMapCodecClassName = jobDataMapCodecClassName;
+    }
+
+    public String getJobDataMapCodecClass() {
+        return jobDataMapCodecClassName;
+    }
+
+    public boolean isLoadJobDataLazily() {
+        return loadJobDataLazily;
+    }
+
+    /**
+     * Whether to decode the <code>JobDataMap</code>s of jobs and triggers 
+     * only when their contents are first used, rather than when they are 
+     * retrieved, so that firing a trigger whose job doesn't use its data
+     * doesn't pay for decoding it.  Defaults to <code>false</code>.
+     * 
+     * <p>A job's <code>JobDataMap</code> that fails to decode will then 
+     * fail the job's execution, rather than put the trigger in the 
+     * <code>ERROR</code> state.</p>
+     */
+    public void setLoadJobDataLazily(boolean loadJobDataLazily) {
+        this.loadJobDataLazily = loadJobDataLazily;
+    }
+
+    public int getCacheSize() {
+        return cacheSize;
+    }
+
+    /**
+     * Set the maximum number of jobs and calendars to keep cached, least 
+     * recently used first out, or 0 not to cache jobs and to cache calendars
+     * only if not clustered, as before.  Defaults to 0.
+     * 
+     * <p>The cache is kept coherent through a change counter in the 
+     * <code>CACHE_VERSIONS</code> table (see 
+     * <code>docs/dbTables/cache_versions.sql</code>), which every change to
+     * a job or calendar increments, and which is checked each time triggers 
+     * are acquired, and before a job or calendar is retrieved through the 
+     * <code>JobStore</code> interface.  A change made by another scheduler 
+     * is therefore seen by this one's fire path from its next acquisition.  
+     * Stateful jobs, whose data changes with every execution, are not 
+     * cached.</p>
+     */
+    public void setCacheSize(int cacheSize) {
+        if (cacheSize < 0) {
+            throw new IllegalArgumentException(
+                    "cacheSize must not be negative");
+        }
+        this.cacheSize = cacheSize;
+    }
+
     public String getSelectWithLockSQL() {
         return selectWithLockSQL;
     }
@@ -548,6 +724,127 @@ public abstract class JobStoreSupport implements JobStore, Constants {
         this.doubleCheckLockMisfireHandler = doubleCheckLockMisfireHandler;
     }
     
+    public boolean getUseBulkMisfireHandling() {
+        return useBulkMisfireHandling;
+    }
+
+    /**
+     * Whether to recover misfired triggers a page at a time, each page read
+     * with one joined query, updated in memory, spread across the available
+     * processors, and written back with JDBC batch updates.  Simple and cron
+     * triggers are batched, others are stored one at a time as before.
+     * Defaults to <code>false</code>.
+     * 
+     * <p>The size of a page is the <code>maxMisfiresToHandleAtATime</code>,
+     * and the <code>MisfireHandler</code> releases the lock between pages,
+     * so it can be raised with this set, to drain a large backlog of 
+     * misfires sooner.</p>
+     */
+    public void setUseBulkMisfireHandling(boolean useBulkMisfireHandling) {
+        this.useBulkMisfireHandling = useBulkMisfireHandling;
+    }
+    
+    public boolean getUseBatchedClusterRecovery() {
+        return useBatchedClusterRecovery;
+    }
+
+    /**
+     * Whether to recover the jobs of a failed instance by grouping its fired
+     * trigger records by state, and releasing, recovering and cleaning them
+     * up with a few set-based queries and JDBC batches, rather than with
+     * several statements per record.  Defaults to <code>false</code>.
+     * 
+     * <p>This shortens the time the cluster locks are held when an instance
+     * that was running many jobs fails.</p>
+     */
+    public void setUseBatchedClusterRecovery(boolean useBatchedClusterRecovery) {
+        this.useBatchedClusterRecovery = useBatchedClusterRecovery;
+    }
+    
+    public int getPartitionCount() {
+        return partitionCount;
+    }
+
+    /**
+     * The number of partitions to split the triggers of a cluster into, 
+     * each leased to one instance, which is then the only one to acquire
+     * its triggers.  A trigger's partition is a hash of its job's name and
+     * group, so all the triggers of a stateful job are in the same one.
+     * Defaults to 0, for no partitioning.
+     * 
+     * <p>The leases are held in the <code>PARTITION_LEASES</code> table,
+     * and are shared out evenly again whenever an instance joins the 
+     * cluster, or is found to have failed.  With partitioning, triggers are
+     * acquired without the <code>TRIGGER_ACCESS</code> lock (unless 
+     * <code>acquireTriggersWithinLock</code> is set).  Use a few times as
+     * many partitions as there will be instances.  Only applies if 
+     * <code>isClustered</code> is set.</p>
+     */
+    public void setPartitionCount(int partitionCount) {
+        this.partitionCount = partitionCount;
+    }
+    
+    public int getStatementCacheSize() {
+        return statementCacheSize;
+    }
+
+    /**
+     * The number of prepared statements to keep open on each connection
+     * while it is in use, so that statements issued again in the same 
+     * transaction, such as those for each trigger of a batch being fired,
+     * are reused rather than prepared again.  Defaults to 0, for none.
+     * 
+     * <p>Only worth setting if the connection provider doesn't pool 
+     * statements itself.  The hits and misses are counted in the
+     * <code>SchedulerMetrics</code>.</p>
+     */
+    public void setStatementCacheSize(int statementCacheSize) {
+        this.statementCacheSize = statementCacheSize;
+    }
+
+    public boolean getUseSkipLockedAcquisition() {
+        return useSkipLockedAcquisition;
+    }
+
+    /**
+     * Whether to acquire triggers without the <code>TRIGGER_ACCESS</code>
+     * lock, instead locking just the rows of the candidate triggers, and
+     * skipping those that other schedulers have locked, so that schedulers
+     * acquire different triggers concurrently.  Defaults to 
+     * <code>false</code>.
+     * 
+     * <p>Only applies if the delegate supports skipping locked rows (the
+     * PostgreSQL, MS SQL Server and Oracle ones do), otherwise triggers are
+     * acquired as before, so the same configuration can be tested against
+     * an embedded database.  Ignored if <code>partitionCount</code> is 
+     * set, as partitions already keep schedulers to different triggers.</p>
+     */
+    public void setUseSkipLockedAcquisition(boolean useSkipLockedAcquisition) {
+        this.useSkipLockedAcquisition = useSkipLockedAcquisition;
+    }
+    
+    /**
+     * Whether triggers are acquired by locking their rows, skipping those 
+     * locked by other schedulers, rather than under the 
+     * <code>TRIGGER_ACCESS</code> lock.
+     * 
+     * @see #setUseSkipLockedAcquisition(boolean)
+     */
+    protected boolean isAcquireTriggersSkippingLocked() 
+        throws NoSuchDelegateException {
+        return getUseSkipLockedAcquisition() && !isPartitioned() 
+            && getDelegate().supportsSkipLocked();
+    }
+    
+    /**
+     * Whether trigger acquisition is partitioned across the cluster.
+     * 
+     * @see #setPartitionCount(int)
+     */
+    protected boolean isPartitioned() {
+        return isClustered() && getPartitionCount() > 0;
+    }
+    
     //---------------------------------------------------------------------------
     // interface methods
     //---------------------------------------------------------------------------
@@ -577,6 +874,10 @@ public abstract class JobStoreSupport implements JobStore, Constants {
         
         this.signaler = signaler;
 
+        if (getCacheSize() > 0) {
+            cache = new JobStoreCache(getCacheSize());
+        }
+
         // If the user hasn't specified an explicit lock handler, then 
         // choose one based on CMT/Clustered/UseDBLocks.
         if (getLockHandler() == null) {
@@ -674,10 +975,15 @@ public abstract class JobStoreSupport implements JobStore, Constants {
      * (and potentially restored to a pool).
      */
     protected Connection getAttributeRestoringConnection(Connection conn) {
+        InvocationHandler handler = (getStatementCacheSize() > 0) ?
+            new StatementCachingConnectionInvocationHandler(
+                    conn, getStatementCacheSize(), schedulerMetrics) :
+            new AttributeRestoringConnectionInvocationHandler(conn);
+        
         return (Connection)Proxy.newProxyInstance(
                 Thread.currentThread().getContextClassLoader(),
                 new Class[] { Connection.class },
-                new AttributeRestoringConnectionInvocationHandler(conn));
+                handler);
     }
     
     protected Connection getConnection() throws JobPersistenceException {
@@ -746,7 +1052,7 @@ public abstract class JobStoreSupport implements JobStore, Constants {
         executeInNonManagedTXLock(
             LOCK_TRIGGER_ACCESS,
             new VoidTransactionCallback() {
-                public void execute(Connection conn) throws JobPersistenceException {
+                public void executeVoid(Connection conn) throws JobPersistenceException {
                     cleanVolatileTriggerAndJobs(conn);
                 }
             });
@@ -801,7 +1107,7 @@ public abstract class JobStoreSupport implements JobStore, Constants {
         executeInNonManagedTXLock(
             LOCK_TRIGGER_ACCESS,
             new VoidTransactionCallback() {
-                public void execute(Connection conn) throws JobPersistenceException {
+                public void executeVoid(Connection conn) throws JobPersistenceException {
                     recoverJobs(conn);
                 }
             });
@@ -914,6 +1220,10 @@ public abstract class JobStoreSupport implements JobStore, Constants {
         Connection conn, boolean recovering)
         throws JobPersistenceException, SQLException {
 
+        if (getUseBulkMisfireHandling()) {
+            return recoverMisfiredJobsInBulk(conn, recovering);
+        }
+        
         // If recovering, we want to handle all of the misfired
         // triggers right away.
         int maxMisfiresToHandleAtATime = 
@@ -965,6 +1275,257 @@ public abstract class JobStoreSupport implements JobStore, Constants {
                 hasMoreMisfiredTriggers, misfiredTriggers.size(), earliestNewTime);
     }
 
+    /**
+     * <p>
+     * Recover misfired triggers a page of at most 
+     * <code>maxMisfiresToHandleAtATime</code> at a time.  If recovering, all
+     * of the pages are handled right away, in the one transaction.
+     * </p>
+     * 
+     * @see #setUseBulkMisfireHandling(boolean)
+     */
+    protected RecoverMisfiredJobsResult recoverMisfiredJobsInBulk(
+        Connection conn, boolean recovering)
+        throws JobPersistenceException, SQLException {
+
+        int pageSize = getMaxMisfiresToHandleAtATime();
+        
+        // Bound the pages by the number misfired to begin with, in case some
+        // are left misfired by their misfire instructions.
+        int remaining = (recovering) ? 
+            getDelegate().countMisfiredTriggersInStates(
+                conn, STATE_MISFIRED, STATE_WAITING, getMisfireTime()) : pageSize;
+        
+        int processed = 0;
+        long earliestNewTime = Long.MAX_VALUE;
+        boolean hasMoreMisfiredTriggers = false;
+        
+        while (remaining > 0) {
+            List misfiredTriggers = new ArrayList();
+            
+            try {
+                // We must still look for the MISFIRED state in case triggers 
+                // were left in this state when upgrading to this version that
+                // does not support it. 
+                hasMoreMisfiredTriggers =
+                    getDelegate().selectMisfiredTriggersWithDetailsInStates(
+                        conn, STATE_MISFIRED, STATE_WAITING, getMisfireTime(), 
+                        Math.min(pageSize, remaining), misfiredTriggers);
+            } catch (ClassNotFoundException e) {
+                throw new JobPersistenceException(
+                        "Couldn't retrieve misfired triggers: " + e.getMessage(), e);
+            } catch (IOException e) {
+                throw new JobPersistenceException(
+                        "Couldn't retrieve misfired triggers: " + e.getMessage(), e);
+            }
+            
+            if (misfiredTriggers.isEmpty()) {
+                break;
+            }
+            
+            if (hasMoreMisfiredTriggers) {
+                getLog().info(
+                    "Handling the first " + misfiredTriggers.size() +
+                    " triggers that missed their scheduled fire-time.  " +
+                    "More misfired triggers remain to be processed.");
+            } else { 
+                getLog().info(
+                    "Handling " + misfiredTriggers.size() + 
+                    " trigger(s) that missed their scheduled fire-time.");
+            }
+            
+            earliestNewTime = Math.min(earliestNewTime, 
+                updateMisfiredTriggers(conn, misfiredTriggers, recovering));
+            
+            processed += misfiredTriggers.size();
+            remaining -= misfiredTriggers.size();
+            if (!recovering || !hasMoreMisfiredTriggers) {
+                break;
+            }
+        }
+        
+        if (processed == 0) {
+            getLog().debug(
+                "Found 0 triggers that missed their scheduled fire-time.");
+            return RecoverMisfiredJobsResult.NO_OP; 
+        }
+
+        return new RecoverMisfiredJobsResult(
+                hasMoreMisfiredTriggers, processed, earliestNewTime);
+    }
+
+    /**
+     * <p>
+     * Apply the misfire instructions of the given misfired triggers, and 
+     * store them, batching the updates of simple and cron triggers.
+     * </p>
+     * 
+     * @return the earliest of the triggers' new next fire times, or
+     *         <code>Long.MAX_VALUE</code>
+     */
+    private long updateMisfiredTriggers(Connection conn, List misfiredTriggers, 
+            boolean recovering) throws JobPersistenceException, SQLException {
+        HashMap calendars = new HashMap();
+        List jobKeys = new ArrayList();
+        Set jobKeySet = new HashSet();
+        
+        for (Iterator itr = misfiredTriggers.iterator(); itr.hasNext();) {
+            Trigger trig = (Trigger) itr.next();
+            
+            String calName = trig.getCalendarName();
+            if (calName != null && !calendars.containsKey(calName)) {
+                calendars.put(calName, retrieveIndexedCalendar(conn, null, calName));
+            }
+            
+            Key jobKey = new Key(trig.getJobName(), trig.getJobGroup());
+            if (jobKeySet.add(jobKey)) {
+                jobKeys.add(jobKey);
+            }
+
+            signaler.notifyTriggerListenersMisfired(trig);
+        }
+        
+        applyMisfireInstructions(misfiredTriggers, calendars);
+
+        // Triggers that storeTrigger() might pause or block are stored by it.
+        Set pausedGroups = getDelegate().selectPausedTriggerGroups(conn);
+        boolean allGroupsPaused = pausedGroups.contains(ALL_GROUPS_PAUSED);
+        Set statefulJobs = getDelegate().selectStatefulJobs(conn, jobKeys);
+        
+        List waitingTriggers = new ArrayList();
+        List completeTriggers = new ArrayList();
+        long earliestNewTime = Long.MAX_VALUE;
+        
+        for (Iterator itr = misfiredTriggers.iterator(); itr.hasNext();) {
+            Trigger trig = (Trigger) itr.next();
+            boolean complete = (trig.getNextFireTime() == null);
+            
+            boolean batchable = 
+                ((trig instanceof SimpleTrigger && ((SimpleTrigger)trig).hasAdditionalProperties() == false) ||
+                 (trig instanceof CronTrigger && ((CronTrigger)trig).hasAdditionalProperties() == false)) &&
+                !allGroupsPaused && !pausedGroups.contains(trig.getGroup()) &&
+                (complete || !statefulJobs.contains(
+                    new Key(trig.getJobName(), trig.getJobGroup())));
+            
+            if (complete) {
+                if (batchable) {
+                    completeTriggers.add(trig);
+                } else {
+                    storeTrigger(conn, null, trig,
+                        null, true, STATE_COMPLETE, false, recovering);
+                }
+            } else {
+                if (batchable) {
+                    waitingTriggers.add(trig);
+                } else {
+                    storeTrigger(conn, null, trig, null, true, STATE_WAITING,
+                            false, false);
+                }
+                
+                if (trig.getNextFireTime().getTime() < earliestNewTime) {
+                    earliestNewTime = trig.getNextFireTime().getTime();
+                }
+            }
+        }
+        
+        if (!waitingTriggers.isEmpty()) {
+            getDelegate().updateMisfiredTriggers(conn, waitingTriggers, STATE_WAITING);
+        }
+        if (!completeTriggers.isEmpty()) {
+            getDelegate().updateMisfiredTriggers(conn, completeTriggers, STATE_COMPLETE);
+        }
+        
+        return earliestNewTime;
+    }
+    
+    /**
+     * <p>
+     * Apply the misfire instruction of each of the given triggers, spreading
+     * them across the available processors if there are enough of them.
+     * </p>
+     */
+    private void applyMisfireInstructions(final List triggers, final Map calendars)
+        throws JobPersistenceException {
+        int threadCount = Math.min(getMisfireHandlingThreadCount(),
+                triggers.size() / MIN_MISFIRES_PER_THREAD);
+        if (threadCount <= 1) {
+            applyMisfireInstructions(triggers.iterator(), calendars);
+            return;
+        }
+        
+        int chunkSize = (triggers.size() + threadCount - 1) / threadCount;
+        final RuntimeException[] failures = new RuntimeException[threadCount];
+        Thread[] threads = new Thread[threadCount];
+        
+        for (int i = 1; i < threadCount; i++) {
+            final int chunk = i;
+            final List chunkTriggers = triggers.subList(i * chunkSize, 
+                    Math.min((i + 1) * chunkSize, triggers.size()));
+            threads[i] = new Thread(Thread.currentThread().getName() + "-" + i) {
+                public void run() {
+                    try {
+                        applyMisfireInstructions(chunkTriggers.iterator(), calendars);
+                    } catch (RuntimeException e) {
+                        failures[chunk] = e;
+                    }
+                }
+            };
+            threads[i].setDaemon(true);
+            threads[i].start();
+        }
+        
+        try {
+            applyMisfireInstructions(
+                    triggers.subList(0, chunkSize).iterator(), calendars);
+        } catch (RuntimeException e) {
+            failures[0] = e;
+        }
+        
+        // the triggers mustn't be touched before all of the threads are done
+        boolean interrupted = false;
+        for (int i = 1; i < threadCount; i++) {
+            while (threads[i].isAlive()) {
+                try {
+                    threads[i].join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        
+        for (int i = 0; i < threadCount; i++) {
+            if (failures[i] != null) {
+                throw new JobPersistenceException(
+                        "Couldn't apply misfire instructions: " 
+                                + failures[i].getMessage(), failures[i]);
+            }
+        }
+    }
+    
+    /**
+     * <p>
+     * The most threads to apply a page of misfire instructions with, by
+     * default the number of available processors.
+     * </p>
+     */
+    protected int getMisfireHandlingThreadCount() {
+        return Runtime.getRuntime().availableProcessors();
+    }
+    
+    private void applyMisfireInstructions(Iterator triggers, Map calendars) {
+        while (triggers.hasNext()) {
+            Trigger trig = (Trigger) triggers.next();
+            Calendar cal = null;
+            if (trig.getCalendarName() != null) {
+                cal = (Calendar) calendars.get(trig.getCalendarName());
+            }
+            trig.updateAfterMisfire(cal);
+        }
+    }
+
     protected boolean updateMisfiredTrigger(Connection conn,
             SchedulingContext ctxt, String triggerName, String groupName,
             String newStateIfNotComplete, boolean forceState) // TODO: probably
@@ -1000,7 +1561,7 @@ public abstract class JobStoreSupport implements JobStore, Constants {
     private void doUpdateOfMisfiredTrigger(Connection conn, SchedulingContext ctxt, Trigger trig, boolean forceState, String newStateIfNotComplete, boolean recovering) throws JobPersistenceException {
         Calendar cal = null;
         if (trig.getCalendarName() != null) {
-            cal = retrieveCalendar(conn, ctxt, trig.getCalendarName());
+            cal = retrieveIndexedCalendar(conn, ctxt, trig.getCalendarName());
         }
 
         signaler.notifyTriggerListenersMisfired(trig);
@@ -1035,7 +1596,7 @@ public abstract class JobStoreSupport implements JobStore, Constants {
         executeInLock(
             (isLockOnInsert()) ? LOCK_TRIGGER_ACCESS : null,
             new VoidTransactionCallback() {
-                public void execute(Connection conn) throws JobPersistenceException {
+                public void executeVoid(Connection conn) throws JobPersistenceException {
                     if (newJob.isVolatile() && !newTrigger.isVolatile()) {
                         JobPersistenceException jpe = 
                             new JobPersistenceException(
@@ -1071,7 +1632,7 @@ public abstract class JobStoreSupport implements JobStore, Constants {
         executeInLock(
             (isLockOnInsert() || replaceExisting) ? LOCK_TRIGGER_ACCESS : null,
             new VoidTransactionCallback() {
-                public void execute(Connection conn) throws JobPersistenceException {
+                public void executeVoid(Connection conn) throws JobPersistenceException {
                     storeJob(conn, ctxt, newJob, replaceExisting);
                 }
             });
@@ -1101,6 +1662,7 @@ public abstract class JobStoreSupport implements JobStore, Constants {
             } else {
                 getDelegate().insertJobDetail(conn, newJob);
             }
+            invalidateCache(conn, new Key(newJob.getName(), newJob.getGroup()));
         } catch (IOException e) {
             throw new JobPersistenceException("Couldn't store job: "
                     + e.getMessage(), e);
@@ -1148,7 +1710,7 @@ public abstract class JobStoreSupport implements JobStore, Constants {
         executeInLock(
             (isLockOnInsert() || replaceExisting) ? LOCK_TRIGGER_ACCESS : null,
             new VoidTransactionCallback() {
-                public void execute(Connection conn) throws JobPersistenceException {
+                public void executeVoid(Connection conn) throws JobPersistenceException {
                     storeTrigger(conn, ctxt, newTrigger, null, replaceExisting,
                         STATE_WAITING, false, false);
                 }
@@ -1326,7 +1888,11 @@ public abstract class JobStoreSupport implements JobStore, Constants {
         throws NoSuchDelegateException, SQLException {
         getDelegate().deleteJobListeners(conn, jobName, groupName);
 
-        return (getDelegate().deleteJobDetail(conn, jobName, groupName) > 0);
+        if (getDelegate().deleteJobDetail(conn, jobName, groupName) > 0) {
+            invalidateCache(conn, new Key(jobName, groupName));
+            return true;
+        }
+        return false;
     }
     
     /**
@@ -1369,6 +1935,7 @@ public abstract class JobStoreSupport implements JobStore, Constants {
         return (JobDetail)executeWithoutLock( // no locks necessary for read...
             new TransactionCallback() {
                 public Object execute(Connection conn) throws JobPersistenceException {
+                    validateCache(conn);
                     return retrieveJob(conn, ctxt, jobName, groupName);
                 }
             });
@@ -1376,6 +1943,17 @@ public abstract class JobStoreSupport implements JobStore, Constants {
     
     protected JobDetail retrieveJob(Connection conn, SchedulingContext ctxt,
             String jobName, String groupName) throws JobPersistenceException {
+        Key jobKey = null;
+        long cacheGeneration = 0;
+        if (cache != null) {
+            jobKey = new Key(jobName, groupName);
+            JobDetail job = (JobDetail) cache.get(jobKey);
+            if (job != null) {
+                return (JobDetail) job.clone();
+            }
+            cacheGeneration = cache.getGeneration();
+        }
+
         try {
             JobDetail job = getDelegate().selectJobDetail(conn, jobName,
                     groupName, getClassLoadHelper());
@@ -1385,6 +1963,11 @@ public abstract class JobStoreSupport implements JobStore, Constants {
                 for (int i = 0; i < listeners.length; ++i) {
                     job.addJobListener(listeners[i]);
                 }
+
+                // a stateful job's data changes with every execution
+                if (cache != null && !job.isStateful()) {
+                    cache.put(jobKey, job.clone(), cacheGeneration);
+                }
             }
 
             return job;
@@ -1662,7 +2245,7 @@ public abstract class JobStoreSupport implements JobStore, Constants {
         executeInLock(
             (isLockOnInsert() || updateTriggers) ? LOCK_TRIGGER_ACCESS : null,
             new VoidTransactionCallback() {
-                public void execute(Connection conn) throws JobPersistenceException {
+                public void executeVoid(Connection conn) throws JobPersistenceException {
                     storeCalendar(conn, ctxt, calName, calendar, replaceExisting, updateTriggers);
                 }
             });
@@ -1686,9 +2269,10 @@ public abstract class JobStoreSupport implements JobStore, Constants {
                 
                 if(updateTriggers) {
                     Trigger[] trigs = getDelegate().selectTriggersForCalendar(conn, calName);
+                    Calendar indexedCalendar = IndexedCalendar.index(calendar);
                     
                     for(int i=0; i < trigs.length; i++) {
-                        trigs[i].updateWithNewCalendar(calendar, getMisfireThreshold());
+                        trigs[i].updateWithNewCalendar(indexedCalendar, getMisfireThreshold());
                         storeTrigger(conn, ctxt, trigs[i], null, true, STATE_WAITING, false, false);
                     }
                 }
@@ -1699,7 +2283,9 @@ public abstract class JobStoreSupport implements JobStore, Constants {
                 }
             }
 
-            if (isClustered == false) {
+            if (cache != null) {
+                invalidateCache(conn, calName);
+            } else if (isClustered == false) {
                 calendarCache.put(calName, calendar); // lazy-cache
             }
 
@@ -1762,9 +2348,14 @@ public abstract class JobStoreSupport implements JobStore, Constants {
                     "Calender cannot be removed if it referenced by a trigger!"); 
             }
 
-            if (isClustered == false) {
+            if (cache != null) {
+                invalidateCache(conn, calName);
+            } else if (isClustered == false) {
                 calendarCache.remove(calName);
             }
+            synchronized (calendarIndexes) {
+                calendarIndexes.remove(calName);
+            }
 
             return (getDelegate().deleteCalendar(conn, calName) > 0);
         } catch (SQLException e) {
@@ -1788,6 +2379,7 @@ public abstract class JobStoreSupport implements JobStore, Constants {
         return (Calendar)executeWithoutLock( // no locks necessary for read...
             new TransactionCallback() {
                 public Object execute(Connection conn) throws JobPersistenceException {
+                    validateCache(conn);
                     return retrieveCalendar(conn, ctxt, calName);
                 }
             });
@@ -1796,16 +2388,27 @@ public abstract class JobStoreSupport implements JobStore, Constants {
     protected Calendar retrieveCalendar(Connection conn,
             SchedulingContext ctxt, String calName)
         throws JobPersistenceException {
-        // all calendars are persistent, but we can lazy-cache them during run
-        // time as long as we aren't running clustered.
-        Calendar cal = (isClustered) ? null : (Calendar) calendarCache.get(calName);
+        Calendar cal = null;
+        long cacheGeneration = 0;
+        if (cache != null) {
+            cal = (Calendar) cache.get(calName);
+            cacheGeneration = cache.getGeneration();
+        } else if (isClustered == false) {
+            // all calendars are persistent, but we can lazy-cache them during
+            // run time as long as we aren't running clustered.
+            cal = (Calendar) calendarCache.get(calName);
+        }
         if (cal != null) {
             return cal;
         }
 
         try {
             cal = getDelegate().selectCalendar(conn, calName);
-            if (isClustered == false) {
+            if (cache != null) {
+                if (cal != null) {
+                    cache.put(calName, cal, cacheGeneration);
+                }
+            } else if (isClustered == false) {
                 calendarCache.put(calName, cal); // lazy-cache...
             }
             return cal;
@@ -1825,20 +2428,92 @@ public abstract class JobStoreSupport implements JobStore, Constants {
 
     /**
      * <p>
-     * Get the number of <code>{@link org.quartz.Job}</code> s that are
-     * stored in the <code>JobStore</code>.
+     * Retrieve the given <code>{@link org.quartz.Calendar}</code>, indexed
+     * for computing fire times with, if calendars are cached.  The index is
+     * kept for as long as the same cached calendar is retrieved.
      * </p>
+     *
+     * @see IndexedCalendar
      */
-    public int getNumberOfJobs(final SchedulingContext ctxt)
+    protected Calendar retrieveIndexedCalendar(Connection conn,
+            SchedulingContext ctxt, String calName)
         throws JobPersistenceException {
-        return ((Integer)executeWithoutLock( // no locks necessary for read...
-                new TransactionCallback() {
-                    public Object execute(Connection conn) throws JobPersistenceException {
-                        return new Integer(getNumberOfJobs(conn, ctxt));
-                    }
-                })).intValue();
-    }
-    
+        Calendar cal = retrieveCalendar(conn, ctxt, calName);
+        if (cal == null || (cache == null && isClustered)) {
+            // read afresh each time, so the index would be built for one use
+            return cal;
+        }
+
+        synchronized (calendarIndexes) {
+            Calendar indexed = (Calendar) calendarIndexes.get(calName);
+            if (indexed instanceof IndexedCalendar
+                    && ((IndexedCalendar) indexed).getCalendar() == cal) {
+                return indexed;
+            }
+
+            indexed = IndexedCalendar.index(cal);
+            calendarIndexes.put(calName, indexed);
+            return indexed;
+        }
+    }
+
+    /**
+     * <p>
+     * Clear the job and calendar cache, if there is one, if a job or 
+     * calendar has been changed since it was last validated.
+     * </p>
+     */
+    protected void validateCache(Connection conn) 
+        throws JobPersistenceException {
+        if (cache == null) {
+            return;
+        }
+
+        try {
+            if (cache.validate(getDelegate().selectCacheVersion(
+                    conn, CACHE_JOBS_AND_CALENDARS))) {
+                getLog().debug("Cleared the job and calendar cache.");
+            }
+        } catch (SQLException e) {
+            throw new JobPersistenceException(
+                    "Couldn't validate the job and calendar cache: "
+                            + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * <p>
+     * Evict the given job (<code>Key</code>) or calendar (name) from the 
+     * cache, if there is one, and increment the change counter so that all 
+     * the schedulers sharing the tables clear theirs.
+     * </p>
+     */
+    private void invalidateCache(Connection conn, Object key)
+        throws NoSuchDelegateException, SQLException {
+        if (cache == null) {
+            return;
+        }
+
+        cache.remove(key);
+        getDelegate().updateCacheVersion(conn, CACHE_JOBS_AND_CALENDARS);
+    }
+
+    /**
+     * <p>
+     * Get the number of <code>{@link org.quartz.Job}</code> s that are
+     * stored in the <code>JobStore</code>.
+     * </p>
+     */
+    public int getNumberOfJobs(final SchedulingContext ctxt)
+        throws JobPersistenceException {
+        return ((Integer)executeWithoutLock( // no locks necessary for read...
+                new TransactionCallback() {
+                    public Object execute(Connection conn) throws JobPersistenceException {
+                        return new Integer(getNumberOfJobs(conn, ctxt));
+                    }
+                })).intValue();
+    }
+    
     protected int getNumberOfJobs(Connection conn, SchedulingContext ctxt)
         throws JobPersistenceException {
         try {
@@ -2123,7 +2798,7 @@ public abstract class JobStoreSupport implements JobStore, Constants {
         executeInLock(
             LOCK_TRIGGER_ACCESS,
             new VoidTransactionCallback() {
-                public void execute(Connection conn) throws JobPersistenceException {
+                public void executeVoid(Connection conn) throws JobPersistenceException {
                     pauseTrigger(conn, ctxt, triggerName, groupName);
                 }
             });
@@ -2172,7 +2847,7 @@ public abstract class JobStoreSupport implements JobStore, Constants {
         executeInLock(
             LOCK_TRIGGER_ACCESS,
             new VoidTransactionCallback() {
-                public void execute(Connection conn) throws JobPersistenceException {
+                public void executeVoid(Connection conn) throws JobPersistenceException {
                     Trigger[] triggers = getTriggersForJob(conn, ctxt, jobName, groupName);
                     for (int j = 0; j < triggers.length; j++) {
                         pauseTrigger(conn, ctxt, triggers[j].getName(), triggers[j].getGroup());
@@ -2194,7 +2869,7 @@ public abstract class JobStoreSupport implements JobStore, Constants {
         executeInLock(
             LOCK_TRIGGER_ACCESS,
             new VoidTransactionCallback() {
-                public void execute(Connection conn) throws JobPersistenceException {
+                public void executeVoid(Connection conn) throws JobPersistenceException {
                     String[] jobNames = getJobNames(conn, ctxt, groupName);
 
                     for (int i = 0; i < jobNames.length; i++) {
@@ -2295,7 +2970,7 @@ public abstract class JobStoreSupport implements JobStore, Constants {
         executeInLock(
             LOCK_TRIGGER_ACCESS,
             new VoidTransactionCallback() {
-                public void execute(Connection conn) throws JobPersistenceException {
+                public void executeVoid(Connection conn) throws JobPersistenceException {
                     resumeTrigger(conn, ctxt, triggerName, groupName);
                 }
             });
@@ -2376,7 +3051,7 @@ public abstract class JobStoreSupport implements JobStore, Constants {
         executeInLock(
             LOCK_TRIGGER_ACCESS,
             new VoidTransactionCallback() {
-                public void execute(Connection conn) throws JobPersistenceException {
+                public void executeVoid(Connection conn) throws JobPersistenceException {
                     Trigger[] triggers = getTriggersForJob(conn, ctxt, jobName, groupName);
                     for (int j = 0; j < triggers.length; j++) {
                         resumeTrigger(conn, ctxt, triggers[j].getName(), triggers[j].getGroup());
@@ -2404,7 +3079,7 @@ public abstract class JobStoreSupport implements JobStore, Constants {
         executeInLock(
             LOCK_TRIGGER_ACCESS,
             new VoidTransactionCallback() {
-                public void execute(Connection conn) throws JobPersistenceException {
+                public void executeVoid(Connection conn) throws JobPersistenceException {
                     String[] jobNames = getJobNames(conn, ctxt, groupName);
 
                     for (int i = 0; i < jobNames.length; i++) {
@@ -2430,7 +3105,7 @@ public abstract class JobStoreSupport implements JobStore, Constants {
         executeInLock(
             LOCK_TRIGGER_ACCESS,
             new VoidTransactionCallback() {
-                public void execute(Connection conn) throws JobPersistenceException {
+                public void executeVoid(Connection conn) throws JobPersistenceException {
                     pauseTriggerGroup(conn, ctxt, groupName);
                 }
             });
@@ -2513,7 +3188,7 @@ public abstract class JobStoreSupport implements JobStore, Constants {
         executeInLock(
             LOCK_TRIGGER_ACCESS,
             new VoidTransactionCallback() {
-                public void execute(Connection conn) throws JobPersistenceException {
+                public void executeVoid(Connection conn) throws JobPersistenceException {
                     resumeTriggerGroup(conn, ctxt, groupName);
                 }
             });
@@ -2603,7 +3278,7 @@ public abstract class JobStoreSupport implements JobStore, Constants {
         executeInLock(
             LOCK_TRIGGER_ACCESS,
             new VoidTransactionCallback() {
-                public void execute(Connection conn) throws JobPersistenceException {
+                public void executeVoid(Connection conn) throws JobPersistenceException {
                     pauseAll(conn, ctxt);
                 }
             });
@@ -2662,7 +3337,7 @@ public abstract class JobStoreSupport implements JobStore, Constants {
         executeInLock(
             LOCK_TRIGGER_ACCESS,
             new VoidTransactionCallback() {
-                public void execute(Connection conn) throws JobPersistenceException {
+                public void executeVoid(Connection conn) throws JobPersistenceException {
                     resumeAll(conn, ctxt);
                 }
             });
@@ -2740,59 +3415,450 @@ public abstract class JobStoreSupport implements JobStore, Constants {
     // so that the fireInstanceId doesn't have to be on the trigger...
     protected Trigger acquireNextTrigger(Connection conn, SchedulingContext ctxt, long noLaterThan)
         throws JobPersistenceException {
+        List acquired = acquireNextTriggers(conn, ctxt, noLaterThan, 1, 0L, null);
+        
+        return acquired.isEmpty() ? null : (Trigger) acquired.get(0);
+    }
+
+    /**
+     * <p>
+     * Get a handle to the next triggers to be fired, and mark them as 'reserved'
+     * by the calling scheduler.
+     * </p>
+     * 
+     * @see #releaseAcquiredTrigger(SchedulingContext, Trigger)
+     */
+    public List acquireNextTriggers(SchedulingContext ctxt, long noLaterThan,
+            int maxCount, long timeWindow)
+        throws JobPersistenceException {
+        return acquireNextTriggers(ctxt, noLaterThan, maxCount, timeWindow, null);
+    }
+
+    /**
+     * <p>
+     * Get a handle to the next triggers to be fired, that the given limit
+     * allows, and mark them as 'reserved' by the calling scheduler.
+     * </p>
+     * 
+     * <p>
+     * Only the triggers among the next <code>acquireTriggersScanSize</code>
+     * due (or <code>maxCount</code>, if greater) are offered to the limit.
+     * </p>
+     * 
+     * @see #acquireNextTriggers(SchedulingContext, long, int, long)
+     */
+    public List acquireNextTriggers(final SchedulingContext ctxt, final long noLaterThan,
+            final int maxCount, final long timeWindow, 
+            final TriggerAcquisitionLimit limit)
+        throws JobPersistenceException {
+        
+        // a batch is always acquired within the lock, so that two schedulers
+        // can't each claim a trigger of the same stateful job, unless the
+        // job's triggers can only be acquired by this scheduler anyway
+        String lockName = null;
+        if(!isAcquireTriggersSkippingLocked() && 
+                (isAcquireTriggersWithinLock() || (maxCount > 1 && !isPartitioned()))) { 
+            lockName = LOCK_TRIGGER_ACCESS;
+        }
+        
+        return (List)executeInNonManagedTXLock(
+                lockName,
+                new TransactionCallback() {
+                    public Object execute(Connection conn) throws JobPersistenceException {
+                        return acquireNextTriggers(conn, ctxt, noLaterThan, 
+                                maxCount, timeWindow, limit);
+                    }
+                });
+    }
+    
+    protected List acquireNextTriggers(Connection conn, SchedulingContext ctxt, 
+            long noLaterThan, int maxCount, long timeWindow, 
+            TriggerAcquisitionLimit limit)
+        throws JobPersistenceException {
+        validateCache(conn);
+
+        if(isAcquireTriggersSkippingLocked() || isAcquireTriggersWithinLock() 
+                || (maxCount > 1 && !isPartitioned())) {
+            return acquireNextTriggersInBulk(conn, ctxt, noLaterThan, maxCount, 
+                    timeWindow, limit);
+        }
+        
+        List acquiredTriggers = new ArrayList();
+        Set acquiredStatefulJobKeys = new HashSet();
+        long batchEnd = noLaterThan;
+        boolean limited = false;
+        
         do {
             try {
-            	Trigger nextTrigger = null;
-            	
-            	List keys = getDelegate().selectTriggerToAcquire(conn, noLaterThan, getMisfireTime());
-
-            	// No trigger is ready to fire yet.
-            	if (keys == null || keys.size() == 0)
-            		return null;
-            	
-            	Iterator itr = keys.iterator();
-            	while(itr.hasNext()) {
-	                Key triggerKey = (Key) itr.next();
-	
-	                int rowsUpdated = 
-	                    getDelegate().updateTriggerStateFromOtherState(
-	                        conn,
-	                        triggerKey.getName(), triggerKey.getGroup(), 
-	                        STATE_ACQUIRED, STATE_WAITING);
-	
-	                // If our trigger was no longer in the expected state, try a new one.
-	                if (rowsUpdated <= 0) {
-	                    continue;
-	                }
-	
-	                nextTrigger = 
-	                    retrieveTrigger(conn, ctxt, triggerKey.getName(), triggerKey.getGroup());
-	
-	                // If our trigger is no longer available, try a new one.
-	                if(nextTrigger == null) {
-	                    continue;
-	                }
-	                
-	                break;
-            	}
-
-            	// if we didn't end up with a trigger to fire from that first
-            	// batch, try again for another batch
-            	if(nextTrigger == null) {
-                    continue;
+                // fetch a few spare keys, to make up for rows claimed by other 
+                // schedulers in the meantime
+                List keys = selectTriggerToAcquire(conn, noLaterThan + timeWindow, 
+                        Math.max(maxCount, getAcquireTriggersScanSize()));
+
+                // No trigger is ready to fire yet.
+                if (keys == null || keys.size() == 0)
+                    return acquiredTriggers;
+                
+                Iterator itr = keys.iterator();
+                while(itr.hasNext() && acquiredTriggers.size() < maxCount) {
+                    Key triggerKey = (Key) itr.next();
+    
+                    int rowsUpdated = (getUseOptimisticConcurrency()) ?
+                        getDelegate().updateTriggerStateAndVersionFromOtherState(
+                            conn,
+                            triggerKey.getName(), triggerKey.getGroup(), 
+                            STATE_ACQUIRED, STATE_WAITING) :
+                        getDelegate().updateTriggerStateFromOtherState(
+                            conn,
+                            triggerKey.getName(), triggerKey.getGroup(), 
+                            STATE_ACQUIRED, STATE_WAITING);
+    
+                    // If our trigger was no longer in the expected state, try a new one.
+                    if (rowsUpdated <= 0) {
+                        continue;
+                    }
+    
+                    Trigger nextTrigger = 
+                        retrieveTrigger(conn, ctxt, triggerKey.getName(), triggerKey.getGroup());
+    
+                    // If our trigger is no longer available, try a new one.
+                    if(nextTrigger == null) {
+                        continue;
+                    }
+                    
+                    // Keys are ordered by fire time, so once one falls outside of
+                    // the batch the rest do too.
+                    if(nextTrigger.getNextFireTime().getTime() > batchEnd) {
+                        getDelegate().updateTriggerStateFromOtherState(
+                            conn,
+                            triggerKey.getName(), triggerKey.getGroup(), 
+                            STATE_WAITING, STATE_ACQUIRED);
+                        return acquiredTriggers;
+                    }
+                    
+                    // Firing a stateful job's trigger blocks its other triggers,
+                    // so only one of them can be part of the batch.
+                    Key jobKey = new Key(nextTrigger.getJobName(), nextTrigger.getJobGroup());
+                    if(maxCount > 1 && acquiredStatefulJobKeys.contains(jobKey)) {
+                        getDelegate().updateTriggerStateFromOtherState(
+                            conn,
+                            triggerKey.getName(), triggerKey.getGroup(), 
+                            STATE_WAITING, STATE_ACQUIRED);
+                        continue;
+                    }
+                    
+                    if(limit != null && !limit.acquire(nextTrigger)) {
+                        getDelegate().updateTriggerStateFromOtherState(
+                            conn,
+                            triggerKey.getName(), triggerKey.getGroup(), 
+                            STATE_WAITING, STATE_ACQUIRED);
+                        limited = true;
+                        continue;
+                    }
+                    
+                    if(maxCount > 1) {
+                        JobDetail job = retrieveJob(conn, ctxt, 
+                                nextTrigger.getJobName(), nextTrigger.getJobGroup());
+                        if(job != null && job.isStateful()) {
+                            acquiredStatefulJobKeys.add(jobKey);
+                        }
+                    }
+                    
+                    nextTrigger.setFireInstanceId(getFiredTriggerRecordId());
+                    getDelegate().insertFiredTrigger(conn, nextTrigger, STATE_ACQUIRED, null);
+                    
+                    acquiredTriggers.add(nextTrigger);
+                    
+                    if(acquiredTriggers.size() == 1) {
+                        batchEnd = Math.max(nextTrigger.getNextFireTime().getTime(), 
+                                System.currentTimeMillis()) + timeWindow;
+                    }
                 }
-            	
-                nextTrigger.setFireInstanceId(getFiredTriggerRecordId());
-                getDelegate().insertFiredTrigger(conn, nextTrigger, STATE_ACQUIRED, null);
                 
-                return nextTrigger;
+                // if we didn't end up with a trigger to fire from that first
+                // batch, try again for another batch - unless the limit 
+                // refused some, which it would again
             } catch (Exception e) {
                 throw new JobPersistenceException(
                           "Couldn't acquire next trigger: " + e.getMessage(), e);
             }
-        } while (true);
+        } while (acquiredTriggers.isEmpty() && !limited);
+        
+        return acquiredTriggers;
+    }
+
+    /**
+     * <p>
+     * Select the keys of the next triggers to acquire, from the partitions
+     * whose leases this scheduler holds if trigger acquisition is 
+     * partitioned, or locking their rows if acquisition skips locked rows.
+     * </p>
+     */
+    protected List selectTriggerToAcquire(Connection conn, long noLaterThan, 
+            int maxCount) throws SQLException, NoSuchDelegateException {
+        if (isAcquireTriggersSkippingLocked()) {
+            return getDelegate().selectTriggerToAcquireSkipLocked(conn, 
+                    noLaterThan, getMisfireTime(), maxCount);
+        }
+        if (!isPartitioned()) {
+            return getDelegate().selectTriggerToAcquire(conn, noLaterThan, 
+                    getMisfireTime(), maxCount);
+        }
+        
+        Set partitions = getActivePartitions();
+        List keys = new LinkedList();
+        if (partitions.isEmpty()) {
+            return keys;
+        }
+        
+        // about one candidate in (partitionCount / partitions) is ours, so 
+        // scan twice that many to have some to spare, and twice as many 
+        // again while other partitions' triggers crowd ours out
+        int scanSize = 2 * maxCount 
+            * ((getPartitionCount() + partitions.size() - 1) / partitions.size());
+        while (true) {
+            List statuses = getDelegate().selectTriggerStatusesToAcquire(conn, 
+                    noLaterThan, getMisfireTime(), scanSize);
+            
+            keys.clear();
+            Iterator itr = statuses.iterator();
+            while (itr.hasNext() && keys.size() < maxCount) {
+                TriggerStatus status = (TriggerStatus) itr.next();
+                if (partitions.contains(new Integer(getPartition(status.getJobKey())))) {
+                    keys.add(status.getKey());
+                }
+            }
+            
+            if (keys.size() == maxCount || statuses.size() < scanSize
+                    || scanSize > Integer.MAX_VALUE / 2) {
+                return keys;
+            }
+            scanSize *= 2;
+        }
+    }
+
+    /**
+     * <p>
+     * Get the partition of the triggers of the given job.
+     * </p>
+     * 
+     * @see #setPartitionCount(int)
+     */
+    protected int getPartition(Key jobKey) {
+        int hash = 31 * jobKey.getGroup().hashCode() + jobKey.getName().hashCode(); 
+        return (hash & Integer.MAX_VALUE) % getPartitionCount();
     }
     
+    /**
+     * <p>
+     * Get the partitions whose triggers this scheduler may acquire now.
+     * </p>
+     */
+    protected Set getActivePartitions() {
+        Set partitions = new HashSet();
+        long now = System.currentTimeMillis();
+        
+        Iterator itr = getPartitionLeases().iterator();
+        while (itr.hasNext()) {
+            PartitionLeaseRecord lease = (PartitionLeaseRecord) itr.next();
+            if (lease.getActiveTime() <= now) {
+                partitions.add(new Integer(lease.getPartition()));
+            }
+        }
+        
+        return partitions;
+    }
+
+    private synchronized List getPartitionLeases() {
+        return activePartitionLeases;
+    }
+
+    private synchronized void setPartitionLeases(List leases) {
+        activePartitionLeases = leases;
+    }
+
+    /**
+     * <p>
+     * Acquire the next triggers with a fixed number of statements per pass,
+     * however many triggers are wanted: one query for the candidate keys, one
+     * joined query for the triggers, one batched conditional update to claim
+     * them and one batched insert of their fired-trigger records.
+     * </p>
+     * 
+     * <p>
+     * Must only be called while holding the <code>TRIGGER_ACCESS</code> lock,
+     * or when acquisition skips locked rows, as the triggers are read before 
+     * they are claimed.
+     * </p>
+     */
+    protected List acquireNextTriggersInBulk(Connection conn, SchedulingContext ctxt, 
+            long noLaterThan, int maxCount, long timeWindow, 
+            TriggerAcquisitionLimit limit)
+        throws JobPersistenceException {
+        List acquiredTriggers = new ArrayList();
+        
+        try {
+            while (true) {
+                List keys = selectTriggerToAcquire(conn, noLaterThan + timeWindow, 
+                        Math.max(maxCount, getAcquireTriggersScanSize()));
+
+                // No trigger is ready to fire yet.
+                if (keys == null || keys.size() == 0) {
+                    return acquiredTriggers;
+                }
+                
+                List candidates = getDelegate().selectTriggers(conn, keys);
+                
+                Set statefulJobKeys = null;
+                if (maxCount > 1) {
+                    Set jobKeys = new HashSet();
+                    Iterator itr = candidates.iterator();
+                    while (itr.hasNext()) {
+                        Trigger trigger = (Trigger) itr.next();
+                        jobKeys.add(new Key(trigger.getJobName(), trigger.getJobGroup()));
+                    }
+                    statefulJobKeys = getDelegate().selectStatefulJobs(
+                            conn, new ArrayList(jobKeys));
+                }
+                
+                // Pick the batch, in fire time order
+                List batch = new ArrayList();
+                List batchKeys = new ArrayList();
+                Set batchStatefulJobKeys = new HashSet();
+                long batchEnd = noLaterThan;
+                Iterator itr = candidates.iterator();
+                while (itr.hasNext() && batch.size() < maxCount) {
+                    Trigger trigger = (Trigger) itr.next();
+                    long fireTime = trigger.getNextFireTime().getTime(); 
+                    
+                    // Keys are ordered by fire time, so once one falls outside
+                    // of the batch the rest do too.
+                    if (fireTime > batchEnd) {
+                        break;
+                    }
+                    
+                    // Firing a stateful job's trigger blocks its other triggers,
+                    // so only one of them can be part of the batch.
+                    Key statefulJobKey = null;
+                    if (statefulJobKeys != null) {
+                        Key jobKey = new Key(trigger.getJobName(), trigger.getJobGroup());
+                        if (statefulJobKeys.contains(jobKey)) {
+                            if (batchStatefulJobKeys.contains(jobKey)) {
+                                continue;
+                            }
+                            statefulJobKey = jobKey;
+                        }
+                    }
+                    
+                    if (limit != null && !limit.acquire(trigger)) {
+                        continue;
+                    }
+                    if (statefulJobKey != null) {
+                        batchStatefulJobKeys.add(statefulJobKey);
+                    }
+                    
+                    batch.add(trigger);
+                    batchKeys.add(new Key(trigger.getName(), trigger.getGroup()));
+                    
+                    if (batch.size() == 1) {
+                        batchEnd = Math.max(fireTime, System.currentTimeMillis()) 
+                            + timeWindow;
+                    }
+                }
+                
+                if (batch.isEmpty()) {
+                    return acquiredTriggers;
+                }
+                
+                // Claim them all at once; a trigger that is no longer WAITING
+                // has been claimed by a scheduler that doesn't take the lock.
+                int[] rowsUpdated = claimTriggers(conn, batchKeys);
+                for (int i = 0; i < batch.size(); i++) {
+                    if (rowsUpdated[i] > 0) {
+                        Trigger trigger = (Trigger) batch.get(i);
+                        trigger.setFireInstanceId(getFiredTriggerRecordId());
+                        acquiredTriggers.add(trigger);
+                    }
+                }
+                
+                // if we didn't end up with a trigger to fire from that first
+                // batch, try again for another batch
+                if (!acquiredTriggers.isEmpty()) {
+                    getDelegate().insertFiredTriggers(conn, acquiredTriggers, STATE_ACQUIRED);
+                    return acquiredTriggers;
+                }
+            }
+        } catch (Exception e) {
+            throw new JobPersistenceException(
+                      "Couldn't acquire next trigger: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * <p>
+     * Claim the given triggers, from <code>WAITING</code> to 
+     * <code>ACQUIRED</code>, returning the number of rows updated for each.
+     * </p>
+     * 
+     * <p>
+     * Some drivers (e.g. Oracle's) report <code>SUCCESS_NO_INFO</code> for
+     * each statement of a batch rather than its update count, which doesn't
+     * tell a trigger this scheduler claimed from one another scheduler 
+     * claimed first.  The first batch is executed within a savepoint, so that
+     * if the driver turns out to be one of those, the triggers can be claimed
+     * again one statement at a time; they are from then on.  Without 
+     * savepoints, the acquisition fails instead, and is rolled back.
+     * </p>
+     */
+    private int[] claimTriggers(Connection conn, List triggerKeys) 
+        throws SQLException, NoSuchDelegateException {
+        if (triggerKeys.size() == 1 || batchUpdateCounts == BATCH_COUNTS_NOT_REPORTED) {
+            int[] rowsUpdated = new int[triggerKeys.size()];
+            for (int i = 0; i < rowsUpdated.length; i++) {
+                Key key = (Key) triggerKeys.get(i);
+                rowsUpdated[i] = (getUseOptimisticConcurrency()) ?
+                    getDelegate().updateTriggerStateAndVersionFromOtherState(
+                        conn, key.getName(), key.getGroup(), STATE_ACQUIRED, STATE_WAITING) :
+                    getDelegate().updateTriggerStateFromOtherState(
+                        conn, key.getName(), key.getGroup(), STATE_ACQUIRED, STATE_WAITING);
+            }
+            return rowsUpdated;
+        }
+        
+        Savepoint savepoint = null;
+        if (batchUpdateCounts == BATCH_COUNTS_UNKNOWN && supportsSavepoints(conn)) {
+            savepoint = conn.setSavepoint();
+        }
+        
+        int[] rowsUpdated = (getUseOptimisticConcurrency()) ?
+            getDelegate().updateTriggerStateAndVersionFromOtherState(
+                conn, triggerKeys, STATE_ACQUIRED, STATE_WAITING) :
+            getDelegate().updateTriggerStateFromOtherState(
+                conn, triggerKeys, STATE_ACQUIRED, STATE_WAITING);
+        
+        boolean reported = true;
+        for (int i = 0; i < rowsUpdated.length; i++) {
+            if (rowsUpdated[i] == Statement.SUCCESS_NO_INFO) {
+                reported = false;
+            }
+        }
+        if (reported) {
+            batchUpdateCounts = BATCH_COUNTS_REPORTED;
+            releaseSavepoint(conn, savepoint);
+            return rowsUpdated;
+        }
+        
+        batchUpdateCounts = BATCH_COUNTS_NOT_REPORTED;
+        if (savepoint == null) {
+            throw new SQLException("The driver didn't report which triggers "
+                    + "were claimed; they will be claimed one at a time from now on.");
+        }
+        getLog().info("The driver doesn't report batch update counts, " 
+                + "claiming triggers one at a time.");
+        conn.rollback(savepoint);
+        return claimTriggers(conn, triggerKeys);
+    }
+
     /**
      * <p>
      * Inform the <code>JobStore</code> that the scheduler no longer plans to
@@ -2805,7 +3871,7 @@ public abstract class JobStoreSupport implements JobStore, Constants {
         executeInNonManagedTXLock(
             LOCK_TRIGGER_ACCESS,
             new VoidTransactionCallback() {
-                public void execute(Connection conn) throws JobPersistenceException {
+                public void executeVoid(Connection conn) throws JobPersistenceException {
                     releaseAcquiredTrigger(conn, ctxt, trigger);
                 }
             });
@@ -2838,11 +3904,23 @@ public abstract class JobStoreSupport implements JobStore, Constants {
      */
     public TriggerFiredBundle triggerFired(
             final SchedulingContext ctxt, final Trigger trigger) throws JobPersistenceException {
+        if (getUseOptimisticConcurrency()) {
+            TriggerFiredResult result = (TriggerFiredResult) 
+                triggersFired(ctxt, Collections.singletonList(trigger)).get(0);
+            if (result.getException() instanceof JobPersistenceException) {
+                throw (JobPersistenceException) result.getException();
+            } else if (result.getException() != null) {
+                throw (RuntimeException) result.getException();
+            }
+            return result.getTriggerFiredBundle();
+        }
+
         return 
             (TriggerFiredBundle)executeInNonManagedTXLock(
                 LOCK_TRIGGER_ACCESS,
                 new TransactionCallback() {
                     public Object execute(Connection conn) throws JobPersistenceException {
+                        validateCache(conn);
                         try {
                             return triggerFired(conn, ctxt, trigger);
                         } catch (JobPersistenceException jpe) {
@@ -2857,18 +3935,269 @@ public abstract class JobStoreSupport implements JobStore, Constants {
                 });
     }
 
+    /**
+     * <p>
+     * Inform the <code>JobStore</code> that the scheduler is now firing the
+     * given <code>Trigger</code>s (executing their associated <code>Job</code>s),
+     * that it had previously acquired (reserved), all within one transaction.
+     * </p>
+     */
+    public List triggersFired(
+            final SchedulingContext ctxt, final List triggers) throws JobPersistenceException {
+        if (!getUseOptimisticConcurrency()) {
+            return 
+                (List)executeInNonManagedTXLock(
+                    LOCK_TRIGGER_ACCESS,
+                    new TransactionCallback() {
+                        public Object execute(Connection conn) throws JobPersistenceException {
+                            validateCache(conn);
+                            return triggersFired(conn, ctxt, triggers, false);
+                        }
+                    });
+        }
+        
+        // Firing a stateful job's trigger blocks its other triggers, which 
+        // may be firing on other schedulers, so those still take the lock. 
+        final List unlockedTriggers = new ArrayList(triggers.size());
+        final List lockedTriggers = new ArrayList();
+        final Set lockedTriggerKeys = new HashSet();
+        List results = 
+            (List)executeInNonManagedTXLock(
+                null, /* passing null as lock name causes no lock to be made */
+                new TransactionCallback() {
+                    public Object execute(Connection conn) throws JobPersistenceException {
+                        validateCache(conn);
+                        Set statefulJobKeys = null;
+                        try {
+                            Set jobKeys = new HashSet();
+                            Iterator itr = triggers.iterator();
+                            while (itr.hasNext()) {
+                                Trigger trigger = (Trigger) itr.next();
+                                jobKeys.add(new Key(trigger.getJobName(), trigger.getJobGroup()));
+                            }
+                            statefulJobKeys = getDelegate().selectStatefulJobs(
+                                    conn, new ArrayList(jobKeys));
+                        } catch (SQLException e) {
+                            throw new JobPersistenceException(
+                                    "Couldn't select stateful jobs: " + e.getMessage(), e);
+                        }
+                        
+                        Iterator itr = triggers.iterator();
+                        while (itr.hasNext()) {
+                            Trigger trigger = (Trigger) itr.next();
+                            if (statefulJobKeys.contains(
+                                    new Key(trigger.getJobName(), trigger.getJobGroup()))) {
+                                lockedTriggers.add(trigger);
+                                lockedTriggerKeys.add(
+                                        new Key(trigger.getName(), trigger.getGroup()));
+                            } else {
+                                unlockedTriggers.add(trigger);
+                            }
+                        }
+                        
+                        return triggersFired(conn, ctxt, unlockedTriggers, true);
+                    }
+                });
+        
+        if (lockedTriggers.isEmpty()) {
+            return results;
+        }
+        
+        // the unlocked triggers' firings are committed, so they must be
+        // reported even if the locked ones fail, or they would be released
+        List lockedResults = null;
+        try {
+            lockedResults = 
+                (List)executeInNonManagedTXLock(
+                    LOCK_TRIGGER_ACCESS,
+                    new TransactionCallback() {
+                        public Object execute(Connection conn) throws JobPersistenceException {
+                            validateCache(conn);
+                            return triggersFired(conn, ctxt, lockedTriggers, false);
+                        }
+                    });
+        } catch (JobPersistenceException e) {
+            lockedResults = new ArrayList(lockedTriggers.size());
+            Iterator itr = lockedTriggers.iterator();
+            while (itr.hasNext()) {
+                lockedResults.add(new TriggerFiredResult((Trigger) itr.next(), e));
+            }
+        }
+        
+        // report the results in the order the triggers were given
+        List allResults = new ArrayList(triggers.size());
+        Iterator unlockedItr = results.iterator();
+        Iterator lockedItr = lockedResults.iterator();
+        Iterator itr = triggers.iterator();
+        while (itr.hasNext()) {
+            Trigger trigger = (Trigger) itr.next();
+            if (lockedTriggerKeys.contains(
+                    new Key(trigger.getName(), trigger.getGroup()))) {
+                allResults.add(lockedItr.next());
+            } else {
+                allResults.add(unlockedItr.next());
+            }
+        }
+        return allResults;
+    }
+
+    /**
+     * <p>
+     * Fire each of the given triggers, reporting any failure in its 
+     * <code>TriggerFiredResult</code> rather than throwing it.
+     * </p>
+     * 
+     * <p>
+     * Some databases (e.g. PostgreSQL) abort the whole transaction when a
+     * statement fails, so a trigger that fails to fire must not leave the
+     * rest of the batch to run in a broken transaction.  Where the driver 
+     * supports savepoints, each trigger is fired within its own, which is 
+     * rolled back to if the trigger fails; otherwise the batch stops at the
+     * first failure, and the remaining triggers are reported as not fired 
+     * (with a <code>null</code> bundle) so that they get released.
+     * </p>
+     * 
+     * @param claimByVersion 
+     *          whether the triggers are being fired without holding the 
+     *          <code>TRIGGER_ACCESS</code> lock.
+     * @see #triggerFired(Connection, SchedulingContext, Trigger, boolean)
+     */
+    protected List triggersFired(Connection conn, SchedulingContext ctxt, 
+            List triggers, boolean claimByVersion) {
+        List results = new ArrayList(triggers.size());
+        
+        boolean useSavepoints = (triggers.size() > 1) && supportsSavepoints(conn);
+        boolean stopped = false;
+        
+        Iterator itr = triggers.iterator();
+        while(itr.hasNext()) {
+            Trigger trigger = (Trigger) itr.next();
+            if (stopped) {
+                results.add(new TriggerFiredResult(trigger, (TriggerFiredBundle)null));
+                continue;
+            }
+            
+            Savepoint savepoint = null;
+            if (useSavepoints) {
+                try {
+                    savepoint = conn.setSavepoint();
+                } catch (SQLException e) {
+                    getLog().warn("Couldn't set savepoint, firing the rest of the batch without.", e);
+                    useSavepoints = false;
+                }
+            }
+            
+            TriggerFiredResult result = null;
+            try {
+                result = new TriggerFiredResult(trigger, 
+                        triggerFired(conn, ctxt, trigger, claimByVersion));
+            } catch (JobPersistenceException jpe) {
+                // If job didn't exisit, we still want to commit our work and return null.
+                if (jpe.getErrorCode() == SchedulerException.ERR_PERSISTENCE_JOB_DOES_NOT_EXIST) {
+                    result = new TriggerFiredResult(trigger, (TriggerFiredBundle)null);
+                } else {
+                    result = new TriggerFiredResult(trigger, jpe);
+                }
+            } catch (RuntimeException re) {
+                result = new TriggerFiredResult(trigger, re);
+            }
+            results.add(result);
+            
+            if (result.getException() == null || !isStatementFailure(result.getException())) {
+                releaseSavepoint(conn, savepoint);
+            } else if (savepoint == null || !rollbackToSavepoint(conn, savepoint)) {
+                stopped = true;
+            }
+        }
+        
+        return results;
+    }
+
+    /**
+     * Whether the given failure to fire a trigger may have come from a failed
+     * statement, that may have left the transaction unusable.
+     */
+    private boolean isStatementFailure(Exception e) {
+        if (e instanceof JobPersistenceException) {
+            return ((JobPersistenceException) e).getUnderlyingException() 
+                instanceof SQLException;
+        }
+        return true;
+    }
+
+    private boolean supportsSavepoints(Connection conn) {
+        try {
+            return conn.getMetaData().supportsSavepoints();
+        } catch (SQLException e) {
+            getLog().warn("Couldn't tell whether savepoints are supported.", e);
+            return false;
+        }
+    }
+    
+    private void releaseSavepoint(Connection conn, Savepoint savepoint) {
+        if (savepoint != null) {
+            try {
+                conn.releaseSavepoint(savepoint);
+            } catch (SQLException e) {
+                // it goes with the transaction anyway
+                getLog().debug("Couldn't release savepoint.", e);
+            }
+        }
+    }
+    
+    private boolean rollbackToSavepoint(Connection conn, Savepoint savepoint) {
+        try {
+            conn.rollback(savepoint);
+            return true;
+        } catch (SQLException e) {
+            getLog().error("Couldn't roll back to savepoint, not firing the rest of the batch.", e);
+            return false;
+        }
+    }
+
     protected TriggerFiredBundle triggerFired(Connection conn,
             SchedulingContext ctxt, Trigger trigger)
         throws JobPersistenceException {
+        return triggerFired(conn, ctxt, trigger, false);
+    }
+
+    /**
+     * <p>
+     * Fire the given acquired trigger.
+     * </p>
+     * 
+     * <p>
+     * When <code>claimByVersion</code> is true, the caller does not hold the
+     * <code>TRIGGER_ACCESS</code> lock, and the trigger must not be of a 
+     * stateful job.  The trigger's row is then claimed by incrementing its
+     * version, on the condition that neither its state nor its version have
+     * changed since they were read; the update also locks the row until the
+     * transaction ends.  Acquiring a trigger increments its version too, so a
+     * trigger that was released and acquired again in the meantime is not 
+     * fired twice.
+     * </p>
+     */
+    protected TriggerFiredBundle triggerFired(Connection conn,
+            SchedulingContext ctxt, Trigger trigger, boolean claimByVersion)
+        throws JobPersistenceException {
         JobDetail job = null;
         Calendar cal = null;
+        long version = -1;
 
         // Make sure trigger wasn't deleted, paused, or completed...
-        try { // if trigger was deleted, state will be STATE_DELETED
-            String state = getDelegate().selectTriggerState(conn,
-                    trigger.getName(), trigger.getGroup());
-            if (!state.equals(STATE_ACQUIRED)) {
-                return null;
+        try {
+            if (claimByVersion) {
+                version = getDelegate().selectTriggerVersion(conn,
+                        trigger.getName(), trigger.getGroup(), STATE_ACQUIRED);
+                if (version < 0) {
+                    return null;
+                }
+            } else { // if trigger was deleted, state will be STATE_DELETED
+                String state = getDelegate().selectTriggerState(conn,
+                        trigger.getName(), trigger.getGroup());
+                if (!state.equals(STATE_ACQUIRED)) {
+                    return null;
+                }
             }
         } catch (SQLException e) {
             throw new JobPersistenceException("Couldn't select trigger state: "
@@ -2891,10 +4220,21 @@ public abstract class JobStoreSupport implements JobStore, Constants {
         }
 
         if (trigger.getCalendarName() != null) {
-            cal = retrieveCalendar(conn, ctxt, trigger.getCalendarName());
+            cal = retrieveIndexedCalendar(conn, ctxt, trigger.getCalendarName());
             if (cal == null) { return null; }
         }
 
+        try {
+            if (claimByVersion && getDelegate().updateTriggerVersion(conn, 
+                    trigger.getName(), trigger.getGroup(), STATE_ACQUIRED, version) == 0) {
+                // changed by another scheduler since it was read
+                return null;
+            }
+        } catch (SQLException e) {
+            throw new JobPersistenceException("Couldn't claim trigger: "
+                    + e.getMessage(), e);
+        }
+
         try {
             getDelegate().deleteFiredTrigger(conn, trigger.getFireInstanceId());
             getDelegate().insertFiredTrigger(conn, trigger, STATE_EXECUTING,
@@ -2938,7 +4278,7 @@ public abstract class JobStoreSupport implements JobStore, Constants {
 
         job.getJobDataMap().clearDirtyFlag();
 
-        return new TriggerFiredBundle(job, trigger, cal, trigger.getGroup()
+        return new TriggerFiredBundle(job, trigger, IndexedCalendar.unwrap(cal), trigger.getGroup()
                 .equals(Scheduler.DEFAULT_RECOVERY_GROUP), new Date(), trigger
                 .getPreviousFireTime(), prevFireTime, trigger.getNextFireTime());
     }
@@ -2955,10 +4295,19 @@ public abstract class JobStoreSupport implements JobStore, Constants {
     public void triggeredJobComplete(final SchedulingContext ctxt, final Trigger trigger,
             final JobDetail jobDetail, final int triggerInstCode)
         throws JobPersistenceException {
+        // Completing the firing of a non-stateful job's trigger that is to be
+        // left as it is only deletes its fired trigger record. 
+        String lockName = LOCK_TRIGGER_ACCESS;
+        if (getUseOptimisticConcurrency() && !jobDetail.isStateful()
+                && (triggerInstCode == Trigger.INSTRUCTION_NOOP
+                    || triggerInstCode == Trigger.INSTRUCTION_RE_EXECUTE_JOB)) {
+            lockName = null;
+        }
+        
         executeInNonManagedTXLock(
-            LOCK_TRIGGER_ACCESS,
+            lockName,
             new VoidTransactionCallback() {
-                public void execute(Connection conn) throws JobPersistenceException {
+                public void executeVoid(Connection conn) throws JobPersistenceException {
                     triggeredJobComplete(conn, ctxt, trigger, jobDetail,triggerInstCode);
                 }
             });    
@@ -3069,7 +4418,24 @@ public abstract class JobStoreSupport implements JobStore, Constants {
                     ctorParams = new Object[]{getLog(), tablePrefix, instanceId};
                 }
 
-                delegate = (DriverDelegate) ctor.newInstance(ctorParams);
+                DriverDelegate newDelegate = 
+                    (DriverDelegate) ctor.newInstance(ctorParams);
+                
+                if (jobDataMapCodecClassName != null || isLoadJobDataLazily()) {
+                    if (!(newDelegate instanceof StdJDBCDelegate)) {
+                        throw new NoSuchDelegateException(
+                            "The jobDataMapCodecClass and loadJobDataLazily properties " 
+                            + "require a delegate that extends StdJDBCDelegate.");
+                    }
+                    StdJDBCDelegate stdDelegate = (StdJDBCDelegate) newDelegate;
+                    if (jobDataMapCodecClassName != null) {
+                        stdDelegate.setJobDataMapCodec((JobDataMapCodec) 
+                            getClassLoadHelper().loadClass(jobDataMapCodecClassName).newInstance());
+                    }
+                    stdDelegate.setLoadJobDataLazily(isLoadJobDataLazily());
+                }
+                
+                delegate = newDelegate;
             } catch (NoSuchMethodException e) {
                 throw new NoSuchDelegateException(
                         "Couldn't find delegate constructor: " + e.getMessage());
@@ -3192,6 +4558,12 @@ public abstract class JobStoreSupport implements JobStore, Constants {
                     clusterRecover(conn, failedRecords);
                     recovered = true;
                 }
+                
+                // an instance has joined or failed, so share the partitions
+                // out again
+                if (isPartitioned()) {
+                    rebalancePartitions(conn);
+                }
             }
             
             commitConnection(conn);
@@ -3328,6 +4700,11 @@ public abstract class JobStoreSupport implements JobStore, Constants {
                         lastCheckin, getClusterCheckinInterval());
             }
             
+            // pick up partitions given to, or taken from, this instance 
+            if (isPartitioned()) {
+                setPartitionLeases(selectOwnPartitionLeases(
+                        getDelegate().selectPartitionLeases(conn)));
+            }
         } catch (Exception e) {
             throw new JobPersistenceException("Failure updating scheduler state when checking-in: "
                     + e.getMessage(), e);
@@ -3336,12 +4713,139 @@ public abstract class JobStoreSupport implements JobStore, Constants {
         return failedInstances;
     }
 
+    /**
+     * <p>
+     * Share the trigger partitions out evenly between the live instances of
+     * the cluster, leaving as many as possible with the instance already
+     * holding their lease.  Must be called holding the 
+     * <code>STATE_ACCESS</code> lock.
+     * </p>
+     * 
+     * <p>
+     * A partition taken from a live instance only becomes active for its
+     * new holder once the old one has had time to check in, and see that
+     * it has lost it, or to be found to have failed.
+     * </p>
+     * 
+     * @see #setPartitionCount(int)
+     */
+    protected void rebalancePartitions(Connection conn)
+        throws JobPersistenceException {
+        try {
+            long timeNow = System.currentTimeMillis();
+            
+            Map liveInstances = new HashMap();
+            List states = getDelegate().selectSchedulerStateRecords(conn, null);
+            for (Iterator itr = states.iterator(); itr.hasNext();) {
+                SchedulerStateRecord rec = (SchedulerStateRecord) itr.next();
+                if (rec.getSchedulerInstanceId().equals(getInstanceId())
+                        || calcFailedIfAfter(rec) >= timeNow) {
+                    liveInstances.put(rec.getSchedulerInstanceId(), rec);
+                }
+            }
+            
+            // each instance gets an equal share, the first few in id order
+            // one more, to make up the count
+            List instanceIds = new ArrayList(liveInstances.keySet());
+            if (instanceIds.isEmpty()) {
+                return;
+            }
+            Collections.sort(instanceIds);
+            Map shares = new HashMap();
+            for (int i = 0; i < instanceIds.size(); i++) {
+                int share = getPartitionCount() / instanceIds.size();
+                if (i < getPartitionCount() % instanceIds.size()) {
+                    share++;
+                }
+                shares.put(instanceIds.get(i), new int[] {share});
+            }
+            
+            PartitionLeaseRecord[] leases = new PartitionLeaseRecord[getPartitionCount()];
+            List partitionLeases = getDelegate().selectPartitionLeases(conn);
+            for (Iterator itr = partitionLeases.iterator(); itr.hasNext();) {
+                PartitionLeaseRecord lease = (PartitionLeaseRecord) itr.next();
+                if (lease.getPartition() < leases.length) {
+                    leases[lease.getPartition()] = lease;
+                }
+            }
+            
+            // keep the leases of live instances, up to their share..
+            List unassigned = new ArrayList();
+            for (int partition = 0; partition < leases.length; partition++) {
+                int[] share = (leases[partition] == null) ? null : 
+                    (int[]) shares.get(leases[partition].getSchedulerInstanceId()); 
+                if (share != null && share[0] > 0) {
+                    share[0]--;
+                } else {
+                    unassigned.add(new Integer(partition));
+                }
+            }
+            
+            // ..and give the rest to those with room
+            int movedCount = 0;
+            Iterator instanceItr = instanceIds.iterator();
+            String instanceId = null;
+            for (Iterator itr = unassigned.iterator(); itr.hasNext();) {
+                int partition = ((Integer) itr.next()).intValue();
+                
+                while (instanceId == null || ((int[]) shares.get(instanceId))[0] == 0) {
+                    instanceId = (String) instanceItr.next();
+                }
+                ((int[]) shares.get(instanceId))[0]--;
+
+                long activeTime = timeNow;
+                if (leases[partition] != null) {
+                    SchedulerStateRecord previous = (SchedulerStateRecord) 
+                        liveInstances.get(leases[partition].getSchedulerInstanceId());
+                    if (previous != null) {
+                        activeTime = timeNow + previous.getCheckinInterval() + 7500L;
+                    }
+                }
+                
+                PartitionLeaseRecord lease = new PartitionLeaseRecord();
+                lease.setPartition(partition);
+                lease.setSchedulerInstanceId(instanceId);
+                lease.setActiveTime(activeTime);
+                leases[partition] = lease;
+                
+                getDelegate().updatePartitionLease(conn, partition, instanceId, activeTime);
+                movedCount++;
+            }
+            
+            if (partitionLeases.size() > leases.length) {
+                getDelegate().deletePartitionLeases(conn, leases.length);
+            }
+            
+            logWarnIfNonZero(movedCount,
+                    "ClusterManager: moved " + movedCount + " of " 
+                    + leases.length + " partition(s), shared between " 
+                    + instanceIds.size() + " instance(s).");
+            
+            setPartitionLeases(selectOwnPartitionLeases(Arrays.asList(leases)));
+        } catch (Exception e) {
+            throw new JobPersistenceException("Failure rebalancing partitions: "
+                    + e.getMessage(), e);
+        }
+    }
+    
+    private List selectOwnPartitionLeases(List leases) {
+        List ownLeases = new ArrayList();
+        for (Iterator itr = leases.iterator(); itr.hasNext();) {
+            PartitionLeaseRecord lease = (PartitionLeaseRecord) itr.next();
+            if (lease != null && lease.getSchedulerInstanceId().equals(getInstanceId())) {
+                ownLeases.add(lease);
+            }
+        }
+        return ownLeases;
+    }
+
     protected void clusterRecover(Connection conn, List failedInstances)
         throws JobPersistenceException {
 
         if (failedInstances.size() > 0) {
 
             long recoverIds = System.currentTimeMillis();
+            long recoveryStart = recoverIds;
 
             logWarnIfNonZero(failedInstances.size(),
                     "ClusterManager: detected " + failedInstances.size()
@@ -3361,6 +4865,12 @@ public abstract class JobStoreSupport implements JobStore, Constants {
                             .selectInstancesFiredTriggerRecords(conn,
                                     rec.getSchedulerInstanceId());
 
+                    if (getUseBatchedClusterRecovery()) {
+                        recoverIds = clusterRecoverInBulk(conn, rec, 
+                                firedTriggerRecs, recoverIds);
+                        continue;
+                    }
+                    
                     int acquiredCount = 0;
                     int recoveredCount = 0;
                     int otherCount = 0;
@@ -3496,10 +5006,188 @@ public abstract class JobStoreSupport implements JobStore, Constants {
             } catch (Exception e) {
                 throw new JobPersistenceException("Failure recovering jobs: "
                         + e.getMessage(), e);
+            } finally {
+                recordClusterRecoveryTime(System.currentTimeMillis() - recoveryStart);
             }
         }
     }
 
+    /**
+     * <p>
+     * Recover the jobs of the given failed instance, from its given fired 
+     * trigger records, as <code>{@link #clusterRecover(Connection, List)}</code>
+     * does, but grouping the records by state and using set-based queries
+     * and JDBC batches.
+     * </p>
+     * 
+     * @return the next id to use for a recovery trigger
+     * 
+     * @see #setUseBatchedClusterRecovery(boolean)
+     */
+    protected long clusterRecoverInBulk(Connection conn,
+            SchedulerStateRecord rec, List firedTriggerRecs, long recoverIds)
+        throws JobPersistenceException, SQLException, IOException,
+            ClassNotFoundException {
+
+        Set triggerKeys = new HashSet();
+        Set blockedJobKeys = new HashSet();
+        Set pausedBlockedJobKeys = new HashSet();
+        List acquiredTriggerKeys = new ArrayList();
+        List recoveryRecs = new ArrayList();
+        int otherCount = 0;
+        
+        Iterator ftItr = firedTriggerRecs.iterator();
+        while (ftItr.hasNext()) {
+            FiredTriggerRecord ftRec = (FiredTriggerRecord) ftItr.next();
+            String fireInstanceState = ftRec.getFireInstanceState();
+
+            triggerKeys.add(ftRec.getTriggerKey());
+
+            // blocked triggers, and those of stateful jobs, are released..
+            if (fireInstanceState.equals(STATE_BLOCKED) || ftRec.isJobIsStateful()) {
+                blockedJobKeys.add(ftRec.getJobKey());
+            }
+            if (fireInstanceState.equals(STATE_PAUSED_BLOCKED) || ftRec.isJobIsStateful()) {
+                pausedBlockedJobKeys.add(ftRec.getJobKey());
+            }
+
+            // as are acquired triggers, other jobs are recovered if they ask to be..
+            if (fireInstanceState.equals(STATE_ACQUIRED)) {
+                acquiredTriggerKeys.add(ftRec.getTriggerKey());
+            } else if (ftRec.isJobRequestsRecovery()) {
+                recoveryRecs.add(ftRec);
+            } else {
+                otherCount++;
+            }
+        }
+
+        if (!blockedJobKeys.isEmpty()) {
+            getDelegate().updateTriggerStatesForJobsFromOtherState(conn,
+                    new ArrayList(blockedJobKeys), STATE_WAITING, STATE_BLOCKED);
+        }
+        if (!pausedBlockedJobKeys.isEmpty()) {
+            getDelegate().updateTriggerStatesForJobsFromOtherState(conn,
+                    new ArrayList(pausedBlockedJobKeys), STATE_PAUSED, 
+                    STATE_PAUSED_BLOCKED);
+        }
+        if (!acquiredTriggerKeys.isEmpty()) {
+            getDelegate().updateTriggerStateFromOtherState(conn, 
+                    acquiredTriggerKeys, STATE_WAITING, STATE_ACQUIRED);
+        }
+        
+        List recoveryTriggers = new ArrayList();
+        if (!recoveryRecs.isEmpty()) {
+            List jobKeys = new ArrayList();
+            List recoveryTriggerKeys = new ArrayList();
+            Iterator itr = recoveryRecs.iterator();
+            while (itr.hasNext()) {
+                FiredTriggerRecord ftRec = (FiredTriggerRecord) itr.next();
+                jobKeys.add(ftRec.getJobKey());
+                recoveryTriggerKeys.add(ftRec.getTriggerKey());
+            }
+            
+            Set existingJobKeys = getDelegate().selectExistingJobs(conn, jobKeys);
+            Map jobDataMaps = getDelegate().selectTriggerJobDataMaps(conn,
+                    recoveryTriggerKeys);
+            
+            itr = recoveryRecs.iterator();
+            while (itr.hasNext()) {
+                FiredTriggerRecord ftRec = (FiredTriggerRecord) itr.next();
+                Key tKey = ftRec.getTriggerKey();
+                Key jKey = ftRec.getJobKey();
+                
+                if (!existingJobKeys.contains(jKey)) {
+                    getLog().warn(
+                            "ClusterManager: failed job '" + jKey
+                                    + "' no longer exists, cannot schedule recovery.");
+                    otherCount++;
+                    continue;
+                }
+                
+                SimpleTrigger rcvryTrig = new SimpleTrigger(
+                        "recover_" + rec.getSchedulerInstanceId() + "_"
+                                + String.valueOf(recoverIds++),
+                        Scheduler.DEFAULT_RECOVERY_GROUP,
+                        new Date(ftRec.getFireTimestamp()));
+                rcvryTrig.setVolatility(ftRec.isTriggerIsVolatile());
+                rcvryTrig.setJobName(jKey.getName());
+                rcvryTrig.setJobGroup(jKey.getGroup());
+                rcvryTrig.setMisfireInstruction(SimpleTrigger.MISFIRE_INSTRUCTION_FIRE_NOW);
+                rcvryTrig.setPriority(ftRec.getPriority());
+                // the same trigger may have fired more than once, so each 
+                // recovery trigger gets its own copy of the data
+                JobDataMap triggerData = (JobDataMap) jobDataMaps.get(tKey);
+                JobDataMap jd = (triggerData == null) ? new JobDataMap() : new JobDataMap(triggerData);
+                jd.put(Scheduler.FAILED_JOB_ORIGINAL_TRIGGER_NAME, tKey.getName());
+                jd.put(Scheduler.FAILED_JOB_ORIGINAL_TRIGGER_GROUP, tKey.getGroup());
+                jd.put(Scheduler.FAILED_JOB_ORIGINAL_TRIGGER_FIRETIME_IN_MILLISECONDS, String.valueOf(ftRec.getFireTimestamp()));
+                rcvryTrig.setJobDataMap(jd);
+
+                rcvryTrig.computeFirstFireTime(null);
+                recoveryTriggers.add(rcvryTrig);
+            }
+        }
+        
+        if (!recoveryTriggers.isEmpty()) {
+            // the recovery triggers all share a group, so whether they should
+            // be paused is checked once, as storeTrigger() would for each
+            String state = STATE_WAITING;
+            if (getDelegate().isTriggerGroupPaused(conn, Scheduler.DEFAULT_RECOVERY_GROUP)) {
+                state = STATE_PAUSED;
+            } else if (getDelegate().isTriggerGroupPaused(conn, ALL_GROUPS_PAUSED)) {
+                getDelegate().insertPausedTriggerGroup(conn, Scheduler.DEFAULT_RECOVERY_GROUP);
+                state = STATE_PAUSED;
+            }
+            
+            getDelegate().insertSimpleTriggers(conn, recoveryTriggers, state);
+        }
+
+        getDelegate().deleteFiredTriggers(conn, rec.getSchedulerInstanceId());
+
+        // Check if any of the fired triggers we just deleted were the last fired trigger
+        // records of a COMPLETE trigger.
+        int completeCount = 0;
+        if (!triggerKeys.isEmpty()) {
+            Set completeTriggerKeys = getDelegate().selectTriggersInState(conn, 
+                    new ArrayList(triggerKeys), STATE_COMPLETE);
+            
+            for (Iterator triggerKeyIter = completeTriggerKeys.iterator(); triggerKeyIter.hasNext();) {
+                Key triggerKey = (Key)triggerKeyIter.next();
+                
+                List firedTriggers = 
+                    getDelegate().selectFiredTriggerRecords(conn, triggerKey.getName(), triggerKey.getGroup());
+                if (firedTriggers.isEmpty()) {
+                    SchedulingContext schedulingContext = new SchedulingContext();
+                    schedulingContext.setInstanceId(instanceId);
+                    
+                    if (removeTrigger(conn, schedulingContext, triggerKey.getName(), triggerKey.getGroup())) {
+                        completeCount++;
+                    }
+                }
+            }
+        }
+        
+        logWarnIfNonZero(acquiredTriggerKeys.size(),
+                "ClusterManager: ......Freed " + acquiredTriggerKeys.size()
+                        + " acquired trigger(s).");
+        logWarnIfNonZero(completeCount,
+                "ClusterManager: ......Deleted " + completeCount
+                        + " complete triggers(s).");
+        logWarnIfNonZero(recoveryTriggers.size(),
+                "ClusterManager: ......Scheduled " + recoveryTriggers.size()
+                        + " recoverable job(s) for recovery.");
+        logWarnIfNonZero(otherCount,
+                "ClusterManager: ......Cleaned-up " + otherCount
+                        + " other failed job(s).");
+
+        if (rec.getSchedulerInstanceId().equals(getInstanceId()) == false) {
+            getDelegate().deleteSchedulerState(conn,
+                    rec.getSchedulerInstanceId());
+        }
+        
+        return recoverIds;
+    }
+
     protected void logWarnIfNonZero(int val, String warning) {
         if (val > 0) {
             getLog().info(warning);
@@ -3535,6 +5223,10 @@ public abstract class JobStoreSupport implements JobStore, Constants {
                     AttributeRestoringConnectionInvocationHandler connHandler =
                         (AttributeRestoringConnectionInvocationHandler)invocationHandler;
                         
+                    if (connHandler instanceof StatementCachingConnectionInvocationHandler) {
+                        ((StatementCachingConnectionInvocationHandler)connHandler)
+                            .closeCachedStatements();
+                    }
                     connHandler.restoreOriginalAtributes();
                     closeConnection(connHandler.getWrappedConnection());
                     return;
@@ -3627,13 +5319,19 @@ public abstract class JobStoreSupport implements JobStore, Constants {
     }
 
     /**
-     * Implement this interface to provide the code to execute within
+     * Extend this class to provide the code to execute within
      * the a transaction template that has no return value.
      * 
      * @see JobStoreSupport#executeInNonManagedTXLock(String, TransactionCallback)
+     * @see JobStoreSupport#executeInLock(String, TransactionCallback)
      */
-    protected interface VoidTransactionCallback {
-        void execute(Connection conn) throws JobPersistenceException;
+    protected abstract class VoidTransactionCallback implements TransactionCallback {
+        public final Object execute(Connection conn) throws JobPersistenceException {
+            executeVoid(conn);
+            return null;
+        }
+
+        protected abstract void executeVoid(Connection conn) throws JobPersistenceException;
     }
 
     /**
@@ -3652,32 +5350,6 @@ public abstract class JobStoreSupport implements JobStore, Constants {
         return executeInLock(null, txCallback);
     }
 
-    /**
-     * Execute the given callback having aquired the given lock.  
-     * Depending on the JobStore, the surrounding transaction may be 
-     * assumed to be already present (managed).  This version is just a 
-     * handy wrapper around executeInLock that doesn't require a return
-     * value.
-     * 
-     * @param lockName The name of the lock to aquire, for example 
-     * "TRIGGER_ACCESS".  If null, then no lock is aquired, but the
-     * lockCallback is still executed in a transaction. 
-     * 
-     * @see #executeInLock(String, TransactionCallback)
-     */
-    protected void executeInLock(
-            final String lockName, 
-            final VoidTransactionCallback txCallback) throws JobPersistenceException {
-        executeInLock(
-            lockName,
-            new TransactionCallback() {
-                public Object execute(Connection conn) throws JobPersistenceException {
-                    txCallback.execute(conn);
-                    return null;
-                }
-            });
-    }
-    
     /**
      * Execute the given callback having aquired the given lock.  
      * Depending on the JobStore, the surrounding transaction may be 
@@ -3692,30 +5364,25 @@ public abstract class JobStoreSupport implements JobStore, Constants {
         TransactionCallback txCallback) throws JobPersistenceException;
     
     /**
-     * Execute the given callback having optionally aquired the given lock.
-     * This uses the non-managed transaction connection.  This version is just a 
-     * handy wrapper around executeInNonManagedTXLock that doesn't require a return
-     * value.
-     * 
-     * @param lockName The name of the lock to aquire, for example 
-     * "TRIGGER_ACCESS".  If null, then no lock is aquired, but the
-     * lockCallback is still executed in a non-managed transaction. 
-     * 
-     * @see #executeInNonManagedTXLock(String, TransactionCallback)
+     * Record the given time spent waiting for a lock, if there are
+     * <code>SchedulerMetrics</code> to record it into.
      */
-    protected void executeInNonManagedTXLock(
-            final String lockName, 
-            final VoidTransactionCallback txCallback) throws JobPersistenceException {
-        executeInNonManagedTXLock(
-            lockName,
-            new TransactionCallback() {
-                public Object execute(Connection conn) throws JobPersistenceException {
-                    txCallback.execute(conn);
-                    return null;
-                }
-            });
+    protected void recordLockWaitTime(long millis) {
+        if (schedulerMetrics != null) {
+            schedulerMetrics.recordLockWaitTime(millis);
+        }
     }
-    
+
+    /**
+     * Record the given time spent recovering the jobs of failed instances, 
+     * if there are <code>SchedulerMetrics</code> to record it into.
+     */
+    protected void recordClusterRecoveryTime(long millis) {
+        if (schedulerMetrics != null) {
+            schedulerMetrics.recordClusterRecoveryTime(millis);
+        }
+    }
+
     /**
      * Execute the given callback having optionally aquired the given lock.
      * This uses the non-managed transaction connection.
@@ -3737,7 +5404,9 @@ public abstract class JobStoreSupport implements JobStore, Constants {
                     conn = getNonManagedTXConnection();
                 }
                 
+                long lockStart = System.currentTimeMillis();
                 transOwner = getLockHandler().obtainLock(conn, lockName);
+                recordLockWaitTime(System.currentTimeMillis() - lockStart);
             }
             
             if (conn == null) {
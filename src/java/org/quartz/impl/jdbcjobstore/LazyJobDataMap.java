@@ -0,0 +1,126 @@
+/*
+ * Copyright 2001-2009 James House
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.quartz.impl.jdbcjobstore;
+
+import java.io.ByteArrayInputStream;
+import java.util.Map;
+
+import org.quartz.JobDataMap;
+
+/**
+ * <p>
+ * A <code>JobDataMap</code> read from the database that is only decoded
+ * when its contents are first used, so that jobs that don't use their data
+ * don't pay for it.  It is not dirty until modified.
+ * </p>
+ *
+ * <p>
+ * It is serialized as a plain <code>JobDataMap</code>.
+ * </p>
+ *
+ * @see StdJDBCDelegate#setLoadJobDataLazily(boolean)
+ */
+class LazyJobDataMap extends JobDataMap {
+
+    private static final long serialVersionUID = 3480375235386562432L;
+
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     * Data members.
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    private transient StdJDBCDelegate delegate;
+
+    // set to null, under the lock, only once the data is in the wrapped map
+    private transient volatile byte[] encoded;
+
+    private final transient Object decodeLock = new Object();
+
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     * Constructors.
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    LazyJobDataMap(StdJDBCDelegate delegate, byte[] encoded) {
+        this.delegate = delegate;
+        this.encoded = encoded;
+    }
+
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     * Interface.
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    /**
+     * <p>
+     * Whether the data has been decoded yet.
+     * </p>
+     */
+    public boolean isLoaded() {
+        return encoded == null;
+    }
+
+    public Map getWrappedMap() {
+        Map map = super.getWrappedMap();
+        if (encoded != null) {
+            synchronized (decodeLock) {
+                if (encoded != null) {
+                    try {
+                        Map data = delegate.decodeJobData(
+                                new ByteArrayInputStream(encoded));
+                        if (data != null) {
+                            map.putAll(data);
+                        }
+                    } catch (Exception e) {
+                        throw new RuntimeException(
+                            "Couldn't read job data: " + e.getMessage(), e);
+                    }
+                    delegate = null;
+                    encoded = null;
+                }
+            }
+        }
+        return map;
+    }
+
+    public Object clone() {
+        // a copy of a map that hasn't been decoded needn't be decoded either
+        synchronized (decodeLock) {
+            if (encoded != null) {
+                return new LazyJobDataMap(delegate, encoded);
+            }
+        }
+        return super.clone();
+    }
+
+    private Object writeReplace() {
+        JobDataMap copy = new JobDataMap(getWrappedMap());
+        if (!isDirty()) {
+            copy.clearDirtyFlag();
+        }
+        return copy;
+    }
+}
@@ -58,6 +58,23 @@ public class MSSQLDelegate extends StdJDBCDelegate {
     // protected methods that can be overridden by subclasses
     //---------------------------------------------------------------------------
 
+    /**
+     * <p>
+     * Uses the <code>UPDLOCK</code> and <code>READPAST</code> table hints,
+     * with <code>ROWLOCK</code> so that the locks don't escalate to pages.
+     * </p>
+     */
+    protected String getSelectNextTriggerToAcquireSkipLocked(int maxCount) {
+        return "SELECT TOP " + maxCount + " "
+            + COL_TRIGGER_NAME + ", " + COL_TRIGGER_GROUP + ", "
+            + COL_NEXT_FIRE_TIME + ", " + COL_PRIORITY + " FROM "
+            + TABLE_PREFIX_SUBST + TABLE_TRIGGERS 
+            + " WITH (UPDLOCK, ROWLOCK, READPAST) WHERE "
+            + COL_TRIGGER_STATE + " = ? AND " + COL_NEXT_FIRE_TIME + " < ? " 
+            + "AND (" + COL_NEXT_FIRE_TIME + " >= ?) "
+            + "ORDER BY "+ COL_NEXT_FIRE_TIME + " ASC, " + COL_PRIORITY + " DESC";
+    }
+
     /**
      * <p>
      * This method should be overridden by any delegate subclasses that need
@@ -97,7 +114,7 @@ public class MSSQLDelegate extends StdJDBCDelegate {
 
     protected Object getJobDetailFromBlob(ResultSet rs, String colName)
         throws ClassNotFoundException, IOException, SQLException {
-        if (canUseProperties()) {
+        if (readJobDataAsStream()) {
             InputStream binaryInput = rs.getBinaryStream(colName);
             return binaryInput;
         }
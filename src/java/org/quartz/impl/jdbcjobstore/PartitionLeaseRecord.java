@@ -0,0 +1,91 @@
+/* 
+ * Copyright 2001-2009 James House 
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not 
+ * use this file except in compliance with the License. You may obtain a copy 
+ * of the License at 
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0 
+ *   
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT 
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the 
+ * License for the specific language governing permissions and limitations 
+ * under the License.
+ * 
+ */
+package org.quartz.impl.jdbcjobstore;
+
+/**
+ * <p>
+ * Conveys a trigger partition lease record: which scheduler instance may 
+ * acquire the triggers of a partition, and from when.
+ * </p>
+ * 
+ * @see JobStoreSupport#setPartitionCount(int)
+ */
+public class PartitionLeaseRecord implements java.io.Serializable {
+
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     * 
+     * Data members.
+     * 
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    private int partition;
+
+    private String schedulerInstanceId;
+
+    private long activeTime;
+
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     * 
+     * Interface.
+     * 
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    /**
+     */
+    public int getPartition() {
+        return partition;
+    }
+
+    /**
+     */
+    public String getSchedulerInstanceId() {
+        return schedulerInstanceId;
+    }
+
+    /**
+     * Get the time from which the instance holding the lease may acquire 
+     * the partition's triggers.
+     */
+    public long getActiveTime() {
+        return activeTime;
+    }
+
+    /**
+     */
+    public void setPartition(int i) {
+        partition = i;
+    }
+
+    /**
+     */
+    public void setSchedulerInstanceId(String string) {
+        schedulerInstanceId = string;
+    }
+
+    /**
+     */
+    public void setActiveTime(long l) {
+        activeTime = l;
+    }
+
+}
+
+// EOF
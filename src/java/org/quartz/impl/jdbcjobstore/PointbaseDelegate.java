@@ -491,7 +491,7 @@ public class PointbaseDelegate extends StdJDBCDelegate {
     protected Object getJobDetailFromBlob(ResultSet rs, String colName)
         throws ClassNotFoundException, IOException, SQLException {
         //log.debug( "Getting Job details from blob in col " + colName );
-        if (canUseProperties()) {
+        if (readJobDataAsStream()) {
             byte data[] = rs.getBytes(colName);
             if(data == null) {
                 return null;
@@ -72,6 +72,18 @@ public class PostgreSQLDelegate extends StdJDBCDelegate {
     // protected methods that can be overridden by subclasses
     //---------------------------------------------------------------------------
 
+    /**
+     * <p>
+     * Uses <code>FOR UPDATE SKIP LOCKED</code>, which needs PostgreSQL 9.5
+     * or later.  The rows are limited in the query, as PostgreSQL would
+     * otherwise lock every row that matches.
+     * </p>
+     */
+    protected String getSelectNextTriggerToAcquireSkipLocked(int maxCount) {
+        return SELECT_NEXT_TRIGGER_TO_ACQUIRE + " LIMIT " + maxCount 
+            + " FOR UPDATE SKIP LOCKED";
+    }
+
     /**
      * <p>
      * This method should be overridden by any delegate subclasses that need
@@ -113,7 +125,7 @@ public class PostgreSQLDelegate extends StdJDBCDelegate {
 
     protected Object getJobDetailFromBlob(ResultSet rs, String colName)
         throws ClassNotFoundException, IOException, SQLException {
-        if (canUseProperties()) {
+        if (readJobDataAsStream()) {
             InputStream binaryInput = null;
             byte[] bytes = rs.getBytes(colName);
             if(bytes == null || bytes.length == 0) {
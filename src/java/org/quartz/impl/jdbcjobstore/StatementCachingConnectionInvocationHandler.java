@@ -0,0 +1,214 @@
+/*
+ * Copyright 2001-2009 James House
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.quartz.impl.jdbcjobstore;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.quartz.SchedulerMetrics;
+
+/**
+ * <p>
+ * Protects a <code>{@link java.sql.Connection}</code>'s attributes from being
+ * permanently modfied, as <code>{@link AttributeRestoringConnectionInvocationHandler}</code>
+ * does, and also keeps the statements prepared on it for reuse until it is
+ * closed.
+ * </p>
+ *
+ * <p>
+ * Closing a statement prepared with <code>prepareStatement(String)</code>
+ * clears its parameters and batch, and returns it to the cache, from where
+ * the next preparation of the same SQL takes it.  The least recently used
+ * statements are closed when there are more than the given number.  For
+ * connection providers that don't pool statements themselves, this saves
+ * the database parsing the same statements over and over within a
+ * transaction.
+ * </p>
+ *
+ * @see org.quartz.impl.jdbcjobstore.JobStoreSupport#setStatementCacheSize(int)
+ */
+public class StatementCachingConnectionInvocationHandler
+    extends AttributeRestoringConnectionInvocationHandler {
+
+    private final Map cachedStatements;
+
+    private final SchedulerMetrics metrics;
+
+    public StatementCachingConnectionInvocationHandler(
+        Connection conn, final int maxStatements, SchedulerMetrics metrics) {
+        super(conn);
+
+        this.metrics = metrics;
+        this.cachedStatements = new LinkedHashMap(16, 0.75f, true) {
+            protected boolean removeEldestEntry(Map.Entry eldest) {
+                if (size() > maxStatements) {
+                    CachedStatement cached = (CachedStatement) eldest.getValue(); 
+                    cached.evicted = true;
+                    cached.closeIfIdle();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public Object invoke(Object proxy, Method method, Object[] args)
+        throws Throwable {
+        if (method.getName().equals("prepareStatement") && args.length == 1) {
+            return prepareStatement((String) args[0]);
+        } else if (method.getName().equals("close")) {
+            closeCachedStatements();
+        }
+
+        return super.invoke(proxy, method, args);
+    }
+
+    /**
+     * Get an idle cached statement for the given SQL, or prepare a new one
+     * and cache it, if there isn't one being used already.
+     */
+    private PreparedStatement prepareStatement(String sql) throws SQLException {
+        CachedStatement cached = (CachedStatement) cachedStatements.get(sql);
+        if (cached != null && !cached.inUse) {
+            recordStatementCacheHit(true);
+            cached.inUse = true;
+            return cached.proxy;
+        }
+
+        recordStatementCacheHit(false);
+        PreparedStatement ps = getWrappedConnection().prepareStatement(sql);
+        if (cached != null) {
+            // the cached one is still open, so don't cache this one
+            return ps;
+        }
+
+        cached = new CachedStatement(ps);
+        cachedStatements.put(sql, cached);
+        return cached.proxy;
+    }
+
+    private void recordStatementCacheHit(boolean hit) {
+        if (metrics != null) {
+            metrics.recordStatementCacheHit(hit);
+        }
+    }
+
+    /**
+     * Close all the cached statements, before the connection is closed.
+     */
+    public void closeCachedStatements() {
+        for (Iterator itr = cachedStatements.values().iterator(); itr.hasNext();) {
+            CachedStatement cached = (CachedStatement) itr.next();
+            cached.inUse = false;
+            cached.closeIfIdle();
+        }
+        cachedStatements.clear();
+    }
+
+    /**
+     * A cached statement, and the proxy handed out for it, that returns it
+     * to the cache when closed.
+     */
+    private class CachedStatement implements InvocationHandler {
+        private final PreparedStatement ps;
+
+        private final PreparedStatement proxy;
+
+        private boolean inUse = true;
+
+        private boolean evicted = false;
+
+        private boolean closed = false;
+
+        private boolean limitsSet = false;
+
+        CachedStatement(PreparedStatement ps) {
+            this.ps = ps;
+            this.proxy = (PreparedStatement) Proxy.newProxyInstance(
+                    getClass().getClassLoader(),
+                    new Class[] { PreparedStatement.class },
+                    this);
+        }
+
+        public Object invoke(Object proxy, Method method, Object[] args)
+            throws Throwable {
+            String name = method.getName();
+            if (name.equals("close")) {
+                release();
+                return null;
+            } else if (name.equals("isClosed")) {
+                return Boolean.valueOf(!inUse || closed);
+            } else if (name.equals("setMaxRows") || name.equals("setFetchSize")) {
+                limitsSet = true;
+            }
+
+            try {
+                return method.invoke(ps, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+        }
+
+        /**
+         * Reset the statement and make it available again, or close it, if
+         * it has been dropped from the cache, or can't be reset.
+         */
+        private void release() {
+            if (!inUse) {
+                return;
+            }
+            inUse = false;
+
+            if (!evicted) {
+                try {
+                    ps.clearParameters();
+                    ps.clearBatch();
+                    if (limitsSet) {
+                        ps.setMaxRows(0);
+                        ps.setFetchSize(0);
+                        limitsSet = false;
+                    }
+                    return;
+                } catch (SQLException e) {
+                    evicted = true;
+                    cachedStatements.values().remove(this);
+                }
+            }
+            
+            closeIfIdle();
+        }
+
+        private void closeIfIdle() {
+            if (inUse || closed) {
+                return;
+            }
+            closed = true;
+            try {
+                ps.close();
+            } catch (SQLException ignore) {
+            }
+        }
+    }
+}
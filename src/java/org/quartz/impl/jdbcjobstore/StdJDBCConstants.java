@@ -260,6 +260,12 @@ public interface StdJDBCConstants extends Constants {
         + COL_JOB_DATAMAP + " = ? WHERE " 
         + COL_TRIGGER_NAME + " = ? AND " + COL_TRIGGER_GROUP + " = ?";
     
+    String UPDATE_MISFIRED_TRIGGER = "UPDATE " + TABLE_PREFIX_SUBST
+        + TABLE_TRIGGERS + " SET " + COL_NEXT_FIRE_TIME + " = ?, "
+        + COL_PREV_FIRE_TIME + " = ?, " + COL_TRIGGER_STATE + " = ?, "
+        + COL_START_TIME + " = ?, " + COL_END_TIME + " = ? WHERE " 
+        + COL_TRIGGER_NAME + " = ? AND " + COL_TRIGGER_GROUP + " = ?";
+    
     String UPDATE_SIMPLE_TRIGGER = "UPDATE "
             + TABLE_PREFIX_SUBST + TABLE_SIMPLE_TRIGGERS + " SET "
             + COL_REPEAT_COUNT + " = ?, " + COL_REPEAT_INTERVAL + " = ?, "
@@ -306,6 +312,18 @@ public interface StdJDBCConstants extends Constants {
             + " = ? AND "
             + COL_TRIGGER_STATE + " = ?";
 
+    String UPDATE_TRIGGER_STATE_AND_VERSION_FROM_STATE = "UPDATE "
+            + TABLE_PREFIX_SUBST + TABLE_TRIGGERS + " SET " + COL_TRIGGER_STATE
+            + " = ?, " + COL_TRIGGER_VERSION + " = " + COL_TRIGGER_VERSION 
+            + " + 1 WHERE " + COL_TRIGGER_NAME + " = ? AND "
+            + COL_TRIGGER_GROUP + " = ? AND " + COL_TRIGGER_STATE + " = ?";
+
+    String UPDATE_TRIGGER_VERSION = "UPDATE "
+            + TABLE_PREFIX_SUBST + TABLE_TRIGGERS + " SET " + COL_TRIGGER_VERSION
+            + " = " + COL_TRIGGER_VERSION + " + 1 WHERE " + COL_TRIGGER_NAME 
+            + " = ? AND " + COL_TRIGGER_GROUP + " = ? AND " + COL_TRIGGER_STATE 
+            + " = ? AND " + COL_TRIGGER_VERSION + " = ?";
+
     String UPDATE_TRIGGER_STATE_FROM_STATES = "UPDATE "
             + TABLE_PREFIX_SUBST + TABLE_TRIGGERS + " SET " + COL_TRIGGER_STATE
             + " = ?" + " WHERE " + COL_TRIGGER_NAME + " = ? AND "
@@ -401,6 +419,11 @@ public interface StdJDBCConstants extends Constants {
             + TABLE_TRIGGERS + " WHERE " + COL_TRIGGER_NAME + " = ? AND "
             + COL_TRIGGER_GROUP + " = ?";
 
+    String SELECT_TRIGGER_VERSION = "SELECT "
+            + COL_TRIGGER_VERSION + " FROM " + TABLE_PREFIX_SUBST
+            + TABLE_TRIGGERS + " WHERE " + COL_TRIGGER_NAME + " = ? AND "
+            + COL_TRIGGER_GROUP + " = ? AND " + COL_TRIGGER_STATE + " = ?";
+
     String SELECT_TRIGGER_STATUS = "SELECT "
             + COL_TRIGGER_STATE + ", " + COL_NEXT_FIRE_TIME + ", "
             + COL_JOB_NAME + ", " + COL_JOB_GROUP + " FROM "
@@ -466,6 +489,36 @@ public interface StdJDBCConstants extends Constants {
     String SELECT_CALENDARS = "SELECT " + COL_CALENDAR_NAME
             + " FROM " + TABLE_PREFIX_SUBST + TABLE_CALENDARS;
 
+    // CACHE VERSIONS
+
+    String SELECT_CACHE_VERSION = "SELECT " + COL_CACHE_VERSION
+            + " FROM " + TABLE_PREFIX_SUBST + TABLE_CACHE_VERSIONS 
+            + " WHERE " + COL_CACHE_NAME + " = ?";
+
+    String UPDATE_CACHE_VERSION = "UPDATE " + TABLE_PREFIX_SUBST 
+            + TABLE_CACHE_VERSIONS + " SET " + COL_CACHE_VERSION + " = " 
+            + COL_CACHE_VERSION + " + 1 WHERE " + COL_CACHE_NAME + " = ?";
+
+    String INSERT_CACHE_VERSION = "INSERT INTO " + TABLE_PREFIX_SUBST 
+            + TABLE_CACHE_VERSIONS + " (" + COL_CACHE_NAME + ", " 
+            + COL_CACHE_VERSION + ") VALUES(?, 1)";
+
+    // PARTITION LEASES
+
+    String SELECT_PARTITION_LEASES = "SELECT * FROM " + TABLE_PREFIX_SUBST
+            + TABLE_PARTITION_LEASES + " ORDER BY " + COL_PARTITION_ID;
+
+    String UPDATE_PARTITION_LEASE = "UPDATE " + TABLE_PREFIX_SUBST
+            + TABLE_PARTITION_LEASES + " SET " + COL_INSTANCE_NAME + " = ?, "
+            + COL_ACTIVE_TIME + " = ? WHERE " + COL_PARTITION_ID + " = ?";
+
+    String INSERT_PARTITION_LEASE = "INSERT INTO " + TABLE_PREFIX_SUBST
+            + TABLE_PARTITION_LEASES + " (" + COL_INSTANCE_NAME + ", "
+            + COL_ACTIVE_TIME + ", " + COL_PARTITION_ID + ") VALUES(?, ?, ?)";
+
+    String DELETE_PARTITION_LEASES_FROM = "DELETE FROM " + TABLE_PREFIX_SUBST
+            + TABLE_PARTITION_LEASES + " WHERE " + COL_PARTITION_ID + " >= ?";
+
     String SELECT_NEXT_FIRE_TIME = "SELECT MIN("
             + COL_NEXT_FIRE_TIME + ") AS " + ALIAS_COL_NEXT_FIRE_TIME
             + " FROM " + TABLE_PREFIX_SUBST + TABLE_TRIGGERS + " WHERE "
@@ -484,6 +537,65 @@ public interface StdJDBCConstants extends Constants {
         + "AND (" + COL_NEXT_FIRE_TIME + " >= ?) "
         + "ORDER BY "+ COL_NEXT_FIRE_TIME + " ASC, " + COL_PRIORITY + " DESC";
     
+    String SELECT_NEXT_TRIGGER_STATUSES_TO_ACQUIRE = "SELECT "
+        + COL_TRIGGER_NAME + ", " + COL_TRIGGER_GROUP + ", "
+        + COL_JOB_NAME + ", " + COL_JOB_GROUP + ", "
+        + COL_NEXT_FIRE_TIME + ", " + COL_PRIORITY + " FROM "
+        + TABLE_PREFIX_SUBST + TABLE_TRIGGERS + " WHERE "
+        + COL_TRIGGER_STATE + " = ? AND " + COL_NEXT_FIRE_TIME + " < ? " 
+        + "AND (" + COL_NEXT_FIRE_TIME + " >= ?) "
+        + "ORDER BY "+ COL_NEXT_FIRE_TIME + " ASC, " + COL_PRIORITY + " DESC";
+    
+    
+    // the key-match condition below is OR'ed together once per trigger
+    // to select several triggers in one statement
+    String SELECT_TRIGGERS_WITH_DETAILS = "SELECT T.*, S."
+        + COL_REPEAT_COUNT + ", S." + COL_REPEAT_INTERVAL + ", S."
+        + COL_TIMES_TRIGGERED + ", C." + COL_CRON_EXPRESSION + ", C."
+        + COL_TIME_ZONE_ID + " FROM " + TABLE_PREFIX_SUBST + TABLE_TRIGGERS
+        + " T LEFT OUTER JOIN " + TABLE_PREFIX_SUBST + TABLE_SIMPLE_TRIGGERS
+        + " S ON (T." + COL_TRIGGER_NAME + " = S." + COL_TRIGGER_NAME 
+        + " AND T." + COL_TRIGGER_GROUP + " = S." + COL_TRIGGER_GROUP 
+        + ") LEFT OUTER JOIN " + TABLE_PREFIX_SUBST + TABLE_CRON_TRIGGERS
+        + " C ON (T." + COL_TRIGGER_NAME + " = C." + COL_TRIGGER_NAME 
+        + " AND T." + COL_TRIGGER_GROUP + " = C." + COL_TRIGGER_GROUP 
+        + ") WHERE ";
+
+    String SELECT_MISFIRED_TRIGGERS_WITH_DETAILS_IN_STATES = 
+        SELECT_TRIGGERS_WITH_DETAILS + "T." + COL_NEXT_FIRE_TIME + " < ? AND ((T."
+        + COL_TRIGGER_STATE + " = ?) OR (T." + COL_TRIGGER_STATE + " = ?)) ORDER BY T."
+        + COL_NEXT_FIRE_TIME + " ASC";
+
+    String TRIGGERS_WITH_DETAILS_KEY_MATCH = "(T." + COL_TRIGGER_NAME 
+        + " = ? AND T." + COL_TRIGGER_GROUP + " = ?)";
+
+    String SELECT_TRIGGERS_LISTENERS = "SELECT " 
+        + COL_TRIGGER_NAME + ", " + COL_TRIGGER_GROUP + ", "
+        + COL_TRIGGER_LISTENER + " FROM " + TABLE_PREFIX_SUBST
+        + TABLE_TRIGGER_LISTENERS + " WHERE ";
+
+    String SELECT_STATEFUL_JOBS = "SELECT " 
+        + COL_JOB_NAME + ", " + COL_JOB_GROUP + " FROM " + TABLE_PREFIX_SUBST
+        + TABLE_JOB_DETAILS + " WHERE " + COL_IS_STATEFUL + " = ? AND (";
+
+    String SELECT_EXISTING_JOBS = "SELECT " 
+        + COL_JOB_NAME + ", " + COL_JOB_GROUP + " FROM " + TABLE_PREFIX_SUBST
+        + TABLE_JOB_DETAILS + " WHERE ";
+
+    String SELECT_TRIGGERS_IN_STATE_OF_KEYS = "SELECT " 
+        + COL_TRIGGER_NAME + ", " + COL_TRIGGER_GROUP + " FROM " 
+        + TABLE_PREFIX_SUBST + TABLE_TRIGGERS + " WHERE " 
+        + COL_TRIGGER_STATE + " = ? AND (";
+
+    String SELECT_TRIGGERS_DATA = "SELECT " 
+        + COL_TRIGGER_NAME + ", " + COL_TRIGGER_GROUP + ", " + COL_JOB_DATAMAP
+        + " FROM " + TABLE_PREFIX_SUBST + TABLE_TRIGGERS + " WHERE ";
+
+    String TRIGGER_KEY_MATCH = "(" + COL_TRIGGER_NAME + " = ? AND " 
+        + COL_TRIGGER_GROUP + " = ?)";
+
+    String JOB_KEY_MATCH = "(" + COL_JOB_NAME + " = ? AND " 
+        + COL_JOB_GROUP + " = ?)";
     
     String INSERT_FIRED_TRIGGER = "INSERT INTO "
             + TABLE_PREFIX_SUBST + TABLE_FIRED_TRIGGERS + " (" + COL_ENTRY_ID
@@ -27,6 +27,11 @@ import java.io.InputStream;
 import java.io.NotSerializableException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.io.ObjectStreamConstants;
+import java.io.PushbackInputStream;
+import java.io.StreamCorruptedException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
 import java.math.BigDecimal;
 import java.sql.Blob;
 import java.sql.Connection;
@@ -35,6 +40,8 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -71,6 +78,9 @@ import org.quartz.utils.TriggerStatus;
  */
 public class StdJDBCDelegate implements DriverDelegate, StdJDBCConstants {
 
+    // the most keys to OR together in one key-match clause
+    protected static final int MAX_KEYS_PER_QUERY = 100;
+
     /*
      * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
      * 
@@ -87,6 +97,13 @@ public class StdJDBCDelegate implements DriverDelegate, StdJDBCConstants {
 
     protected boolean useProperties;
 
+    protected JobDataMapCodec jobDataMapCodec;
+
+    protected boolean loadJobDataLazily;
+
+    // the constant queries, with the table prefix substituted, by query
+    private final Map prefixedQueries;
+
     /*
      * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
      * 
@@ -109,6 +126,7 @@ public class StdJDBCDelegate implements DriverDelegate, StdJDBCConstants {
         this.logger = logger;
         this.tablePrefix = tablePrefix;
         this.instanceId = instanceId;
+        this.prefixedQueries = prefixQueries();
     }
 
     /**
@@ -127,6 +145,7 @@ public class StdJDBCDelegate implements DriverDelegate, StdJDBCConstants {
         this.tablePrefix = tablePrefix;
         this.instanceId = instanceId;
         this.useProperties = useProperties.booleanValue();
+        this.prefixedQueries = prefixQueries();
     }
 
     /*
@@ -141,6 +160,49 @@ public class StdJDBCDelegate implements DriverDelegate, StdJDBCConstants {
         return useProperties;
     }
 
+    /**
+     * <p>
+     * Set the <code>JobDataMapCodec</code> to write <code>JobDataMap</code>s
+     * with, in place of Java serialization.  Has no effect if the 
+     * 'useProperties' property is set.
+     * </p>
+     */
+    public void setJobDataMapCodec(JobDataMapCodec jobDataMapCodec) {
+        this.jobDataMapCodec = jobDataMapCodec;
+    }
+
+    public JobDataMapCodec getJobDataMapCodec() {
+        return jobDataMapCodec;
+    }
+
+    /**
+     * <p>
+     * Set whether the <code>JobDataMap</code>s of selected jobs and triggers
+     * should be decoded only when their contents are first used, rather than
+     * when they are read from the database.  Such maps are not dirty until 
+     * modified, and an error decoding them is thrown as a 
+     * <code>RuntimeException</code> when they are used.
+     * </p>
+     */
+    public void setLoadJobDataLazily(boolean loadJobDataLazily) {
+        this.loadJobDataLazily = loadJobDataLazily;
+    }
+
+    public boolean isLoadJobDataLazily() {
+        return loadJobDataLazily;
+    }
+
+    /**
+     * <p>
+     * Whether <code>{@link #getJobDetailFromBlob(ResultSet, String)}</code> 
+     * should return the <code>InputStream</code> of the BLOB, rather than
+     * deserialize it.
+     * </p>
+     */
+    protected boolean readJobDataAsStream() {
+        return canUseProperties() || jobDataMapCodec != null || loadJobDataLazily;
+    }
+
     //---------------------------------------------------------------------------
     // startup / recovery
     //---------------------------------------------------------------------------
@@ -900,15 +962,10 @@ public class StdJDBCDelegate implements DriverDelegate, StdJDBCConstants {
                 job.setVolatility(getBoolean(rs, COL_IS_VOLATILE));
                 job.setRequestsRecovery(getBoolean(rs, COL_REQUESTS_RECOVERY));
 
-                Map map = null;
-                if (canUseProperties()) {
-                    map = getMapFromProperties(rs);
-                } else {
-                    map = (Map) getObjectFromBlob(rs, COL_JOB_DATAMAP);
-                }
+                JobDataMap map = getJobDataMapFromBlob(rs);
 
                 if (null != map) {
-                    job.setJobDataMap(new JobDataMap(map));
+                    job.setJobDataMap(map);
                 }
             }
 
@@ -919,6 +976,105 @@ public class StdJDBCDelegate implements DriverDelegate, StdJDBCConstants {
         }
     }
 
+    /**
+     * <p>
+     * Read the job data of the current row, whichever way it was written.
+     * </p>
+     * 
+     * @return null if there is none.
+     */
+    protected JobDataMap getJobDataMapFromBlob(ResultSet rs)
+        throws ClassNotFoundException, IOException, SQLException {
+        if (loadJobDataLazily) {
+            byte[] encoded = getBytesFromBlob(rs, COL_JOB_DATAMAP);
+            return (encoded == null) ? null : new LazyJobDataMap(this, encoded);
+        }
+        
+        Map map = null;
+        if (canUseProperties()) {
+            map = getMapFromProperties(rs);
+        } else if (jobDataMapCodec != null) {
+            InputStream is = (InputStream) getJobDetailFromBlob(rs, COL_JOB_DATAMAP);
+            if (is != null) {
+                map = decodeJobData(is);
+            }
+        } else {
+            map = (Map) getObjectFromBlob(rs, COL_JOB_DATAMAP);
+        }
+        
+        return (map == null) ? null : new JobDataMap(map);
+    }
+
+    /**
+     * Read the whole of the given BLOB column, as read by 
+     * <code>{@link #getJobDetailFromBlob(ResultSet, String)}</code>.
+     * 
+     * @return null if the BLOB is null or empty.
+     */
+    private byte[] getBytesFromBlob(ResultSet rs, String colName)
+        throws ClassNotFoundException, IOException, SQLException {
+        InputStream is = (InputStream) getJobDetailFromBlob(rs, colName);
+        if (is == null) {
+            return null;
+        }
+        
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try {
+            byte[] buf = new byte[1024];
+            int len;
+            while ((len = is.read(buf)) != -1) {
+                baos.write(buf, 0, len);
+            }
+        } finally {
+            is.close();
+        }
+        
+        return (baos.size() == 0) ? null : baos.toByteArray();
+    }
+
+    /**
+     * <p>
+     * Decode job data, as written by <code>{@link #serializeJobData(JobDataMap)}</code>.
+     * Java serialized data is recognized, and read, even when a 
+     * <code>JobDataMapCodec</code> is set.
+     * </p>
+     * 
+     * @return null if the stream is empty.
+     */
+    protected Map decodeJobData(InputStream is) 
+        throws ClassNotFoundException, IOException {
+        if (canUseProperties()) {
+            Properties properties = new Properties();
+            try {
+                properties.load(is);
+            } finally {
+                is.close();
+            }
+            return convertFromProperty(properties);
+        }
+        
+        PushbackInputStream in = new PushbackInputStream(is, 2);
+        try {
+            int b1 = in.read();
+            int b2 = in.read();
+            if (b2 == -1) {
+                return null;
+            }
+            in.unread(b2);
+            in.unread(b1);
+            
+            if (((b1 << 8) | b2) == (ObjectStreamConstants.STREAM_MAGIC & 0xFFFF)) {
+                return (Map) new ObjectInputStream(in).readObject();
+            } else if (jobDataMapCodec == null) {
+                throw new StreamCorruptedException(
+                    "Job data was written by a JobDataMapCodec, but none is set.");
+            }
+            return jobDataMapCodec.decode(in);
+        } finally {
+            in.close();
+        }
+    }
+
     /**
      * build Map from java.util.Properties encoding.
      */
@@ -1150,6 +1306,100 @@ public class StdJDBCDelegate implements DriverDelegate, StdJDBCConstants {
         }
     }
 
+    /**
+     * <p>
+     * Insert each of the given simple triggers, which must not have 
+     * additional properties, and their listeners, as JDBC batches.
+     * </p>
+     * 
+     * @param conn
+     *          the DB Connection
+     * @param triggers
+     *          the <code>SimpleTrigger</code>s to insert
+     * @param state
+     *          the state that the triggers should be stored in
+     * @return the insert count of each trigger, as returned by
+     *         <code>Statement.executeBatch()</code>
+     */
+    public int[] insertSimpleTriggers(Connection conn, List triggers, 
+            String state) throws SQLException, IOException {
+        PreparedStatement ps = null;
+
+        try {
+            ps = conn.prepareStatement(rtp(INSERT_TRIGGER));
+            Iterator itr = triggers.iterator();
+            while (itr.hasNext()) {
+                SimpleTrigger trigger = (SimpleTrigger) itr.next();
+                ByteArrayOutputStream baos = null;
+                if(trigger.getJobDataMap().size() > 0) {
+                    baos = serializeJobData(trigger.getJobDataMap());
+                }
+                
+                ps.setString(1, trigger.getName());
+                ps.setString(2, trigger.getGroup());
+                ps.setString(3, trigger.getJobName());
+                ps.setString(4, trigger.getJobGroup());
+                setBoolean(ps, 5, trigger.isVolatile());
+                ps.setString(6, trigger.getDescription());
+                if(trigger.getNextFireTime() != null) {
+                    ps.setBigDecimal(7, new BigDecimal(String.valueOf(trigger
+                            .getNextFireTime().getTime())));
+                } else {
+                    ps.setBigDecimal(7, null);
+                }
+                long prevFireTime = -1;
+                if (trigger.getPreviousFireTime() != null) {
+                    prevFireTime = trigger.getPreviousFireTime().getTime();
+                }
+                ps.setBigDecimal(8, new BigDecimal(String.valueOf(prevFireTime)));
+                ps.setString(9, state);
+                ps.setString(10, TTYPE_SIMPLE);
+                ps.setBigDecimal(11, new BigDecimal(String.valueOf(trigger
+                        .getStartTime().getTime())));
+                long endTime = 0;
+                if (trigger.getEndTime() != null) {
+                    endTime = trigger.getEndTime().getTime();
+                }
+                ps.setBigDecimal(12, new BigDecimal(String.valueOf(endTime)));
+                ps.setString(13, trigger.getCalendarName());
+                ps.setInt(14, trigger.getMisfireInstruction());
+                setBytes(ps, 15, baos);
+                ps.setInt(16, trigger.getPriority());
+                ps.addBatch();
+            }
+            
+            int[] insertCounts = ps.executeBatch();
+            closeStatement(ps);
+            
+            ps = conn.prepareStatement(rtp(INSERT_SIMPLE_TRIGGER));
+            itr = triggers.iterator();
+            while (itr.hasNext()) {
+                SimpleTrigger trigger = (SimpleTrigger) itr.next();
+                ps.setString(1, trigger.getName());
+                ps.setString(2, trigger.getGroup());
+                ps.setInt(3, trigger.getRepeatCount());
+                ps.setBigDecimal(4, new BigDecimal(String.valueOf(trigger
+                        .getRepeatInterval())));
+                ps.setInt(5, trigger.getTimesTriggered());
+                ps.addBatch();
+            }
+            ps.executeBatch();
+            
+            itr = triggers.iterator();
+            while (itr.hasNext()) {
+                Trigger trigger = (Trigger) itr.next();
+                String[] trigListeners = trigger.getTriggerListenerNames();
+                for (int i = 0; trigListeners != null && i < trigListeners.length; i++) {
+                    insertTriggerListener(conn, trigger, trigListeners[i]);
+                }
+            }
+            
+            return insertCounts;
+        } finally {
+            closeStatement(ps);
+        }
+    }
+
     /**
      * <p>
      * Insert the cron trigger data.
@@ -1618,34 +1868,39 @@ public class StdJDBCDelegate implements DriverDelegate, StdJDBCConstants {
 
     /**
      * <p>
-     * Update all of the triggers of the given group to the given new state, if
-     * they are in the given old state.
+     * Update the state of each of the given triggers to the new state, if it
+     * is still in the given old state, as a single JDBC batch.
      * </p>
      * 
      * @param conn
      *          the DB connection
-     * @param groupName
-     *          the group containing the triggers
+     * @param triggerKeys
+     *          the identifiers (Key objects) of the triggers to update
      * @param newState
-     *          the new state for the trigger group
+     *          the new state for the triggers
      * @param oldState
-     *          the old state the triggers must be in
-     * @return int the number of rows updated
-     * @throws SQLException
+     *          the state the triggers must be in
+     * @return the update count of each trigger, as returned by
+     *         <code>Statement.executeBatch()</code>
      */
-    public int updateTriggerGroupStateFromOtherState(Connection conn,
-            String groupName, String newState, String oldState)
+    public int[] updateTriggerStateFromOtherState(Connection conn,
+            List triggerKeys, String newState, String oldState) 
         throws SQLException {
         PreparedStatement ps = null;
 
         try {
-            ps = conn
-                    .prepareStatement(rtp(UPDATE_TRIGGER_GROUP_STATE_FROM_STATE));
-            ps.setString(1, newState);
-            ps.setString(2, groupName);
-            ps.setString(3, oldState);
+            ps = conn.prepareStatement(rtp(UPDATE_TRIGGER_STATE_FROM_STATE));
+            Iterator itr = triggerKeys.iterator();
+            while (itr.hasNext()) {
+                Key key = (Key) itr.next();
+                ps.setString(1, newState);
+                ps.setString(2, key.getName());
+                ps.setString(3, key.getGroup());
+                ps.setString(4, oldState);
+                ps.addBatch();
+            }
 
-            return ps.executeUpdate();
+            return ps.executeBatch();
         } finally {
             closeStatement(ps);
         }
@@ -1653,49 +1908,79 @@ public class StdJDBCDelegate implements DriverDelegate, StdJDBCConstants {
 
     /**
      * <p>
-     * Update the states of all triggers associated with the given job.
+     * Update the fire times, start and end times and state of each of the 
+     * given simple and cron triggers, as after their misfire instructions 
+     * were applied, and the repeat count and times triggered of the simple 
+     * ones, as JDBC batches.  Their other properties are not updated.
      * </p>
      * 
      * @param conn
-     *          the DB Connection
-     * @param jobName
-     *          the name of the job
-     * @param groupName
-     *          the group containing the job
+     *          the DB connection
+     * @param triggers
+     *          the triggers to update
      * @param state
      *          the new state for the triggers
-     * @return the number of rows updated
+     * @return the update count of each trigger, as returned by
+     *         <code>Statement.executeBatch()</code>
      */
-    public int updateTriggerStatesForJob(Connection conn, String jobName,
-            String groupName, String state) throws SQLException {
-        PreparedStatement ps = null;
-
-        try {
-            ps = conn.prepareStatement(rtp(UPDATE_JOB_TRIGGER_STATES));
-            ps.setString(1, state);
-            ps.setString(2, jobName);
-            ps.setString(3, groupName);
-
-            return ps.executeUpdate();
-        } finally {
-            closeStatement(ps);
-        }
-    }
-
-    public int updateTriggerStatesForJobFromOtherState(Connection conn,
-            String jobName, String groupName, String state, String oldState)
-        throws SQLException {
+    public int[] updateMisfiredTriggers(Connection conn, List triggers,
+            String state) throws SQLException {
         PreparedStatement ps = null;
 
         try {
-            ps = conn
-                    .prepareStatement(rtp(UPDATE_JOB_TRIGGER_STATES_FROM_OTHER_STATE));
-            ps.setString(1, state);
-            ps.setString(2, jobName);
-            ps.setString(3, groupName);
-            ps.setString(4, oldState);
+            ps = conn.prepareStatement(rtp(UPDATE_MISFIRED_TRIGGER));
+            boolean hasSimpleTriggers = false;
+            Iterator itr = triggers.iterator();
+            while (itr.hasNext()) {
+                Trigger trigger = (Trigger) itr.next();
+                long nextFireTime = -1;
+                if (trigger.getNextFireTime() != null) {
+                    nextFireTime = trigger.getNextFireTime().getTime();
+                }
+                ps.setBigDecimal(1, new BigDecimal(String.valueOf(nextFireTime)));
+                long prevFireTime = -1;
+                if (trigger.getPreviousFireTime() != null) {
+                    prevFireTime = trigger.getPreviousFireTime().getTime();
+                }
+                ps.setBigDecimal(2, new BigDecimal(String.valueOf(prevFireTime)));
+                ps.setString(3, state);
+                ps.setBigDecimal(4, new BigDecimal(String.valueOf(trigger
+                        .getStartTime().getTime())));
+                long endTime = 0;
+                if (trigger.getEndTime() != null) {
+                    endTime = trigger.getEndTime().getTime();
+                }
+                ps.setBigDecimal(5, new BigDecimal(String.valueOf(endTime)));
+                ps.setString(6, trigger.getName());
+                ps.setString(7, trigger.getGroup());
+                ps.addBatch();
+                
+                hasSimpleTriggers |= (trigger instanceof SimpleTrigger);
+            }
 
-            return ps.executeUpdate();
+            int[] updateCounts = ps.executeBatch();
+            
+            if (hasSimpleTriggers) {
+                closeStatement(ps);
+                ps = conn.prepareStatement(rtp(UPDATE_SIMPLE_TRIGGER));
+                itr = triggers.iterator();
+                while (itr.hasNext()) {
+                    Object trigger = itr.next();
+                    if (trigger instanceof SimpleTrigger) {
+                        SimpleTrigger st = (SimpleTrigger) trigger;
+                        ps.setInt(1, st.getRepeatCount());
+                        ps.setBigDecimal(2, new BigDecimal(String.valueOf(st
+                                .getRepeatInterval())));
+                        ps.setInt(3, st.getTimesTriggered());
+                        ps.setString(4, st.getName());
+                        ps.setString(5, st.getGroup());
+                        ps.addBatch();
+                    }
+                }
+                ps.executeBatch();
+            }
+            
+            return updateCounts;
         } finally {
             closeStatement(ps);
         }
@@ -1703,25 +1988,35 @@ public class StdJDBCDelegate implements DriverDelegate, StdJDBCConstants {
 
     /**
      * <p>
-     * Delete all of the listeners associated with a given trigger.
+     * Update the given trigger to the given new state, and increment its
+     * version, if it is in the given old state.
      * </p>
      * 
      * @param conn
-     *          the DB Connection
+     *          the DB connection
      * @param triggerName
-     *          the name of the trigger whose listeners will be deleted
+     *          the name of the trigger
      * @param groupName
-     *          the name of the group containing the trigger
-     * @return the number of rows deleted
+     *          the group containing the trigger
+     * @param newState
+     *          the new state for the trigger
+     * @param oldState
+     *          the old state the trigger must be in
+     * @return int the number of rows updated
+     * @throws SQLException
      */
-    public int deleteTriggerListeners(Connection conn, String triggerName,
-            String groupName) throws SQLException {
+    public int updateTriggerStateAndVersionFromOtherState(Connection conn,
+            String triggerName, String groupName, String newState,
+            String oldState) throws SQLException {
         PreparedStatement ps = null;
 
         try {
-            ps = conn.prepareStatement(rtp(DELETE_TRIGGER_LISTENERS));
-            ps.setString(1, triggerName);
-            ps.setString(2, groupName);
+            ps = conn.prepareStatement(rtp(UPDATE_TRIGGER_STATE_AND_VERSION_FROM_STATE));
+            ps.setString(1, newState);
+            ps.setString(2, triggerName);
+            ps.setString(3, groupName);
+            ps.setString(4, oldState);
+
             return ps.executeUpdate();
         } finally {
             closeStatement(ps);
@@ -1730,28 +2025,40 @@ public class StdJDBCDelegate implements DriverDelegate, StdJDBCConstants {
 
     /**
      * <p>
-     * Associate a listener with the given trigger.
+     * Update the state of each of the given triggers to the new state, and
+     * increment its version, if it is still in the given old state, as a 
+     * single JDBC batch.
      * </p>
      * 
      * @param conn
-     *          the DB Connection
-     * @param trigger
-     *          the trigger
-     * @param listener
-     *          the name of the listener to associate with the trigger
-     * @return the number of rows inserted
+     *          the DB connection
+     * @param triggerKeys
+     *          the identifiers (Key objects) of the triggers to update
+     * @param newState
+     *          the new state for the triggers
+     * @param oldState
+     *          the state the triggers must be in
+     * @return the update count of each trigger, as returned by
+     *         <code>Statement.executeBatch()</code>
      */
-    public int insertTriggerListener(Connection conn, Trigger trigger,
-            String listener) throws SQLException {
+    public int[] updateTriggerStateAndVersionFromOtherState(Connection conn,
+            List triggerKeys, String newState, String oldState) 
+        throws SQLException {
         PreparedStatement ps = null;
 
         try {
-            ps = conn.prepareStatement(rtp(INSERT_TRIGGER_LISTENER));
-            ps.setString(1, trigger.getName());
-            ps.setString(2, trigger.getGroup());
-            ps.setString(3, listener);
+            ps = conn.prepareStatement(rtp(UPDATE_TRIGGER_STATE_AND_VERSION_FROM_STATE));
+            Iterator itr = triggerKeys.iterator();
+            while (itr.hasNext()) {
+                Key key = (Key) itr.next();
+                ps.setString(1, newState);
+                ps.setString(2, key.getName());
+                ps.setString(3, key.getGroup());
+                ps.setString(4, oldState);
+                ps.addBatch();
+            }
 
-            return ps.executeUpdate();
+            return ps.executeBatch();
         } finally {
             closeStatement(ps);
         }
@@ -1759,54 +2066,270 @@ public class StdJDBCDelegate implements DriverDelegate, StdJDBCConstants {
 
     /**
      * <p>
-     * Select the listeners associated with a given trigger.
+     * Increment the version of the given trigger, if it is still in the given
+     * state and at the given version.
      * </p>
      * 
      * @param conn
-     *          the DB Connection
+     *          the DB connection
      * @param triggerName
      *          the name of the trigger
      * @param groupName
      *          the group containing the trigger
-     * @return array of <code>String</code> trigger listener names
+     * @param state
+     *          the state the trigger must be in
+     * @param version
+     *          the version the trigger must be at
+     * @return int the number of rows updated
+     * @throws SQLException
      */
-    public String[] selectTriggerListeners(Connection conn, String triggerName,
-            String groupName) throws SQLException {
+    public int updateTriggerVersion(Connection conn, String triggerName,
+            String groupName, String state, long version) throws SQLException {
         PreparedStatement ps = null;
-        ResultSet rs = null;
 
         try {
-            ps = conn.prepareStatement(rtp(SELECT_TRIGGER_LISTENERS));
+            ps = conn.prepareStatement(rtp(UPDATE_TRIGGER_VERSION));
             ps.setString(1, triggerName);
             ps.setString(2, groupName);
-            rs = ps.executeQuery();
+            ps.setString(3, state);
+            ps.setLong(4, version);
 
-            ArrayList list = new ArrayList();
-            while (rs.next()) {
-                list.add(rs.getString(1));
-            }
-            Object[] oArr = list.toArray();
-            String[] sArr = new String[oArr.length];
-            System.arraycopy(oArr, 0, sArr, 0, oArr.length);
-            return sArr;
+            return ps.executeUpdate();
         } finally {
-            closeResultSet(rs);
             closeStatement(ps);
         }
     }
 
     /**
      * <p>
-     * Delete the simple trigger data for a trigger.
+     * Update all of the triggers of the given group to the given new state, if
+     * they are in the given old state.
      * </p>
      * 
      * @param conn
-     *          the DB Connection
-     * @param triggerName
-     *          the name of the trigger
+     *          the DB connection
      * @param groupName
-     *          the group containing the trigger
-     * @return the number of rows deleted
+     *          the group containing the triggers
+     * @param newState
+     *          the new state for the trigger group
+     * @param oldState
+     *          the old state the triggers must be in
+     * @return int the number of rows updated
+     * @throws SQLException
+     */
+    public int updateTriggerGroupStateFromOtherState(Connection conn,
+            String groupName, String newState, String oldState)
+        throws SQLException {
+        PreparedStatement ps = null;
+
+        try {
+            ps = conn
+                    .prepareStatement(rtp(UPDATE_TRIGGER_GROUP_STATE_FROM_STATE));
+            ps.setString(1, newState);
+            ps.setString(2, groupName);
+            ps.setString(3, oldState);
+
+            return ps.executeUpdate();
+        } finally {
+            closeStatement(ps);
+        }
+    }
+
+    /**
+     * <p>
+     * Update the states of all triggers associated with the given job.
+     * </p>
+     * 
+     * @param conn
+     *          the DB Connection
+     * @param jobName
+     *          the name of the job
+     * @param groupName
+     *          the group containing the job
+     * @param state
+     *          the new state for the triggers
+     * @return the number of rows updated
+     */
+    public int updateTriggerStatesForJob(Connection conn, String jobName,
+            String groupName, String state) throws SQLException {
+        PreparedStatement ps = null;
+
+        try {
+            ps = conn.prepareStatement(rtp(UPDATE_JOB_TRIGGER_STATES));
+            ps.setString(1, state);
+            ps.setString(2, jobName);
+            ps.setString(3, groupName);
+
+            return ps.executeUpdate();
+        } finally {
+            closeStatement(ps);
+        }
+    }
+
+    public int updateTriggerStatesForJobFromOtherState(Connection conn,
+            String jobName, String groupName, String state, String oldState)
+        throws SQLException {
+        PreparedStatement ps = null;
+
+        try {
+            ps = conn
+                    .prepareStatement(rtp(UPDATE_JOB_TRIGGER_STATES_FROM_OTHER_STATE));
+            ps.setString(1, state);
+            ps.setString(2, jobName);
+            ps.setString(3, groupName);
+            ps.setString(4, oldState);
+
+            return ps.executeUpdate();
+        } finally {
+            closeStatement(ps);
+        }
+    }
+
+    /**
+     * <p>
+     * Update the states of any triggers associated with each of the given 
+     * jobs, that are in the given current state, as a single JDBC batch.
+     * </p>
+     * 
+     * @param conn
+     *          the DB Connection
+     * @param jobKeys
+     *          the identifiers (Key objects) of the jobs
+     * @param state
+     *          the new state for the triggers
+     * @param oldState
+     *          the old state of the triggers
+     * @return the update count of each job, as returned by
+     *         <code>Statement.executeBatch()</code>
+     */
+    public int[] updateTriggerStatesForJobsFromOtherState(Connection conn,
+            List jobKeys, String state, String oldState) throws SQLException {
+        PreparedStatement ps = null;
+
+        try {
+            ps = conn.prepareStatement(rtp(UPDATE_JOB_TRIGGER_STATES_FROM_OTHER_STATE));
+            Iterator itr = jobKeys.iterator();
+            while (itr.hasNext()) {
+                Key key = (Key) itr.next();
+                ps.setString(1, state);
+                ps.setString(2, key.getName());
+                ps.setString(3, key.getGroup());
+                ps.setString(4, oldState);
+                ps.addBatch();
+            }
+
+            return ps.executeBatch();
+        } finally {
+            closeStatement(ps);
+        }
+    }
+
+    /**
+     * <p>
+     * Delete all of the listeners associated with a given trigger.
+     * </p>
+     * 
+     * @param conn
+     *          the DB Connection
+     * @param triggerName
+     *          the name of the trigger whose listeners will be deleted
+     * @param groupName
+     *          the name of the group containing the trigger
+     * @return the number of rows deleted
+     */
+    public int deleteTriggerListeners(Connection conn, String triggerName,
+            String groupName) throws SQLException {
+        PreparedStatement ps = null;
+
+        try {
+            ps = conn.prepareStatement(rtp(DELETE_TRIGGER_LISTENERS));
+            ps.setString(1, triggerName);
+            ps.setString(2, groupName);
+            return ps.executeUpdate();
+        } finally {
+            closeStatement(ps);
+        }
+    }
+
+    /**
+     * <p>
+     * Associate a listener with the given trigger.
+     * </p>
+     * 
+     * @param conn
+     *          the DB Connection
+     * @param trigger
+     *          the trigger
+     * @param listener
+     *          the name of the listener to associate with the trigger
+     * @return the number of rows inserted
+     */
+    public int insertTriggerListener(Connection conn, Trigger trigger,
+            String listener) throws SQLException {
+        PreparedStatement ps = null;
+
+        try {
+            ps = conn.prepareStatement(rtp(INSERT_TRIGGER_LISTENER));
+            ps.setString(1, trigger.getName());
+            ps.setString(2, trigger.getGroup());
+            ps.setString(3, listener);
+
+            return ps.executeUpdate();
+        } finally {
+            closeStatement(ps);
+        }
+    }
+
+    /**
+     * <p>
+     * Select the listeners associated with a given trigger.
+     * </p>
+     * 
+     * @param conn
+     *          the DB Connection
+     * @param triggerName
+     *          the name of the trigger
+     * @param groupName
+     *          the group containing the trigger
+     * @return array of <code>String</code> trigger listener names
+     */
+    public String[] selectTriggerListeners(Connection conn, String triggerName,
+            String groupName) throws SQLException {
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+
+        try {
+            ps = conn.prepareStatement(rtp(SELECT_TRIGGER_LISTENERS));
+            ps.setString(1, triggerName);
+            ps.setString(2, groupName);
+            rs = ps.executeQuery();
+
+            ArrayList list = new ArrayList();
+            while (rs.next()) {
+                list.add(rs.getString(1));
+            }
+            Object[] oArr = list.toArray();
+            String[] sArr = new String[oArr.length];
+            System.arraycopy(oArr, 0, sArr, 0, oArr.length);
+            return sArr;
+        } finally {
+            closeResultSet(rs);
+            closeStatement(ps);
+        }
+    }
+
+    /**
+     * <p>
+     * Delete the simple trigger data for a trigger.
+     * </p>
+     * 
+     * @param conn
+     *          the DB Connection
+     * @param triggerName
+     *          the name of the trigger
+     * @param groupName
+     *          the group containing the trigger
+     * @return the number of rows deleted
      */
     public int deleteSimpleTrigger(Connection conn, String triggerName,
             String groupName) throws SQLException {
@@ -2128,12 +2651,7 @@ public class StdJDBCDelegate implements DriverDelegate, StdJDBCConstants {
                 int misFireInstr = rs.getInt(COL_MISFIRE_INSTRUCTION);
                 int priority = rs.getInt(COL_PRIORITY);
 
-                Map map = null;
-                if (canUseProperties()) {
-                    map = getMapFromProperties(rs);
-                } else {
-                    map = (Map) getObjectFromBlob(rs, COL_JOB_DATAMAP);
-                }
+                JobDataMap map = getJobDataMapFromBlob(rs);
                 
                 Date nft = null;
                 if (nextFireTime > 0) {
@@ -2176,7 +2694,7 @@ public class StdJDBCDelegate implements DriverDelegate, StdJDBCConstants {
                         st.setDescription(description);
                         st.setPriority(priority);
                         if (null != map) {
-                            st.setJobDataMap(new JobDataMap(map));
+                            st.setJobDataMap(map);
                         }
                         trigger = st;
                     }
@@ -2212,7 +2730,7 @@ public class StdJDBCDelegate implements DriverDelegate, StdJDBCConstants {
                             ct.setDescription(description);
                             ct.setPriority(priority);
                             if (null != map) {
-                                ct.setJobDataMap(new JobDataMap(map));
+                                ct.setJobDataMap(map);
                             }
                             trigger = ct;
                         }
@@ -2239,6 +2757,492 @@ public class StdJDBCDelegate implements DriverDelegate, StdJDBCConstants {
         }
     }
 
+    /**
+     * <p>
+     * Select the given triggers, along with their listeners, using a single
+     * joined query for all simple and cron triggers.
+     * </p>
+     * 
+     * @param conn
+     *          the DB Connection
+     * @param triggerKeys
+     *          the identifiers (Key objects) of the triggers to select
+     * @return the <code>{@link org.quartz.Trigger}</code>s that still exist,
+     *         in the order of the given keys
+     */
+    public List selectTriggers(Connection conn, List triggerKeys) 
+        throws SQLException, ClassNotFoundException, IOException {
+        List triggers = new ArrayList(triggerKeys.size());
+        if (triggerKeys.isEmpty()) {
+            return triggers;
+        }
+        
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+
+        try {
+            HashMap triggersByKey = new HashMap();
+            List blobTriggerKeys = new LinkedList();
+
+            ps = conn.prepareStatement(rtp(SELECT_TRIGGERS_WITH_DETAILS)
+                    + buildKeyMatchClause(TRIGGERS_WITH_DETAILS_KEY_MATCH, triggerKeys.size()));
+            setKeys(ps, 1, triggerKeys);
+            rs = ps.executeQuery();
+
+            while (rs.next()) {
+                readTriggerWithDetails(rs, triggersByKey, blobTriggerKeys);
+            }
+            
+            closeResultSet(rs);
+            rs = null;
+            closeStatement(ps);
+            ps = null;
+            
+            selectBlobTriggersAndListeners(conn, triggerKeys, 
+                    blobTriggerKeys, triggersByKey);
+            
+            Iterator itr = triggerKeys.iterator();
+            while (itr.hasNext()) {
+                Trigger trigger = (Trigger) triggersByKey.get(itr.next());
+                if (trigger != null) {
+                    triggers.add(trigger);
+                }
+            }
+            
+            return triggers;
+        } finally {
+            closeResultSet(rs);
+            closeStatement(ps);
+        }
+    }
+
+    /**
+     * <p>
+     * Select the triggers in the given states that have misfired - according
+     * to the given timestamp - along with their listeners, using a single 
+     * joined query for all simple and cron triggers.  No more than count 
+     * will be returned, earliest next fire time first.
+     * </p>
+     * 
+     * @param conn the DB Connection
+     * @param count the most misfired triggers to return, negative for all
+     * @param resultList Output parameter.  A List of 
+     *      <code>{@link org.quartz.Trigger}</code> objects.  Must not be null.
+     *          
+     * @return Whether there are more misfired triggers left to find beyond
+     *         the given count.
+     */
+    public boolean selectMisfiredTriggersWithDetailsInStates(Connection conn, 
+            String state1, String state2, long ts, int count, List resultList) 
+        throws SQLException, ClassNotFoundException, IOException {
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+
+        try {
+            HashMap triggersByKey = new HashMap();
+            List triggerKeys = new ArrayList();
+            Set blobTriggerKeys = new HashSet();
+
+            ps = conn.prepareStatement(rtp(SELECT_MISFIRED_TRIGGERS_WITH_DETAILS_IN_STATES));
+            ps.setBigDecimal(1, new BigDecimal(String.valueOf(ts)));
+            ps.setString(2, state1);
+            ps.setString(3, state2);
+            if (count >= 0) {
+                ps.setMaxRows(count + 1);
+            }
+            rs = ps.executeQuery();
+
+            boolean hasReachedLimit = false;
+            while (rs.next()) {
+                if (triggerKeys.size() == count) {
+                    hasReachedLimit = true;
+                    break;
+                }
+                triggerKeys.add(readTriggerWithDetails(
+                        rs, triggersByKey, blobTriggerKeys));
+            }
+            
+            closeResultSet(rs);
+            rs = null;
+            closeStatement(ps);
+            ps = null;
+            
+            // the listeners are selected a bounded number of keys at a time
+            for (int i = 0; i < triggerKeys.size(); i += MAX_KEYS_PER_QUERY) {
+                List keys = triggerKeys.subList(i, 
+                        Math.min(i + MAX_KEYS_PER_QUERY, triggerKeys.size()));
+                List blobKeys = new LinkedList();
+                Iterator itr = keys.iterator();
+                while (itr.hasNext()) {
+                    Object key = itr.next();
+                    if (blobTriggerKeys.contains(key)) {
+                        blobKeys.add(key);
+                    }
+                }
+                selectBlobTriggersAndListeners(conn, keys, blobKeys, triggersByKey);
+            }
+            
+            Iterator itr = triggerKeys.iterator();
+            while (itr.hasNext()) {
+                Trigger trigger = (Trigger) triggersByKey.get(itr.next());
+                if (trigger != null) {
+                    resultList.add(trigger);
+                }
+            }
+            
+            return hasReachedLimit;
+        } finally {
+            closeResultSet(rs);
+            closeStatement(ps);
+        }
+    }
+
+    /**
+     * Read the simple or cron trigger at the current row of a result set of 
+     * one of the <code>SELECT_..._WITH_DETAILS</code> queries into the given
+     * map, or add its key to the given list of blob triggers.
+     * 
+     * @return the trigger's key
+     */
+    private Key readTriggerWithDetails(ResultSet rs, Map triggersByKey, 
+            Collection blobTriggerKeys) 
+        throws SQLException, ClassNotFoundException, IOException {
+        String triggerName = rs.getString(COL_TRIGGER_NAME);
+        String groupName = rs.getString(COL_TRIGGER_GROUP);
+        String triggerType = rs.getString(COL_TRIGGER_TYPE);
+        Key key = new Key(triggerName, groupName);
+        
+        if (triggerType.equals(TTYPE_BLOB)) {
+            blobTriggerKeys.add(key);
+            return key;
+        }
+        
+        String jobName = rs.getString(COL_JOB_NAME);
+        String jobGroup = rs.getString(COL_JOB_GROUP);
+        boolean volatility = getBoolean(rs, COL_IS_VOLATILE);
+        String description = rs.getString(COL_DESCRIPTION);
+        long nextFireTime = rs.getLong(COL_NEXT_FIRE_TIME);
+        long prevFireTime = rs.getLong(COL_PREV_FIRE_TIME);
+        long startTime = rs.getLong(COL_START_TIME);
+        long endTime = rs.getLong(COL_END_TIME);
+        String calendarName = rs.getString(COL_CALENDAR_NAME);
+        int misFireInstr = rs.getInt(COL_MISFIRE_INSTRUCTION);
+        int priority = rs.getInt(COL_PRIORITY);
+
+        JobDataMap map = getJobDataMapFromBlob(rs);
+        
+        Date nft = null;
+        if (nextFireTime > 0) {
+            nft = new Date(nextFireTime);
+        }
+
+        Date pft = null;
+        if (prevFireTime > 0) {
+            pft = new Date(prevFireTime);
+        }
+        Date startTimeD = new Date(startTime);
+        Date endTimeD = null;
+        if (endTime > 0) {
+            endTimeD = new Date(endTime);
+        }
+
+        Trigger trigger = null;
+        
+        if (triggerType.equals(TTYPE_SIMPLE)) {
+            int repeatCount = rs.getInt(COL_REPEAT_COUNT);
+            long repeatInterval = rs.getLong(COL_REPEAT_INTERVAL);
+            if (rs.wasNull()) { // no simple trigger row
+                return key;
+            }
+            int timesTriggered = rs.getInt(COL_TIMES_TRIGGERED);
+
+            SimpleTrigger st = new SimpleTrigger(triggerName,
+                    groupName, jobName, jobGroup, startTimeD,
+                    endTimeD, repeatCount, repeatInterval);
+            st.setTimesTriggered(timesTriggered);
+            st.setNextFireTime(nft);
+            st.setPreviousFireTime(pft);
+            trigger = st;
+        } else if (triggerType.equals(TTYPE_CRON)) {
+            String cronExpr = rs.getString(COL_CRON_EXPRESSION);
+            if (cronExpr == null) { // no cron trigger row
+                return key;
+            }
+            String timeZoneId = rs.getString(COL_TIME_ZONE_ID);
+
+            try {
+                TimeZone timeZone = null;
+                if (timeZoneId != null) {
+                    timeZone = TimeZone.getTimeZone(timeZoneId);
+                }
+                CronTrigger ct = new CronTrigger(triggerName, groupName,
+                        jobName, jobGroup, startTimeD, endTimeD,
+                        cronExpr, timeZone);
+                ct.setNextFireTime(nft);
+                ct.setPreviousFireTime(pft);
+                trigger = ct;
+            } catch (Exception neverHappens) {
+                // expr must be valid, or it never would have
+                // gotten to the store...
+                return key;
+            }
+        } else {
+            throw new ClassNotFoundException("class for trigger type '"
+                    + triggerType + "' not found.");
+        }
+        
+        trigger.setCalendarName(calendarName);
+        trigger.setMisfireInstruction(misFireInstr);
+        trigger.setVolatility(volatility);
+        trigger.setDescription(description);
+        trigger.setPriority(priority);
+        if (null != map) {
+            trigger.setJobDataMap(map);
+        }
+        
+        triggersByKey.put(key, trigger);
+        return key;
+    }
+
+    /**
+     * Select the given blob triggers into the given map, and then the 
+     * listeners of the given triggers in the map.
+     */
+    private void selectBlobTriggersAndListeners(Connection conn, 
+            List triggerKeys, List blobTriggerKeys, Map triggersByKey)
+        throws SQLException, ClassNotFoundException, IOException {
+        Iterator itr = blobTriggerKeys.iterator();
+        while (itr.hasNext()) {
+            Key key = (Key) itr.next();
+            Trigger trigger = selectTrigger(conn, key.getName(), key.getGroup());
+            if (trigger != null) {
+                // clear out any listeners that might have been serialized
+                trigger.clearAllTriggerListeners();
+                triggersByKey.put(key, trigger);
+            }
+        }
+        
+        if (triggerKeys.isEmpty()) {
+            return;
+        }
+        
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+
+        try {
+            ps = conn.prepareStatement(rtp(SELECT_TRIGGERS_LISTENERS)
+                    + buildKeyMatchClause(TRIGGER_KEY_MATCH, triggerKeys.size()));
+            setKeys(ps, 1, triggerKeys);
+            rs = ps.executeQuery();
+            
+            while (rs.next()) {
+                Trigger trigger = (Trigger) triggersByKey.get(new Key(
+                        rs.getString(COL_TRIGGER_NAME), rs.getString(COL_TRIGGER_GROUP)));
+                if (trigger != null) {
+                    trigger.addTriggerListener(rs.getString(COL_TRIGGER_LISTENER));
+                }
+            }
+        } finally {
+            closeResultSet(rs);
+            closeStatement(ps);
+        }
+    }
+
+    /**
+     * <p>
+     * Select which of the given jobs are stateful.
+     * </p>
+     * 
+     * @param conn
+     *          the DB Connection
+     * @param jobKeys
+     *          the identifiers (Key objects) of the jobs to check
+     * @return a <code>Set</code> of the keys of the stateful jobs
+     */
+    public Set selectStatefulJobs(Connection conn, List jobKeys)
+        throws SQLException {
+        Set statefulJobs = new HashSet();
+        if (jobKeys.isEmpty()) {
+            return statefulJobs;
+        }
+        
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+
+        try {
+            // the keys are matched a bounded number at a time
+            for (int i = 0; i < jobKeys.size(); i += MAX_KEYS_PER_QUERY) {
+                List keys = jobKeys.subList(i, 
+                        Math.min(i + MAX_KEYS_PER_QUERY, jobKeys.size()));
+                ps = conn.prepareStatement(rtp(SELECT_STATEFUL_JOBS)
+                        + buildKeyMatchClause(JOB_KEY_MATCH, keys.size()) + ")");
+                setBoolean(ps, 1, true);
+                setKeys(ps, 2, keys);
+                rs = ps.executeQuery();
+    
+                while (rs.next()) {
+                    statefulJobs.add(new Key(
+                            rs.getString(COL_JOB_NAME), rs.getString(COL_JOB_GROUP)));
+                }
+                
+                closeResultSet(rs);
+                rs = null;
+                closeStatement(ps);
+                ps = null;
+            }
+            
+            return statefulJobs;
+        } finally {
+            closeResultSet(rs);
+            closeStatement(ps);
+        }
+    }
+
+    /**
+     * <p>
+     * Select which of the given jobs exist.
+     * </p>
+     * 
+     * @param conn
+     *          the DB Connection
+     * @param jobKeys
+     *          the identifiers (Key objects) of the jobs to check
+     * @return a <code>Set</code> of the keys of the existing jobs
+     */
+    public Set selectExistingJobs(Connection conn, List jobKeys)
+        throws SQLException {
+        Set existingJobs = new HashSet();
+        
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+
+        try {
+            // the keys are matched a bounded number at a time
+            for (int i = 0; i < jobKeys.size(); i += MAX_KEYS_PER_QUERY) {
+                List keys = jobKeys.subList(i, 
+                        Math.min(i + MAX_KEYS_PER_QUERY, jobKeys.size()));
+                ps = conn.prepareStatement(rtp(SELECT_EXISTING_JOBS)
+                        + buildKeyMatchClause(JOB_KEY_MATCH, keys.size()));
+                setKeys(ps, 1, keys);
+                rs = ps.executeQuery();
+    
+                while (rs.next()) {
+                    existingJobs.add(new Key(
+                            rs.getString(COL_JOB_NAME), rs.getString(COL_JOB_GROUP)));
+                }
+                
+                closeResultSet(rs);
+                rs = null;
+                closeStatement(ps);
+                ps = null;
+            }
+            
+            return existingJobs;
+        } finally {
+            closeResultSet(rs);
+            closeStatement(ps);
+        }
+    }
+
+    /**
+     * <p>
+     * Select which of the given triggers are in the given state.
+     * </p>
+     * 
+     * @param conn
+     *          the DB Connection
+     * @param triggerKeys
+     *          the identifiers (Key objects) of the triggers to check
+     * @param state
+     *          the state the triggers must be in
+     * @return a <code>Set</code> of the keys of the triggers in the state
+     */
+    public Set selectTriggersInState(Connection conn, List triggerKeys, 
+            String state) throws SQLException {
+        Set triggersInState = new HashSet();
+        
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+
+        try {
+            // the keys are matched a bounded number at a time
+            for (int i = 0; i < triggerKeys.size(); i += MAX_KEYS_PER_QUERY) {
+                List keys = triggerKeys.subList(i, 
+                        Math.min(i + MAX_KEYS_PER_QUERY, triggerKeys.size()));
+                ps = conn.prepareStatement(rtp(SELECT_TRIGGERS_IN_STATE_OF_KEYS)
+                        + buildKeyMatchClause(TRIGGER_KEY_MATCH, keys.size()) + ")");
+                ps.setString(1, state);
+                setKeys(ps, 2, keys);
+                rs = ps.executeQuery();
+    
+                while (rs.next()) {
+                    triggersInState.add(new Key(
+                            rs.getString(COL_TRIGGER_NAME), rs.getString(COL_TRIGGER_GROUP)));
+                }
+                
+                closeResultSet(rs);
+                rs = null;
+                closeStatement(ps);
+                ps = null;
+            }
+            
+            return triggersInState;
+        } finally {
+            closeResultSet(rs);
+            closeStatement(ps);
+        }
+    }
+
+    /**
+     * <p>
+     * Select the JobDataMaps of the given triggers.
+     * </p>
+     * 
+     * @param conn
+     *          the DB Connection
+     * @param triggerKeys
+     *          the identifiers (Key objects) of the triggers
+     * @return a <code>Map</code> of the <code>{@link org.quartz.JobDataMap}</code>
+     *         of each of the triggers that exist and have data, by key
+     */
+    public Map selectTriggerJobDataMaps(Connection conn, List triggerKeys)
+        throws SQLException, ClassNotFoundException, IOException {
+        Map jobDataMaps = new HashMap();
+        
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+
+        try {
+            // the keys are matched a bounded number at a time
+            for (int i = 0; i < triggerKeys.size(); i += MAX_KEYS_PER_QUERY) {
+                List keys = triggerKeys.subList(i, 
+                        Math.min(i + MAX_KEYS_PER_QUERY, triggerKeys.size()));
+                ps = conn.prepareStatement(rtp(SELECT_TRIGGERS_DATA)
+                        + buildKeyMatchClause(TRIGGER_KEY_MATCH, keys.size()));
+                setKeys(ps, 1, keys);
+                rs = ps.executeQuery();
+    
+                while (rs.next()) {
+                    JobDataMap map = getJobDataMapFromBlob(rs);
+                    if (map != null) {
+                        jobDataMaps.put(new Key(rs.getString(COL_TRIGGER_NAME), 
+                                rs.getString(COL_TRIGGER_GROUP)), map);
+                    }
+                }
+                
+                closeResultSet(rs);
+                rs = null;
+                closeStatement(ps);
+                ps = null;
+            }
+            
+            return jobDataMaps;
+        } finally {
+            closeResultSet(rs);
+            closeStatement(ps);
+        }
+    }
+
     /**
      * <p>
      * Select a trigger's JobDataMap.
@@ -2270,28 +3274,61 @@ public class StdJDBCDelegate implements DriverDelegate, StdJDBCConstants {
 
             if (rs.next()) {
 
-                Map map = null;
-                if (canUseProperties()) { 
-                    map = getMapFromProperties(rs);
-                } else {
-                    map = (Map) getObjectFromBlob(rs, COL_JOB_DATAMAP);
-                }
+                JobDataMap map = getJobDataMapFromBlob(rs);
                 
                 rs.close();
                 ps.close();
 
-                if (null != map) {
-                    return new JobDataMap(map);
-                }
+                if (null != map) {
+                    return map;
+                }
+            }
+        } finally {
+            closeResultSet(rs);
+            closeStatement(ps);
+        }
+        
+        return new JobDataMap();
+    }
+            
+
+    /**
+     * <p>
+     * Select a trigger's version, if it is in the given state.
+     * </p>
+     * 
+     * @param conn
+     *          the DB Connection
+     * @param triggerName
+     *          the name of the trigger
+     * @param groupName
+     *          the group containing the trigger
+     * @param state
+     *          the state the trigger must be in
+     * @return the version, or -1 if the trigger does not exist or is in 
+     *         another state
+     */
+    public long selectTriggerVersion(Connection conn, String triggerName,
+            String groupName, String state) throws SQLException {
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+
+        try {
+            ps = conn.prepareStatement(rtp(SELECT_TRIGGER_VERSION));
+            ps.setString(1, triggerName);
+            ps.setString(2, groupName);
+            ps.setString(3, state);
+            rs = ps.executeQuery();
+
+            if (rs.next()) {
+                return rs.getLong(COL_TRIGGER_VERSION);
             }
+            return -1;
         } finally {
             closeResultSet(rs);
             closeStatement(ps);
         }
-        
-        return new JobDataMap();
     }
-            
 
     /**
      * <p>
@@ -2821,6 +3858,179 @@ public class StdJDBCDelegate implements DriverDelegate, StdJDBCConstants {
         }
     }
 
+    //---------------------------------------------------------------------------
+    // cache versions
+    //---------------------------------------------------------------------------
+
+    /**
+     * <p>
+     * Select the current value of the given change counter.
+     * </p>
+     * 
+     * @param conn
+     *          the DB Connection
+     * @param cacheName
+     *          the name of the counter
+     * @return the value of the counter, or 0 if it has never been incremented
+     */
+    public long selectCacheVersion(Connection conn, String cacheName)
+        throws SQLException {
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+
+        try {
+            ps = conn.prepareStatement(rtp(SELECT_CACHE_VERSION));
+            ps.setString(1, cacheName);
+            rs = ps.executeQuery();
+
+            if (rs.next()) {
+                return rs.getLong(COL_CACHE_VERSION);
+            }
+            return 0;
+        } finally {
+            closeResultSet(rs);
+            closeStatement(ps);
+        }
+    }
+
+    /**
+     * <p>
+     * Increment the given change counter, inserting its row if it has none.
+     * </p>
+     * 
+     * @param conn
+     *          the DB Connection
+     * @param cacheName
+     *          the name of the counter
+     */
+    public void updateCacheVersion(Connection conn, String cacheName)
+        throws SQLException {
+        PreparedStatement ps = null;
+
+        try {
+            ps = conn.prepareStatement(rtp(UPDATE_CACHE_VERSION));
+            ps.setString(1, cacheName);
+
+            if (ps.executeUpdate() > 0) {
+                return;
+            }
+            closeStatement(ps);
+
+            ps = conn.prepareStatement(rtp(INSERT_CACHE_VERSION));
+            ps.setString(1, cacheName);
+            ps.executeUpdate();
+        } finally {
+            closeStatement(ps);
+        }
+    }
+
+    //---------------------------------------------------------------------------
+    // partition leases
+    //---------------------------------------------------------------------------
+
+    /**
+     * <p>
+     * Select all of the trigger partition leases.
+     * </p>
+     * 
+     * @param conn
+     *          the DB Connection
+     * @return a List of <code>{@link PartitionLeaseRecord}</code>s, in
+     *         partition order
+     */
+    public List selectPartitionLeases(Connection conn)
+        throws SQLException {
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+        
+        try {
+            List lst = new LinkedList();
+
+            ps = conn.prepareStatement(rtp(SELECT_PARTITION_LEASES));
+            rs = ps.executeQuery();
+
+            while (rs.next()) {
+                PartitionLeaseRecord rec = new PartitionLeaseRecord();
+
+                rec.setPartition(rs.getInt(COL_PARTITION_ID));
+                rec.setSchedulerInstanceId(rs.getString(COL_INSTANCE_NAME));
+                rec.setActiveTime(rs.getLong(COL_ACTIVE_TIME));
+
+                lst.add(rec);
+            }
+
+            return lst;
+        } finally {
+            closeResultSet(rs);
+            closeStatement(ps);
+        }
+    }
+
+    /**
+     * <p>
+     * Give the lease of the given partition to the given scheduler instance,
+     * inserting its row if it has none.
+     * </p>
+     * 
+     * @param conn
+     *          the DB Connection
+     * @param partition
+     *          the partition
+     * @param instanceId
+     *          the id of the instance to hold the lease
+     * @param activeTime
+     *          the time from which the instance may acquire the partition's
+     *          triggers
+     */
+    public void updatePartitionLease(Connection conn, int partition, 
+            String instanceId, long activeTime) throws SQLException {
+        PreparedStatement ps = null;
+
+        try {
+            ps = conn.prepareStatement(rtp(UPDATE_PARTITION_LEASE));
+            ps.setString(1, instanceId);
+            ps.setBigDecimal(2, new BigDecimal(String.valueOf(activeTime)));
+            ps.setInt(3, partition);
+
+            if (ps.executeUpdate() > 0) {
+                return;
+            }
+            closeStatement(ps);
+
+            ps = conn.prepareStatement(rtp(INSERT_PARTITION_LEASE));
+            ps.setString(1, instanceId);
+            ps.setBigDecimal(2, new BigDecimal(String.valueOf(activeTime)));
+            ps.setInt(3, partition);
+            ps.executeUpdate();
+        } finally {
+            closeStatement(ps);
+        }
+    }
+
+    /**
+     * <p>
+     * Delete the leases of the partitions from the given one on.
+     * </p>
+     * 
+     * @param conn
+     *          the DB Connection
+     * @param fromPartition
+     *          the lowest partition to delete the lease of
+     * @return the number of rows deleted
+     */
+    public int deletePartitionLeases(Connection conn, int fromPartition)
+        throws SQLException {
+        PreparedStatement ps = null;
+
+        try {
+            ps = conn.prepareStatement(rtp(DELETE_PARTITION_LEASES_FROM));
+            ps.setInt(1, fromPartition);
+            return ps.executeUpdate();
+        } finally {
+            closeStatement(ps);
+        }
+    }
+
     //---------------------------------------------------------------------------
     // trigger firing
     //---------------------------------------------------------------------------
@@ -2907,23 +4117,83 @@ public class StdJDBCDelegate implements DriverDelegate, StdJDBCConstants {
      */
     public List selectTriggerToAcquire(Connection conn, long noLaterThan, long noEarlierThan)
         throws SQLException {
+        return selectTriggerToAcquire(conn, noLaterThan, noEarlierThan, 5);
+    }
+
+    /**
+     * <p>
+     * Select the next triggers which will fire between the two given timestamps 
+     * in ascending order of fire time, and then descending by priority.
+     * </p>
+     * 
+     * @param conn
+     *          the DB Connection
+     * @param noLaterThan
+     *          highest value of <code>getNextFireTime()</code> of the triggers (exclusive)
+     * @param noEarlierThan 
+     *          highest value of <code>getNextFireTime()</code> of the triggers (inclusive)
+     * @param maxCount 
+     *          maximum number of trigger keys to return
+     *          
+     * @return A (never null, possibly empty) list of the identifiers (Key objects) of the next triggers to be fired.
+     */
+    public List selectTriggerToAcquire(Connection conn, long noLaterThan, long noEarlierThan, int maxCount)
+        throws SQLException {
+        return selectTriggerToAcquire(conn, SELECT_NEXT_TRIGGER_TO_ACQUIRE, 
+                noLaterThan, noEarlierThan, maxCount);
+    }
+
+    /**
+     * <p>
+     * Select the next triggers which will fire between the two given timestamps 
+     * in ascending order of fire time, and then descending by priority, 
+     * locking their rows until the end of the transaction, and skipping any
+     * rows locked by other transactions.
+     * </p>
+     * 
+     * <p>
+     * This implementation uses the query of 
+     * <code>{@link #getSelectNextTriggerToAcquireSkipLocked(int)}</code>, 
+     * or if there is none, falls back to an ordinary select that doesn't 
+     * lock the rows, so that a configuration can be tested against an
+     * embedded database.
+     * </p>
+     *          
+     * @return A (never null, possibly empty) list of the identifiers (Key objects) of the next triggers to be fired.
+     */
+    public List selectTriggerToAcquireSkipLocked(Connection conn, long noLaterThan, 
+            long noEarlierThan, int maxCount) throws SQLException {
+        String sql = getSelectNextTriggerToAcquireSkipLocked(maxCount);
+        if (sql == null) {
+            return selectTriggerToAcquire(conn, noLaterThan, noEarlierThan, maxCount);
+        }
+        
+        return selectTriggerToAcquire(conn, sql, noLaterThan, noEarlierThan, maxCount);
+    }
+
+    public boolean supportsSkipLocked() {
+        return getSelectNextTriggerToAcquireSkipLocked(1) != null;
+    }
+
+    private List selectTriggerToAcquire(Connection conn, String sql, 
+            long noLaterThan, long noEarlierThan, int maxCount) throws SQLException {
         PreparedStatement ps = null;
         ResultSet rs = null;
         List nextTriggers = new LinkedList();
         try {
-            ps = conn.prepareStatement(rtp(SELECT_NEXT_TRIGGER_TO_ACQUIRE));
+            ps = conn.prepareStatement(rtp(sql));
             
             // Try to give jdbc driver a hint to hopefully not pull over 
             // more than the few rows we actually need.
-            ps.setFetchSize(5);
-            ps.setMaxRows(5);
+            ps.setFetchSize(maxCount);
+            ps.setMaxRows(maxCount);
             
             ps.setString(1, STATE_WAITING);
             ps.setBigDecimal(2, new BigDecimal(String.valueOf(noLaterThan)));
             ps.setBigDecimal(3, new BigDecimal(String.valueOf(noEarlierThan)));
             rs = ps.executeQuery();
             
-            while (rs.next() && nextTriggers.size() < 5) {
+            while (rs.next() && nextTriggers.size() < maxCount) {
                 nextTriggers.add(new Key(
                         rs.getString(COL_TRIGGER_NAME),
                         rs.getString(COL_TRIGGER_GROUP)));
@@ -2936,6 +4206,61 @@ public class StdJDBCDelegate implements DriverDelegate, StdJDBCConstants {
         }      
     }
 
+    /**
+     * <p>
+     * Select the next triggers which will fire between the two given timestamps 
+     * in ascending order of fire time, and then descending by priority, with
+     * the keys of their jobs.
+     * </p>
+     * 
+     * @param conn
+     *          the DB Connection
+     * @param noLaterThan
+     *          highest value of <code>getNextFireTime()</code> of the triggers (exclusive)
+     * @param noEarlierThan 
+     *          highest value of <code>getNextFireTime()</code> of the triggers (inclusive)
+     * @param maxCount 
+     *          maximum number of triggers to return
+     *          
+     * @return A (never null, possibly empty) list of 
+     *         <code>{@link TriggerStatus}</code>es of the next triggers to be
+     *         fired, with their keys and job keys set.
+     */
+    public List selectTriggerStatusesToAcquire(Connection conn, long noLaterThan, 
+            long noEarlierThan, int maxCount) throws SQLException {
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+        List nextTriggers = new LinkedList();
+        try {
+            ps = conn.prepareStatement(rtp(SELECT_NEXT_TRIGGER_STATUSES_TO_ACQUIRE));
+            
+            ps.setFetchSize(maxCount);
+            ps.setMaxRows(maxCount);
+            
+            ps.setString(1, STATE_WAITING);
+            ps.setBigDecimal(2, new BigDecimal(String.valueOf(noLaterThan)));
+            ps.setBigDecimal(3, new BigDecimal(String.valueOf(noEarlierThan)));
+            rs = ps.executeQuery();
+            
+            while (rs.next() && nextTriggers.size() < maxCount) {
+                TriggerStatus status = new TriggerStatus(STATE_WAITING, 
+                        new Date(rs.getLong(COL_NEXT_FIRE_TIME)));
+                status.setKey(new Key(
+                        rs.getString(COL_TRIGGER_NAME),
+                        rs.getString(COL_TRIGGER_GROUP)));
+                status.setJobKey(new Key(
+                        rs.getString(COL_JOB_NAME),
+                        rs.getString(COL_JOB_GROUP)));
+                nextTriggers.add(status);
+            }
+            
+            return nextTriggers;
+        } finally {
+            closeResultSet(rs);
+            closeStatement(ps);
+        }      
+    }
+
     /**
      * <p>
      * Insert a fired trigger.
@@ -2982,6 +4307,51 @@ public class StdJDBCDelegate implements DriverDelegate, StdJDBCConstants {
         }
     }
 
+    /**
+     * <p>
+     * Insert a fired trigger for each of the given (acquired) triggers, as a
+     * single JDBC batch.
+     * </p>
+     * 
+     * @param conn
+     *          the DB Connection
+     * @param triggers
+     *          the triggers
+     * @param state
+     *          the state that the fired triggers should be stored in
+     * @return the insert count of each trigger, as returned by
+     *         <code>Statement.executeBatch()</code>
+     */
+    public int[] insertFiredTriggers(Connection conn, List triggers, 
+            String state) throws SQLException {
+        PreparedStatement ps = null;
+        try {
+            ps = conn.prepareStatement(rtp(INSERT_FIRED_TRIGGER));
+            Iterator itr = triggers.iterator();
+            while (itr.hasNext()) {
+                Trigger trigger = (Trigger) itr.next();
+                ps.setString(1, trigger.getFireInstanceId());
+                ps.setString(2, trigger.getName());
+                ps.setString(3, trigger.getGroup());
+                setBoolean(ps, 4, trigger.isVolatile());
+                ps.setString(5, instanceId);
+                ps.setBigDecimal(6, new BigDecimal(String.valueOf(trigger
+                        .getNextFireTime().getTime())));
+                ps.setString(7, state);
+                ps.setString(8, null);
+                ps.setString(9, null);
+                setBoolean(ps, 10, false);
+                setBoolean(ps, 11, false);
+                ps.setInt(12, trigger.getPriority());
+                ps.addBatch();
+            }
+
+            return ps.executeBatch();
+        } finally {
+            closeStatement(ps);
+        }
+    }
+
     /**
      * <p>
      * Select the states of all fired-trigger records for a given trigger, or
@@ -3297,10 +4667,28 @@ public class StdJDBCDelegate implements DriverDelegate, StdJDBCConstants {
     // protected methods that can be overridden by subclasses
     //---------------------------------------------------------------------------
 
+    /**
+     * <p>
+     * This method should be overridden by any delegate subclasses for 
+     * databases that can skip rows locked by other transactions.  It 
+     * returns a variant of <code>SELECT_NEXT_TRIGGER_TO_ACQUIRE</code>, with
+     * the same parameters, that locks the rows it returns, and skips rows 
+     * locked by other transactions.  The default implementation returns 
+     * null, for no such query.
+     * </p>
+     * 
+     * @param maxCount 
+     *          maximum number of rows the query needs to return
+     */
+    protected String getSelectNextTriggerToAcquireSkipLocked(int maxCount) {
+        return null;
+    }
+
     /**
      * <p>
      * Replace the table prefix in a query by replacing any occurrences of
-     * "{0}" with the table prefix.
+     * "{0}" with the table prefix.  The queries that are constants of this
+     * delegate are substituted once, when it is created; others each time.
      * </p>
      * 
      * @param query
@@ -3308,7 +4696,68 @@ public class StdJDBCDelegate implements DriverDelegate, StdJDBCConstants {
      * @return the query, with proper table prefix substituted
      */
     protected final String rtp(String query) {
-        return Util.rtp(query, tablePrefix);
+        String prefixedQuery = (String) prefixedQueries.get(query);
+        return (prefixedQuery != null) ? prefixedQuery : Util.rtp(query, tablePrefix);
+    }
+
+    /**
+     * <p>
+     * Substitute the table prefix in each of the public <code>String</code>
+     * constants of this delegate's class and interfaces that has one.
+     * </p>
+     */
+    private Map prefixQueries() {
+        Map queries = new HashMap();
+        Field[] fields = getClass().getFields();
+        for (int i = 0; i < fields.length; i++) {
+            int modifiers = fields[i].getModifiers();
+            if (!Modifier.isStatic(modifiers) || !Modifier.isFinal(modifiers)
+                    || fields[i].getType() != String.class) {
+                continue;
+            }
+            try {
+                String query = (String) fields[i].get(null);
+                if (query != null && query.indexOf(TABLE_PREFIX_SUBST) >= 0) {
+                    queries.put(query, Util.rtp(query, tablePrefix));
+                }
+            } catch (IllegalAccessException e) {
+                // public, so can't happen; the query is substituted when used
+            }
+        }
+        return Collections.unmodifiableMap(queries);
+    }
+
+    /**
+     * <p>
+     * Build a condition matching any one of <code>count</code> keys, by
+     * OR'ing together the given single-key condition.
+     * </p>
+     */
+    protected String buildKeyMatchClause(String keyMatch, int count) {
+        StringBuffer clause = new StringBuffer(count * (keyMatch.length() + 4));
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                clause.append(" OR ");
+            }
+            clause.append(keyMatch);
+        }
+        return clause.toString();
+    }
+
+    /**
+     * <p>
+     * Set the name and group of each of the given keys as consecutive
+     * parameters, starting at the given index.
+     * </p>
+     */
+    protected void setKeys(PreparedStatement ps, int index, List keys) 
+        throws SQLException {
+        Iterator itr = keys.iterator();
+        while (itr.hasNext()) {
+            Key key = (Key) itr.next();
+            ps.setString(index++, key.getName());
+            ps.setString(index++, key.getGroup());
+        }
     }
 
     /**
@@ -3353,6 +4802,14 @@ public class StdJDBCDelegate implements DriverDelegate, StdJDBCConstants {
         }
 
         try {
+            if (jobDataMapCodec != null) {
+                ByteArrayOutputStream baos = new ByteArrayOutputStream();
+                if (null != data) {
+                    jobDataMapCodec.encode(data.getWrappedMap(), baos);
+                }
+                return baos;
+            }
+            
             return serializeObject(data);
         } catch (NotSerializableException e) {
             throw new NotSerializableException(
@@ -3553,7 +5010,7 @@ public class StdJDBCDelegate implements DriverDelegate, StdJDBCConstants {
      */
     protected Object getJobDetailFromBlob(ResultSet rs, String colName)
         throws ClassNotFoundException, IOException, SQLException {
-        if (canUseProperties()) {
+        if (readJobDataAsStream()) {
             Blob blobLocator = rs.getBlob(colName);
             if (blobLocator != null) {
                 InputStream binaryInput = blobLocator.getBinaryStream();
@@ -0,0 +1,459 @@
+/*
+ * Copyright 2001-2009 James House
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.quartz.simpl;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.StringTokenizer;
+
+import org.quartz.SchedulerConfigException;
+import org.quartz.Trigger;
+import org.quartz.spi.LimitingThreadPool;
+import org.quartz.spi.TriggerAcquisitionLimit;
+
+/**
+ * <p>
+ * A <code>{@link SimpleThreadPool}</code> whose threads are shared out
+ * between named bulkheads, so that a burst of jobs in one group can't take
+ * every thread from the others.
+ * </p>
+ *
+ * <p>
+ * Each bulkhead is given job and trigger groups, a minimum number of threads
+ * kept for its jobs alone, and a maximum number of its jobs to run at once.
+ * A job runs in the bulkhead its job group is given to, or else its trigger
+ * group, or else in a default bulkhead with no minimum and the whole pool as
+ * its maximum.  The minimums must add up to no more than the thread count.
+ * </p>
+ *
+ * <p>
+ * The bulkheads are configured with a single property, for example:
+ * </p>
+ *
+ * <pre>
+ *   org.quartz.threadPool.class = org.quartz.simpl.BulkheadThreadPool
+ *   org.quartz.threadPool.threadCount = 20
+ *   org.quartz.threadPool.bulkheads = reports(0,4)=REPORTS,ARCHIVE; alerts(4,10)=ALERTS
+ * </pre>
+ *
+ * <p>
+ * The scheduler doesn't acquire a trigger whose bulkhead has no room for its
+ * job (see <code>{@link LimitingThreadPool}</code>), so the trigger waits in
+ * the <code>JobStore</code> rather than holding up the triggers behind it.
+ * </p>
+ */
+public class BulkheadThreadPool extends SimpleThreadPool implements
+        LimitingThreadPool {
+
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     * Constants.
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    public static final String DEFAULT_BULKHEAD = "default";
+
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     * Data members.
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    // guards all of the below
+    private final Object bulkheadLock = new Object();
+
+    // in the order they were added, the default one last
+    private final List bulkheads = new ArrayList();
+
+    private final HashMap bulkheadsByGroup = new HashMap();
+
+    private Bulkhead defaultBulkhead;
+
+    private int running = 0;
+
+    private boolean refused = false;
+
+    private boolean isShutdown = false;
+
+    private Runnable capacitySignal;
+
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     * Constructors.
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    /**
+     * <p>
+     * Create a new (unconfigured) <code>BulkheadThreadPool</code>.
+     * </p>
+     *
+     * @see #setThreadCount(int)
+     * @see #setBulkheads(String)
+     */
+    public BulkheadThreadPool() {
+    }
+
+    /**
+     * <p>
+     * Create a new <code>BulkheadThreadPool</code> with the specified number
+     * of <code>Thread</code> s that have the given priority, and no
+     * bulkheads yet.
+     * </p>
+     *
+     * @see #addBulkhead(String, int, int, String[])
+     */
+    public BulkheadThreadPool(int threadCount, int threadPriority) {
+        super(threadCount, threadPriority);
+    }
+
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     * Interface.
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    /**
+     * <p>
+     * Add a bulkhead for the jobs of the given job or trigger groups.
+     * </p>
+     *
+     * @param minThreads the number of threads kept for the bulkhead's jobs.
+     * @param maxThreads the most of the bulkhead's jobs to run at once.
+     */
+    public void addBulkhead(String name, int minThreads, int maxThreads,
+            String[] groups) {
+        if (minThreads < 0 || maxThreads < 1 || minThreads > maxThreads) {
+            throw new IllegalArgumentException("Bulkhead '" + name
+                    + "' must have 0 <= minThreads <= maxThreads, and "
+                    + "maxThreads >= 1.");
+        }
+
+        synchronized (bulkheadLock) {
+            Bulkhead bulkhead = new Bulkhead(name, minThreads, maxThreads);
+            bulkheads.add(bulkhead);
+            for (int i = 0; i < groups.length; i++) {
+                if (bulkheadsByGroup.put(groups[i], bulkhead) != null) {
+                    throw new IllegalArgumentException("Group '" + groups[i]
+                            + "' is given to more than one bulkhead.");
+                }
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Add bulkheads, given as <code>name(minThreads,maxThreads)=group,...</code>
+     * separated by semicolons.
+     * </p>
+     *
+     * @see #addBulkhead(String, int, int, String[])
+     */
+    public void setBulkheads(String bulkheads) {
+        StringTokenizer specs = new StringTokenizer(bulkheads, ";");
+        while (specs.hasMoreTokens()) {
+            String spec = specs.nextToken().trim();
+            if (spec.length() == 0) {
+                continue;
+            }
+
+            int open = spec.indexOf('(');
+            int close = spec.indexOf(')');
+            int equals = spec.indexOf('=');
+            if (open < 1 || close < open || equals != close + 1) {
+                throw new IllegalArgumentException("Could not parse bulkhead '"
+                        + spec + "', expected name(minThreads,maxThreads)=group,...");
+            }
+
+            String[] limits = split(spec.substring(open + 1, close));
+            if (limits.length != 2) {
+                throw new IllegalArgumentException("Could not parse bulkhead '"
+                        + spec + "', expected name(minThreads,maxThreads)=group,...");
+            }
+
+            addBulkhead(spec.substring(0, open).trim(),
+                    Integer.parseInt(limits[0]), Integer.parseInt(limits[1]),
+                    split(spec.substring(equals + 1)));
+        }
+    }
+
+    private static String[] split(String list) {
+        StringTokenizer tokens = new StringTokenizer(list, ",");
+        ArrayList values = new ArrayList();
+        while (tokens.hasMoreTokens()) {
+            String value = tokens.nextToken().trim();
+            if (value.length() > 0) {
+                values.add(value);
+            }
+        }
+        return (String[]) values.toArray(new String[values.size()]);
+    }
+
+    public void initialize() throws SchedulerConfigException {
+        synchronized (bulkheadLock) {
+            int reserved = 0;
+            for (int i = 0; i < bulkheads.size(); i++) {
+                Bulkhead bulkhead = (Bulkhead) bulkheads.get(i);
+                reserved += bulkhead.minThreads;
+                if (bulkhead.maxThreads > getThreadCount()) {
+                    bulkhead.maxThreads = getThreadCount();
+                }
+            }
+            if (reserved > getThreadCount()) {
+                throw new SchedulerConfigException("The bulkheads reserve "
+                        + reserved + " threads, but the pool only has "
+                        + getThreadCount() + ".");
+            }
+
+            if (defaultBulkhead == null) {
+                defaultBulkhead = new Bulkhead(DEFAULT_BULKHEAD, 0,
+                        Math.max(1, getThreadCount()));
+                bulkheads.add(defaultBulkhead);
+            }
+        }
+
+        super.initialize();
+    }
+
+    public void setCapacitySignal(Runnable signal) {
+        synchronized (bulkheadLock) {
+            capacitySignal = signal;
+        }
+    }
+
+    /**
+     * <p>
+     * Get the number of jobs running in the given bulkhead.
+     * </p>
+     *
+     * @return -1 if there is no such bulkhead.
+     */
+    public int getRunningCount(String bulkheadName) {
+        synchronized (bulkheadLock) {
+            for (int i = 0; i < bulkheads.size(); i++) {
+                Bulkhead bulkhead = (Bulkhead) bulkheads.get(i);
+                if (bulkhead.name.equals(bulkheadName)) {
+                    return bulkhead.running;
+                }
+            }
+            return -1;
+        }
+    }
+
+    public TriggerAcquisitionLimit createAcquisitionLimit(List acquiredTriggers) {
+        synchronized (bulkheadLock) {
+            int[] counts = new int[bulkheads.size()];
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = ((Bulkhead) bulkheads.get(i)).running;
+            }
+            int total = running;
+
+            // triggers waiting to fire will take their threads soon enough
+            if (acquiredTriggers != null) {
+                for (int i = 0; i < acquiredTriggers.size(); i++) {
+                    Trigger trigger = (Trigger) acquiredTriggers.get(i);
+                    counts[bulkheads.indexOf(getBulkhead(trigger))]++;
+                    total++;
+                }
+            }
+            return new AcquisitionLimit(counts, total);
+        }
+    }
+
+    /**
+     * <p>
+     * Run the given <code>Runnable</code> in the default bulkhead.
+     * </p>
+     */
+    public boolean runInThread(Runnable runnable) {
+        return runInThread(runnable, null);
+    }
+
+    /**
+     * <p>
+     * Run the given <code>Runnable</code> in the trigger's bulkhead, if it
+     * has room for it now.
+     * </p>
+     *
+     * @return false if the bulkhead is full, in which case the capacity
+     *         signal is run once a job completes.
+     */
+    public boolean runInThread(Runnable runnable, Trigger trigger) {
+        if (runnable == null) {
+            return false;
+        }
+
+        Bulkhead bulkhead;
+        synchronized (bulkheadLock) {
+            bulkhead = getBulkhead(trigger);
+            if (isShutdown) {
+                return false;
+            }
+            if (!hasRoom(bulkheads.indexOf(bulkhead), null, running)) {
+                refused = true;
+                return false;
+            }
+            bulkhead.running++;
+            running++;
+        }
+
+        boolean assigned = false;
+        try {
+            assigned = super.runInThread(new BulkheadRunnable(runnable, bulkhead));
+        } finally {
+            if (!assigned) {
+                completed(bulkhead);
+            }
+        }
+        return assigned;
+    }
+
+    public void shutdown(boolean waitForJobsToComplete) {
+        synchronized (bulkheadLock) {
+            isShutdown = true;
+        }
+
+        super.shutdown(waitForJobsToComplete);
+    }
+
+    private Bulkhead getBulkhead(Trigger trigger) {
+        Bulkhead bulkhead = null;
+        if (trigger != null) {
+            bulkhead = (Bulkhead) bulkheadsByGroup.get(trigger.getJobGroup());
+            if (bulkhead == null) {
+                bulkhead = (Bulkhead) bulkheadsByGroup.get(trigger.getGroup());
+            }
+        }
+        return (bulkhead == null) ? defaultBulkhead : bulkhead;
+    }
+
+    /**
+     * Whether the bulkhead at the given index has room for one more job,
+     * given the jobs running (or about to) in each bulkhead, or as they are
+     * now if <code>counts</code> is <code>null</code>.
+     */
+    private boolean hasRoom(int index, int[] counts, int total) {
+        Bulkhead bulkhead = (Bulkhead) bulkheads.get(index);
+        int count = (counts == null) ? bulkhead.running : counts[index];
+        if (count >= bulkhead.maxThreads) {
+            return false;
+        }
+        if (count < bulkhead.minThreads) {
+            return true;
+        }
+
+        // it may only use a thread not kept for another bulkhead
+        int free = getThreadCount() - total;
+        for (int i = 0; i < bulkheads.size() && free > 0; i++) {
+            if (i != index) {
+                Bulkhead other = (Bulkhead) bulkheads.get(i);
+                int otherCount = (counts == null) ? other.running : counts[i];
+                free -= Math.max(0, other.minThreads - otherCount);
+            }
+        }
+        return free > 0;
+    }
+
+    private void completed(Bulkhead bulkhead) {
+        Runnable signal = null;
+        synchronized (bulkheadLock) {
+            bulkhead.running--;
+            running--;
+
+            if (refused) {
+                refused = false;
+                signal = capacitySignal;
+            }
+        }
+
+        if (signal != null) {
+            signal.run();
+        }
+    }
+
+    private static class Bulkhead {
+        private final String name;
+
+        private final int minThreads;
+
+        private int maxThreads;
+
+        private int running = 0;
+
+        Bulkhead(String name, int minThreads, int maxThreads) {
+            this.name = name;
+            this.minThreads = minThreads;
+            this.maxThreads = maxThreads;
+        }
+    }
+
+    /**
+     * Counts the triggers acquired into each bulkhead, on top of the jobs
+     * running when the batch started.
+     */
+    private class AcquisitionLimit implements TriggerAcquisitionLimit {
+        private final int[] counts;
+
+        private int total;
+
+        AcquisitionLimit(int[] counts, int total) {
+            this.counts = counts;
+            this.total = total;
+        }
+
+        public boolean acquire(Trigger trigger) {
+            synchronized (bulkheadLock) {
+                int index = bulkheads.indexOf(getBulkhead(trigger));
+                if (!hasRoom(index, counts, total)) {
+                    refused = true;
+                    return false;
+                }
+                counts[index]++;
+                total++;
+                return true;
+            }
+        }
+    }
+
+    private class BulkheadRunnable implements Runnable {
+        private final Runnable runnable;
+
+        private final Bulkhead bulkhead;
+
+        BulkheadRunnable(Runnable runnable, Bulkhead bulkhead) {
+            this.runnable = runnable;
+            this.bulkhead = bulkhead;
+        }
+
+        public void run() {
+            try {
+                runnable.run();
+            } finally {
+                completed(bulkhead);
+            }
+        }
+    }
+}
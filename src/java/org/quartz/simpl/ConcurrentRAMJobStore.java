@@ -0,0 +1,786 @@
+/*
+ * Copyright 2001-2009 James House
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.quartz.simpl;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+import org.quartz.Calendar;
+import org.quartz.JobDetail;
+import org.quartz.JobPersistenceException;
+import org.quartz.ObjectAlreadyExistsException;
+import org.quartz.Trigger;
+import org.quartz.core.SchedulingContext;
+import org.quartz.impl.calendar.IndexedCalendar;
+import org.quartz.spi.ClassLoadHelper;
+import org.quartz.spi.SchedulerSignaler;
+
+/**
+ * <p>
+ * A <code>{@link RAMJobStore}</code> for large numbers of triggers, whose
+ * management calls don't hold up the firing of triggers.
+ * </p>
+ *
+ * <p>
+ * The jobs and triggers are kept in a number of stripes, chosen by group
+ * name, each with its own lock.  Lookups and listings (<code>getJobNames()</code>,
+ * <code>getTriggersForJob()</code>, <code>getTriggerState()</code>, ...)
+ * only lock the stripe(s) they read, and never the <code>triggerLock</code>
+ * that guards the firing of triggers.  The stripes also index the triggers
+ * of each job, so that finding them doesn't require a scan of all triggers.
+ * </p>
+ *
+ * <p>
+ * Changes to the schedule still take the <code>triggerLock</code>, as the
+ * time-ordered set of triggers to fire is shared, but only for the
+ * (logarithmic) update of each individual trigger: pausing or resuming a
+ * whole group, job or the scheduler releases it between triggers.
+ * </p>
+ *
+ * <p>
+ * Locks are always taken in the order <code>triggerLock</code>, then a
+ * single stripe.
+ * </p>
+ *
+ * @see RAMJobStore
+ */
+public class ConcurrentRAMJobStore extends RAMJobStore {
+
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     * Data members.
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    private CatalogStripe[] stripes = createStripes(16);
+
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     * Constructors.
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    /**
+     * <p>
+     * Create a new <code>ConcurrentRAMJobStore</code>.
+     * </p>
+     */
+    public ConcurrentRAMJobStore() {
+    }
+
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     * Interface.
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    private static CatalogStripe[] createStripes(int count) {
+        CatalogStripe[] stripes = new CatalogStripe[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new CatalogStripe();
+        }
+        return stripes;
+    }
+
+    public int getStripeCount() {
+        return stripes.length;
+    }
+
+    /**
+     * The number of independently locked stripes to spread the jobs and
+     * triggers over, by group name.  Must be set before the store is used.
+     * Defaults to 16.
+     *
+     * @param stripeCount
+     */
+    public void setStripeCount(int stripeCount) {
+        if (stripeCount < 1) {
+            throw new IllegalArgumentException("stripeCount must be larger than 0");
+        }
+        stripes = createStripes(stripeCount);
+    }
+
+    protected CatalogStripe stripeFor(String groupName) {
+        return stripes[(groupName.hashCode() & 0x7fffffff) % stripes.length];
+    }
+
+    /**
+     * <p>
+     * Called by the QuartzScheduler before the <code>JobStore</code> is
+     * used, in order to give the it a chance to initialize.
+     * </p>
+     */
+    public void initialize(ClassLoadHelper loadHelper,
+            SchedulerSignaler signaler) {
+
+        this.signaler = signaler;
+
+        getLog().info("ConcurrentRAMJobStore initialized with "
+                + stripes.length + " stripes.");
+    }
+
+    /**
+     * <p>
+     * Store the given <code>{@link org.quartz.Job}</code>.
+     * </p>
+     *
+     * @see RAMJobStore#storeJob(SchedulingContext, JobDetail, boolean)
+     */
+    public void storeJob(SchedulingContext ctxt, JobDetail newJob,
+            boolean replaceExisting) throws ObjectAlreadyExistsException {
+        JobWrapper jw = new JobWrapper((JobDetail)newJob.clone());
+
+        CatalogStripe stripe = stripeFor(newJob.getGroup());
+        synchronized (stripe) {
+            JobWrapper orig = (JobWrapper) stripe.jobsByFQN.get(jw.key);
+            if (orig != null) {
+                if (!replaceExisting) {
+                    throw new ObjectAlreadyExistsException(newJob);
+                }
+                // update job detail
+                orig.jobDetail = jw.jobDetail; // already cloned
+            } else {
+                // add to jobs by group
+                HashMap grpMap = (HashMap) stripe.jobsByGroup.get(newJob.getGroup());
+                if (grpMap == null) {
+                    grpMap = new HashMap(100);
+                    stripe.jobsByGroup.put(newJob.getGroup(), grpMap);
+                }
+                grpMap.put(newJob.getName(), jw);
+                // add to jobs by FQN map
+                stripe.jobsByFQN.put(jw.key, jw);
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Remove (delete) the <code>{@link org.quartz.Job}</code> with the given
+     * name, and any <code>{@link org.quartz.Trigger}</code> s that reference
+     * it.
+     * </p>
+     *
+     * @see RAMJobStore#removeJob(SchedulingContext, String, String)
+     */
+    public boolean removeJob(SchedulingContext ctxt, String jobName,
+            String groupName) {
+        boolean found = false;
+
+        synchronized (triggerLock) {
+            Iterator itr = getTriggerWrappersForJob(jobName, groupName).iterator();
+            while (itr.hasNext()) {
+                TriggerWrapper tw = (TriggerWrapper) itr.next();
+                removeTrigger(ctxt, tw.trigger.getName(), tw.trigger.getGroup(), false);
+                found = true;
+            }
+
+            CatalogStripe stripe = stripeFor(groupName);
+            synchronized (stripe) {
+                if (stripe.jobsByFQN.remove(JobWrapper.getJobNameKey(jobName, groupName)) != null) {
+                    found = true;
+                    HashMap grpMap = (HashMap) stripe.jobsByGroup.get(groupName);
+                    if (grpMap != null) {
+                        grpMap.remove(jobName);
+                        if (grpMap.size() == 0) {
+                            stripe.jobsByGroup.remove(groupName);
+                        }
+                    }
+                }
+            }
+        }
+
+        return found;
+    }
+
+    /**
+     * <p>
+     * Store the given <code>{@link org.quartz.Trigger}</code>.
+     * </p>
+     *
+     * @see RAMJobStore#storeTrigger(SchedulingContext, Trigger, boolean)
+     */
+    public void storeTrigger(SchedulingContext ctxt, Trigger newTrigger,
+            boolean replaceExisting) throws JobPersistenceException {
+        TriggerWrapper tw = new TriggerWrapper((Trigger)newTrigger.clone());
+
+        if (retrieveTriggerWrapper(newTrigger.getName(), newTrigger.getGroup()) != null) {
+            if (!replaceExisting) {
+                throw new ObjectAlreadyExistsException(newTrigger);
+            }
+
+            removeTrigger(ctxt, newTrigger.getName(), newTrigger.getGroup(), false);
+        }
+
+        if (retrieveJobWrapper(newTrigger.getJobName(), newTrigger.getJobGroup()) == null) {
+            throw new JobPersistenceException("The job ("
+                    + newTrigger.getFullJobName()
+                    + ") referenced by the trigger does not exist.");
+        }
+
+        synchronized (triggerLock) {
+            CatalogStripe stripe = stripeFor(newTrigger.getGroup());
+            synchronized (stripe) {
+                // lost a race with another store of the same trigger?
+                if (stripe.triggersByFQN.get(tw.key) != null) {
+                    throw new ObjectAlreadyExistsException(newTrigger);
+                }
+                // add to triggers by group
+                HashMap grpMap = (HashMap) stripe.triggersByGroup.get(newTrigger.getGroup());
+                if (grpMap == null) {
+                    grpMap = new HashMap(100);
+                    stripe.triggersByGroup.put(newTrigger.getGroup(), grpMap);
+                }
+                grpMap.put(newTrigger.getName(), tw);
+                // add to triggers by FQN map
+                stripe.triggersByFQN.put(tw.key, tw);
+            }
+
+            CatalogStripe jobStripe = stripeFor(newTrigger.getJobGroup());
+            synchronized (jobStripe) {
+                // add to triggers by job
+                ArrayList jobTriggers = (ArrayList) jobStripe.triggersByJob.get(tw.jobKey);
+                if (jobTriggers == null) {
+                    jobTriggers = new ArrayList(4);
+                    jobStripe.triggersByJob.put(tw.jobKey, jobTriggers);
+                }
+                jobTriggers.add(tw);
+            }
+
+            if (pausedTriggerGroups.contains(newTrigger.getGroup())
+                    || pausedJobGroups.contains(newTrigger.getJobGroup())) {
+                tw.state = TriggerWrapper.STATE_PAUSED;
+                if (blockedJobs.contains(tw.jobKey)) {
+                    tw.state = TriggerWrapper.STATE_PAUSED_BLOCKED;
+                }
+            } else if (blockedJobs.contains(tw.jobKey)) {
+                tw.state = TriggerWrapper.STATE_BLOCKED;
+            } else {
+                timeTriggers.add(tw);
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Remove (delete) the <code>{@link org.quartz.Trigger}</code> with the
+     * given name.
+     * </p>
+     *
+     * @see RAMJobStore#removeTrigger(SchedulingContext, String, String)
+     */
+    public boolean removeTrigger(SchedulingContext ctxt, String triggerName,
+            String groupName) {
+        return removeTrigger(ctxt, triggerName, groupName, true);
+    }
+
+    private boolean removeTrigger(SchedulingContext ctxt, String triggerName,
+            String groupName, boolean removeOrphanedJob) {
+        String key = TriggerWrapper.getTriggerNameKey(triggerName, groupName);
+
+        synchronized (triggerLock) {
+            TriggerWrapper tw = null;
+
+            CatalogStripe stripe = stripeFor(groupName);
+            synchronized (stripe) {
+                // remove from triggers by FQN map
+                tw = (TriggerWrapper) stripe.triggersByFQN.remove(key);
+                if (tw == null) {
+                    return false;
+                }
+                // remove from triggers by group
+                HashMap grpMap = (HashMap) stripe.triggersByGroup.get(groupName);
+                if (grpMap != null) {
+                    grpMap.remove(triggerName);
+                    if (grpMap.size() == 0) {
+                        stripe.triggersByGroup.remove(groupName);
+                    }
+                }
+            }
+
+            boolean orphaned = false;
+            JobWrapper jw = null;
+
+            CatalogStripe jobStripe = stripeFor(tw.trigger.getJobGroup());
+            synchronized (jobStripe) {
+                // remove from triggers by job
+                ArrayList jobTriggers = (ArrayList) jobStripe.triggersByJob.get(tw.jobKey);
+                if (jobTriggers != null) {
+                    jobTriggers.remove(tw);
+                    if (jobTriggers.size() == 0) {
+                        jobStripe.triggersByJob.remove(tw.jobKey);
+                        orphaned = true;
+                    }
+                }
+                jw = (JobWrapper) jobStripe.jobsByFQN.get(tw.jobKey);
+            }
+
+            timeTriggers.remove(tw);
+
+            if (removeOrphanedJob && orphaned && jw != null
+                    && !jw.jobDetail.isDurable()) {
+                removeJob(ctxt, tw.trigger.getJobName(), tw.trigger.getJobGroup());
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * @see org.quartz.spi.JobStore#replaceTrigger(org.quartz.core.SchedulingContext, java.lang.String, java.lang.String, org.quartz.Trigger)
+     */
+    public boolean replaceTrigger(SchedulingContext ctxt, String triggerName,
+            String groupName, Trigger newTrigger) throws JobPersistenceException {
+        synchronized (triggerLock) {
+            TriggerWrapper tw = retrieveTriggerWrapper(triggerName, groupName);
+            if (tw == null) {
+                return false;
+            }
+
+            if (!tw.getTrigger().getJobName().equals(newTrigger.getJobName()) ||
+                !tw.getTrigger().getJobGroup().equals(newTrigger.getJobGroup())) {
+                throw new JobPersistenceException("New trigger is not related to the same job as the old trigger.");
+            }
+
+            removeTrigger(ctxt, triggerName, groupName, false);
+
+            try {
+                storeTrigger(ctxt, newTrigger, false);
+            } catch(JobPersistenceException jpe) {
+                storeTrigger(ctxt, tw.getTrigger(), false); // put previous trigger back...
+                throw jpe;
+            }
+        }
+
+        return true;
+    }
+
+    protected JobWrapper retrieveJobWrapper(String jobName, String groupName) {
+        CatalogStripe stripe = stripeFor(groupName);
+        synchronized (stripe) {
+            return (JobWrapper) stripe.jobsByFQN.get(
+                    JobWrapper.getJobNameKey(jobName, groupName));
+        }
+    }
+
+    protected TriggerWrapper retrieveTriggerWrapper(String triggerName,
+            String groupName) {
+        CatalogStripe stripe = stripeFor(groupName);
+        synchronized (stripe) {
+            return (TriggerWrapper) stripe.triggersByFQN.get(
+                    TriggerWrapper.getTriggerNameKey(triggerName, groupName));
+        }
+    }
+
+    /**
+     * <p>
+     * Store the given <code>{@link org.quartz.Calendar}</code>.
+     * </p>
+     *
+     * @see RAMJobStore#storeCalendar(SchedulingContext, String, Calendar, boolean, boolean)
+     */
+    public void storeCalendar(SchedulingContext ctxt, String name,
+            Calendar calendar, boolean replaceExisting, boolean updateTriggers)
+        throws ObjectAlreadyExistsException {
+        Object obj = null;
+        calendar = copyCalendar(calendar);
+        Calendar indexedCalendar = IndexedCalendar.index(calendar);
+
+        synchronized (calendarsByName) {
+            obj = calendarsByName.get(name);
+
+            if (obj != null && replaceExisting == false) {
+                throw new ObjectAlreadyExistsException(
+                    "Calendar with name '" + name + "' already exists.");
+            }
+
+            calendarsByName.put(name, calendar);
+            indexedCalendarsByName.put(name, indexedCalendar);
+        }
+
+        if(obj != null && updateTriggers) {
+            Iterator trigs = getTriggerWrappersForCalendar(name).iterator();
+            while (trigs.hasNext()) {
+                TriggerWrapper tw = (TriggerWrapper) trigs.next();
+                synchronized (triggerLock) {
+                    boolean removed = timeTriggers.remove(tw);
+
+                    tw.trigger.updateWithNewCalendar(indexedCalendar, getMisfireThreshold());
+
+                    if(removed) {
+                        timeTriggers.add(tw);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Remove (delete) the <code>{@link org.quartz.Calendar}</code> with the
+     * given name.
+     * </p>
+     *
+     * @see RAMJobStore#removeCalendar(SchedulingContext, String)
+     */
+    public boolean removeCalendar(SchedulingContext ctxt, String calName)
+        throws JobPersistenceException {
+        if (!getTriggerWrappersForCalendar(calName).isEmpty()) {
+            throw new JobPersistenceException(
+                    "Calender cannot be removed if it referenced by a Trigger!");
+        }
+
+        synchronized (calendarsByName) {
+            indexedCalendarsByName.remove(calName);
+            return (calendarsByName.remove(calName) != null);
+        }
+    }
+
+    public Calendar retrieveCalendar(SchedulingContext ctxt, String calName) {
+        synchronized (calendarsByName) {
+            return copyCalendar((Calendar) calendarsByName.get(calName));
+        }
+    }
+
+    protected Calendar retrieveIndexedCalendar(String calName) {
+        synchronized (calendarsByName) {
+            return (Calendar) indexedCalendarsByName.get(calName);
+        }
+    }
+
+    public int getNumberOfJobs(SchedulingContext ctxt) {
+        int count = 0;
+        for (int i = 0; i < stripes.length; i++) {
+            synchronized (stripes[i]) {
+                count += stripes[i].jobsByFQN.size();
+            }
+        }
+        return count;
+    }
+
+    public int getNumberOfTriggers(SchedulingContext ctxt) {
+        int count = 0;
+        for (int i = 0; i < stripes.length; i++) {
+            synchronized (stripes[i]) {
+                count += stripes[i].triggersByFQN.size();
+            }
+        }
+        return count;
+    }
+
+    public int getNumberOfCalendars(SchedulingContext ctxt) {
+        synchronized (calendarsByName) {
+            return calendarsByName.size();
+        }
+    }
+
+    public String[] getJobNames(SchedulingContext ctxt, String groupName) {
+        CatalogStripe stripe = stripeFor(groupName);
+        synchronized (stripe) {
+            HashMap grpMap = (HashMap) stripe.jobsByGroup.get(groupName);
+            if (grpMap == null) {
+                return new String[0];
+            }
+
+            String[] outList = new String[grpMap.size()];
+            int outListPos = 0;
+            Iterator keys = grpMap.keySet().iterator();
+            while (keys.hasNext()) {
+                outList[outListPos++] = (String) keys.next();
+            }
+            return outList;
+        }
+    }
+
+    public String[] getCalendarNames(SchedulingContext ctxt) {
+        synchronized (calendarsByName) {
+            Set names = calendarsByName.keySet();
+            return (String[]) names.toArray(new String[names.size()]);
+        }
+    }
+
+    public String[] getTriggerNames(SchedulingContext ctxt, String groupName) {
+        CatalogStripe stripe = stripeFor(groupName);
+        synchronized (stripe) {
+            HashMap grpMap = (HashMap) stripe.triggersByGroup.get(groupName);
+            if (grpMap == null) {
+                return new String[0];
+            }
+
+            String[] outList = new String[grpMap.size()];
+            int outListPos = 0;
+            Iterator keys = grpMap.keySet().iterator();
+            while (keys.hasNext()) {
+                outList[outListPos++] = (String) keys.next();
+            }
+            return outList;
+        }
+    }
+
+    public String[] getJobGroupNames(SchedulingContext ctxt) {
+        ArrayList outList = new ArrayList();
+        for (int i = 0; i < stripes.length; i++) {
+            synchronized (stripes[i]) {
+                outList.addAll(stripes[i].jobsByGroup.keySet());
+            }
+        }
+        return (String[]) outList.toArray(new String[outList.size()]);
+    }
+
+    public String[] getTriggerGroupNames(SchedulingContext ctxt) {
+        ArrayList outList = new ArrayList();
+        for (int i = 0; i < stripes.length; i++) {
+            synchronized (stripes[i]) {
+                outList.addAll(stripes[i].triggersByGroup.keySet());
+            }
+        }
+        return (String[]) outList.toArray(new String[outList.size()]);
+    }
+
+    public Trigger[] getTriggersForJob(SchedulingContext ctxt, String jobName,
+            String groupName) {
+        String jobKey = JobWrapper.getJobNameKey(jobName, groupName);
+        CatalogStripe stripe = stripeFor(groupName);
+        synchronized (stripe) {
+            ArrayList jobTriggers = (ArrayList) stripe.triggersByJob.get(jobKey);
+            if (jobTriggers == null) {
+                return new Trigger[0];
+            }
+
+            Trigger[] outList = new Trigger[jobTriggers.size()];
+            for (int i = 0; i < outList.length; i++) {
+                outList[i] = (Trigger) ((TriggerWrapper) jobTriggers.get(i)).trigger.clone();
+            }
+            return outList;
+        }
+    }
+
+    protected ArrayList getTriggerWrappersForJob(String jobName, String groupName) {
+        String jobKey = JobWrapper.getJobNameKey(jobName, groupName);
+        CatalogStripe stripe = stripeFor(groupName);
+        synchronized (stripe) {
+            ArrayList jobTriggers = (ArrayList) stripe.triggersByJob.get(jobKey);
+            return (jobTriggers == null) ? new ArrayList() : new ArrayList(jobTriggers);
+        }
+    }
+
+    protected ArrayList getTriggerWrappersForCalendar(String calName) {
+        ArrayList trigList = new ArrayList();
+
+        for (int i = 0; i < stripes.length; i++) {
+            synchronized (stripes[i]) {
+                Iterator itr = stripes[i].triggersByFQN.values().iterator();
+                while (itr.hasNext()) {
+                    TriggerWrapper tw = (TriggerWrapper) itr.next();
+                    String tcalName = tw.getTrigger().getCalendarName();
+                    if (tcalName != null && tcalName.equals(calName)) {
+                        trigList.add(tw);
+                    }
+                }
+            }
+        }
+
+        return trigList;
+    }
+
+    /**
+     * <p>
+     * Pause all of the <code>{@link Trigger}s</code> in the given group.
+     * </p>
+     *
+     * @see RAMJobStore#pauseTriggerGroup(SchedulingContext, String)
+     */
+    public void pauseTriggerGroup(SchedulingContext ctxt, String groupName) {
+        // triggers stored from here on are paused as they are added
+        synchronized (triggerLock) {
+            if (!pausedTriggerGroups.add(groupName)) {
+                return;
+            }
+        }
+
+        String[] names = getTriggerNames(ctxt, groupName);
+        for (int i = 0; i < names.length; i++) {
+            pauseTrigger(ctxt, names[i], groupName);
+        }
+    }
+
+    public void pauseJob(SchedulingContext ctxt, String jobName,
+            String groupName) {
+        Iterator itr = getTriggerWrappersForJob(jobName, groupName).iterator();
+        while (itr.hasNext()) {
+            Trigger trigger = ((TriggerWrapper) itr.next()).trigger;
+            pauseTrigger(ctxt, trigger.getName(), trigger.getGroup());
+        }
+    }
+
+    /**
+     * <p>
+     * Pause all of the <code>{@link org.quartz.JobDetail}s</code> in the
+     * given group - by pausing all of their <code>Trigger</code>s.
+     * </p>
+     *
+     * @see RAMJobStore#pauseJobGroup(SchedulingContext, String)
+     */
+    public void pauseJobGroup(SchedulingContext ctxt, String groupName) {
+        synchronized (triggerLock) {
+            pausedJobGroups.add(groupName);
+        }
+
+        String[] jobNames = getJobNames(ctxt, groupName);
+        for (int i = 0; i < jobNames.length; i++) {
+            pauseJob(ctxt, jobNames[i], groupName);
+        }
+    }
+
+    /**
+     * <p>
+     * Resume (un-pause) all of the <code>{@link Trigger}s</code> in the
+     * given group.
+     * </p>
+     *
+     * @see RAMJobStore#resumeTriggerGroup(SchedulingContext, String)
+     */
+    public void resumeTriggerGroup(SchedulingContext ctxt, String groupName) {
+        // triggers stored from here on are no longer paused as they are added
+        synchronized (triggerLock) {
+            pausedTriggerGroups.remove(groupName);
+        }
+
+        String[] names = getTriggerNames(ctxt, groupName);
+        for (int i = 0; i < names.length; i++) {
+            TriggerWrapper tw = retrieveTriggerWrapper(names[i], groupName);
+            if (tw != null) {
+                synchronized (triggerLock) {
+                    if (pausedJobGroups.contains(tw.trigger.getJobGroup())) {
+                        continue;
+                    }
+                }
+            }
+            resumeTrigger(ctxt, names[i], groupName);
+        }
+    }
+
+    public void resumeJob(SchedulingContext ctxt, String jobName,
+            String groupName) {
+        Iterator itr = getTriggerWrappersForJob(jobName, groupName).iterator();
+        while (itr.hasNext()) {
+            Trigger trigger = ((TriggerWrapper) itr.next()).trigger;
+            resumeTrigger(ctxt, trigger.getName(), trigger.getGroup());
+        }
+    }
+
+    /**
+     * <p>
+     * Resume (un-pause) all of the <code>{@link org.quartz.JobDetail}s</code>
+     * in the given group.
+     * </p>
+     *
+     * @see RAMJobStore#resumeJobGroup(SchedulingContext, String)
+     */
+    public void resumeJobGroup(SchedulingContext ctxt, String groupName) {
+        synchronized (triggerLock) {
+            pausedJobGroups.remove(groupName);
+        }
+
+        String[] jobNames = getJobNames(ctxt, groupName);
+        for (int i = 0; i < jobNames.length; i++) {
+            resumeJob(ctxt, jobNames[i], groupName);
+        }
+    }
+
+    public void pauseAll(SchedulingContext ctxt) {
+        String[] names = getTriggerGroupNames(ctxt);
+        for (int i = 0; i < names.length; i++) {
+            pauseTriggerGroup(ctxt, names[i]);
+        }
+    }
+
+    public void resumeAll(SchedulingContext ctxt) {
+        synchronized (triggerLock) {
+            pausedJobGroups.clear();
+        }
+
+        String[] names = getTriggerGroupNames(ctxt);
+        for (int i = 0; i < names.length; i++) {
+            resumeTriggerGroup(ctxt, names[i]);
+        }
+    }
+
+    protected String peekTriggers() {
+
+        StringBuffer str = new StringBuffer();
+        for (int i = 0; i < stripes.length; i++) {
+            synchronized (stripes[i]) {
+                Iterator itr = stripes[i].triggersByFQN.values().iterator();
+                while (itr.hasNext()) {
+                    str.append(((TriggerWrapper) itr.next()).trigger.getName());
+                    str.append("/");
+                }
+            }
+        }
+        str.append(" | ");
+
+        synchronized (triggerLock) {
+            Iterator itr = timeTriggers.iterator();
+            while (itr.hasNext()) {
+                str.append(((TriggerWrapper) itr.next()).trigger.getName());
+                str.append("->");
+            }
+        }
+
+        return str.toString();
+    }
+
+    public Set getPausedTriggerGroups(SchedulingContext ctxt) throws JobPersistenceException {
+        synchronized (triggerLock) {
+            return new HashSet(pausedTriggerGroups);
+        }
+    }
+}
+
+/*******************************************************************************
+ * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * *
+ *
+ * Helper Classes. * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * *
+ */
+
+/**
+ * The jobs and triggers of the groups that hash to one stripe of a
+ * <code>ConcurrentRAMJobStore</code>, guarded by the stripe's own monitor.
+ * A trigger is kept in the stripe of its own group, and is indexed by job in
+ * the stripe of its job's group.
+ */
+class CatalogStripe {
+
+    final HashMap jobsByFQN = new HashMap(100);
+
+    final HashMap jobsByGroup = new HashMap(4);
+
+    final HashMap triggersByFQN = new HashMap(100);
+
+    final HashMap triggersByGroup = new HashMap(4);
+
+    final HashMap triggersByJob = new HashMap(100);
+}
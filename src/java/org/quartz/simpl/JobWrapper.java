@@ -0,0 +1,65 @@
+/* 
+ * Copyright 2001-2009 James House 
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not 
+ * use this file except in compliance with the License. You may obtain a copy 
+ * of the License at 
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0 
+ *   
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT 
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the 
+ * License for the specific language governing permissions and limitations 
+ * under the License.
+ * 
+ */
+package org.quartz.simpl;
+
+import org.quartz.JobDetail;
+
+/**
+ * <p>
+ * Holds a stored <code>{@link JobDetail}</code> of a RAM job store, keyed by
+ * its group and name.
+ * </p>
+ */
+class JobWrapper {
+
+    public String key;
+
+    public JobDetail jobDetail;
+
+    JobWrapper(JobDetail jobDetail) {
+        this.jobDetail = jobDetail;
+        key = getJobNameKey(jobDetail);
+    }
+
+    JobWrapper(JobDetail jobDetail, String key) {
+        this.jobDetail = jobDetail;
+        this.key = key;
+    }
+
+    static String getJobNameKey(JobDetail jobDetail) {
+        return jobDetail.getGroup() + "_$x$x$_" + jobDetail.getName();
+    }
+
+    static String getJobNameKey(String jobName, String groupName) {
+        return groupName + "_$x$x$_" + jobName;
+    }
+
+    public boolean equals(Object obj) {
+        if (obj instanceof JobWrapper) {
+            JobWrapper jw = (JobWrapper) obj;
+            if (jw.key.equals(this.key)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+    
+    public int hashCode() {
+        return key.hashCode(); 
+    }
+}
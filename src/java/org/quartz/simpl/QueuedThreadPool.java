@@ -0,0 +1,610 @@
+/*
+ * Copyright 2001-2009 James House
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.quartz.simpl;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Iterator;
+import java.util.LinkedList;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.quartz.SchedulerConfigException;
+import org.quartz.spi.ThreadPool;
+
+/**
+ * <p>
+ * A <code>{@link org.quartz.spi.ThreadPool}</code> that hands work straight
+ * to an idle worker, optionally queueing a bounded number of
+ * <code>Runnable</code>s when all workers are busy, and optionally running
+ * each <code>Runnable</code> on its own virtual thread instead.
+ * </p>
+ *
+ * <p>
+ * Unlike the <code>{@link SimpleThreadPool}</code>, nothing polls: an idle
+ * worker waits until it is handed a <code>Runnable</code>, and
+ * <code>runInThread(Runnable)</code> and <code>blockForAvailableThreads()</code>
+ * wait until a worker (or queue slot) is freed, and are woken as soon as one
+ * is.
+ * </p>
+ *
+ * <p>
+ * The number of <code>Runnable</code>s that may be in the pool at once is
+ * <code>threadCount</code> plus <code>queueCapacity</code> (which defaults to
+ * 0).  Queued <code>Runnable</code>s start as soon as a worker is free, which
+ * can be after their trigger's fire time, so a queue is only useful to
+ * smooth over short bursts.
+ * </p>
+ *
+ * <p>
+ * With <code>useVirtualThreads</code> set, no worker threads are created, and
+ * each <code>Runnable</code> is run on a new virtual thread, up to
+ * <code>threadCount</code> at once - which can then be set much higher than
+ * is sensible for platform threads, for jobs that mostly wait on I/O.
+ * Virtual threads are always daemon threads of normal priority.  If the JVM
+ * doesn't support virtual threads (they were added in Java 21), the pool
+ * falls back to worker threads.
+ * </p>
+ *
+ * @see SimpleThreadPool
+ */
+public class QueuedThreadPool implements ThreadPool {
+
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     * Data members.
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    private int count = -1;
+
+    private int queueCapacity = 0;
+
+    private int prio = Thread.NORM_PRIORITY;
+
+    private boolean inheritLoader = false;
+
+    private boolean makeThreadsDaemons = false;
+
+    private boolean useVirtualThreads = false;
+
+    private String threadNamePrefix = "QueuedThreadPoolWorker";
+
+    private ClassLoader initializersLoader;
+
+    // guards all of the below; workers only ever wait on themselves
+    private final Object lock = new Object();
+
+    private final LinkedList queue = new LinkedList();
+
+    private final LinkedList idleWorkers = new LinkedList();
+
+    private LinkedList workers = new LinkedList();
+
+    // Runnables handed to a thread, and not yet completed
+    private int running = 0;
+
+    // threads waiting on the lock, to be woken when a Runnable completes
+    private int waiters = 0;
+
+    private boolean isShutdown = false;
+
+    // the virtual thread builder, and its start(Runnable) method
+    private Object virtualThreadBuilder;
+
+    private Method virtualThreadStart;
+
+    private final Log log = LogFactory.getLog(getClass());
+
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     * Constructors.
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    /**
+     * <p>
+     * Create a new (unconfigured) <code>QueuedThreadPool</code>.
+     * </p>
+     *
+     * @see #setThreadCount(int)
+     */
+    public QueuedThreadPool() {
+    }
+
+    /**
+     * <p>
+     * Create a new <code>QueuedThreadPool</code> with the specified number
+     * of <code>Thread</code> s that have the given priority.
+     * </p>
+     */
+    public QueuedThreadPool(int threadCount, int threadPriority) {
+        setThreadCount(threadCount);
+        setThreadPriority(threadPriority);
+    }
+
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     * Interface.
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    public Log getLog() {
+        return log;
+    }
+
+    public int getPoolSize() {
+        return getThreadCount();
+    }
+
+    /**
+     * <p>
+     * Set the number of worker threads in the pool (or the number of virtual
+     * threads that may run at once) - has no effect after
+     * <code>initialize()</code> has been called.
+     * </p>
+     */
+    public void setThreadCount(int count) {
+        this.count = count;
+    }
+
+    public int getThreadCount() {
+        return count;
+    }
+
+    /**
+     * <p>
+     * Set the number of <code>Runnable</code>s that may wait for a worker
+     * thread, when all are busy - has no effect after
+     * <code>initialize()</code> has been called, or with virtual threads.
+     * </p>
+     */
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    /**
+     * <p>
+     * Set the thread priority of worker threads in the pool - has no effect
+     * after <code>initialize()</code> has been called, or with virtual
+     * threads.
+     * </p>
+     */
+    public void setThreadPriority(int prio) {
+        this.prio = prio;
+    }
+
+    public int getThreadPriority() {
+        return prio;
+    }
+
+    public void setThreadNamePrefix(String prfx) {
+        this.threadNamePrefix = prfx;
+    }
+
+    public String getThreadNamePrefix() {
+        return threadNamePrefix;
+    }
+
+    public boolean isThreadsInheritContextClassLoaderOfInitializingThread() {
+        return inheritLoader;
+    }
+
+    public void setThreadsInheritContextClassLoaderOfInitializingThread(
+            boolean inheritLoader) {
+        this.inheritLoader = inheritLoader;
+    }
+
+    public boolean isMakeThreadsDaemons() {
+        return makeThreadsDaemons;
+    }
+
+    public void setMakeThreadsDaemons(boolean makeThreadsDaemons) {
+        this.makeThreadsDaemons = makeThreadsDaemons;
+    }
+
+    public boolean isUseVirtualThreads() {
+        return useVirtualThreads;
+    }
+
+    /**
+     * <p>
+     * Run each <code>Runnable</code> on a new virtual thread, if the JVM
+     * supports them - has no effect after <code>initialize()</code> has been
+     * called.
+     * </p>
+     */
+    public void setUseVirtualThreads(boolean useVirtualThreads) {
+        this.useVirtualThreads = useVirtualThreads;
+    }
+
+    /**
+     * @return whether <code>Runnable</code>s are actually being run on
+     * virtual threads.
+     */
+    public boolean isRunningOnVirtualThreads() {
+        return (virtualThreadBuilder != null);
+    }
+
+    public void initialize() throws SchedulerConfigException {
+
+        if (count <= 0) {
+            throw new SchedulerConfigException(
+                    "Thread count must be > 0");
+        }
+        if (queueCapacity < 0) {
+            throw new SchedulerConfigException(
+                    "Queue capacity must be >= 0");
+        }
+        if (prio <= 0 || prio > 9) {
+            throw new SchedulerConfigException(
+                    "Thread priority must be > 0 and <= 9");
+        }
+
+        if (isThreadsInheritContextClassLoaderOfInitializingThread()) {
+            initializersLoader = Thread.currentThread().getContextClassLoader();
+            getLog().info(
+                    "Job execution threads will use class loader of thread: "
+                            + Thread.currentThread().getName());
+        }
+
+        if (isUseVirtualThreads()) {
+            try {
+                // Thread.ofVirtual().name(prefix, 1) - by reflection, as
+                // virtual threads are only available from Java 21 on
+                Object builder = Thread.class.getMethod("ofVirtual", new Class[0])
+                        .invoke(null, new Object[0]);
+                Class builderClass = Class.forName("java.lang.Thread$Builder");
+                virtualThreadBuilder = builderClass.getMethod("name",
+                        new Class[] {String.class, long.class}).invoke(builder,
+                                new Object[] {getThreadNamePrefix() + "-", new Long(1)});
+                virtualThreadStart = builderClass.getMethod("start",
+                        new Class[] {Runnable.class});
+                getLog().info("Jobs will be run on virtual threads, up to "
+                        + count + " at once.");
+                return;
+            } catch (Exception e) {
+                virtualThreadBuilder = null;
+                getLog().warn("Virtual threads are not supported by this JVM, "
+                        + "using " + count + " worker threads instead.");
+            }
+        }
+
+        // create the worker threads and start them
+        synchronized (lock) {
+            for (int i = 1; i <= count; ++i) {
+                WorkerThread wt = new WorkerThread(getThreadNamePrefix() + "-" + i);
+                workers.add(wt);
+                idleWorkers.add(wt);
+                wt.start();
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Run the given <code>Runnable</code> object as soon as a thread is
+     * available, blocking until one is (or a queue slot is) if need be.  If
+     * while waiting the thread pool is asked to shut down, the Runnable is
+     * executed immediately within a new additional thread.
+     * </p>
+     *
+     * @param runnable
+     *          the <code>Runnable</code> to be added.
+     */
+    public boolean runInThread(Runnable runnable) {
+        if (runnable == null) {
+            return false;
+        }
+
+        synchronized (lock) {
+            awaitAvailable();
+
+            running++;
+            if (isShutdown) {
+                // If the thread pool is going down, execute the Runnable
+                // within a new additional thread (not from the pool).
+                Thread t = new Thread(new TrackedRunnable(runnable),
+                        getThreadNamePrefix() + "-LastJob");
+                t.setDaemon(isMakeThreadsDaemons());
+                t.start();
+            } else if (virtualThreadBuilder != null) {
+                startVirtualThread(new TrackedRunnable(runnable));
+            } else if (!idleWorkers.isEmpty()) {
+                // the most recently used worker, as its stack is warmest
+                ((WorkerThread) idleWorkers.removeLast()).handOff(runnable);
+            } else {
+                running--;
+                queue.addLast(runnable);
+            }
+        }
+
+        return true;
+    }
+
+    public int blockForAvailableThreads() {
+        synchronized (lock) {
+            awaitAvailable();
+
+            return available();
+        }
+    }
+
+    /**
+     * <p>
+     * The number of <code>Runnable</code>s that can be run right now. Must
+     * be called holding the lock.
+     * </p>
+     */
+    private int available() {
+        if (virtualThreadBuilder != null) {
+            return count - running;
+        }
+        return count + queueCapacity - running - queue.size();
+    }
+
+    private void awaitAvailable() {
+        while (available() < 1 && !isShutdown) {
+            waiters++;
+            try {
+                lock.wait();
+            } catch (InterruptedException ignore) {
+            } finally {
+                waiters--;
+            }
+        }
+    }
+
+    private void startVirtualThread(Runnable runnable) {
+        try {
+            virtualThreadStart.invoke(virtualThreadBuilder, new Object[] {runnable});
+        } catch (InvocationTargetException ite) {
+            running--;
+            Throwable t = ite.getTargetException();
+            if (t instanceof RuntimeException) {
+                throw (RuntimeException) t;
+            }
+            throw new IllegalStateException("Could not start virtual thread: " + t);
+        } catch (IllegalAccessException iae) {
+            running--;
+            throw new IllegalStateException("Could not start virtual thread: " + iae);
+        }
+    }
+
+    /**
+     * <p>
+     * Called when a <code>Runnable</code> has completed on a worker thread.
+     * </p>
+     *
+     * @return the next (queued) <code>Runnable</code> for the worker to run,
+     * or null if it has been made idle (or should terminate, as the pool is
+     * shut down).
+     */
+    private Runnable completed(WorkerThread wt) {
+        synchronized (lock) {
+            running--;
+            if (waiters > 0) {
+                lock.notifyAll();
+            }
+
+            if (!queue.isEmpty()) {
+                running++;
+                return (Runnable) queue.removeFirst();
+            }
+            if (!isShutdown) {
+                idleWorkers.add(wt);
+            } else {
+                workers.remove(wt);
+                wt.shutdown();
+            }
+            return null;
+        }
+    }
+
+    /**
+     * <p>
+     * Terminate the worker threads.
+     * </p>
+     *
+     * <p>
+     * Jobs currently in progress (and queued) will complete.
+     * </p>
+     */
+    public void shutdown() {
+        shutdown(true);
+    }
+
+    /**
+     * <p>
+     * Terminate the worker threads.
+     * </p>
+     *
+     * <p>
+     * Jobs currently in progress (and queued) will complete.
+     * </p>
+     */
+    public void shutdown(boolean waitForJobsToComplete) {
+
+        synchronized (lock) {
+            isShutdown = true;
+
+            // stop the idle workers; busy ones stop once they've run the queue dry
+            Iterator itr = idleWorkers.iterator();
+            while (itr.hasNext()) {
+                WorkerThread wt = (WorkerThread) itr.next();
+                workers.remove(wt);
+                wt.shutdown();
+            }
+            idleWorkers.clear();
+
+            // wake anyone blocked for an available thread
+            lock.notifyAll();
+
+            if (waitForJobsToComplete) {
+                while (running > 0 || !queue.isEmpty()) {
+                    getLog().debug("Waiting for " + (running + queue.size())
+                            + " jobs to complete");
+                    waiters++;
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException ignore) {
+                    } finally {
+                        waiters--;
+                    }
+                }
+
+                getLog().debug("shutdown complete");
+            }
+        }
+    }
+
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     * Helper Classes.
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    /**
+     * <p>
+     * Runs a <code>Runnable</code> on a thread that isn't a worker, keeping
+     * count of it.
+     * </p>
+     */
+    class TrackedRunnable implements Runnable {
+
+        private Runnable runnable;
+
+        TrackedRunnable(Runnable runnable) {
+            this.runnable = runnable;
+        }
+
+        public void run() {
+            try {
+                if (initializersLoader != null) {
+                    Thread.currentThread().setContextClassLoader(initializersLoader);
+                }
+                runnable.run();
+            } catch (Throwable exceptionInRunnable) {
+                try {
+                    getLog().error("Error while executing the Runnable: ",
+                        exceptionInRunnable);
+                } catch(Exception e) {
+                    // ignore to help with a tomcat glitch
+                }
+            } finally {
+                synchronized (lock) {
+                    running--;
+                    if (waiters > 0) {
+                        lock.notifyAll();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * A worker waits (on itself) to be handed a <code>Runnable</code>, runs
+     * it and the queued <code>Runnable</code>s, and becomes idle again.
+     * </p>
+     */
+    class WorkerThread extends Thread {
+
+        private Runnable runnable = null;
+
+        private boolean run = true;
+
+        WorkerThread(String name) {
+            super(name);
+            setPriority(prio);
+            setDaemon(makeThreadsDaemons);
+            if (initializersLoader != null) {
+                setContextClassLoader(initializersLoader);
+            }
+        }
+
+        synchronized void handOff(Runnable newRunnable) {
+            if (runnable != null) {
+                throw new IllegalStateException("Already running a Runnable!");
+            }
+            runnable = newRunnable;
+            notify();
+        }
+
+        synchronized void shutdown() {
+            run = false;
+            notify();
+        }
+
+        private synchronized Runnable awaitRunnable() {
+            while (runnable == null && run) {
+                try {
+                    wait();
+                } catch (InterruptedException ignore) {
+                }
+            }
+            Runnable r = runnable;
+            runnable = null;
+            return r;
+        }
+
+        public void run() {
+            Runnable r = awaitRunnable();
+
+            while (r != null) {
+                try {
+                    r.run();
+                } catch (Throwable exceptionInRunnable) {
+                    try {
+                        getLog().error("Error while executing the Runnable: ",
+                            exceptionInRunnable);
+                    } catch(Exception e) {
+                        // ignore to help with a tomcat glitch
+                    }
+                } finally {
+                    // repair the thread in case the runnable mucked it up...
+                    if (getPriority() != prio) {
+                        setPriority(prio);
+                    }
+                }
+
+                r = completed(this);
+                if (r == null) {
+                    r = awaitRunnable();
+                }
+            }
+
+            try {
+                getLog().debug("WorkerThread is shut down.");
+            } catch(Exception e) {
+                // ignore to help with a tomcat glitch
+            }
+        }
+    }
+}
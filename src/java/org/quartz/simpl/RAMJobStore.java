@@ -21,12 +21,14 @@
 package org.quartz.simpl;
 
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.SortedSet;
 import java.util.TreeSet;
 
 import org.apache.commons.logging.Log;
@@ -39,10 +41,14 @@ import org.quartz.ObjectAlreadyExistsException;
 import org.quartz.SchedulerException;
 import org.quartz.Trigger;
 import org.quartz.core.SchedulingContext;
+import org.quartz.impl.calendar.BaseCalendar;
+import org.quartz.impl.calendar.IndexedCalendar;
 import org.quartz.spi.ClassLoadHelper;
 import org.quartz.spi.JobStore;
 import org.quartz.spi.SchedulerSignaler;
+import org.quartz.spi.TriggerAcquisitionLimit;
 import org.quartz.spi.TriggerFiredBundle;
+import org.quartz.spi.TriggerFiredResult;
 
 /**
  * <p>
@@ -79,11 +85,17 @@ public class RAMJobStore implements JobStore {
 
     protected HashMap triggersByGroup = new HashMap(25);
 
-    protected TreeSet timeTriggers = new TreeSet(new TriggerComparator());
+    protected SortedSet timeTriggers = new TreeSet(new TriggerComparator());
 
     protected HashMap calendarsByName = new HashMap(25);
 
-    protected ArrayList triggers = new ArrayList(1000);
+    protected HashMap indexedCalendarsByName = new HashMap(25);
+
+    protected LinkedHashSet triggers = new LinkedHashSet(1000);
+
+    protected HashMap triggersByJob = new HashMap(1000);
+
+    protected HashMap triggersByCalendar = new HashMap(25);
 
     protected final Object triggerLock = new Object();
 
@@ -163,6 +175,33 @@ public class RAMJobStore implements JobStore {
         this.misfireThreshold = misfireThreshold;
     }
 
+    public boolean isUseTimingWheel() {
+        return (timeTriggers instanceof TriggerTimingWheel);
+    }
+
+    /**
+     * Whether to keep the triggers that are waiting to fire in a 
+     * hierarchical timing wheel rather than a <code>TreeSet</code>, making 
+     * the acquiring and firing of triggers O(1) rather than O(log n).  
+     * Triggers with the same next fire time and priority are then acquired in
+     * the order in which they were stored or last fired, rather than by name.
+     * 
+     * @param useTimingWheel
+     */
+    public void setUseTimingWheel(boolean useTimingWheel) {
+        synchronized (triggerLock) {
+            if (useTimingWheel == isUseTimingWheel()) {
+                return;
+            }
+            SortedSet newTimeTriggers = useTimingWheel ? 
+                    (SortedSet) new TriggerTimingWheel() : 
+                    (SortedSet) new TreeSet(new TriggerComparator());
+            newTimeTriggers.addAll(timeTriggers);
+            timeTriggers.clear();
+            timeTriggers = newTimeTriggers;
+        }
+    }
+
     /**
      * <p>
      * Called by the QuartzScheduler to inform the <code>JobStore</code> that
@@ -324,8 +363,12 @@ public class RAMJobStore implements JobStore {
         }
 
         synchronized (triggerLock) {
-            // add to triggers array
+            // add to triggers set, and the job and calendar indexes
             triggers.add(tw);
+            addToIndex(triggersByJob, tw.jobKey, tw);
+            if (tw.trigger.getCalendarName() != null) {
+                addToIndex(triggersByCalendar, tw.trigger.getCalendarName(), tw);
+            }
             // add to triggers by group
             HashMap grpMap = (HashMap) triggersByGroup.get(newTrigger
                     .getGroup());
@@ -375,10 +418,11 @@ public class RAMJobStore implements JobStore {
         boolean found = false;
 
         synchronized (triggerLock) {
-            // remove from triggers by FQN map
-            found = (triggersByFQN.remove(key) == null) ? false : true;
+            // remove from triggers by FQN map, the triggers set, and the
+            // job and calendar indexes
+            TriggerWrapper tw = removeTriggerWrapper(key);
+            found = (tw == null) ? false : true;
             if (found) {
-                TriggerWrapper tw = null;
                 // remove from triggers by group
                 HashMap grpMap = (HashMap) triggersByGroup.get(groupName);
                 if (grpMap != null) {
@@ -387,15 +431,6 @@ public class RAMJobStore implements JobStore {
                         triggersByGroup.remove(groupName);
                     }
                 }
-                // remove from triggers array
-                Iterator tgs = triggers.iterator();
-                while (tgs.hasNext()) {
-                    tw = (TriggerWrapper) tgs.next();
-                    if (key.equals(tw.key)) {
-                        tgs.remove();
-                        break;
-                    }
-                }
                 timeTriggers.remove(tw);
 
                 if (removeOrphanedJob) {
@@ -425,8 +460,7 @@ public class RAMJobStore implements JobStore {
         boolean found = false;
 
         synchronized (triggerLock) {
-            // remove from triggers by FQN map
-            TriggerWrapper tw = (TriggerWrapper) triggersByFQN.remove(key);
+            TriggerWrapper tw = (TriggerWrapper) triggersByFQN.get(key);
             found = ( tw == null) ? false : true;
 
             if (found) {
@@ -436,7 +470,6 @@ public class RAMJobStore implements JobStore {
                     throw new JobPersistenceException("New trigger is not related to the same job as the old trigger.");
                 }
 
-                tw = null;
                 // remove from triggers by group
                 HashMap grpMap = (HashMap) triggersByGroup.get(groupName);
                 if (grpMap != null) {
@@ -445,15 +478,9 @@ public class RAMJobStore implements JobStore {
                         triggersByGroup.remove(groupName);
                     }
                 }
-                // remove from triggers array
-                Iterator tgs = triggers.iterator();
-                while (tgs.hasNext()) {
-                    tw = (TriggerWrapper) tgs.next();
-                    if (key.equals(tw.key)) {
-                        tgs.remove();
-                        break;
-                    }
-                }
+                // remove from triggers by FQN map, the triggers set, and the
+                // job and calendar indexes
+                removeTriggerWrapper(key);
                 timeTriggers.remove(tw);
 
                 try {
@@ -482,8 +509,7 @@ public class RAMJobStore implements JobStore {
      */
     public JobDetail retrieveJob(SchedulingContext ctxt, String jobName,
             String groupName) {
-        JobWrapper jw = (JobWrapper) jobsByFQN.get(JobWrapper.getJobNameKey(
-                jobName, groupName));
+        JobWrapper jw = retrieveJobWrapper(jobName, groupName);
 
         return (jw != null) ? (JobDetail)jw.jobDetail.clone() : null;
     }
@@ -502,12 +528,36 @@ public class RAMJobStore implements JobStore {
      */
     public Trigger retrieveTrigger(SchedulingContext ctxt, String triggerName,
             String groupName) {
-        TriggerWrapper tw = (TriggerWrapper) triggersByFQN.get(TriggerWrapper
-                .getTriggerNameKey(triggerName, groupName));
+        TriggerWrapper tw = retrieveTriggerWrapper(triggerName, groupName);
 
         return (tw != null) ? (Trigger)tw.getTrigger().clone() : null;
     }
 
+    /**
+     * <p>
+     * Look up the (live, not cloned) wrapper of the given job.
+     * </p>
+     * 
+     * @return the <code>JobWrapper</code>, or null if there is no match.
+     */
+    protected JobWrapper retrieveJobWrapper(String jobName, String groupName) {
+        return (JobWrapper) jobsByFQN.get(JobWrapper.getJobNameKey(
+                jobName, groupName));
+    }
+
+    /**
+     * <p>
+     * Look up the (live, not cloned) wrapper of the given trigger.
+     * </p>
+     * 
+     * @return the <code>TriggerWrapper</code>, or null if there is no match.
+     */
+    protected TriggerWrapper retrieveTriggerWrapper(String triggerName, 
+            String groupName) {
+        return (TriggerWrapper) triggersByFQN.get(TriggerWrapper
+                .getTriggerNameKey(triggerName, groupName));
+    }
+
     /**
      * <p>
      * Get the current state of the identified <code>{@link Trigger}</code>.
@@ -522,8 +572,7 @@ public class RAMJobStore implements JobStore {
      */
     public int getTriggerState(SchedulingContext ctxt, String triggerName,
             String groupName) throws JobPersistenceException {
-        TriggerWrapper tw = (TriggerWrapper) triggersByFQN.get(TriggerWrapper
-                .getTriggerNameKey(triggerName, groupName));
+        TriggerWrapper tw = retrieveTriggerWrapper(triggerName, groupName);
         if (tw == null) {
             return Trigger.STATE_NONE;
         }
@@ -583,7 +632,11 @@ public class RAMJobStore implements JobStore {
             calendarsByName.remove(name);
         }
 
+        // a copy, so the caller can't change it under its index
+        calendar = copyCalendar(calendar);
         calendarsByName.put(name, calendar);
+        Calendar indexedCalendar = IndexedCalendar.index(calendar);
+        indexedCalendarsByName.put(name, indexedCalendar);
 
         if(obj != null && updateTriggers) {
             synchronized (triggerLock) {
@@ -593,7 +646,7 @@ public class RAMJobStore implements JobStore {
                     Trigger trig = tw.getTrigger();
                     boolean removed = timeTriggers.remove(tw);
 
-                    trig.updateWithNewCalendar(calendar, getMisfireThreshold());
+                    trig.updateWithNewCalendar(indexedCalendar, getMisfireThreshold());
 
                     if(removed) {
                         timeTriggers.add(tw);
@@ -620,24 +673,18 @@ public class RAMJobStore implements JobStore {
      */
     public boolean removeCalendar(SchedulingContext ctxt, String calName)
         throws JobPersistenceException {
-        int numRefs = 0;
+        boolean referenced = false;
 
         synchronized (triggerLock) {
-            Iterator itr = triggers.iterator();
-            while (itr.hasNext()) {
-                Trigger trigg = ((TriggerWrapper) itr.next()).trigger;
-                if (trigg.getCalendarName() != null
-                        && trigg.getCalendarName().equals(calName)) {
-                    numRefs++;
-                }
-            }
+            referenced = triggersByCalendar.containsKey(calName);
         }
 
-        if (numRefs > 0) {
+        if (referenced) {
             throw new JobPersistenceException(
                     "Calender cannot be removed if it referenced by a Trigger!");
         }
 
+        indexedCalendarsByName.remove(calName);
         return (calendarsByName.remove(calName) != null);
     }
 
@@ -652,7 +699,31 @@ public class RAMJobStore implements JobStore {
      *         match.
      */
     public Calendar retrieveCalendar(SchedulingContext ctxt, String calName) {
-        return (Calendar) calendarsByName.get(calName);
+        return copyCalendar((Calendar) calendarsByName.get(calName));
+    }
+
+    /**
+     * <p>
+     * Copy the given calendar, if it is a <code>BaseCalendar</code>, so that
+     * the caller and the store can't change each other's calendar.  Other
+     * calendars are never indexed, so they are shared as they are.
+     * </p>
+     */
+    protected static Calendar copyCalendar(Calendar calendar) {
+        return (calendar instanceof BaseCalendar)
+            ? (Calendar) ((BaseCalendar) calendar).clone() : calendar;
+    }
+
+    /**
+     * <p>
+     * Retrieve the index of the given <code>{@link org.quartz.Calendar}</code>
+     * built when it was stored, for computing fire times with.
+     * </p>
+     *
+     * @see IndexedCalendar
+     */
+    protected Calendar retrieveIndexedCalendar(String calName) {
+        return (Calendar) indexedCalendarsByName.get(calName);
     }
 
     /**
@@ -812,51 +883,68 @@ public class RAMJobStore implements JobStore {
      */
     public Trigger[] getTriggersForJob(SchedulingContext ctxt, String jobName,
             String groupName) {
-        ArrayList trigList = new ArrayList();
+        ArrayList trigList = getTriggerWrappersForJob(jobName, groupName);
 
-        String jobKey = JobWrapper.getJobNameKey(jobName, groupName);
-        synchronized (triggerLock) {
-            for (int i = 0; i < triggers.size(); i++) {
-                TriggerWrapper tw = (TriggerWrapper) triggers.get(i);
-                if (tw.jobKey.equals(jobKey)) {
-                    trigList.add(tw.trigger.clone());
-                }
-            }
+        Trigger[] outList = new Trigger[trigList.size()];
+        for (int i = 0; i < outList.length; i++) {
+            outList[i] = (Trigger) ((TriggerWrapper) trigList.get(i)).trigger.clone();
         }
-
-        return (Trigger[]) trigList.toArray(new Trigger[trigList.size()]);
+        return outList;
     }
 
     protected ArrayList getTriggerWrappersForJob(String jobName, String groupName) {
-        ArrayList trigList = new ArrayList();
-
         String jobKey = JobWrapper.getJobNameKey(jobName, groupName);
         synchronized (triggerLock) {
-            for (int i = 0; i < triggers.size(); i++) {
-                TriggerWrapper tw = (TriggerWrapper) triggers.get(i);
-                if (tw.jobKey.equals(jobKey)) {
-                    trigList.add(tw);
-                }
-            }
+            Set jobTriggers = (Set) triggersByJob.get(jobKey);
+            return (jobTriggers == null) ? new ArrayList() : new ArrayList(jobTriggers);
         }
-
-        return trigList;
     }
 
     protected ArrayList getTriggerWrappersForCalendar(String calName) {
-        ArrayList trigList = new ArrayList();
-
         synchronized (triggerLock) {
-            for (int i = 0; i < triggers.size(); i++) {
-                TriggerWrapper tw = (TriggerWrapper) triggers.get(i);
-                String tcalName = tw.getTrigger().getCalendarName();
-                if (tcalName != null && tcalName.equals(calName)) {
-                    trigList.add(tw);
-                }
-            }
+            Set calTriggers = (Set) triggersByCalendar.get(calName);
+            return (calTriggers == null) ? new ArrayList() : new ArrayList(calTriggers);
         }
+    }
 
-        return trigList;
+    /**
+     * <p>
+     * Remove the trigger with the given key from the by-FQN map, the set of
+     * all triggers, and the job and calendar indexes, and return it.  Must
+     * be called while holding the <code>triggerLock</code>.
+     * </p>
+     */
+    private TriggerWrapper removeTriggerWrapper(String key) {
+        TriggerWrapper tw = (TriggerWrapper) triggersByFQN.remove(key);
+        if (tw == null) {
+            return null;
+        }
+
+        triggers.remove(tw);
+        removeFromIndex(triggersByJob, tw.jobKey, tw);
+        if (tw.trigger.getCalendarName() != null) {
+            removeFromIndex(triggersByCalendar, tw.trigger.getCalendarName(), tw);
+        }
+        return tw;
+    }
+
+    private static void addToIndex(HashMap index, String indexKey, TriggerWrapper tw) {
+        Set indexed = (Set) index.get(indexKey);
+        if (indexed == null) {
+            indexed = new LinkedHashSet(4);
+            index.put(indexKey, indexed);
+        }
+        indexed.add(tw);
+    }
+
+    private static void removeFromIndex(HashMap index, String indexKey, TriggerWrapper tw) {
+        Set indexed = (Set) index.get(indexKey);
+        if (indexed != null) {
+            indexed.remove(tw);
+            if (indexed.isEmpty()) {
+                index.remove(indexKey);
+            }
+        }
     }
 
     /**
@@ -868,8 +956,7 @@ public class RAMJobStore implements JobStore {
     public void pauseTrigger(SchedulingContext ctxt, String triggerName,
             String groupName) {
 
-        TriggerWrapper tw = (TriggerWrapper) triggersByFQN.get(TriggerWrapper
-                .getTriggerNameKey(triggerName, groupName));
+        TriggerWrapper tw = retrieveTriggerWrapper(triggerName, groupName);
 
         // does the trigger exist?
         if (tw == null || tw.trigger == null) {
@@ -984,8 +1071,7 @@ public class RAMJobStore implements JobStore {
     public void resumeTrigger(SchedulingContext ctxt, String triggerName,
             String groupName) {
 
-        TriggerWrapper tw = (TriggerWrapper) triggersByFQN.get(TriggerWrapper
-                .getTriggerNameKey(triggerName, groupName));
+        TriggerWrapper tw = retrieveTriggerWrapper(triggerName, groupName);
 
         // does the trigger exist?
         if (tw == null || tw.trigger == null) {
@@ -1166,7 +1252,7 @@ public class RAMJobStore implements JobStore {
 
         Calendar cal = null;
         if (tw.trigger.getCalendarName() != null) {
-            cal = retrieveCalendar(null, tw.trigger.getCalendarName());
+            cal = retrieveIndexedCalendar(tw.trigger.getCalendarName());
         }
 
         signaler.notifyTriggerListenersMisfired((Trigger)tw.trigger.clone());
@@ -1201,51 +1287,109 @@ public class RAMJobStore implements JobStore {
      * @see #releaseAcquiredTrigger(SchedulingContext, Trigger)
      */
     public Trigger acquireNextTrigger(SchedulingContext ctxt, long noLaterThan) {
-        TriggerWrapper tw = null;
+        List acquired = acquireNextTriggers(ctxt, noLaterThan, 1, 0L);
+        
+        return acquired.isEmpty() ? null : (Trigger) acquired.get(0);
+    }
+
+    /**
+     * <p>
+     * Get a handle to the next triggers to be fired, and mark them as
+     * 'reserved' by the calling scheduler.
+     * </p>
+     *
+     * <p>
+     * At most one trigger of any stateful job is acquired per batch, as
+     * firing it blocks the job's other triggers.
+     * </p>
+     *
+     * @see #releaseAcquiredTrigger(SchedulingContext, Trigger)
+     */
+    public List acquireNextTriggers(SchedulingContext ctxt, long noLaterThan,
+            int maxCount, long timeWindow) {
+        return acquireNextTriggers(ctxt, noLaterThan, maxCount, timeWindow, null);
+    }
+
+    /**
+     * <p>
+     * Get a handle to the next triggers to be fired, that the given limit
+     * allows, and mark them as 'reserved' by the calling scheduler.
+     * </p>
+     *
+     * @see #acquireNextTriggers(SchedulingContext, long, int, long)
+     */
+    public List acquireNextTriggers(SchedulingContext ctxt, long noLaterThan,
+            int maxCount, long timeWindow, TriggerAcquisitionLimit limit) {
+        ArrayList acquired = new ArrayList();
+        HashSet acquiredStatefulJobKeys = new HashSet();
+        ArrayList excluded = new ArrayList();
+        long batchEnd = noLaterThan;
 
         synchronized (triggerLock) {
 
-            while (tw == null) {
+            while (acquired.size() < maxCount) {
+                TriggerWrapper tw = null;
                 try {
                     tw = (TriggerWrapper) timeTriggers.first();
                 } catch (java.util.NoSuchElementException nsee) {
-                    return null;
+                    break;
                 }
 
                 if (tw == null) {
-                    return null;
+                    break;
                 }
 
+                timeTriggers.remove(tw);
+
                 if (tw.trigger.getNextFireTime() == null) {
-                    timeTriggers.remove(tw);
-                    tw = null;
                     continue;
                 }
 
-                timeTriggers.remove(tw);
-
                 if (applyMisfire(tw)) {
                     if (tw.trigger.getNextFireTime() != null) {
                         timeTriggers.add(tw);
                     }
-                    tw = null;
                     continue;
                 }
 
-                if(tw.trigger.getNextFireTime().getTime() > noLaterThan) {
+                if(tw.trigger.getNextFireTime().getTime() > batchEnd) {
                     timeTriggers.add(tw);
-                    return null;
+                    break;
+                }
+
+                JobWrapper jw = retrieveJobWrapper(tw.trigger.getJobName(), 
+                        tw.trigger.getJobGroup());
+                boolean stateful = (jw != null && jw.jobDetail.isStateful());
+                if (stateful && acquiredStatefulJobKeys.contains(tw.jobKey)) {
+                    excluded.add(tw);
+                    continue;
+                }
+
+                if (limit != null && !limit.acquire(tw.trigger)) {
+                    excluded.add(tw);
+                    continue;
+                }
+
+                if (stateful) {
+                    acquiredStatefulJobKeys.add(tw.jobKey);
                 }
 
                 tw.state = TriggerWrapper.STATE_ACQUIRED;
 
                 tw.trigger.setFireInstanceId(getFiredTriggerRecordId());
-                Trigger trig = (Trigger) tw.trigger.clone();
-                return trig;
+                acquired.add(tw.trigger.clone());
+
+                if (acquired.size() == 1) {
+                    batchEnd = Math.max(tw.trigger.getNextFireTime().getTime(),
+                            System.currentTimeMillis()) + timeWindow;
+                }
             }
+
+            // put back the triggers we skipped over...
+            timeTriggers.addAll(excluded);
         }
 
-        return null;
+        return acquired;
     }
 
     /**
@@ -1257,8 +1401,8 @@ public class RAMJobStore implements JobStore {
      */
     public void releaseAcquiredTrigger(SchedulingContext ctxt, Trigger trigger) {
         synchronized (triggerLock) {
-            TriggerWrapper tw = (TriggerWrapper) triggersByFQN.get(TriggerWrapper
-                .getTriggerNameKey(trigger));
+            TriggerWrapper tw = retrieveTriggerWrapper(trigger.getName(), 
+                trigger.getGroup());
             if (tw != null && tw.state == TriggerWrapper.STATE_ACQUIRED) {
                 tw.state = TriggerWrapper.STATE_WAITING;
                 timeTriggers.add(tw);
@@ -1277,8 +1421,8 @@ public class RAMJobStore implements JobStore {
             Trigger trigger) {
 
         synchronized (triggerLock) {
-            TriggerWrapper tw = (TriggerWrapper) triggersByFQN.get(TriggerWrapper
-                    .getTriggerNameKey(trigger));
+            TriggerWrapper tw = retrieveTriggerWrapper(trigger.getName(), 
+                    trigger.getGroup());
             // was the trigger deleted since being acquired?
             if (tw == null || tw.trigger == null) {
                 return null;
@@ -1290,7 +1434,7 @@ public class RAMJobStore implements JobStore {
 
             Calendar cal = null;
             if (tw.trigger.getCalendarName() != null) {
-                cal = retrieveCalendar(ctxt, tw.trigger.getCalendarName());
+                cal = retrieveIndexedCalendar(tw.trigger.getCalendarName());
                 if(cal == null)
                     return null;
             }
@@ -1304,7 +1448,8 @@ public class RAMJobStore implements JobStore {
             tw.state = TriggerWrapper.STATE_WAITING;
 
             TriggerFiredBundle bndle = new TriggerFiredBundle(retrieveJob(ctxt,
-                    trigger.getJobName(), trigger.getJobGroup()), trigger, cal,
+                    trigger.getJobName(), trigger.getJobGroup()), trigger,
+                    IndexedCalendar.unwrap(cal),
                     false, new Date(), trigger.getPreviousFireTime(), prevFireTime,
                     trigger.getNextFireTime());
 
@@ -1335,6 +1480,27 @@ public class RAMJobStore implements JobStore {
         }
     }
 
+    /**
+     * <p>
+     * Inform the <code>JobStore</code> that the scheduler is now firing the
+     * given <code>Trigger</code>s (executing their associated <code>Job</code>s),
+     * that it had previously acquired (reserved).
+     * </p>
+     */
+    public List triggersFired(SchedulingContext ctxt, List triggers) {
+        ArrayList results = new ArrayList(triggers.size());
+
+        synchronized (triggerLock) {
+            Iterator itr = triggers.iterator();
+            while (itr.hasNext()) {
+                Trigger trigger = (Trigger) itr.next();
+                results.add(new TriggerFiredResult(trigger, triggerFired(ctxt, trigger)));
+            }
+        }
+
+        return results;
+    }
+
     /**
      * <p>
      * Inform the <code>JobStore</code> that the scheduler has completed the
@@ -1349,11 +1515,10 @@ public class RAMJobStore implements JobStore {
 
         synchronized (triggerLock) {
 
-            String jobKey = JobWrapper.getJobNameKey(jobDetail.getName(), jobDetail
-                    .getGroup());
-            JobWrapper jw = (JobWrapper) jobsByFQN.get(jobKey);
-            TriggerWrapper tw = (TriggerWrapper) triggersByFQN.get(TriggerWrapper
-                    .getTriggerNameKey(trigger));
+            JobWrapper jw = retrieveJobWrapper(jobDetail.getName(), 
+                    jobDetail.getGroup());
+            TriggerWrapper tw = retrieveTriggerWrapper(trigger.getName(), 
+                    trigger.getGroup());
 
             // It's possible that the job is null if:
             //   1- it was deleted during execution
@@ -1479,137 +1644,3 @@ public class RAMJobStore implements JobStore {
     }
 
 }
-
-/*******************************************************************************
- * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * *
- * 
- * Helper Classes. * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * * *
- */
-
-class TriggerComparator implements Comparator {
-
-    public int compare(Object obj1, Object obj2) {
-        TriggerWrapper trig1 = (TriggerWrapper) obj1;
-        TriggerWrapper trig2 = (TriggerWrapper) obj2;
-
-        int comp = trig1.trigger.compareTo(trig2.trigger);
-        if (comp != 0) {
-            return comp;
-        }
-
-        comp = trig2.trigger.getPriority() - trig1.trigger.getPriority();
-        if (comp != 0) {
-            return comp;
-        }
-        
-        return trig1.trigger.getFullName().compareTo(trig2.trigger.getFullName());
-    }
-
-    public boolean equals(Object obj) {
-        return (obj instanceof TriggerComparator);
-    }
-}
-
-class JobWrapper {
-
-    public String key;
-
-    public JobDetail jobDetail;
-
-    JobWrapper(JobDetail jobDetail) {
-        this.jobDetail = jobDetail;
-        key = getJobNameKey(jobDetail);
-    }
-
-    JobWrapper(JobDetail jobDetail, String key) {
-        this.jobDetail = jobDetail;
-        this.key = key;
-    }
-
-    static String getJobNameKey(JobDetail jobDetail) {
-        return jobDetail.getGroup() + "_$x$x$_" + jobDetail.getName();
-    }
-
-    static String getJobNameKey(String jobName, String groupName) {
-        return groupName + "_$x$x$_" + jobName;
-    }
-
-    public boolean equals(Object obj) {
-        if (obj instanceof JobWrapper) {
-            JobWrapper jw = (JobWrapper) obj;
-            if (jw.key.equals(this.key)) {
-                return true;
-            }
-        }
-
-        return false;
-    }
-    
-    public int hashCode() {
-        return key.hashCode(); 
-    }
-    
-
-}
-
-class TriggerWrapper {
-
-    public String key;
-
-    public String jobKey;
-
-    public Trigger trigger;
-
-    public int state = STATE_WAITING;
-
-    public static final int STATE_WAITING = 0;
-
-    public static final int STATE_ACQUIRED = 1;
-
-    public static final int STATE_EXECUTING = 2;
-
-    public static final int STATE_COMPLETE = 3;
-
-    public static final int STATE_PAUSED = 4;
-
-    public static final int STATE_BLOCKED = 5;
-
-    public static final int STATE_PAUSED_BLOCKED = 6;
-
-    public static final int STATE_ERROR = 7;
-    
-    TriggerWrapper(Trigger trigger) {
-        this.trigger = trigger;
-        key = getTriggerNameKey(trigger);
-        this.jobKey = JobWrapper.getJobNameKey(trigger.getJobName(), trigger
-                .getJobGroup());
-    }
-
-    static String getTriggerNameKey(Trigger trigger) {
-        return trigger.getGroup() + "_$x$x$_" + trigger.getName();
-    }
-
-    static String getTriggerNameKey(String triggerName, String groupName) {
-        return groupName + "_$x$x$_" + triggerName;
-    }
-
-    public boolean equals(Object obj) {
-        if (obj instanceof TriggerWrapper) {
-            TriggerWrapper tw = (TriggerWrapper) obj;
-            if (tw.key.equals(this.key)) {
-                return true;
-            }
-        }
-
-        return false;
-    }
-
-    public int hashCode() {
-        return key.hashCode(); 
-    }
-
-    
-    public Trigger getTrigger() {
-        return this.trigger;
-    }
-}
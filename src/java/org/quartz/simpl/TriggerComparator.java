@@ -0,0 +1,49 @@
+/* 
+ * Copyright 2001-2009 James House 
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not 
+ * use this file except in compliance with the License. You may obtain a copy 
+ * of the License at 
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0 
+ *   
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT 
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the 
+ * License for the specific language governing permissions and limitations 
+ * under the License.
+ * 
+ */
+package org.quartz.simpl;
+
+import java.util.Comparator;
+
+/**
+ * <p>
+ * Orders <code>{@link TriggerWrapper}</code>s by next fire time, then by
+ * priority, highest first, then by name.
+ * </p>
+ */
+class TriggerComparator implements Comparator {
+
+    public int compare(Object obj1, Object obj2) {
+        TriggerWrapper trig1 = (TriggerWrapper) obj1;
+        TriggerWrapper trig2 = (TriggerWrapper) obj2;
+
+        int comp = trig1.trigger.compareTo(trig2.trigger);
+        if (comp != 0) {
+            return comp;
+        }
+
+        comp = trig2.trigger.getPriority() - trig1.trigger.getPriority();
+        if (comp != 0) {
+            return comp;
+        }
+        
+        return trig1.trigger.getFullName().compareTo(trig2.trigger.getFullName());
+    }
+
+    public boolean equals(Object obj) {
+        return (obj instanceof TriggerComparator);
+    }
+}
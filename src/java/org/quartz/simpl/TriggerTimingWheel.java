@@ -0,0 +1,409 @@
+/*
+ * Copyright 2001-2009 James House
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.quartz.simpl;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * <p>
+ * A hierarchical timing wheel of <code>TriggerWrapper</code>s, keyed by
+ * next fire time, for use as the time index of the <code>{@link RAMJobStore}</code>
+ * in place of a <code>TreeSet</code>.
+ * </p>
+ *
+ * <p>
+ * The wheel has four levels of 256 slots each, the slots of the lowest
+ * level spanning a millisecond, and those of each level above spanning a
+ * whole turn of the level below, so that ~49 days ahead of the wheel's
+ * cursor are covered.  Adding or removing a trigger is O(1), and finding the
+ * first trigger is amortized O(1): each trigger is moved down at most once
+ * per level as the cursor advances.  The triggers of a lowest-level slot
+ * are kept in buckets by priority, and the wheel's links are kept in the
+ * <code>TriggerWrapper</code>s themselves, so no garbage is made in the
+ * steady state.
+ * </p>
+ *
+ * <p>
+ * Triggers due before the cursor (e.g. misfired triggers, or triggers
+ * stored while the cursor was parked on a later trigger), and triggers
+ * beyond the wheel's range, are kept in <code>TreeSet</code>s instead.
+ * </p>
+ *
+ * <p>
+ * The order is that of the <code>TriggerComparator</code>, except that
+ * triggers with the same fire time and priority are returned in the order
+ * in which they were added, rather than by name.  As with a
+ * <code>TreeSet</code>, a trigger must not be changed while it is in the
+ * set, and only <code>first()</code> and the <code>Set</code> operations
+ * are efficient: <code>last()</code> and iteration sort a snapshot, and the
+ * sub-sets are sorted copies (in the <code>TriggerComparator</code>'s 
+ * order), rather than views backed by the wheel.
+ * </p>
+ *
+ * @see RAMJobStore#setUseTimingWheel(boolean)
+ */
+class TriggerTimingWheel extends AbstractSet implements SortedSet {
+
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     * Data members.
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    private static final int WHEEL_BITS = 8;
+
+    private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+
+    private static final int LEVELS = 4;
+
+    private final Comparator comparator = new TriggerComparator();
+
+    /** The slots of each level; those of level 0 chain a bucket per priority. */
+    private final WheelBucket[][] wheels = new WheelBucket[LEVELS][WHEEL_SIZE];
+
+    private final int[] levelCounts = new int[LEVELS];
+
+    private final TreeSet overdue = new TreeSet(comparator);
+
+    private final TreeSet overflow = new TreeSet(comparator);
+
+    private final WheelBucket overdueBucket = new WheelBucket(-1, 0);
+
+    private final WheelBucket overflowBucket = new WheelBucket(-1, 0);
+
+    /** No trigger on the wheel fires before the cursor. */
+    private long cursor = 0;
+
+    private int size = 0;
+
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     * Interface.
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(Object o) {
+        return ((TriggerWrapper) o).wheelBucket != null;
+    }
+
+    public boolean add(Object o) {
+        TriggerWrapper tw = (TriggerWrapper) o;
+        if (tw.wheelBucket != null) {
+            return false;
+        }
+
+        Date nextFireTime = tw.trigger.getNextFireTime();
+        tw.wheelTime = (nextFireTime == null) ? Long.MAX_VALUE : nextFireTime.getTime();
+
+        if (size == 0 && tw.wheelTime != Long.MAX_VALUE) {
+            cursor = tw.wheelTime;
+        }
+
+        place(tw);
+        size++;
+
+        return true;
+    }
+
+    public boolean remove(Object o) {
+        TriggerWrapper tw = (TriggerWrapper) o;
+        WheelBucket bucket = tw.wheelBucket;
+        if (bucket == null) {
+            return false;
+        }
+
+        if (bucket == overdueBucket) {
+            overdue.remove(tw);
+        } else if (bucket == overflowBucket) {
+            overflow.remove(tw);
+        } else {
+            bucket.unlink(tw);
+            levelCounts[bucket.level]--;
+        }
+        tw.wheelBucket = null;
+        size--;
+
+        return true;
+    }
+
+    public void clear() {
+        Iterator itr = snapshot().iterator();
+        while (itr.hasNext()) {
+            remove(itr.next());
+        }
+    }
+
+    public Object first() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+
+        if (!overdue.isEmpty()) {
+            return overdue.first();
+        }
+
+        while (true) {
+            if (levelCounts[0] > 0) {
+                for (int i = (int) (cursor & WHEEL_MASK); i < WHEEL_SIZE; i++) {
+                    for (WheelBucket b = wheels[0][i]; b != null; b = b.next) {
+                        if (b.head != null) {
+                            cursor = (cursor & ~((long) WHEEL_MASK)) | i;
+                            return b.head;
+                        }
+                    }
+                }
+            }
+
+            if (!advance()) {
+                TriggerWrapper tw = (TriggerWrapper) overflow.first();
+                if (tw.wheelTime == Long.MAX_VALUE) {
+                    return tw; // nothing left with a next fire time
+                }
+
+                // move the cursor to the first trigger, and bring the
+                // triggers that are now within range onto the wheel
+                cursor = tw.wheelTime;
+                Iterator itr = overflow.iterator();
+                while (itr.hasNext()) {
+                    tw = (TriggerWrapper) itr.next();
+                    if (((tw.wheelTime ^ cursor) >>> (WHEEL_BITS * LEVELS)) != 0) {
+                        break;
+                    }
+                    itr.remove();
+                    place(tw);
+                }
+            }
+        }
+    }
+
+    public Object last() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+
+        ArrayList all = snapshot();
+        return all.get(all.size() - 1);
+    }
+
+    public Comparator comparator() {
+        return comparator;
+    }
+
+    /**
+     * <p>
+     * Iterate over a sorted snapshot of the set.
+     * </p>
+     */
+    public Iterator iterator() {
+        final Iterator itr = snapshot().iterator();
+
+        return new Iterator() {
+            private Object current;
+
+            public boolean hasNext() {
+                return itr.hasNext();
+            }
+
+            public Object next() {
+                current = itr.next();
+                return current;
+            }
+
+            public void remove() {
+                if (current == null) {
+                    throw new IllegalStateException();
+                }
+                TriggerTimingWheel.this.remove(current);
+                current = null;
+            }
+        };
+    }
+
+    /**
+     * <p>
+     * Get a sorted copy of the given range of the set; changes to either
+     * aren't reflected in the other.
+     * </p>
+     */
+    public SortedSet subSet(Object fromElement, Object toElement) {
+        return sortedCopy().subSet(fromElement, toElement);
+    }
+
+    /**
+     * <p>
+     * Get a sorted copy of the given range of the set; changes to either
+     * aren't reflected in the other.
+     * </p>
+     */
+    public SortedSet headSet(Object toElement) {
+        return sortedCopy().headSet(toElement);
+    }
+
+    /**
+     * <p>
+     * Get a sorted copy of the given range of the set; changes to either
+     * aren't reflected in the other.
+     * </p>
+     */
+    public SortedSet tailSet(Object fromElement) {
+        return sortedCopy().tailSet(fromElement);
+    }
+
+    private TreeSet sortedCopy() {
+        TreeSet copy = new TreeSet(comparator);
+        copy.addAll(snapshot());
+        return copy;
+    }
+
+    /**
+     * <p>
+     * Put the trigger on the lowest level whose current turn it falls in,
+     * or in the overdue or overflow sets.
+     * </p>
+     */
+    private void place(TriggerWrapper tw) {
+        long time = tw.wheelTime;
+
+        if (time < cursor) {
+            overdue.add(tw);
+            tw.wheelBucket = overdueBucket;
+            return;
+        }
+
+        long diff = time ^ cursor;
+        for (int level = 0; level < LEVELS; level++) {
+            if ((diff >>> (WHEEL_BITS * (level + 1))) == 0) {
+                int slot = (int) ((time >>> (WHEEL_BITS * level)) & WHEEL_MASK);
+                bucketFor(level, slot, tw.trigger.getPriority()).append(tw);
+                levelCounts[level]++;
+                return;
+            }
+        }
+
+        overflow.add(tw);
+        tw.wheelBucket = overflowBucket;
+    }
+
+    private WheelBucket bucketFor(int level, int slot, int priority) {
+        if (level > 0) {
+            WheelBucket b = wheels[level][slot];
+            if (b == null) {
+                b = new WheelBucket(level, 0);
+                wheels[level][slot] = b;
+            }
+            return b;
+        }
+
+        // level 0 buckets are chained by descending priority, and kept
+        // once created, so as to be reused
+        WheelBucket prev = null;
+        WheelBucket b = wheels[0][slot];
+        while (b != null && b.priority > priority) {
+            prev = b;
+            b = b.next;
+        }
+        if (b == null || b.priority != priority) {
+            WheelBucket nb = new WheelBucket(0, priority);
+            nb.next = b;
+            if (prev == null) {
+                wheels[0][slot] = nb;
+            } else {
+                prev.next = nb;
+            }
+            b = nb;
+        }
+        return b;
+    }
+
+    /**
+     * <p>
+     * Move the cursor to the next occupied slot above level 0, and move its
+     * triggers down.
+     * </p>
+     *
+     * @return false if there are no triggers above level 0.
+     */
+    private boolean advance() {
+        for (int level = 1; level < LEVELS; level++) {
+            if (levelCounts[level] == 0) {
+                continue;
+            }
+
+            int shift = WHEEL_BITS * level;
+            // the slot under the cursor is always empty
+            for (int i = (int) ((cursor >>> shift) & WHEEL_MASK) + 1; i < WHEEL_SIZE; i++) {
+                WheelBucket b = wheels[level][i];
+                if (b == null || b.head == null) {
+                    continue;
+                }
+
+                cursor = ((cursor >>> (shift + WHEEL_BITS)) << (shift + WHEEL_BITS))
+                    | ((long) i << shift);
+
+                TriggerWrapper tw = b.head;
+                b.head = null;
+                b.tail = null;
+                while (tw != null) {
+                    TriggerWrapper next = tw.wheelNext;
+                    tw.wheelPrev = null;
+                    tw.wheelNext = null;
+                    levelCounts[level]--;
+                    place(tw);
+                    tw = next;
+                }
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private ArrayList snapshot() {
+        ArrayList all = new ArrayList(size);
+        all.addAll(overdue);
+        for (int level = 0; level < LEVELS; level++) {
+            for (int i = 0; i < WHEEL_SIZE; i++) {
+                for (WheelBucket b = wheels[level][i]; b != null; b = b.next) {
+                    for (TriggerWrapper tw = b.head; tw != null; tw = tw.wheelNext) {
+                        all.add(tw);
+                    }
+                }
+            }
+        }
+        all.addAll(overflow);
+        Collections.sort(all, comparator);
+        return all;
+    }
+}
@@ -0,0 +1,96 @@
+/* 
+ * Copyright 2001-2009 James House 
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not 
+ * use this file except in compliance with the License. You may obtain a copy 
+ * of the License at 
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0 
+ *   
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT 
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the 
+ * License for the specific language governing permissions and limitations 
+ * under the License.
+ * 
+ */
+package org.quartz.simpl;
+
+import org.quartz.Trigger;
+
+/**
+ * <p>
+ * Holds a stored <code>{@link Trigger}</code> of a RAM job store, with its
+ * state in the store.
+ * </p>
+ */
+class TriggerWrapper {
+
+    public String key;
+
+    public String jobKey;
+
+    public Trigger trigger;
+
+    public int state = STATE_WAITING;
+
+    // position in a TriggerTimingWheel, if in one
+    TriggerWrapper wheelPrev;
+
+    TriggerWrapper wheelNext;
+
+    WheelBucket wheelBucket;
+
+    long wheelTime;
+
+    public static final int STATE_WAITING = 0;
+
+    public static final int STATE_ACQUIRED = 1;
+
+    public static final int STATE_EXECUTING = 2;
+
+    public static final int STATE_COMPLETE = 3;
+
+    public static final int STATE_PAUSED = 4;
+
+    public static final int STATE_BLOCKED = 5;
+
+    public static final int STATE_PAUSED_BLOCKED = 6;
+
+    public static final int STATE_ERROR = 7;
+    
+    TriggerWrapper(Trigger trigger) {
+        this.trigger = trigger;
+        key = getTriggerNameKey(trigger);
+        this.jobKey = JobWrapper.getJobNameKey(trigger.getJobName(), trigger
+                .getJobGroup());
+    }
+
+    static String getTriggerNameKey(Trigger trigger) {
+        return trigger.getGroup() + "_$x$x$_" + trigger.getName();
+    }
+
+    static String getTriggerNameKey(String triggerName, String groupName) {
+        return groupName + "_$x$x$_" + triggerName;
+    }
+
+    public boolean equals(Object obj) {
+        if (obj instanceof TriggerWrapper) {
+            TriggerWrapper tw = (TriggerWrapper) obj;
+            if (tw.key.equals(this.key)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    public int hashCode() {
+        return key.hashCode(); 
+    }
+
+    
+    public Trigger getTrigger() {
+        return this.trigger;
+    }
+}
@@ -0,0 +1,68 @@
+/* 
+ * Copyright 2001-2009 James House 
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not 
+ * use this file except in compliance with the License. You may obtain a copy 
+ * of the License at 
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0 
+ *   
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT 
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the 
+ * License for the specific language governing permissions and limitations 
+ * under the License.
+ * 
+ */
+package org.quartz.simpl;
+
+/**
+ * A list of the <code>TriggerWrapper</code>s of one slot (and, on the lowest
+ * level, one priority) of a <code>TriggerTimingWheel</code>, linked through
+ * the wrappers.
+ */
+class WheelBucket {
+
+    final int level;
+
+    final int priority;
+
+    TriggerWrapper head;
+
+    TriggerWrapper tail;
+
+    /** The bucket of the next lower priority in the same slot. */
+    WheelBucket next;
+
+    WheelBucket(int level, int priority) {
+        this.level = level;
+        this.priority = priority;
+    }
+
+    void append(TriggerWrapper tw) {
+        tw.wheelBucket = this;
+        tw.wheelPrev = tail;
+        tw.wheelNext = null;
+        if (tail == null) {
+            head = tw;
+        } else {
+            tail.wheelNext = tw;
+        }
+        tail = tw;
+    }
+
+    void unlink(TriggerWrapper tw) {
+        if (tw.wheelPrev == null) {
+            head = tw.wheelNext;
+        } else {
+            tw.wheelPrev.wheelNext = tw.wheelNext;
+        }
+        if (tw.wheelNext == null) {
+            tail = tw.wheelPrev;
+        } else {
+            tw.wheelNext.wheelPrev = tw.wheelPrev;
+        }
+        tw.wheelPrev = null;
+        tw.wheelNext = null;
+    }
+}
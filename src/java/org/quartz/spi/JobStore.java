@@ -20,6 +20,7 @@
  */
 package org.quartz.spi;
 
+import java.util.List;
 import java.util.Set;
 
 import org.quartz.Calendar;
@@ -623,6 +624,55 @@ public interface JobStore {
     Trigger acquireNextTrigger(SchedulingContext ctxt, long noLaterThan)
         throws JobPersistenceException;
 
+    /**
+     * <p>
+     * Get a handle to the next triggers to be fired, and mark them as
+     * 'reserved' by the calling scheduler.
+     * </p>
+     *
+     * <p>
+     * The first returned trigger will fire no later than
+     * <code>noLaterThan</code>; the others will fire no later than
+     * <code>timeWindow</code> milliseconds after the first one.  Triggers
+     * are returned in the order they should be fired.
+     * </p>
+     *
+     * @param noLaterThan If > 0, the JobStore should only return Triggers
+     * that will fire no later than the time represented in this value as
+     * milliseconds.
+     * @param maxCount the maximum number of triggers to acquire, which the
+     * caller bases on the number of available threads.
+     * @param timeWindow how far (in milliseconds) past the fire time of the
+     * first acquired trigger other triggers may be acquired along with it.
+     * @return a <code>List</code> of <code>Trigger</code>s, never
+     * <code>null</code>.
+     * @see #releaseAcquiredTrigger(SchedulingContext, Trigger)
+     */
+    List acquireNextTriggers(SchedulingContext ctxt, long noLaterThan,
+            int maxCount, long timeWindow)
+        throws JobPersistenceException;
+
+    /**
+     * <p>
+     * Get a handle to the next triggers to be fired, that the given limit
+     * allows, and mark them as 'reserved' by the calling scheduler.
+     * </p>
+     *
+     * <p>
+     * As <code>{@link #acquireNextTriggers(SchedulingContext, long, int, long)}</code>,
+     * except that triggers the limit refuses are passed over, and left for
+     * a later call.
+     * </p>
+     *
+     * @param limit the limit to offer each trigger to before acquiring it,
+     * or <code>null</code> for none.
+     * @return a <code>List</code> of <code>Trigger</code>s, never
+     * <code>null</code>.
+     */
+    List acquireNextTriggers(SchedulingContext ctxt, long noLaterThan,
+            int maxCount, long timeWindow, TriggerAcquisitionLimit limit)
+        throws JobPersistenceException;
+
     /**
      * <p>
      * Inform the <code>JobStore</code> that the scheduler no longer plans to
@@ -647,6 +697,25 @@ public interface JobStore {
     TriggerFiredBundle triggerFired(SchedulingContext ctxt,
             Trigger trigger) throws JobPersistenceException;
 
+    /**
+     * <p>
+     * Inform the <code>JobStore</code> that the scheduler is now firing the
+     * given <code>Trigger</code>s (executing their associated
+     * <code>Job</code>s), that it had previously acquired (reserved).
+     * </p>
+     *
+     * <p>
+     * A failure to fire any one of the triggers is reported through its
+     * <code>{@link TriggerFiredResult}</code> rather than thrown, so that
+     * the rest of the batch is still fired.
+     * </p>
+     *
+     * @return a <code>List</code> of <code>{@link TriggerFiredResult}</code>s,
+     *         one per given trigger and in the same order.
+     */
+    List triggersFired(SchedulingContext ctxt, List triggers)
+        throws JobPersistenceException;
+
     /**
      * <p>
      * Inform the <code>JobStore</code> that the scheduler has completed the
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2001-2009 James House
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.quartz.spi;
+
+import java.util.List;
+
+import org.quartz.Trigger;
+
+/**
+ * <p>
+ * A <code>{@link ThreadPool}</code> that limits how many jobs of each kind
+ * (by trigger, such as by group) it runs at once, and so tells the scheduler
+ * which triggers it has room to run before they are acquired.
+ * </p>
+ *
+ * <p>
+ * <code>blockForAvailableThreads()</code> returns once any thread is free,
+ * even if only some kinds of job may use it; the scheduler then acquires
+ * only the triggers that the pool's <code>{@link TriggerAcquisitionLimit}</code>
+ * allows.  Triggers the limit refused are tried again once the pool signals
+ * that a job has completed.  As the pool may have filled up between
+ * acquiring a trigger and firing it, the scheduler checks the trigger against
+ * a fresh limit just before firing it, and releases it if it is refused.
+ * </p>
+ *
+ * @see org.quartz.simpl.BulkheadThreadPool
+ */
+public interface LimitingThreadPool extends ThreadPool {
+
+    /**
+     * <p>
+     * Make a limit for acquiring the next batch of triggers, based on the
+     * jobs running now and the given triggers, which have been acquired but
+     * not yet fired.
+     * </p>
+     *
+     * @param acquiredTriggers the <code>{@link Trigger}</code>s acquired and
+     *        waiting to fire, or <code>null</code> if there are none.
+     */
+    TriggerAcquisitionLimit createAcquisitionLimit(List acquiredTriggers);
+
+    /**
+     * <p>
+     * Execute the given <code>Runnable</code>, the job fired by the given
+     * trigger, within the trigger's limit.  This must not block waiting for
+     * room under the limit.
+     * </p>
+     *
+     * @return true, if the runnable was assigned to run on a Thread, false
+     *         if the limit has no room for it or the pool is shutdown.
+     * @see ThreadPool#runInThread(Runnable)
+     */
+    boolean runInThread(Runnable runnable, Trigger trigger);
+
+    /**
+     * <p>
+     * Set the <code>Runnable</code> to run, on the completing job's thread,
+     * when a job completes after a trigger was refused for want of room.
+     * </p>
+     */
+    void setCapacitySignal(Runnable signal);
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2001-2009 James House
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.quartz.spi;
+
+import org.quartz.Trigger;
+
+/**
+ * <p>
+ * Decides which <code>{@link Trigger}</code>s a <code>{@link JobStore}</code>
+ * may acquire in one batch, for a scheduler that can only run so many jobs
+ * of each kind at once.
+ * </p>
+ *
+ * <p>
+ * A limit is made for a single call to
+ * <code>{@link JobStore#acquireNextTriggers(org.quartz.core.SchedulingContext, long, int, long, TriggerAcquisitionLimit)}</code>,
+ * which offers it the triggers it would otherwise acquire, in the order they
+ * are due.  A trigger the limit refuses is left for a later batch, just as
+ * the second trigger of a stateful job is, and the store moves on to the
+ * next.
+ * </p>
+ *
+ * @see LimitingThreadPool
+ */
+public interface TriggerAcquisitionLimit {
+
+    /**
+     * <p>
+     * Decide whether the given trigger may be acquired.  A trigger that may
+     * be counts against the limit for the rest of the batch.
+     * </p>
+     */
+    boolean acquire(Trigger trigger);
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2001-2009 James House
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.quartz.spi;
+
+import org.quartz.Trigger;
+
+/**
+ * <p>
+ * The outcome of firing a single <code>{@link Trigger}</code> as part of a
+ * call to <code>{@link JobStore#triggersFired(org.quartz.core.SchedulingContext, java.util.List)}</code>.
+ * </p>
+ *
+ * <p>
+ * Exactly one of <code>getTriggerFiredBundle()</code> and
+ * <code>getException()</code> is meaningful: a failure to fire one trigger
+ * of a batch is reported here rather than thrown, so that the remaining
+ * triggers of the batch can still be fired.  A <code>null</code> bundle
+ * with no exception has the same meaning as a <code>null</code> return from
+ * <code>{@link JobStore#triggerFired(org.quartz.core.SchedulingContext, Trigger)}</code>.
+ * </p>
+ *
+ * @see TriggerFiredBundle
+ */
+public class TriggerFiredResult {
+
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     * Data members.
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    private Trigger trigger;
+
+    private TriggerFiredBundle triggerFiredBundle;
+
+    private Exception exception;
+
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     * Constructors.
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    public TriggerFiredResult(Trigger trigger, TriggerFiredBundle triggerFiredBundle) {
+        this.trigger = trigger;
+        this.triggerFiredBundle = triggerFiredBundle;
+    }
+
+    public TriggerFiredResult(Trigger trigger, Exception exception) {
+        this.trigger = trigger;
+        this.exception = exception;
+    }
+
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     * Interface.
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    /**
+     * @return the (acquired) trigger this result is for.
+     */
+    public Trigger getTrigger() {
+        return trigger;
+    }
+
+    /**
+     * @return the bundle to execute, or <code>null</code> if the trigger
+     * could not be fired.
+     */
+    public TriggerFiredBundle getTriggerFiredBundle() {
+        return triggerFiredBundle;
+    }
+
+    /**
+     * @return the exception that prevented the trigger from firing, or
+     * <code>null</code>.
+     */
+    public Exception getException() {
+        return exception;
+    }
+}
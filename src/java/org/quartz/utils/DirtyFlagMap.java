@@ -122,29 +122,34 @@ public class DirtyFlagMap implements Map, Cloneable, java.io.Serializable {
      * <p>
      * Get a direct handle to the underlying Map.
      * </p>
+     * 
+     * <p>
+     * All the <code>Map</code> methods go through this one, so a subclass 
+     * may override it to fill the underlying Map on first use.
+     * </p>
      */
     public Map getWrappedMap() {
         return map;
     }
 
     public void clear() {
-        if (map.isEmpty() == false) {
+        if (getWrappedMap().isEmpty() == false) {
             dirty = true;
         }
         
-        map.clear();
+        getWrappedMap().clear();
     }
 
     public boolean containsKey(Object key) {
-        return map.containsKey(key);
+        return getWrappedMap().containsKey(key);
     }
 
     public boolean containsValue(Object val) {
-        return map.containsValue(val);
+        return getWrappedMap().containsValue(val);
     }
 
     public Set entrySet() {
-        return new DirtyFlagMapEntrySet(map.entrySet());
+        return new DirtyFlagMapEntrySet(getWrappedMap().entrySet());
     }
     
     public boolean equals(Object obj) {
@@ -152,30 +157,30 @@ public class DirtyFlagMap implements Map, Cloneable, java.io.Serializable {
             return false;
         }
 
-        return map.equals(((DirtyFlagMap) obj).getWrappedMap());
+        return getWrappedMap().equals(((DirtyFlagMap) obj).getWrappedMap());
     }
     
     public int hashCode()
     {
-    	return map.hashCode();
+    	return getWrappedMap().hashCode();
     }
 
     public Object get(Object key) {
-        return map.get(key);
+        return getWrappedMap().get(key);
     }
 
     public boolean isEmpty() {
-        return map.isEmpty();
+        return getWrappedMap().isEmpty();
     }
 
     public Set keySet() {
-        return new DirtyFlagSet(map.keySet());
+        return new DirtyFlagSet(getWrappedMap().keySet());
     }
 
     public Object put(Object key, Object val) {
         dirty = true;
 
-        return map.put(key, val);
+        return getWrappedMap().put(key, val);
     }
 
     public void putAll(Map t) {
@@ -183,11 +188,11 @@ public class DirtyFlagMap implements Map, Cloneable, java.io.Serializable {
             dirty = true;
         }
 
-        map.putAll(t);
+        getWrappedMap().putAll(t);
     }
 
     public Object remove(Object key) {
-        Object obj = map.remove(key);
+        Object obj = getWrappedMap().remove(key);
 
         if (obj != null) {
             dirty = true;
@@ -197,19 +202,19 @@ public class DirtyFlagMap implements Map, Cloneable, java.io.Serializable {
     }
 
     public int size() {
-        return map.size();
+        return getWrappedMap().size();
     }
 
     public Collection values() {
-        return new DirtyFlagCollection(map.values());
+        return new DirtyFlagCollection(getWrappedMap().values());
     }
 
     public Object clone() {
         DirtyFlagMap copy;
         try {
             copy = (DirtyFlagMap) super.clone();
-            if (map instanceof HashMap) {
-                copy.map = (Map)((HashMap)map).clone();
+            if (getWrappedMap() instanceof HashMap) {
+                copy.map = (Map)((HashMap)getWrappedMap()).clone();
             }
         } catch (CloneNotSupportedException ex) {
             throw new IncompatibleClassChangeError("Not Cloneable.");
@@ -0,0 +1,207 @@
+/*
+ * Copyright 2001-2009 James House
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.quartz.utils;
+
+import java.io.Serializable;
+
+/**
+ * <p>
+ * A thread-safe histogram of non-negative <code>long</code> values, such as
+ * durations in milliseconds.
+ * </p>
+ *
+ * <p>
+ * Values below 16 are counted exactly; larger values are counted in 16
+ * buckets per power of two, so percentiles are accurate to within about 6%.
+ * Recording a value takes constant time and space.
+ * </p>
+ */
+public class Histogram implements Serializable, Cloneable {
+
+    private static final long serialVersionUID = 2736290498727716305L;
+
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     * Data members.
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    private static final int SUB_BUCKET_BITS = 4;
+
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private long[] buckets = new long[SUB_BUCKETS * (64 - SUB_BUCKET_BITS)];
+
+    private long count = 0;
+
+    private long sum = 0;
+
+    private long max = 0;
+
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     * Interface.
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    /**
+     * <p>
+     * Record the given value.  Negative values are recorded as zero.
+     * </p>
+     */
+    public synchronized void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        buckets[getBucket(value)]++;
+        count++;
+        sum += value;
+        if (value > max) {
+            max = value;
+        }
+    }
+
+    public synchronized long getCount() {
+        return count;
+    }
+
+    public synchronized long getSum() {
+        return sum;
+    }
+
+    public synchronized long getMax() {
+        return max;
+    }
+
+    public synchronized double getMean() {
+        return (count == 0) ? 0 : (double) sum / count;
+    }
+
+    /**
+     * <p>
+     * Returns the value that the given fraction (between 0 and 1) of the
+     * recorded values did not exceed, rounded up to the end of its bucket.
+     * </p>
+     *
+     * @return 0 if nothing has been recorded.
+     */
+    public synchronized long getPercentile(double fraction) {
+        long target = (long) Math.ceil(count * fraction);
+        if (target < 1) {
+            target = 1;
+        }
+
+        long seen = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            seen += buckets[i];
+            if (seen >= target) {
+                return Math.min(getBucketEnd(i), max);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * <p>
+     * Add the values recorded by the given <code>Histogram</code> to this
+     * one.
+     * </p>
+     */
+    public void add(Histogram other) {
+        Histogram copy = (Histogram) other.clone();
+        synchronized (this) {
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] += copy.buckets[i];
+            }
+            count += copy.count;
+            sum += copy.sum;
+            max = Math.max(max, copy.max);
+        }
+    }
+
+    public synchronized void reset() {
+        buckets = new long[buckets.length];
+        count = 0;
+        sum = 0;
+        max = 0;
+    }
+
+    /**
+     * <p>
+     * Returns a consistent copy of this <code>Histogram</code>.
+     * </p>
+     */
+    public synchronized Object clone() {
+        try {
+            Histogram copy = (Histogram) super.clone();
+            copy.buckets = (long[]) buckets.clone();
+            return copy;
+        } catch (CloneNotSupportedException ex) {
+            throw new IncompatibleClassChangeError("Not Cloneable.");
+        }
+    }
+
+    /**
+     * <p>
+     * Return a summary of the count, mean and percentiles.
+     * </p>
+     */
+    public synchronized String toString() {
+        StringBuffer str = new StringBuffer();
+        str.append("count=").append(count);
+        if (count > 0) {
+            str.append(" mean=").append(Math.round(getMean()));
+            str.append(" p50=").append(getPercentile(0.5));
+            str.append(" p90=").append(getPercentile(0.9));
+            str.append(" p99=").append(getPercentile(0.99));
+            str.append(" max=").append(max);
+        }
+        return str.toString();
+    }
+
+    private static int getBucket(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+
+        int magnitude = 63;
+        while ((value >>> magnitude) == 0) {
+            magnitude--;
+        }
+        int shift = magnitude - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+    }
+
+    private static long getBucketEnd(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+
+        int shift = bucket / SUB_BUCKETS - 1;
+        long start = ((long) (SUB_BUCKETS + bucket % SUB_BUCKETS)) << shift;
+        return start + (1L << shift) - 1;
+    }
+
+    private synchronized void writeObject(java.io.ObjectOutputStream stream)
+        throws java.io.IOException {
+        stream.defaultWriteObject();
+    }
+}
@@ -0,0 +1,333 @@
+/*
+ * Copyright 2001-2009 James House
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.quartz.utils;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+
+import org.quartz.Calendar;
+import org.quartz.FireTimeCursor;
+import org.quartz.JobPersistenceException;
+import org.quartz.SchedulerException;
+import org.quartz.Trigger;
+import org.quartz.TriggerUtils;
+import org.quartz.core.SchedulingContext;
+import org.quartz.impl.calendar.IndexedCalendar;
+import org.quartz.spi.JobStore;
+
+/**
+ * <p>
+ * The number of times the triggers in a <code>{@link JobStore}</code> are
+ * due to fire in each minute of a coming period, to show where firings pile
+ * up before they do.
+ * </p>
+ *
+ * <p>
+ * The triggers and their calendars are read from the store up front; their
+ * fire times are then projected on several threads, each counting into its
+ * own histogram, with a <code>{@link FireTimeCursor}</code> per trigger.
+ * Paused, complete and errored triggers are left out.  Misfire handling
+ * isn't taken into account: a trigger that has misfired is counted from the
+ * start of the period as if it hadn't.
+ * </p>
+ */
+public class LoadForecast {
+
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     * Data members.
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    private final long startTime;
+
+    private final int[] fireCounts;
+
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     * Constructors.
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    private LoadForecast(long startTime, int[] fireCounts) {
+        this.startTime = startTime;
+        this.fireCounts = fireCounts;
+    }
+
+    /*
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *
+     * Interface.
+     *
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+
+    /**
+     * <p>
+     * Forecast the firings of all the triggers in the given store for the
+     * given number of minutes from the given time, using a thread per
+     * available processor.
+     * </p>
+     */
+    public static LoadForecast forecast(JobStore jobStore,
+            SchedulingContext ctxt, Date startTime, int minutes)
+        throws SchedulerException {
+        return forecast(jobStore, ctxt, startTime, minutes,
+                Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * <p>
+     * Forecast the firings of all the triggers in the given store for the
+     * given number of minutes from the given time, using the given number of
+     * threads.
+     * </p>
+     *
+     * @throws SchedulerException if the store can't be read, or a trigger
+     *         fails to compute its fire times.
+     */
+    public static LoadForecast forecast(JobStore jobStore,
+            SchedulingContext ctxt, Date startTime, int minutes, int threadCount)
+        throws SchedulerException {
+        if (minutes < 0) {
+            throw new IllegalArgumentException("minutes must not be negative.");
+        }
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("threadCount must be at least 1.");
+        }
+
+        List triggers = new ArrayList();
+        List calendars = new ArrayList();
+        retrieveTriggers(jobStore, ctxt, triggers, calendars);
+
+        long from = startTime.getTime();
+        long to = from + minutes * TriggerUtils.MILLISECONDS_IN_MINUTE;
+        threadCount = Math.max(1, Math.min(threadCount, triggers.size()));
+
+        Projector[] projectors = new Projector[threadCount];
+        for (int i = 0; i < threadCount; i++) {
+            projectors[i] = new Projector(triggers, calendars, i, threadCount,
+                    from, to, minutes);
+        }
+
+        // the first share is projected on this thread
+        Thread[] threads = new Thread[threadCount];
+        for (int i = 1; i < threadCount; i++) {
+            threads[i] = new Thread(projectors[i], "LoadForecast-" + i);
+            threads[i].setDaemon(true);
+            threads[i].start();
+        }
+        projectors[0].run();
+
+        int[] fireCounts = projectors[0].fireCounts;
+        for (int i = 1; i < threadCount; i++) {
+            try {
+                threads[i].join();
+            } catch (InterruptedException e) {
+                throw new SchedulerException(
+                        "Interrupted while forecasting trigger firings.", e);
+            }
+            for (int j = 0; j < minutes; j++) {
+                fireCounts[j] += projectors[i].fireCounts[j];
+            }
+        }
+
+        for (int i = 0; i < threadCount; i++) {
+            if (projectors[i].failure != null) {
+                throw new SchedulerException(
+                        "Failed to compute the fire times of trigger: "
+                        + projectors[i].failedTrigger.getFullName(),
+                        projectors[i].failure);
+            }
+        }
+
+        return new LoadForecast(from, fireCounts);
+    }
+
+    private static void retrieveTriggers(JobStore jobStore,
+            SchedulingContext ctxt, List triggers, List calendars)
+        throws JobPersistenceException {
+        HashMap calendarsByName = new HashMap();
+
+        String[] groups = jobStore.getTriggerGroupNames(ctxt);
+        for (int i = 0; i < groups.length; i++) {
+            String[] names = jobStore.getTriggerNames(ctxt, groups[i]);
+            for (int j = 0; j < names.length; j++) {
+                Trigger trigger = jobStore.retrieveTrigger(ctxt, names[j], groups[i]);
+                if (trigger == null || trigger.getNextFireTime() == null) {
+                    continue;
+                }
+
+                int state = jobStore.getTriggerState(ctxt, names[j], groups[i]);
+                if (state != Trigger.STATE_NORMAL && state != Trigger.STATE_BLOCKED) {
+                    continue;
+                }
+
+                Calendar cal = null;
+                String calName = trigger.getCalendarName();
+                if (calName != null) {
+                    if (calendarsByName.containsKey(calName)) {
+                        cal = (Calendar) calendarsByName.get(calName);
+                    } else {
+                        // indexed once, for all the triggers that use it
+                        cal = IndexedCalendar.index(
+                                jobStore.retrieveCalendar(ctxt, calName));
+                        calendarsByName.put(calName, cal);
+                    }
+                }
+
+                triggers.add(trigger);
+                calendars.add(cal);
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Get the start of the first minute forecast.
+     * </p>
+     */
+    public Date getStartTime() {
+        return new Date(startTime);
+    }
+
+    /**
+     * <p>
+     * Get the number of minutes forecast.
+     * </p>
+     */
+    public int getMinutes() {
+        return fireCounts.length;
+    }
+
+    /**
+     * <p>
+     * Get the number of times triggers are due to fire in the given minute,
+     * counted from 0.
+     * </p>
+     */
+    public int getFireCount(int minute) {
+        return fireCounts[minute];
+    }
+
+    /**
+     * <p>
+     * Get the number of times triggers are due to fire in each minute.
+     * </p>
+     */
+    public int[] getFireCounts() {
+        return (int[]) fireCounts.clone();
+    }
+
+    /**
+     * <p>
+     * Get the number of times triggers are due to fire over the whole
+     * period.
+     * </p>
+     */
+    public long getTotalFireCount() {
+        long total = 0;
+        for (int i = 0; i < fireCounts.length; i++) {
+            total += fireCounts[i];
+        }
+        return total;
+    }
+
+    /**
+     * <p>
+     * Get the (first) minute in which the most triggers are due to fire.
+     * </p>
+     *
+     * @return -1 if no minutes were forecast.
+     */
+    public int getBusiestMinute() {
+        int busiest = -1;
+        for (int i = 0; i < fireCounts.length; i++) {
+            if (busiest < 0 || fireCounts[i] > fireCounts[busiest]) {
+                busiest = i;
+            }
+        }
+        return busiest;
+    }
+
+    /**
+     * <p>
+     * Projects every <code>stride</code>th trigger, from the given offset,
+     * into its own histogram.
+     * </p>
+     */
+    private static class Projector implements Runnable {
+        private final List triggers;
+
+        private final List calendars;
+
+        private final int offset;
+
+        private final int stride;
+
+        private final long from;
+
+        private final long to;
+
+        private final int[] fireCounts;
+
+        private Trigger failedTrigger;
+
+        private Throwable failure;
+
+        Projector(List triggers, List calendars, int offset, int stride,
+                long from, long to, int minutes) {
+            this.triggers = triggers;
+            this.calendars = calendars;
+            this.offset = offset;
+            this.stride = stride;
+            this.from = from;
+            this.to = to;
+            this.fireCounts = new int[minutes];
+        }
+
+        public void run() {
+            for (int i = offset; i < triggers.size(); i += stride) {
+                Trigger trigger = (Trigger) triggers.get(i);
+                try {
+                    FireTimeCursor cursor = new FireTimeCursor(trigger,
+                            (Calendar) calendars.get(i));
+                    while (cursor.next()) {
+                        long fireTime = cursor.getFireTime();
+                        if (fireTime >= to) {
+                            break;
+                        }
+                        if (fireTime >= from) {
+                            fireCounts[(int) ((fireTime - from)
+                                    / TriggerUtils.MILLISECONDS_IN_MINUTE)]++;
+                        }
+                    }
+                } catch (Throwable t) {
+                    failedTrigger = trigger;
+                    failure = t;
+                    return;
+                }
+            }
+        }
+    }
+}
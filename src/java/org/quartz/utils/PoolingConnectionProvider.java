@@ -74,6 +74,12 @@ public class PoolingConnectionProvider implements ConnectionProvider {
      * from the pool to ensure that it is still valid. 
      */
     public static final String DB_VALIDATION_QUERY = "validationQuery";
+
+    /** 
+     * The maximum number of prepared statements to pool for each 
+     * connection, 0 for no statement pooling. 
+     */
+    public static final String DB_MAX_CACHED_STATEMENTS_PER_CONNECTION = "maxCachedStatementsPerConnection";
     
     /** Default maximum number of database connections in the pool. */
     public static final int DEFAULT_DB_MAX_CONNECTIONS = 10; 
@@ -99,9 +105,17 @@ public class PoolingConnectionProvider implements ConnectionProvider {
     public PoolingConnectionProvider(String dbDriver, String dbURL,
             String dbUser, String dbPassword, int maxConnections,
             String dbValidationQuery) throws SQLException {
+        this(dbDriver, dbURL, dbUser, dbPassword, maxConnections, 
+            dbValidationQuery, 0);
+    }
+
+    public PoolingConnectionProvider(String dbDriver, String dbURL,
+            String dbUser, String dbPassword, int maxConnections,
+            String dbValidationQuery, int maxCachedStatementsPerConnection) 
+        throws SQLException {
         initialize(
             dbDriver, dbURL, dbUser, dbPassword, 
-            maxConnections, dbValidationQuery);
+            maxConnections, dbValidationQuery, maxCachedStatementsPerConnection);
     }
 
     /**
@@ -117,6 +131,8 @@ public class PoolingConnectionProvider implements ConnectionProvider {
      * <LI>{@link #DB_MAX_CONNECTIONS}- The maximum # connections in the pool,
      * optional
      * <LI>{@link #DB_VALIDATION_QUERY}- The sql validation query, optional
+     * <LI>{@link #DB_MAX_CACHED_STATEMENTS_PER_CONNECTION}- The maximum # 
+     * prepared statements pooled per connection, optional
      * </UL>
      * </p>
      * 
@@ -131,7 +147,8 @@ public class PoolingConnectionProvider implements ConnectionProvider {
             cfg.getStringProperty(DB_USER, ""), 
             cfg.getStringProperty(DB_PASSWORD, ""), 
             cfg.getIntProperty(DB_MAX_CONNECTIONS, DEFAULT_DB_MAX_CONNECTIONS), 
-            cfg.getStringProperty(DB_VALIDATION_QUERY));
+            cfg.getStringProperty(DB_VALIDATION_QUERY),
+            cfg.getIntProperty(DB_MAX_CACHED_STATEMENTS_PER_CONNECTION, 0));
     }
     
     /*
@@ -152,7 +169,8 @@ public class PoolingConnectionProvider implements ConnectionProvider {
         String dbUser,
         String dbPassword, 
         int maxConnections, 
-        String dbValidationQuery) throws SQLException {
+        String dbValidationQuery,
+        int maxCachedStatementsPerConnection) throws SQLException {
         if (dbURL == null) {
             throw new SQLException(
                 "DBPool could not be created: DB URL cannot be null");
@@ -179,6 +197,10 @@ public class PoolingConnectionProvider implements ConnectionProvider {
         if (dbValidationQuery != null) {
             datasource.setValidationQuery(dbValidationQuery);
         }
+        if (maxCachedStatementsPerConnection > 0) {
+            datasource.setPoolPreparedStatements(true);
+            datasource.setMaxOpenPreparedStatements(maxCachedStatementsPerConnection);
+        }
     }
     
     /**
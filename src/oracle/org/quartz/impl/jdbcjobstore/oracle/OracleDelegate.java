@@ -30,6 +30,8 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.List;
 
 import org.apache.commons.logging.Log;
 import org.quartz.Calendar;
@@ -150,6 +152,16 @@ public class OracleDelegate extends StdJDBCDelegate {
     // protected methods that can be overridden by subclasses
     //---------------------------------------------------------------------------
 
+    /**
+     * <p>
+     * Uses <code>FOR UPDATE SKIP LOCKED</code>.  Oracle locks the rows as 
+     * they are fetched, so only about as many as are read are locked.
+     * </p>
+     */
+    protected String getSelectNextTriggerToAcquireSkipLocked(int maxCount) {
+        return SELECT_NEXT_TRIGGER_TO_ACQUIRE + " FOR UPDATE SKIP LOCKED";
+    }
+
     protected Object getObjectFromBlob(ResultSet rs, String colName)
         throws ClassNotFoundException, IOException, SQLException {
         
@@ -240,7 +252,7 @@ public class OracleDelegate extends StdJDBCDelegate {
     protected Object getJobDetailFromBlob(ResultSet rs, String colName)
         throws ClassNotFoundException, IOException, SQLException {
         
-        if (canUseProperties()) {
+        if (readJobDataAsStream()) {
             InputStream binaryInput = rs.getBinaryStream(colName);
             return binaryInput;
         }
@@ -416,6 +428,22 @@ public class OracleDelegate extends StdJDBCDelegate {
         return insertResult;
     }
 
+    public int[] insertSimpleTriggers(Connection conn, List triggers,
+            String state) throws SQLException, IOException {
+        // the job data has to be written through a selected BLOB, so the
+        // triggers are inserted one at a time
+        int[] insertCounts = new int[triggers.size()];
+        int i = 0;
+        Iterator itr = triggers.iterator();
+        while (itr.hasNext()) {
+            SimpleTrigger trigger = (SimpleTrigger) itr.next();
+            insertCounts[i++] = insertTrigger(conn, trigger, state, null);
+            insertSimpleTrigger(conn, trigger);
+        }
+        
+        return insertCounts;
+    }
+
     public int updateTrigger(Connection conn, Trigger trigger, String state,
             JobDetail jobDetail) throws SQLException, IOException {
 
@@ -174,4 +174,51 @@ public class CronExpressionTest extends SerializationTestSupport {
         }
     }
 
+    /*
+     * Verify that the compiled evaluation agrees with the TreeSet walk.
+     */
+    public void testCompiledMatchesSets() throws Exception {
+        String[] expressions = new String[] {
+            "0 15 10 * * ? 2005-2030",
+            "*/7 */13 * * * ?",
+            "0 0 0 29 2 ?",
+            "0 0 0 31 * ?",
+            "0 0 2,3 * * ?",
+            "0 30 1 ? * SUN",
+            "30 0/5 8-17 ? * MON-FRI",
+            "0 0 12 ? * SAT,SUN 2010,2015,2020",
+            "59 59 23 31 DEC ?",
+            "0 0 0 1 JAN ? 2099",
+            "0 10-5 22-2 * * ?",
+        };
+        TimeZone[] timeZones = new TimeZone[] {
+            TimeZone.getTimeZone("UTC"),
+            EST_TIME_ZONE,
+            TimeZone.getTimeZone("Europe/London"),
+            TimeZone.getTimeZone("America/Sao_Paulo"),
+            TimeZone.getTimeZone("Australia/Lord_Howe"),
+        };
+
+        java.util.Random random = new java.util.Random(17);
+        for (int i = 0; i < expressions.length; i++) {
+            CronExpression cronExpression = new CronExpression(expressions[i]);
+            for (int j = 0; j < timeZones.length; j++) {
+                cronExpression.setTimeZone(timeZones[j]);
+                Date date = new Date(1230000000000L + random.nextInt(1000));
+                for (int k = 0; k < 300; k++) {
+                    Date expected = cronExpression.getTimeAfterUsingSets(date);
+                    assertEquals(expressions[i] + " in " + timeZones[j].getID() 
+                        + " after " + date, expected, cronExpression.getTimeAfter(date));
+                    if (expected == null) {
+                        break;
+                    }
+                    assertTrue(cronExpression.isSatisfiedBy(expected));
+                    // jump ahead by up to 80 days, or to just past the match
+                    date = (random.nextInt(2) == 0) ? new Date(expected.getTime() + random.nextInt(1500))
+                        : new Date(date.getTime() + (long) random.nextInt(80 * 24 * 60 * 60) * 1000L);
+                }
+            }
+        }
+    }
+
 }
@@ -16,6 +16,9 @@
 package org.quartz;
 
 import java.text.ParseException;
+import java.util.TimeZone;
+
+import org.quartz.impl.calendar.IndexedCalendar;
 
 /**
  * Unit test for CronTrigger.
@@ -88,6 +91,31 @@ public class CronTriggerTest extends SerializationTestSupport {
                     );
     }
 
+    public void testSkipsExcludedTimesLikeCalendarLoop() throws ParseException {
+        TimeZone tz = TimeZone.getTimeZone("America/New_York");
+        Calendar calendar = SimpleTriggerTest.createBusinessDaysCalendar(tz);
+        Calendar indexed = IndexedCalendar.index(calendar);
+
+        java.util.Calendar start = java.util.Calendar.getInstance(tz);
+        start.set(2009, java.util.Calendar.MARCH, 1, 0, 0, 0);
+
+        String[] expressions = new String[] {
+            "0 0/7 * * * ?", "15 30 2 * * ?", "0 0 12 ? * SAT,MON", "0 0 9 L * ?" };
+        for (int i = 0; i < expressions.length; i++) {
+            CronTrigger trigger = new CronTrigger("t" + i, Scheduler.DEFAULT_GROUP, expressions[i]);
+            trigger.setTimeZone(tz);
+            trigger.setStartTime(start.getTime());
+            CronTrigger fast = (CronTrigger) trigger.clone();
+
+            assertEquals(trigger.computeFirstFireTime(calendar), fast.computeFirstFireTime(indexed));
+            for (int j = 0; j < 50 && trigger.getNextFireTime() != null; j++) {
+                trigger.triggered(calendar);
+                fast.triggered(indexed);
+                assertEquals(expressions[i], trigger.getNextFireTime(), fast.getNextFireTime());
+            }
+        }
+    }
+
     // http://jira.opensymphony.com/browse/QUARTZ-558
     public void testQuartz558() throws ParseException {
         CronTrigger trigger = new CronTrigger("test", "testgroup");
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2001-2009 James House
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.quartz;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.quartz.impl.calendar.BaseCalendar;
+
+public class FireTimeCursorTest extends TestCase {
+
+    public void testSimpleTriggerStepsLikeTriggered() {
+        // a calendar that excludes nothing makes the cursor step the trigger
+        Calendar includeAll = new BaseCalendar();
+
+        Random random = new Random(42);
+        for (int i = 0; i < 500; i++) {
+            SimpleTrigger trigger = new SimpleTrigger("t" + i, Scheduler.DEFAULT_GROUP);
+            long start = 1000000000000L + random.nextInt(1000000);
+            trigger.setStartTime(new Date(start));
+            trigger.setRepeatInterval(1 + random.nextInt(10000));
+            trigger.setRepeatCount(random.nextInt(40) - 1);
+            if (random.nextBoolean()) {
+                trigger.setEndTime(new Date(start + random.nextInt(200000)));
+            }
+            trigger.computeFirstFireTime(null);
+            for (int j = random.nextInt(5); j > 0; j--) {
+                trigger.triggered(null);
+            }
+
+            FireTimeCursor cursor = new FireTimeCursor(trigger, null);
+            FireTimeCursor stepped = new FireTimeCursor(trigger, includeAll);
+            for (int j = 0; j < 60; j++) {
+                boolean hasNext = stepped.next();
+                assertEquals(hasNext, cursor.next());
+                assertEquals(stepped.getFireTime(), cursor.getFireTime());
+                if (!hasNext) {
+                    break;
+                }
+            }
+        }
+    }
+
+    public void testComputeFireTimesBetween() {
+        SimpleTrigger trigger = new SimpleTrigger("t", Scheduler.DEFAULT_GROUP,
+                new Date(10000), null, SimpleTrigger.REPEAT_INDEFINITELY, 1000);
+        trigger.computeFirstFireTime(null);
+
+        List times = TriggerUtils.computeFireTimesBetween(trigger, null,
+                new Date(12500), new Date(15000));
+        assertEquals(3, times.size());
+        assertEquals(new Date(13000), times.get(0));
+        assertEquals(new Date(15000), times.get(2));
+
+        // the trigger itself isn't stepped
+        assertEquals(new Date(10000), trigger.getNextFireTime());
+        assertEquals(5, TriggerUtils.computeFireTimes(trigger, null, 5).size());
+    }
+}
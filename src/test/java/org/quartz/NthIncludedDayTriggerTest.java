@@ -17,8 +17,11 @@ package org.quartz;
 
 import java.util.Calendar;
 import java.util.Date;
+import java.util.Random;
 import java.util.TimeZone;
 
+import org.quartz.impl.calendar.IndexedCalendar;
+
 /**
  * Unit test for NthIncludedDayTrigger serialization backwards compatibility.
  */
@@ -223,6 +226,41 @@ public class NthIncludedDayTriggerTest extends SerializationTestSupport {
         }
     }
     
+
+    public void testSkipsExcludedDaysLikeCalendarLoop() {
+        TimeZone tz = TimeZone.getTimeZone("America/New_York");
+        org.quartz.Calendar calendar = SimpleTriggerTest.createBusinessDaysCalendar(tz);
+        org.quartz.Calendar indexed = IndexedCalendar.index(calendar);
+
+        Calendar start = Calendar.getInstance(tz);
+        start.set(2009, Calendar.JANUARY, 1, 0, 0, 0);
+
+        int[] intervalTypes = new int[] {
+            NthIncludedDayTrigger.INTERVAL_TYPE_WEEKLY, 
+            NthIncludedDayTrigger.INTERVAL_TYPE_MONTHLY, 
+            NthIncludedDayTrigger.INTERVAL_TYPE_YEARLY };
+        Random random = new Random(42);
+        for (int i = 0; i < 60; i++) {
+            NthIncludedDayTrigger trigger = new NthIncludedDayTrigger("t" + i, Scheduler.DEFAULT_GROUP);
+            trigger.setTimeZone(tz);
+            trigger.setIntervalType(intervalTypes[i % intervalTypes.length]);
+            trigger.setN(1 + random.nextInt(5));
+            // outside the nightly exclusion, which would exclude every day
+            int hour = (random.nextInt(2) == 0) ? 0 : 4 + random.nextInt(20);
+            int minute = random.nextInt(60);
+            trigger.setFireAtTime(hour + ":" + (minute / 10) + (minute % 10));
+            trigger.setStartTime(new Date(start.getTime().getTime() 
+                    + (long) (random.nextDouble() * 365 * 24 * 60 * 60 * 1000L)));
+            NthIncludedDayTrigger fast = (NthIncludedDayTrigger) trigger.clone();
+
+            assertEquals(trigger.computeFirstFireTime(calendar), fast.computeFirstFireTime(indexed));
+            for (int j = 0; j < 10 && trigger.getNextFireTime() != null; j++) {
+                trigger.triggered(calendar);
+                fast.triggered(indexed);
+                assertEquals(trigger.getNextFireTime(), fast.getNextFireTime());
+            }
+        }
+    }
     
     /**
      * Get the object to serialize when generating serialized file for future
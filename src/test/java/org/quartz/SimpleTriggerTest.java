@@ -20,8 +20,14 @@ import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.HashSet;
+import java.util.Random;
 import java.util.TimeZone;
 
+import org.quartz.impl.calendar.DailyCalendar;
+import org.quartz.impl.calendar.IndexedCalendar;
+import org.quartz.impl.calendar.MonthlyCalendar;
+import org.quartz.impl.calendar.WeeklyCalendar;
+
 
 /**
  * Unit test for SimpleTrigger serialization backwards compatibility.
@@ -131,6 +137,47 @@ public class SimpleTriggerTest extends SerializationTestSupport {
         assertEquals(40, fireTimeAfter.getTime());
     }
     
+    public void testSkipsExcludedTimesLikeCalendarLoop() {
+        TimeZone tz = TimeZone.getTimeZone("America/New_York");
+        org.quartz.Calendar calendar = createBusinessDaysCalendar(tz);
+        org.quartz.Calendar indexed = IndexedCalendar.index(calendar);
+        assertTrue(indexed instanceof IndexedCalendar);
+
+        Calendar start = Calendar.getInstance(tz);
+        start.set(2009, Calendar.JANUARY, 1, 0, 0, 0);
+
+        Random random = new Random(42);
+        for (int i = 0; i < 200; i++) {
+            SimpleTrigger trigger = new SimpleTrigger("t" + i, Scheduler.DEFAULT_GROUP);
+            trigger.setStartTime(new Date(start.getTime().getTime() 
+                    + (long) (random.nextDouble() * 365 * 24 * 60 * 60 * 1000L)));
+            trigger.setRepeatInterval(1 + (long) (random.nextDouble() * 3 * 24 * 60 * 60 * 1000L));
+            trigger.setRepeatCount(SimpleTrigger.REPEAT_INDEFINITELY);
+            SimpleTrigger fast = (SimpleTrigger) trigger.clone();
+
+            assertEquals(trigger.computeFirstFireTime(calendar), fast.computeFirstFireTime(indexed));
+            for (int j = 0; j < 20 && trigger.getNextFireTime() != null; j++) {
+                trigger.triggered(calendar);
+                fast.triggered(indexed);
+                assertEquals(trigger.getNextFireTime(), fast.getNextFireTime());
+            }
+        }
+    }
+
+    /**
+     * Weekdays, outside the middle of each month and a few hours a night.
+     */
+    static org.quartz.Calendar createBusinessDaysCalendar(TimeZone tz) {
+        MonthlyCalendar monthly = new MonthlyCalendar(tz);
+        for (int day = 10; day <= 20; day++) {
+            monthly.setDayExcluded(day, true);
+        }
+        WeeklyCalendar weekdays = new WeeklyCalendar(monthly, tz);
+        DailyCalendar nights = new DailyCalendar(weekdays, "01:00", "03:15:30");
+        nights.setTimeZone(tz);
+        return nights;
+    }
+    
     public void testAddTriggerListener() {
         String[] listenerNames = new String[] {"X", "A", "B"};
         
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2001-2009 James House
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.quartz.core;
+
+import junit.framework.TestCase;
+
+import org.quartz.TriggerListener;
+import org.quartz.listeners.TriggerListenerSupport;
+
+public class ListenerRegistryTest extends TestCase {
+
+    private ListenerRegistry registry;
+
+    protected void setUp() {
+        registry = new ListenerRegistry(TriggerListener.class);
+    }
+
+    public void testChainsAreReusedUntilListenersChange() {
+        TriggerListener global = new NamedTriggerListener("global");
+        TriggerListener named = new NamedTriggerListener("named");
+        registry.addGlobalListener(global.getName(), global);
+        registry.addListener(named.getName(), named);
+
+        TriggerListener[] chain =
+            (TriggerListener[]) registry.getChain(new String[] {"named"});
+        assertEquals(2, chain.length);
+        assertSame(global, chain[0]);
+        assertSame(named, chain[1]);
+        assertSame(chain, registry.getChain(new String[] {"named"}));
+        assertEquals(1, registry.getChain(new String[0]).length);
+
+        registry.removeGlobalListener("global");
+        TriggerListener[] newChain =
+            (TriggerListener[]) registry.getChain(new String[] {"named"});
+        assertEquals(1, newChain.length);
+        assertSame(named, newChain[0]);
+        assertEquals(0, registry.getChain(new String[0]).length);
+    }
+
+    public void testMissingListener() {
+        assertNull(registry.getChain(new String[] {"missing"}));
+
+        TriggerListener named = new NamedTriggerListener("missing");
+        registry.addListener(named.getName(), named);
+        assertEquals(1, registry.getChain(new String[] {"missing"}).length);
+
+        assertTrue(registry.removeListener("missing"));
+        assertFalse(registry.removeListener("missing"));
+        assertNull(registry.getChain(new String[] {"missing"}));
+    }
+
+    private static class NamedTriggerListener extends TriggerListenerSupport {
+        private final String name;
+
+        NamedTriggerListener(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright 2001-2009 James House
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.quartz.core;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Properties;
+
+import junit.framework.TestCase;
+
+import org.quartz.Job;
+import org.quartz.JobDetail;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+import org.quartz.Scheduler;
+import org.quartz.SimpleTrigger;
+import org.quartz.impl.StdSchedulerFactory;
+import org.quartz.simpl.RAMJobStore;
+import org.quartz.spi.TriggerAcquisitionLimit;
+
+public class QuartzSchedulerThreadTest extends TestCase {
+
+    // far longer than the scheduler takes to get round to anything
+    private static final long TIMEOUT = 20000L;
+
+    private static final List fired = new ArrayList();
+
+    private static final List acquired = new ArrayList();
+
+    public static class TestJob implements Job {
+        public void execute(JobExecutionContext context) throws JobExecutionException {
+            synchronized (fired) {
+                fired.add(context.getTrigger().getName());
+                fired.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * A <code>RAMJobStore</code> that notes the triggers it has acquired.
+     */
+    public static class AcquisitionNotingJobStore extends RAMJobStore {
+        public List acquireNextTriggers(SchedulingContext ctxt, long noLaterThan,
+                int maxCount, long timeWindow, TriggerAcquisitionLimit limit) {
+            List triggers = super.acquireNextTriggers(
+                    ctxt, noLaterThan, maxCount, timeWindow, limit);
+            synchronized (acquired) {
+                for (int i = 0; i < triggers.size(); i++) {
+                    acquired.add(((SimpleTrigger) triggers.get(i)).getName());
+                }
+                acquired.notifyAll();
+            }
+            return triggers;
+        }
+    }
+
+    private static void waitForSize(List list, int size) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT;
+        synchronized (list) {
+            while (list.size() < size) {
+                long wait = deadline - System.currentTimeMillis();
+                if (wait <= 0) {
+                    fail("waited " + TIMEOUT + "ms for " + size + " entries in " + list);
+                }
+                list.wait(wait);
+            }
+        }
+    }
+
+    public void testEarlierTriggerIsQueuedAheadWithoutRelease() throws Exception {
+        synchronized (fired) {
+            fired.clear();
+        }
+        synchronized (acquired) {
+            acquired.clear();
+        }
+
+        Properties props = new Properties();
+        props.setProperty(StdSchedulerFactory.PROP_SCHED_INSTANCE_NAME, "QuartzSchedulerThreadTest");
+        props.setProperty("org.quartz.threadPool.class", "org.quartz.simpl.SimpleThreadPool");
+        props.setProperty("org.quartz.threadPool.threadCount", "2");
+        props.setProperty("org.quartz.jobStore.class", AcquisitionNotingJobStore.class.getName());
+        Scheduler sched = new StdSchedulerFactory(props).getScheduler();
+
+        JobDetail jobDetail = new JobDetail("JD", Scheduler.DEFAULT_GROUP, TestJob.class);
+        jobDetail.setDurability(true);
+        sched.addJob(jobDetail, false);
+
+        SimpleTrigger later = new SimpleTrigger("later", Scheduler.DEFAULT_GROUP, 
+                new Date(System.currentTimeMillis() + 6000L));
+        later.setJobName("JD");
+        sched.scheduleJob(later);
+
+        sched.start();
+        try {
+            // the scheduler thread holds the later trigger
+            waitForSize(acquired, 1);
+            assertEquals("later", acquired.get(0));
+
+            // seconds ahead of the later one, however long that took
+            long soonerTime = System.currentTimeMillis() + 1000L;
+            assertTrue(soonerTime < later.getNextFireTime().getTime() - 2000L);
+            SimpleTrigger sooner = new SimpleTrigger("sooner", Scheduler.DEFAULT_GROUP, 
+                    new Date(soonerTime));
+            sooner.setJobName("JD");
+            sched.scheduleJob(sooner);
+
+            waitForSize(fired, 2);
+            synchronized (fired) {
+                assertEquals("sooner", fired.get(0));
+                assertEquals("later", fired.get(1));
+            }
+            assertEquals(0, sched.getMetaData().getMetrics().getReleasedTriggerCount());
+        } finally {
+            sched.shutdown(true);
+        }
+    }
+
+    public void testAcquiredTriggerHoldsItsBulkheadsRoom() throws Exception {
+        synchronized (fired) {
+            fired.clear();
+        }
+        synchronized (acquired) {
+            acquired.clear();
+        }
+
+        Properties props = new Properties();
+        props.setProperty(StdSchedulerFactory.PROP_SCHED_INSTANCE_NAME, "QuartzSchedulerThreadBulkheadTest");
+        props.setProperty("org.quartz.threadPool.class", "org.quartz.simpl.BulkheadThreadPool");
+        props.setProperty("org.quartz.threadPool.threadCount", "2");
+        props.setProperty("org.quartz.threadPool.bulkheads", "reports(0,1)=REPORTS");
+        props.setProperty("org.quartz.jobStore.class", AcquisitionNotingJobStore.class.getName());
+        Scheduler sched = new StdSchedulerFactory(props).getScheduler();
+
+        JobDetail jobDetail = new JobDetail("JD", "REPORTS", TestJob.class);
+        jobDetail.setDurability(true);
+        sched.addJob(jobDetail, false);
+
+        SimpleTrigger later = new SimpleTrigger("later", "REPORTS", 
+                new Date(System.currentTimeMillis() + 6000L));
+        later.setJobName("JD");
+        later.setJobGroup("REPORTS");
+        sched.scheduleJob(later);
+
+        sched.start();
+        try {
+            waitForSize(acquired, 1);
+
+            // the later trigger has the bulkhead's only room, so the sooner
+            // one waits until the later one's job has run
+            long soonerTime = System.currentTimeMillis() + 1000L;
+            assertTrue(soonerTime < later.getNextFireTime().getTime() - 2000L);
+            SimpleTrigger sooner = new SimpleTrigger("sooner", "REPORTS", 
+                    new Date(soonerTime));
+            sooner.setJobName("JD");
+            sooner.setJobGroup("REPORTS");
+            sched.scheduleJob(sooner);
+
+            waitForSize(fired, 2);
+            synchronized (fired) {
+                assertEquals("later", fired.get(0));
+                assertEquals("sooner", fired.get(1));
+            }
+            synchronized (acquired) {
+                assertEquals(2, acquired.size());
+            }
+        } finally {
+            sched.shutdown(true);
+        }
+    }
+}
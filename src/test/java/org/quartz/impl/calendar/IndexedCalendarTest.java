@@ -0,0 +1,101 @@
+/*
+ * Copyright 2001-2009 James House
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.quartz.impl.calendar;
+
+import java.util.Random;
+import java.util.TimeZone;
+
+import junit.framework.TestCase;
+
+import org.quartz.Calendar;
+
+public class IndexedCalendarTest extends TestCase {
+
+    private static final long HOUR = 60L * 60L * 1000L;
+
+    public void testAgreesWithCalendarChain() {
+        TimeZone tz = TimeZone.getTimeZone("America/New_York");
+
+        java.util.Calendar day = java.util.Calendar.getInstance(tz);
+        day.set(2009, java.util.Calendar.JULY, 4);
+        AnnualCalendar annual = new AnnualCalendar(tz);
+        annual.setDayExcluded(day, true);
+
+        MonthlyCalendar monthly = new MonthlyCalendar(annual, tz);
+        monthly.setDayExcluded(13, true);
+
+        HolidayCalendar holidays = new HolidayCalendar(monthly, TimeZone.getTimeZone("Europe/London"));
+        day.set(2009, java.util.Calendar.NOVEMBER, 26);
+        holidays.addExcludedDate(day.getTime());
+
+        WeeklyCalendar weekdays = new WeeklyCalendar(holidays, tz);
+
+        DailyCalendar businessHours = new DailyCalendar(weekdays, "08:00", "17:30");
+        businessHours.setTimeZone(tz);
+        businessHours.setInvertTimeRange(true);
+
+        day.set(2009, java.util.Calendar.JANUARY, 1, 0, 0, 0);
+        assertAgrees(businessHours, day.getTime().getTime());
+
+        DailyCalendar maintenance = new DailyCalendar(holidays, "01:00", "03:15:30");
+        assertAgrees(maintenance, day.getTime().getTime());
+    }
+
+    private void assertAgrees(Calendar calendar, long start) {
+        Calendar indexed = IndexedCalendar.index(calendar);
+        assertTrue(indexed instanceof IndexedCalendar);
+        assertSame(calendar, IndexedCalendar.unwrap(indexed));
+
+        Random random = new Random(42);
+        for (int i = 0; i < 5000; i++) {
+            // spread over two years, to cross into another window
+            long t = start + (long) (random.nextDouble() * 2 * 366 * 24 * HOUR);
+            assertEquals("at " + t, calendar.isTimeIncluded(t), indexed.isTimeIncluded(t));
+
+            long next = indexed.getNextIncludedTime(t);
+            assertTrue(next >= t);
+            assertTrue(calendar.isTimeIncluded(next));
+            if (next > t) {
+                assertFalse(calendar.isTimeIncluded(next - 1));
+                assertFalse(calendar.isTimeIncluded(t + (next - t) / 2));
+            }
+        }
+    }
+
+    public void testAllExcluded() {
+        WeeklyCalendar weekly = new WeeklyCalendar();
+        for (int i = 1; i <= 7; i++) {
+            weekly.setDayExcluded(i, true);
+        }
+
+        Calendar indexed = IndexedCalendar.index(weekly);
+        assertFalse(indexed.isTimeIncluded(System.currentTimeMillis()));
+        assertEquals(0, indexed.getNextIncludedTime(System.currentTimeMillis()));
+    }
+
+    public void testUnindexableChain() {
+        CronCalendar cron = null;
+        try {
+            cron = new CronCalendar("* * 0-7 ? * *");
+        } catch (java.text.ParseException e) {
+            fail(e.getMessage());
+        }
+        HolidayCalendar holidays = new HolidayCalendar(cron);
+
+        assertSame(holidays, IndexedCalendar.index(holidays));
+    }
+}
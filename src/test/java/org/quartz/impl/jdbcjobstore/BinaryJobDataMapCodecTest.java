@@ -0,0 +1,147 @@
+/* 
+ * Copyright 2001-2009 James House 
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not 
+ * use this file except in compliance with the License. You may obtain a copy 
+ * of the License at 
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0 
+ *   
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT 
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the 
+ * License for the specific language governing permissions and limitations 
+ * under the License.
+ */
+package org.quartz.impl.jdbcjobstore;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Blob;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.commons.logging.LogFactory;
+import org.quartz.JobDataMap;
+
+import junit.framework.TestCase;
+
+public class BinaryJobDataMapCodecTest extends TestCase {
+
+    private JobDataMap createJobDataMap() {
+        JobDataMap jdm = new JobDataMap();
+        jdm.put("string", "value");
+        jdm.put("null", null);
+        jdm.put("boolean", true);
+        jdm.put("int", 42);
+        jdm.put("long", Long.MIN_VALUE);
+        jdm.put("short", new Short((short) -3));
+        jdm.put("byte", new Byte((byte) 7));
+        jdm.put("char", '\u00e9');
+        jdm.put("float", 1.5f);
+        jdm.put("double", Math.PI);
+        jdm.put("date", new Date(1230000000000L));
+        jdm.put("timestamp", new Timestamp(1230000000123L));
+        
+        StringBuffer longString = new StringBuffer();
+        for (int i = 0; i < 30000; i++) {
+            longString.append('\u20ac');
+        }
+        jdm.put("longString", longString.toString());
+        
+        HashMap nested = new HashMap();
+        nested.put("inner", new Integer(1));
+        nested.put(new Integer(2), "non-string key");
+        jdm.put("nested", nested);
+        
+        TreeMap sorted = new TreeMap();
+        sorted.put("a", "b");
+        jdm.put("sorted", sorted);
+        return jdm;
+    }
+    
+    public void testRoundTrip() throws Exception {
+        JobDataMap jdm = createJobDataMap();
+        JobDataMapCodec codec = new BinaryJobDataMapCodec();
+        
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        codec.encode(jdm.getWrappedMap(), baos);
+        Map decoded = codec.decode(new ByteArrayInputStream(baos.toByteArray()));
+        
+        assertEquals(jdm.getWrappedMap(), decoded);
+        assertEquals(Timestamp.class, decoded.get("timestamp").getClass());
+        assertEquals(TreeMap.class, decoded.get("sorted").getClass());
+        assertEquals(Short.class, decoded.get("short").getClass());
+    }
+    
+    public void testDelegateReadsEitherEncoding() throws Exception {
+        StdJDBCDelegate delegate = new StdJDBCDelegate(LogFactory.getLog(getClass()), "QRTZ_", "INSTANCE");
+        JobDataMap jdm = createJobDataMap();
+        
+        // written before the codec was configured
+        byte[] serialized = delegate.serializeJobData(jdm).toByteArray();
+        
+        delegate.setJobDataMapCodec(new BinaryJobDataMapCodec());
+        byte[] encoded = delegate.serializeJobData(jdm).toByteArray();
+        assertTrue(encoded.length < serialized.length);
+        
+        assertEquals(jdm.getWrappedMap(), 
+                delegate.getJobDataMapFromBlob(createResultSet(serialized)));
+        assertEquals(jdm.getWrappedMap(), 
+                delegate.getJobDataMapFromBlob(createResultSet(encoded)));
+        assertNull(delegate.getJobDataMapFromBlob(createResultSet(new byte[0])));
+    }
+
+    public void testNotSerializableValue() throws IOException {
+        StdJDBCDelegate delegate = new StdJDBCDelegate(LogFactory.getLog(getClass()), "QRTZ_", "INSTANCE");
+        delegate.setJobDataMapCodec(new BinaryJobDataMapCodec());
+        
+        JobDataMap jdm = new JobDataMap();
+        jdm.put("key1", "value");
+        jdm.put("key3", new Object());
+        try {
+            delegate.serializeJobData(jdm);
+            fail();
+        } catch (NotSerializableException e) {
+            assertTrue(e.getMessage().indexOf("key3") >= 0);
+        }
+    }
+    
+    /**
+     * A ResultSet whose only column is a Blob of the given bytes.
+     */
+    static ResultSet createResultSet(final byte[] bytes) {
+        final Blob blob = (Blob) Proxy.newProxyInstance(
+            Blob.class.getClassLoader(), new Class[] {Blob.class}, 
+            new InvocationHandler() {
+                public Object invoke(Object proxy, Method method, Object[] args) {
+                    if (method.getName().equals("length")) {
+                        return new Long(bytes.length);
+                    } else if (method.getName().equals("getBinaryStream")) {
+                        return new ByteArrayInputStream(bytes);
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                }
+            });
+        
+        return (ResultSet) Proxy.newProxyInstance(
+            ResultSet.class.getClassLoader(), new Class[] {ResultSet.class}, 
+            new InvocationHandler() {
+                public Object invoke(Object proxy, Method method, Object[] args) {
+                    if (method.getName().equals("getBlob")) {
+                        return blob;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                }
+            });
+    }
+}
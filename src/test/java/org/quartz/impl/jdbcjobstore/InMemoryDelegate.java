@@ -0,0 +1,734 @@
+/*
+ * Copyright 2001-2009 James House
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.quartz.impl.jdbcjobstore;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.logging.LogFactory;
+import org.quartz.CronTrigger;
+import org.quartz.JobDetail;
+import org.quartz.SimpleTrigger;
+import org.quartz.Trigger;
+import org.quartz.spi.ClassLoadHelper;
+import org.quartz.utils.Key;
+import org.quartz.utils.TriggerStatus;
+
+/**
+ * A delegate that keeps the trigger, job and fired trigger tables in memory,
+ * for testing <code>JobStoreSupport</code> without a database.
+ *
+ * <p>
+ * The connections it creates give each transaction (and savepoint) a copy
+ * of the tables to roll back to.  Statements can be made to fail, and a
+ * failed statement can be made to abort the transaction, as PostgreSQL does.
+ * Only the statements the tests drive are implemented.
+ * </p>
+ */
+class InMemoryDelegate extends StdJDBCDelegate {
+
+    /**
+     * A row of the triggers table.
+     */
+    static class Row implements Cloneable {
+        Trigger trigger;
+        String state;
+        long version;
+
+        protected Object clone() {
+            try {
+                Row row = (Row) super.clone();
+                row.trigger = (Trigger) trigger.clone();
+                return row;
+            } catch (CloneNotSupportedException e) {
+                throw new IllegalStateException();
+            }
+        }
+    }
+
+    private Map triggers = new HashMap();
+
+    private Map jobs = new HashMap();
+
+    private Map firedTriggers = new HashMap();
+
+    private Set pausedGroups = new HashSet();
+
+    private long cacheVersion = 0;
+
+    private boolean skipLocked = false;
+
+    // the name of the trigger whose fired trigger record can't be inserted
+    private String failingTrigger;
+
+    private boolean abortOnFailure = false;
+
+    // the name of a trigger another scheduler claims once it has been read
+    private String claimedElsewhere;
+
+    // the name of a trigger another scheduler changes once its version is read
+    private String versionRaced;
+
+    private int skipLockedSelectCount = 0;
+
+    private boolean reportBatchCounts = true;
+
+    private int batchCount = 0;
+
+    private List misfirePageSizes = new ArrayList();
+
+    private List misfireBatches = new ArrayList();
+
+    private boolean aborted = false;
+
+    private int commitCount = 0;
+
+    // the count of commits that the commit reaching it fails, if any
+    private int failingCommit = -1;
+
+    InMemoryDelegate() {
+        super(LogFactory.getLog(InMemoryDelegate.class), "QRTZ_", "INSTANCE");
+    }
+
+    /*
+     * Test set up and inspection.
+     */
+
+    void addJob(JobDetail job) {
+        jobs.put(new Key(job.getName(), job.getGroup()), job.clone());
+    }
+
+    /**
+     * Replace the given job as another scheduler would, telling the others
+     * to clear their caches.
+     */
+    void updateJob(JobDetail job) {
+        addJob(job);
+        cacheVersion++;
+    }
+
+    void addTrigger(Trigger trigger, String state) {
+        Row row = new Row();
+        row.trigger = (Trigger) trigger.clone();
+        row.state = state;
+        triggers.put(new Key(trigger.getName(), trigger.getGroup()), row);
+    }
+
+    void addPausedGroup(String groupName) {
+        pausedGroups.add(groupName);
+    }
+
+    Row getRow(String triggerName) {
+        return getRow(triggerName, "group");
+    }
+
+    Row getRow(String triggerName, String groupName) {
+        return (Row) triggers.get(new Key(triggerName, groupName));
+    }
+
+    String getState(String triggerName) {
+        return getRow(triggerName).state;
+    }
+
+    int getFiredTriggerCount() {
+        return firedTriggers.size();
+    }
+
+    int getCommitCount() {
+        return commitCount;
+    }
+
+    /**
+     * Have the commit that would bring the commit count to the given count
+     * fail, rolling its transaction back.
+     */
+    void setFailingCommit(int commitCount) {
+        this.failingCommit = commitCount;
+    }
+
+    void setSkipLocked(boolean skipLocked) {
+        this.skipLocked = skipLocked;
+    }
+
+    void setFailingTrigger(String triggerName, boolean abortOnFailure) {
+        this.failingTrigger = triggerName;
+        this.abortOnFailure = abortOnFailure;
+    }
+
+    /**
+     * Have another scheduler claim the given trigger as soon as it has been
+     * selected to be acquired.
+     */
+    void setClaimedElsewhere(String triggerName) {
+        this.claimedElsewhere = triggerName;
+    }
+
+    /**
+     * Have another scheduler change the given trigger's version as soon as
+     * it has been read to be fired.
+     */
+    void setVersionRaced(String triggerName) {
+        this.versionRaced = triggerName;
+    }
+
+    int getSkipLockedSelectCount() {
+        return skipLockedSelectCount;
+    }
+
+    /**
+     * Report <code>SUCCESS_NO_INFO</code> for each statement of a batch, as
+     * some drivers do.
+     */
+    void setReportBatchCounts(boolean reportBatchCounts) {
+        this.reportBatchCounts = reportBatchCounts;
+    }
+
+    int getBatchCount() {
+        return batchCount;
+    }
+
+    /**
+     * The number of misfired triggers selected by each page.
+     */
+    List getMisfirePageSizes() {
+        return misfirePageSizes;
+    }
+
+    /**
+     * The names of the misfired triggers stored by each batch update.
+     */
+    List getMisfireBatches() {
+        return misfireBatches;
+    }
+
+    /**
+     * Create a connection, starting a transaction.
+     */
+    Connection createConnection(final boolean supportsSavepoints) {
+        final Object[] begin = new Object[] {snapshot()};
+        final Map savepoints = new HashMap();
+
+        final DatabaseMetaData metaData = (DatabaseMetaData) Proxy.newProxyInstance(
+            DatabaseMetaData.class.getClassLoader(), new Class[] {DatabaseMetaData.class},
+            new InvocationHandler() {
+                public Object invoke(Object proxy, Method method, Object[] args) {
+                    if (method.getName().equals("supportsSavepoints")) {
+                        return Boolean.valueOf(supportsSavepoints);
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                }
+            });
+
+        return (Connection) Proxy.newProxyInstance(
+            Connection.class.getClassLoader(), new Class[] {Connection.class},
+            new InvocationHandler() {
+                public Object invoke(Object proxy, Method method, Object[] args)
+                    throws SQLException {
+                    String name = method.getName();
+                    if (name.equals("getMetaData")) {
+                        return metaData;
+                    } else if (name.equals("setSavepoint")) {
+                        checkNotAborted();
+                        Savepoint savepoint = createSavepoint();
+                        savepoints.put(savepoint, snapshot());
+                        return savepoint;
+                    } else if (name.equals("releaseSavepoint")) {
+                        savepoints.remove(args[0]);
+                        return null;
+                    } else if (name.equals("rollback")) {
+                        if (args == null) {
+                            restore(begin[0]);
+                        } else {
+                            restore(savepoints.get(args[0]));
+                        }
+                        aborted = false;
+                        return null;
+                    } else if (name.equals("commit")) {
+                        if (commitCount + 1 == failingCommit) {
+                            failingCommit = -1;
+                            restore(begin[0]);
+                            throw new SQLException("Couldn't commit");
+                        }
+                        if (aborted) {
+                            // as PostgreSQL does
+                            restore(begin[0]);
+                            aborted = false;
+                        } else {
+                            commitCount++;
+                        }
+                        begin[0] = snapshot();
+                        return null;
+                    } else if (name.equals("close") || name.startsWith("setAutoCommit")
+                            || name.startsWith("setTransactionIsolation")) {
+                        return null;
+                    } else if (name.equals("hashCode")) {
+                        return new Integer(System.identityHashCode(proxy));
+                    } else if (name.equals("equals")) {
+                        return Boolean.valueOf(proxy == args[0]);
+                    }
+                    throw new UnsupportedOperationException(name);
+                }
+            });
+    }
+
+    private static Savepoint createSavepoint() {
+        return (Savepoint) Proxy.newProxyInstance(
+            Savepoint.class.getClassLoader(), new Class[] {Savepoint.class},
+            new InvocationHandler() {
+                public Object invoke(Object proxy, Method method, Object[] args) {
+                    if (method.getName().equals("hashCode")) {
+                        return new Integer(System.identityHashCode(proxy));
+                    } else if (method.getName().equals("equals")) {
+                        return Boolean.valueOf(proxy == args[0]);
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                }
+            });
+    }
+
+    private Object snapshot() {
+        Map copy = new HashMap();
+        Iterator itr = triggers.entrySet().iterator();
+        while (itr.hasNext()) {
+            Map.Entry entry = (Map.Entry) itr.next();
+            copy.put(entry.getKey(), ((Row) entry.getValue()).clone());
+        }
+        return new Object[] {copy, new HashMap(firedTriggers)};
+    }
+
+    private void restore(Object snapshot) {
+        triggers = (Map) ((Object[]) snapshot)[0];
+        firedTriggers = (Map) ((Object[]) snapshot)[1];
+        // the snapshot may be restored again
+        Object copy = snapshot();
+        ((Object[]) snapshot)[0] = ((Object[]) copy)[0];
+        ((Object[]) snapshot)[1] = ((Object[]) copy)[1];
+    }
+
+    private void checkNotAborted() throws SQLException {
+        if (aborted) {
+            throw new SQLException(
+                "current transaction is aborted, commands ignored until end of transaction block");
+        }
+    }
+
+    private void fail(String message) throws SQLException {
+        if (abortOnFailure) {
+            aborted = true;
+        }
+        throw new SQLException(message);
+    }
+
+    /*
+     * Statements.
+     */
+
+    public boolean supportsSkipLocked() {
+        return skipLocked;
+    }
+
+    public List selectTriggerToAcquire(Connection conn, long noLaterThan,
+            long noEarlierThan, int maxCount) throws SQLException {
+        List statuses = selectTriggerStatusesToAcquire(conn, noLaterThan,
+                noEarlierThan, maxCount);
+        List keys = new ArrayList();
+        for (int i = 0; i < statuses.size(); i++) {
+            keys.add(((TriggerStatus) statuses.get(i)).getKey());
+        }
+        return keys;
+    }
+
+    public List selectTriggerToAcquireSkipLocked(Connection conn, long noLaterThan,
+            long noEarlierThan, int maxCount) throws SQLException {
+        skipLockedSelectCount++;
+        return selectTriggerToAcquire(conn, noLaterThan, noEarlierThan, maxCount);
+    }
+
+    public List selectTriggerStatusesToAcquire(Connection conn, long noLaterThan,
+            long noEarlierThan, int maxCount) throws SQLException {
+        checkNotAborted();
+        List rows = new ArrayList();
+        Iterator itr = triggers.values().iterator();
+        while (itr.hasNext()) {
+            Row row = (Row) itr.next();
+            long fireTime = row.trigger.getNextFireTime().getTime();
+            if (row.state.equals(STATE_WAITING) && fireTime < noLaterThan
+                    && fireTime >= noEarlierThan) {
+                rows.add(row);
+            }
+        }
+        Collections.sort(rows, new Comparator() {
+            public int compare(Object o1, Object o2) {
+                Trigger t1 = ((Row) o1).trigger;
+                Trigger t2 = ((Row) o2).trigger;
+                int comp = t1.getNextFireTime().compareTo(t2.getNextFireTime());
+                if (comp == 0) {
+                    comp = t2.getPriority() - t1.getPriority();
+                }
+                return (comp == 0) ? t1.getName().compareTo(t2.getName()) : comp;
+            }
+        });
+
+        List statuses = new ArrayList();
+        for (int i = 0; i < rows.size() && i < maxCount; i++) {
+            Trigger trigger = ((Row) rows.get(i)).trigger;
+            TriggerStatus status = new TriggerStatus(STATE_WAITING, trigger.getNextFireTime());
+            status.setKey(new Key(trigger.getName(), trigger.getGroup()));
+            status.setJobKey(new Key(trigger.getJobName(), trigger.getJobGroup()));
+            statuses.add(status);
+        }
+        return statuses;
+    }
+
+    private List selectMisfiredRows(String state1, String state2, long ts) {
+        List rows = new ArrayList();
+        Iterator itr = triggers.values().iterator();
+        while (itr.hasNext()) {
+            Row row = (Row) itr.next();
+            if (row.trigger.getNextFireTime() != null
+                    && row.trigger.getNextFireTime().getTime() < ts
+                    && (row.state.equals(state1) || row.state.equals(state2))) {
+                rows.add(row);
+            }
+        }
+        Collections.sort(rows, new Comparator() {
+            public int compare(Object o1, Object o2) {
+                Trigger t1 = ((Row) o1).trigger;
+                Trigger t2 = ((Row) o2).trigger;
+                int comp = t1.getNextFireTime().compareTo(t2.getNextFireTime());
+                return (comp == 0) ? t1.getName().compareTo(t2.getName()) : comp;
+            }
+        });
+        return rows;
+    }
+
+    public int countMisfiredTriggersInStates(Connection conn, String state1,
+            String state2, long ts) throws SQLException {
+        checkNotAborted();
+        return selectMisfiredRows(state1, state2, ts).size();
+    }
+
+    public boolean selectMisfiredTriggersWithDetailsInStates(Connection conn,
+            String state1, String state2, long ts, int count, List resultList)
+        throws SQLException {
+        checkNotAborted();
+        List rows = selectMisfiredRows(state1, state2, ts);
+        int selected = (count < 0) ? rows.size() : Math.min(count, rows.size());
+        for (int i = 0; i < selected; i++) {
+            resultList.add(((Row) rows.get(i)).trigger.clone());
+        }
+        misfirePageSizes.add(new Integer(selected));
+        return selected < rows.size();
+    }
+
+    public int[] updateMisfiredTriggers(Connection conn, List triggers,
+            String state) throws SQLException {
+        List names = new ArrayList();
+        int[] updated = new int[triggers.size()];
+        for (int i = 0; i < updated.length; i++) {
+            Trigger trigger = (Trigger) triggers.get(i);
+            updated[i] = updateTrigger(conn, trigger, state, null);
+            names.add(trigger.getName());
+        }
+        misfireBatches.add(names);
+        return batchExecuted(updated);
+    }
+
+    public Set selectPausedTriggerGroups(Connection conn) throws SQLException {
+        checkNotAborted();
+        return new HashSet(pausedGroups);
+    }
+
+    public List selectTriggers(Connection conn, List triggerKeys) throws SQLException {
+        checkNotAborted();
+        List selected = new ArrayList();
+        for (int i = 0; i < triggerKeys.size(); i++) {
+            Row row = (Row) triggers.get(triggerKeys.get(i));
+            if (row != null) {
+                selected.add(row.trigger.clone());
+                if (row.trigger.getName().equals(claimedElsewhere)) {
+                    row.state = STATE_ACQUIRED;
+                    row.version++;
+                }
+            }
+        }
+        return selected;
+    }
+
+    public Trigger selectTrigger(Connection conn, String triggerName,
+            String groupName) throws SQLException {
+        checkNotAborted();
+        Row row = (Row) triggers.get(new Key(triggerName, groupName));
+        return (row == null) ? null : (Trigger) row.trigger.clone();
+    }
+
+    public String[] selectTriggerListeners(Connection conn, String triggerName,
+            String groupName) throws SQLException {
+        checkNotAborted();
+        return new String[0];
+    }
+
+    public boolean triggerExists(Connection conn, String triggerName,
+            String groupName) throws SQLException {
+        checkNotAborted();
+        return triggers.containsKey(new Key(triggerName, groupName));
+    }
+
+    public String selectTriggerState(Connection conn, String triggerName,
+            String groupName) throws SQLException {
+        checkNotAborted();
+        Row row = (Row) triggers.get(new Key(triggerName, groupName));
+        return (row == null) ? STATE_DELETED : row.state;
+    }
+
+    public long selectTriggerVersion(Connection conn, String triggerName,
+            String groupName, String state) throws SQLException {
+        checkNotAborted();
+        Row row = (Row) triggers.get(new Key(triggerName, groupName));
+        if (row == null || !row.state.equals(state)) {
+            return -1;
+        }
+        long version = row.version;
+        if (triggerName.equals(versionRaced)) {
+            row.version++;
+        }
+        return version;
+    }
+
+    public int updateTriggerVersion(Connection conn, String triggerName,
+            String groupName, String state, long version) throws SQLException {
+        checkNotAborted();
+        Row row = (Row) triggers.get(new Key(triggerName, groupName));
+        if (row == null || !row.state.equals(state) || row.version != version) {
+            return 0;
+        }
+        row.version++;
+        return 1;
+    }
+
+    public int updateTriggerState(Connection conn, String triggerName,
+            String groupName, String state) throws SQLException {
+        checkNotAborted();
+        Row row = (Row) triggers.get(new Key(triggerName, groupName));
+        if (row == null) {
+            return 0;
+        }
+        row.state = state;
+        return 1;
+    }
+
+    public int updateTriggerStateFromOtherState(Connection conn, String triggerName,
+            String groupName, String newState, String oldState) throws SQLException {
+        checkNotAborted();
+        Row row = (Row) triggers.get(new Key(triggerName, groupName));
+        if (row == null || !row.state.equals(oldState)) {
+            return 0;
+        }
+        row.state = newState;
+        return 1;
+    }
+
+    public int updateTriggerStateAndVersionFromOtherState(Connection conn,
+            String triggerName, String groupName, String newState, String oldState)
+        throws SQLException {
+        int updated = updateTriggerStateFromOtherState(conn, triggerName,
+                groupName, newState, oldState);
+        if (updated > 0) {
+            getRow(triggerName).version++;
+        }
+        return updated;
+    }
+
+    public int[] updateTriggerStateFromOtherState(Connection conn,
+            List triggerKeys, String newState, String oldState) throws SQLException {
+        int[] updated = new int[triggerKeys.size()];
+        for (int i = 0; i < updated.length; i++) {
+            Key key = (Key) triggerKeys.get(i);
+            updated[i] = updateTriggerStateFromOtherState(conn, key.getName(),
+                    key.getGroup(), newState, oldState);
+        }
+        return batchExecuted(updated);
+    }
+
+    private int[] batchExecuted(int[] updated) {
+        batchCount++;
+        if (!reportBatchCounts) {
+            Arrays.fill(updated, Statement.SUCCESS_NO_INFO);
+        }
+        return updated;
+    }
+
+    public int[] updateTriggerStateAndVersionFromOtherState(Connection conn,
+            List triggerKeys, String newState, String oldState) throws SQLException {
+        int[] updated = new int[triggerKeys.size()];
+        for (int i = 0; i < updated.length; i++) {
+            Key key = (Key) triggerKeys.get(i);
+            updated[i] = updateTriggerStateAndVersionFromOtherState(conn,
+                    key.getName(), key.getGroup(), newState, oldState);
+        }
+        return batchExecuted(updated);
+    }
+
+    public int updateTriggerStatesForJobFromOtherState(Connection conn,
+            String jobName, String groupName, String state, String oldState)
+        throws SQLException {
+        checkNotAborted();
+        int updated = 0;
+        Iterator itr = triggers.values().iterator();
+        while (itr.hasNext()) {
+            Row row = (Row) itr.next();
+            if (row.trigger.getJobName().equals(jobName)
+                    && row.trigger.getJobGroup().equals(groupName)
+                    && row.state.equals(oldState)) {
+                row.state = state;
+                updated++;
+            }
+        }
+        return updated;
+    }
+
+    public boolean isTriggerGroupPaused(Connection conn, String groupName)
+        throws SQLException {
+        checkNotAborted();
+        return pausedGroups.contains(groupName);
+    }
+
+    public int updateTrigger(Connection conn, Trigger trigger, String state,
+            JobDetail jobDetail) throws SQLException {
+        checkNotAborted();
+        Row row = (Row) triggers.get(new Key(trigger.getName(), trigger.getGroup()));
+        if (row == null) {
+            return 0;
+        }
+        row.trigger = (Trigger) trigger.clone();
+        row.state = state;
+        return 1;
+    }
+
+    public int updateSimpleTrigger(Connection conn, SimpleTrigger trigger)
+        throws SQLException {
+        checkNotAborted();
+        return 1;
+    }
+
+    public int updateCronTrigger(Connection conn, CronTrigger trigger)
+        throws SQLException {
+        checkNotAborted();
+        return 1;
+    }
+
+    public JobDetail selectJobDetail(Connection conn, String jobName,
+            String groupName, ClassLoadHelper loadHelper) throws SQLException {
+        checkNotAborted();
+        JobDetail job = (JobDetail) jobs.get(new Key(jobName, groupName));
+        return (job == null) ? null : (JobDetail) job.clone();
+    }
+
+    public long selectCacheVersion(Connection conn, String cacheName)
+        throws SQLException {
+        checkNotAborted();
+        return cacheVersion;
+    }
+
+    public void updateCacheVersion(Connection conn, String cacheName)
+        throws SQLException {
+        checkNotAborted();
+        cacheVersion++;
+    }
+
+    public String[] selectJobListeners(Connection conn, String jobName,
+            String groupName) throws SQLException {
+        checkNotAborted();
+        return new String[0];
+    }
+
+    public Set selectStatefulJobs(Connection conn, List jobKeys) throws SQLException {
+        checkNotAborted();
+        Set stateful = new HashSet();
+        for (int i = 0; i < jobKeys.size(); i++) {
+            JobDetail job = (JobDetail) jobs.get(jobKeys.get(i));
+            if (job != null && job.isStateful()) {
+                stateful.add(jobKeys.get(i));
+            }
+        }
+        return stateful;
+    }
+
+    public int insertFiredTrigger(Connection conn, Trigger trigger, String state,
+            JobDetail jobDetail) throws SQLException {
+        checkNotAborted();
+        if (trigger.getName().equals(failingTrigger) && state.equals(STATE_EXECUTING)) {
+            fail("Couldn't insert fired trigger " + trigger.getName());
+        }
+        if (jobDetail == null) {
+            jobDetail = (JobDetail) jobs.get(
+                    new Key(trigger.getJobName(), trigger.getJobGroup()));
+        }
+        FiredTriggerRecord rec = new FiredTriggerRecord();
+        rec.setFireInstanceId(trigger.getFireInstanceId());
+        rec.setFireInstanceState(state);
+        rec.setTriggerKey(new Key(trigger.getName(), trigger.getGroup()));
+        rec.setJobKey(new Key(trigger.getJobName(), trigger.getJobGroup()));
+        rec.setJobIsStateful(jobDetail != null && jobDetail.isStateful());
+        firedTriggers.put(trigger.getFireInstanceId(), rec);
+        return 1;
+    }
+
+    public int[] insertFiredTriggers(Connection conn, List triggers, String state)
+        throws SQLException {
+        int[] inserted = new int[triggers.size()];
+        for (int i = 0; i < inserted.length; i++) {
+            inserted[i] = insertFiredTrigger(conn, (Trigger) triggers.get(i), state, null);
+        }
+        return inserted;
+    }
+
+    public List selectFiredTriggerRecordsByJob(Connection conn, String jobName,
+            String groupName) throws SQLException {
+        checkNotAborted();
+        Key jobKey = new Key(jobName, groupName);
+        List records = new ArrayList();
+        Iterator itr = firedTriggers.values().iterator();
+        while (itr.hasNext()) {
+            FiredTriggerRecord rec = (FiredTriggerRecord) itr.next();
+            if (rec.getJobKey().equals(jobKey)) {
+                records.add(rec);
+            }
+        }
+        return records;
+    }
+
+    public int deleteFiredTrigger(Connection conn, String entryId) throws SQLException {
+        checkNotAborted();
+        return (firedTriggers.remove(entryId) == null) ? 0 : 1;
+    }
+}
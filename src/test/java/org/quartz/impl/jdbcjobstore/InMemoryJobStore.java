@@ -0,0 +1,95 @@
+/*
+ * Copyright 2001-2009 James House
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.quartz.impl.jdbcjobstore;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.quartz.SchedulerConfigException;
+import org.quartz.Trigger;
+import org.quartz.spi.SchedulerSignaler;
+
+/**
+ * A <code>JobStoreTX</code> backed by an <code>{@link InMemoryDelegate}</code>
+ * rather than a data source, and locking with a
+ * <code>SimpleSemaphore</code>.
+ */
+class InMemoryJobStore extends JobStoreTX {
+
+    private final InMemoryDelegate delegate;
+
+    private boolean supportsSavepoints = true;
+
+    private int misfireHandlingThreadCount = 1;
+
+    private final List misfiredTriggerNames = new ArrayList();
+
+    InMemoryJobStore(InMemoryDelegate delegate) throws SchedulerConfigException {
+        this(delegate, 0);
+    }
+
+    InMemoryJobStore(InMemoryDelegate delegate, int cacheSize)
+        throws SchedulerConfigException {
+        this.delegate = delegate;
+        setCacheSize(cacheSize);
+        setInstanceId("INSTANCE");
+        setDataSource("InMemory");
+        setLockHandler(new SimpleSemaphore());
+        initialize(null, new SchedulerSignaler() {
+            public void notifyTriggerListenersMisfired(Trigger trigger) {
+                synchronized (misfiredTriggerNames) {
+                    misfiredTriggerNames.add(trigger.getName());
+                }
+            }
+            public void notifySchedulerListenersFinalized(Trigger trigger) {
+            }
+            public void signalSchedulingChange(long candidateNewNextFireTime) {
+            }
+        });
+    }
+
+    void setSupportsSavepoints(boolean supportsSavepoints) {
+        this.supportsSavepoints = supportsSavepoints;
+    }
+
+    void setMisfireHandlingThreadCount(int misfireHandlingThreadCount) {
+        this.misfireHandlingThreadCount = misfireHandlingThreadCount;
+    }
+
+    /**
+     * The names of the triggers the scheduler was told had misfired.
+     */
+    List getMisfiredTriggerNames() {
+        return misfiredTriggerNames;
+    }
+
+    protected int getMisfireHandlingThreadCount() {
+        return misfireHandlingThreadCount;
+    }
+
+    protected void cleanVolatileTriggerAndJobs() {
+        // there is nothing volatile in a new delegate
+    }
+
+    protected DriverDelegate getDelegate() {
+        return delegate;
+    }
+
+    protected Connection getNonManagedTXConnection() {
+        return delegate.createConnection(supportsSavepoints);
+    }
+}
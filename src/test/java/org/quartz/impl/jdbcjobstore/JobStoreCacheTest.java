@@ -0,0 +1,69 @@
+/* 
+ * Copyright 2001-2009 James House 
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not 
+ * use this file except in compliance with the License. You may obtain a copy 
+ * of the License at 
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0 
+ *   
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT 
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the 
+ * License for the specific language governing permissions and limitations 
+ * under the License.
+ */
+package org.quartz.impl.jdbcjobstore;
+
+import org.quartz.utils.Key;
+
+import junit.framework.TestCase;
+
+public class JobStoreCacheTest extends TestCase {
+
+    private JobStoreCache cache;
+    
+    protected void setUp() throws Exception {
+        cache = new JobStoreCache(2);
+    }
+    
+    public void testLeastRecentlyUsedEvicted() {
+        Key job1 = new Key("job1", "group");
+        Key job2 = new Key("job2", "group");
+        
+        assertTrue(cache.put(job1, "job1", cache.getGeneration()));
+        assertTrue(cache.put(job2, "job2", cache.getGeneration()));
+        assertEquals("job1", cache.get(job1));
+        
+        assertTrue(cache.put("calendar", "calendar", cache.getGeneration()));
+        assertEquals(2, cache.size());
+        assertNull(cache.get(job2));
+        assertEquals("job1", cache.get(job1));
+        assertEquals("calendar", cache.get("calendar"));
+    }
+    
+    public void testStaleReadNotCached() {
+        long generation = cache.getGeneration();
+        cache.remove("calendar");
+        assertFalse(cache.put("calendar", "old", generation));
+        assertNull(cache.get("calendar"));
+        
+        generation = cache.getGeneration();
+        cache.clear();
+        assertFalse(cache.put("calendar", "old", generation));
+        
+        assertTrue(cache.put("calendar", "new", cache.getGeneration()));
+        assertEquals("new", cache.get("calendar"));
+    }
+    
+    public void testValidate() {
+        assertTrue(cache.validate(0));
+        assertTrue(cache.put("calendar", "calendar", cache.getGeneration()));
+        
+        assertFalse(cache.validate(0));
+        assertEquals("calendar", cache.get("calendar"));
+        
+        assertTrue(cache.validate(1));
+        assertNull(cache.get("calendar"));
+    }
+}
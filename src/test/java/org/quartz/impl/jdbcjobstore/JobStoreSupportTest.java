@@ -0,0 +1,493 @@
+/*
+ * Copyright 2001-2009 James House
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.quartz.impl.jdbcjobstore;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+import org.quartz.JobDetail;
+import org.quartz.JobExecutionContext;
+import org.quartz.Calendar;
+import org.quartz.JobPersistenceException;
+import org.quartz.SimpleTrigger;
+import org.quartz.StatefulJob;
+import org.quartz.Trigger;
+import org.quartz.core.SchedulingContext;
+import org.quartz.impl.jdbcjobstore.JobStoreSupport.RecoverMisfiredJobsResult;
+import org.quartz.jobs.NoOpJob;
+import org.quartz.utils.Key;
+import org.quartz.spi.TriggerFiredResult;
+
+public class JobStoreSupportTest extends TestCase {
+
+    public static class StatefulNoOpJob implements StatefulJob {
+        public void execute(JobExecutionContext context) {
+        }
+    }
+
+    /**
+     * A simple trigger that notes which thread applied its misfire
+     * instruction.
+     */
+    public static class ThreadNotingTrigger extends SimpleTrigger {
+        static final Set threadNames = Collections.synchronizedSet(new HashSet());
+
+        public ThreadNotingTrigger(String name, Date startTime, int repeatCount) {
+            super(name, "group", "job", "group", startTime, null, repeatCount, 60000L);
+        }
+
+        public void updateAfterMisfire(Calendar cal) {
+            threadNames.add(Thread.currentThread().getName());
+            super.updateAfterMisfire(cal);
+        }
+    }
+
+    private InMemoryDelegate delegate;
+
+    private InMemoryJobStore store;
+
+    private SchedulingContext ctxt;
+
+    private long now;
+
+    protected void setUp() throws Exception {
+        delegate = new InMemoryDelegate();
+        store = new InMemoryJobStore(delegate);
+        ctxt = new SchedulingContext();
+        now = System.currentTimeMillis();
+
+        delegate.addJob(new JobDetail("job", "group", NoOpJob.class));
+    }
+
+    private SimpleTrigger addTrigger(String name, long fireTime, String state) {
+        return addTrigger(name, "job", fireTime, state);
+    }
+
+    private SimpleTrigger addTrigger(String name, String jobName, long fireTime, String state) {
+        SimpleTrigger trigger = new SimpleTrigger(name, "group", jobName, "group",
+                new Date(fireTime), null, SimpleTrigger.REPEAT_INDEFINITELY, 60000L);
+        trigger.computeFirstFireTime(null);
+        delegate.addTrigger(trigger, state);
+        return trigger;
+    }
+
+    private List addAcquiredTriggers(String[] names) {
+        List triggers = new ArrayList();
+        for (int i = 0; i < names.length; i++) {
+            Trigger trigger = addTrigger(names[i], now, Constants.STATE_ACQUIRED);
+            trigger.setFireInstanceId("fired_" + names[i]);
+            triggers.add(trigger);
+        }
+        return triggers;
+    }
+
+    public void testTriggersFiredRollsBackFailedTriggerToSavepoint() throws Exception {
+        List triggers = addAcquiredTriggers(new String[] {"t1", "t2", "t3"});
+        delegate.setFailingTrigger("t2", true);
+
+        List results = store.triggersFired(ctxt, triggers);
+
+        assertNotNull(((TriggerFiredResult) results.get(0)).getTriggerFiredBundle());
+        assertNotNull(((TriggerFiredResult) results.get(1)).getException());
+        assertNotNull(((TriggerFiredResult) results.get(2)).getTriggerFiredBundle());
+
+        assertEquals(Constants.STATE_WAITING, delegate.getState("t1"));
+        assertEquals(Constants.STATE_ACQUIRED, delegate.getState("t2"));
+        assertEquals(Constants.STATE_WAITING, delegate.getState("t3"));
+        assertEquals(now + 60000L,
+                delegate.getRow("t3").trigger.getNextFireTime().getTime());
+        assertEquals(2, delegate.getFiredTriggerCount());
+    }
+
+    public void testTriggersFiredStopsAtFailureWithoutSavepoints() throws Exception {
+        List triggers = addAcquiredTriggers(new String[] {"t1", "t2", "t3"});
+        delegate.setFailingTrigger("t2", false);
+        store.setSupportsSavepoints(false);
+
+        List results = store.triggersFired(ctxt, triggers);
+
+        assertNotNull(((TriggerFiredResult) results.get(0)).getTriggerFiredBundle());
+        assertNotNull(((TriggerFiredResult) results.get(1)).getException());
+        TriggerFiredResult notFired = (TriggerFiredResult) results.get(2);
+        assertNull(notFired.getException());
+        assertNull(notFired.getTriggerFiredBundle());
+
+        assertEquals(Constants.STATE_WAITING, delegate.getState("t1"));
+        assertEquals(Constants.STATE_ACQUIRED, delegate.getState("t3"));
+        assertEquals(1, delegate.getFiredTriggerCount());
+    }
+
+    public void testBatchClaimWithoutUpdateCountsSkipsLostTrigger() throws Exception {
+        addTrigger("t1", now, Constants.STATE_WAITING);
+        addTrigger("t2", now + 1, Constants.STATE_WAITING);
+        addTrigger("t3", now + 2, Constants.STATE_WAITING);
+        delegate.setClaimedElsewhere("t2");
+        delegate.setReportBatchCounts(false);
+
+        List acquired = store.acquireNextTriggers(ctxt, now + 1000L, 3, 1000L);
+
+        assertEquals(2, acquired.size());
+        assertEquals("t1", ((Trigger) acquired.get(0)).getName());
+        assertEquals("t3", ((Trigger) acquired.get(1)).getName());
+        assertEquals(2, delegate.getFiredTriggerCount());
+        assertEquals(1, delegate.getBatchCount());
+
+        // claimed one at a time from then on
+        addTrigger("t4", now, Constants.STATE_WAITING);
+        addTrigger("t5", now, Constants.STATE_WAITING);
+        acquired = store.acquireNextTriggers(ctxt, now + 1000L, 3, 1000L);
+        assertEquals(2, acquired.size());
+        assertEquals(1, delegate.getBatchCount());
+    }
+
+    public void testBatchClaimWithoutUpdateCountsOrSavepointsFails() throws Exception {
+        addTrigger("t1", now, Constants.STATE_WAITING);
+        addTrigger("t2", now + 1, Constants.STATE_WAITING);
+        delegate.setReportBatchCounts(false);
+        store.setSupportsSavepoints(false);
+
+        try {
+            store.acquireNextTriggers(ctxt, now + 1000L, 2, 1000L);
+            fail("acquired triggers without knowing which were claimed");
+        } catch (JobPersistenceException expected) {
+        }
+        assertEquals(Constants.STATE_WAITING, delegate.getState("t1"));
+        assertEquals(Constants.STATE_WAITING, delegate.getState("t2"));
+
+        List acquired = store.acquireNextTriggers(ctxt, now + 1000L, 2, 1000L);
+        assertEquals(2, acquired.size());
+        assertEquals(Constants.STATE_ACQUIRED, delegate.getState("t2"));
+    }
+
+    public void testOptimisticTriggersFiredKeepsTriggerOrder() throws Exception {
+        delegate.addJob(new JobDetail("s1", "group", StatefulNoOpJob.class));
+        delegate.addJob(new JobDetail("s2", "group", StatefulNoOpJob.class));
+        store.setUseOptimisticConcurrency(true);
+
+        String[] names = new String[] {"t1", "s1", "t2", "s2", "t3"};
+        List triggers = new ArrayList();
+        for (int i = 0; i < names.length; i++) {
+            Trigger trigger = addTrigger(names[i],
+                    names[i].startsWith("s") ? names[i] : "job",
+                    now, Constants.STATE_ACQUIRED);
+            trigger.setFireInstanceId("fired_" + names[i]);
+            triggers.add(trigger);
+        }
+
+        List results = store.triggersFired(ctxt, triggers);
+
+        assertEquals(names.length, results.size());
+        for (int i = 0; i < names.length; i++) {
+            TriggerFiredResult result = (TriggerFiredResult) results.get(i);
+            assertNotNull(names[i], result.getTriggerFiredBundle());
+            assertEquals(names[i],
+                    result.getTriggerFiredBundle().getTrigger().getName());
+        }
+        assertEquals(names.length, delegate.getFiredTriggerCount());
+    }
+
+    public void testOptimisticTriggersFiredKeepsUnlockedResultsIfLockedFail()
+        throws Exception {
+        delegate.addJob(new JobDetail("s1", "group", StatefulNoOpJob.class));
+        store.setUseOptimisticConcurrency(true);
+        Trigger t1 = addTrigger("t1", now, Constants.STATE_ACQUIRED);
+        t1.setFireInstanceId("fired_t1");
+        Trigger s1 = addTrigger("s1", "s1", now, Constants.STATE_ACQUIRED);
+        s1.setFireInstanceId("fired_s1");
+
+        // the stateful job's trigger is fired in a second transaction
+        delegate.setFailingCommit(delegate.getCommitCount() + 2);
+
+        List results = store.triggersFired(ctxt, Arrays.asList(new Trigger[] {s1, t1}));
+
+        assertEquals(2, results.size());
+        TriggerFiredResult failed = (TriggerFiredResult) results.get(0);
+        assertEquals("s1", failed.getTrigger().getName());
+        assertNull(failed.getTriggerFiredBundle());
+        assertTrue(failed.getException() instanceof JobPersistenceException);
+        TriggerFiredResult fired = (TriggerFiredResult) results.get(1);
+        assertEquals("t1", fired.getTriggerFiredBundle().getTrigger().getName());
+        assertNull(fired.getException());
+
+        assertEquals(Constants.STATE_WAITING, delegate.getState("t1"));
+        assertEquals(now + 60000L, delegate.getRow("t1").trigger.getNextFireTime().getTime());
+        assertEquals(Constants.STATE_ACQUIRED, delegate.getState("s1"));
+        assertEquals(now, delegate.getRow("s1").trigger.getNextFireTime().getTime());
+        assertEquals(1, delegate.getFiredTriggerCount());
+    }
+
+    public void testTriggersFiredSeesJobChangedElsewhere() throws Exception {
+        store = new InMemoryJobStore(delegate, 10);
+        assertFiresChangedJob();
+    }
+
+    public void testOptimisticTriggersFiredSeesJobChangedElsewhere() throws Exception {
+        store = new InMemoryJobStore(delegate, 10);
+        store.setUseOptimisticConcurrency(true);
+        assertFiresChangedJob();
+    }
+
+    /**
+     * Fire a trigger to cache its job, change the job as another scheduler 
+     * would, and check the next firing gets the changed job even though no
+     * triggers were acquired in between.
+     */
+    private void assertFiresChangedJob() throws Exception {
+        store.triggersFired(ctxt, addAcquiredTriggers(new String[] {"t1"}));
+
+        JobDetail changed = new JobDetail("job", "group", NoOpJob.class);
+        changed.setDescription("changed");
+        delegate.updateJob(changed);
+
+        List results = store.triggersFired(ctxt, addAcquiredTriggers(new String[] {"t2"}));
+        TriggerFiredResult result = (TriggerFiredResult) results.get(0);
+        assertEquals("changed",
+                result.getTriggerFiredBundle().getJobDetail().getDescription());
+    }
+
+    /**
+     * Add a trigger that misfired ten and a half minutes ago, and that is to
+     * fire next the minute after that.
+     */
+    private SimpleTrigger addMisfiredTrigger(String name, String group,
+            String jobName, int repeatCount, long offset) {
+        return addMisfiredTrigger(new SimpleTrigger(name, group, jobName, "group",
+                new Date(now - 630000L + offset), null, repeatCount, 60000L));
+    }
+
+    private SimpleTrigger addMisfiredTrigger(SimpleTrigger trigger) {
+        trigger.setMisfireInstruction(
+                SimpleTrigger.MISFIRE_INSTRUCTION_RESCHEDULE_NEXT_WITH_REMAINING_COUNT);
+        trigger.computeFirstFireTime(null);
+        delegate.addTrigger(trigger, Constants.STATE_WAITING);
+        return trigger;
+    }
+
+    private long getNextFireTime(String name, String group) {
+        return delegate.getRow(name, group).trigger.getNextFireTime().getTime();
+    }
+
+    public void testBulkMisfireHandlingPagesWhenRecovering() throws Exception {
+        for (int i = 0; i < 4; i++) {
+            addMisfiredTrigger("t" + i, "group", "job",
+                    SimpleTrigger.REPEAT_INDEFINITELY, i);
+        }
+        addMisfiredTrigger("done", "group", "job", 0, 10);
+        store.setUseBulkMisfireHandling(true);
+        store.setMaxMisfiresToHandleAtATime(2);
+
+        Connection conn = delegate.createConnection(true);
+        RecoverMisfiredJobsResult result = store.recoverMisfiredJobsInBulk(conn, true);
+        conn.commit();
+
+        assertEquals(5, result.getProcessedMisfiredTriggerCount());
+        assertFalse(result.hasMoreMisfiredTriggers());
+        assertEquals(now + 30000L, result.getEarliestNewTime());
+        assertEquals(Arrays.asList(new Integer[] {
+                new Integer(2), new Integer(2), new Integer(1)}),
+                delegate.getMisfirePageSizes());
+        for (int i = 0; i < 4; i++) {
+            assertEquals(Constants.STATE_WAITING, delegate.getState("t" + i));
+            assertEquals(now + 30000L + i, getNextFireTime("t" + i, "group"));
+        }
+        assertEquals(Constants.STATE_COMPLETE, delegate.getState("done"));
+        assertNull(delegate.getRow("done").trigger.getNextFireTime());
+        assertEquals(5, store.getMisfiredTriggerNames().size());
+    }
+
+    public void testBulkMisfireHandlingTakesOnePageAtATime() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            addMisfiredTrigger("t" + i, "group", "job",
+                    SimpleTrigger.REPEAT_INDEFINITELY, i);
+        }
+        store.setUseBulkMisfireHandling(true);
+        store.setMaxMisfiresToHandleAtATime(2);
+
+        RecoverMisfiredJobsResult result = store.doRecoverMisfires();
+
+        assertEquals(2, result.getProcessedMisfiredTriggerCount());
+        assertTrue(result.hasMoreMisfiredTriggers());
+        assertEquals(now + 30000L, getNextFireTime("t0", "group"));
+        assertEquals(now + 30000L + 1, getNextFireTime("t1", "group"));
+        assertEquals(now - 630000L + 2, getNextFireTime("t2", "group"));
+
+        result = store.doRecoverMisfires();
+
+        assertEquals(1, result.getProcessedMisfiredTriggerCount());
+        assertFalse(result.hasMoreMisfiredTriggers());
+        assertEquals(now + 30000L + 2, getNextFireTime("t2", "group"));
+    }
+
+    public void testBulkMisfireHandlingStoresPausedAndStatefulTriggersOneByOne()
+        throws Exception {
+        delegate.addJob(new JobDetail("stateful", "group", StatefulNoOpJob.class));
+        delegate.addPausedGroup("paused");
+        addMisfiredTrigger("t1", "group", "job", SimpleTrigger.REPEAT_INDEFINITELY, 0);
+        addMisfiredTrigger("p1", "paused", "job", SimpleTrigger.REPEAT_INDEFINITELY, 1);
+        addMisfiredTrigger("s1", "group", "stateful", SimpleTrigger.REPEAT_INDEFINITELY, 2);
+        store.setUseBulkMisfireHandling(true);
+
+        // the stateful job is executing
+        Connection conn = delegate.createConnection(true);
+        SimpleTrigger executing = new SimpleTrigger("s0", "group", "stateful", "group",
+                new Date(now), null, 0, 0L);
+        executing.setFireInstanceId("fired_s0");
+        delegate.insertFiredTrigger(conn, executing, Constants.STATE_EXECUTING, null);
+        conn.commit();
+
+        RecoverMisfiredJobsResult result = store.doRecoverMisfires();
+
+        assertEquals(3, result.getProcessedMisfiredTriggerCount());
+        assertEquals(Arrays.asList(new List[] {Arrays.asList(new String[] {"t1"})}),
+                delegate.getMisfireBatches());
+        assertEquals(Constants.STATE_WAITING, delegate.getState("t1"));
+        assertEquals(Constants.STATE_PAUSED, delegate.getRow("p1", "paused").state);
+        assertEquals(Constants.STATE_BLOCKED, delegate.getState("s1"));
+        assertEquals(now + 30000L, getNextFireTime("t1", "group"));
+        assertEquals(now + 30000L + 1, getNextFireTime("p1", "paused"));
+        assertEquals(now + 30000L + 2, getNextFireTime("s1", "group"));
+    }
+
+    public void testBulkMisfireHandlingAppliesInstructionsInParallel() throws Exception {
+        // enough for the misfire instructions to be split between threads
+        int count = 1024;
+        for (int i = 0; i < count; i++) {
+            addMisfiredTrigger(new ThreadNotingTrigger("t" + i, new Date(now - 630000L + i),
+                    (i % 2 == 0) ? SimpleTrigger.REPEAT_INDEFINITELY : 0));
+        }
+        ThreadNotingTrigger.threadNames.clear();
+        store.setUseBulkMisfireHandling(true);
+        store.setMaxMisfiresToHandleAtATime(count);
+        store.setMisfireHandlingThreadCount(4);
+
+        RecoverMisfiredJobsResult result = store.doRecoverMisfires();
+
+        assertEquals(count, result.getProcessedMisfiredTriggerCount());
+        assertFalse(result.hasMoreMisfiredTriggers());
+        for (int i = 0; i < count; i++) {
+            if (i % 2 == 0) {
+                assertEquals(Constants.STATE_WAITING, delegate.getState("t" + i));
+                assertEquals(now + 30000L + i, getNextFireTime("t" + i, "group"));
+            } else {
+                assertEquals(Constants.STATE_COMPLETE, delegate.getState("t" + i));
+                assertNull(delegate.getRow("t" + i).trigger.getNextFireTime());
+            }
+        }
+        assertEquals(4, ThreadNotingTrigger.threadNames.size());
+        assertEquals(2, delegate.getMisfireBatches().size());
+        assertEquals(count, store.getMisfiredTriggerNames().size());
+    }
+
+    public void testPartitionedAcquisitionScansPastOtherPartitions() throws Exception {
+        store = new InMemoryJobStore(delegate) {
+            protected Set getActivePartitions() {
+                return Collections.singleton(new Integer(0));
+            }
+        };
+        store.setIsClustered(true);
+        store.setPartitionCount(4);
+
+        // the first due triggers are more than a scan's worth of other 
+        // partitions', with this scheduler's after them
+        List ownJobs = new ArrayList();
+        int foreignCount = 0;
+        for (int i = 0; ownJobs.size() < 2 || foreignCount < 40; i++) {
+            String jobName = "job" + i;
+            boolean own = (store.getPartition(new Key(jobName, "group")) == 0);
+            if (own && ownJobs.size() < 2) {
+                ownJobs.add(jobName);
+            } else if (!own && foreignCount < 40) {
+                delegate.addJob(new JobDetail(jobName, "group", NoOpJob.class));
+                addTrigger("foreign" + foreignCount, jobName, now + foreignCount, 
+                        Constants.STATE_WAITING);
+                foreignCount++;
+            }
+        }
+        for (int i = 0; i < ownJobs.size(); i++) {
+            String jobName = (String) ownJobs.get(i);
+            delegate.addJob(new JobDetail(jobName, "group", NoOpJob.class));
+            addTrigger("own" + i, jobName, now + 100 + i, Constants.STATE_WAITING);
+        }
+
+        Connection conn = delegate.createConnection(true);
+        List keys = store.selectTriggerToAcquire(conn, now + 1000L, 2);
+
+        assertEquals(Arrays.asList(new Key[] {
+                new Key("own0", "group"), new Key("own1", "group")}), keys);
+
+        // without enough of its own, it stops once the due triggers run out
+        keys = store.selectTriggerToAcquire(conn, now + 1000L, 3);
+        assertEquals(2, keys.size());
+        keys = store.selectTriggerToAcquire(conn, now + 50L, 2);
+        assertTrue(keys.isEmpty());
+
+        List acquired = store.acquireNextTriggers(ctxt, now + 1000L, 1, 0L);
+        assertEquals(1, acquired.size());
+        assertEquals("own0", ((Trigger) acquired.get(0)).getName());
+        assertEquals(Constants.STATE_ACQUIRED, delegate.getState("own0"));
+    }
+
+    public void testSkipLockedAcquisitionAndOptimisticFiring() throws Exception {
+        delegate.setSkipLocked(true);
+        store.setUseSkipLockedAcquisition(true);
+        store.setUseOptimisticConcurrency(true);
+        addTrigger("t1", now, Constants.STATE_WAITING);
+        addTrigger("t2", now + 1, Constants.STATE_WAITING);
+        addTrigger("t3", now + 2, Constants.STATE_WAITING);
+
+        List acquired = store.acquireNextTriggers(ctxt, now + 1000L, 3, 1000L);
+
+        assertEquals(1, delegate.getSkipLockedSelectCount());
+        assertEquals(3, acquired.size());
+        for (int i = 0; i < acquired.size(); i++) {
+            Trigger trigger = (Trigger) acquired.get(i);
+            assertEquals("t" + (i + 1), trigger.getName());
+            assertEquals(Constants.STATE_ACQUIRED, delegate.getState(trigger.getName()));
+            assertEquals(1, delegate.getRow(trigger.getName()).version);
+        }
+        assertEquals(3, delegate.getFiredTriggerCount());
+
+        // another scheduler changes t2 between this one reading and claiming it
+        delegate.setVersionRaced("t2");
+
+        List results = store.triggersFired(ctxt, acquired);
+
+        assertEquals(3, results.size());
+        assertNotNull(((TriggerFiredResult) results.get(0)).getTriggerFiredBundle());
+        TriggerFiredResult lost = (TriggerFiredResult) results.get(1);
+        assertNull(lost.getTriggerFiredBundle());
+        assertNull(lost.getException());
+        assertNotNull(((TriggerFiredResult) results.get(2)).getTriggerFiredBundle());
+
+        assertEquals(Constants.STATE_WAITING, delegate.getState("t1"));
+        assertEquals(now + 60000L, delegate.getRow("t1").trigger.getNextFireTime().getTime());
+        assertEquals(2, delegate.getRow("t1").version);
+        assertEquals(Constants.STATE_ACQUIRED, delegate.getState("t2"));
+        assertEquals(now + 1, delegate.getRow("t2").trigger.getNextFireTime().getTime());
+        assertEquals(2, delegate.getRow("t2").version);
+        assertEquals(Constants.STATE_WAITING, delegate.getState("t3"));
+        assertEquals(now + 60002L, delegate.getRow("t3").trigger.getNextFireTime().getTime());
+        assertEquals(3, delegate.getFiredTriggerCount());
+    }
+}
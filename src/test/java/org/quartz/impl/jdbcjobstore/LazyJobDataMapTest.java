@@ -0,0 +1,138 @@
+/* 
+ * Copyright 2001-2009 James House 
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not 
+ * use this file except in compliance with the License. You may obtain a copy 
+ * of the License at 
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0 
+ *   
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT 
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the 
+ * License for the specific language governing permissions and limitations 
+ * under the License.
+ */
+package org.quartz.impl.jdbcjobstore;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import org.apache.commons.logging.LogFactory;
+import org.quartz.JobDataMap;
+import org.quartz.JobDetail;
+
+import junit.framework.TestCase;
+
+public class LazyJobDataMapTest extends TestCase {
+
+    private StdJDBCDelegate delegate;
+    
+    private JobDataMap jobDataMap;
+    
+    protected void setUp() throws Exception {
+        delegate = new StdJDBCDelegate(LogFactory.getLog(getClass()), "QRTZ_", "INSTANCE");
+        delegate.setLoadJobDataLazily(true);
+        
+        jobDataMap = new JobDataMap();
+        jobDataMap.put("key1", "value1");
+        jobDataMap.put("key2", 2);
+    }
+    
+    private JobDataMap readBack(JobDataMap data) throws Exception {
+        byte[] bytes = delegate.serializeJobData(data).toByteArray();
+        return delegate.getJobDataMapFromBlob(
+                BinaryJobDataMapCodecTest.createResultSet(bytes));
+    }
+    
+    public void testDecodedOnFirstUse() throws Exception {
+        LazyJobDataMap lazy = (LazyJobDataMap) readBack(jobDataMap);
+        assertFalse(lazy.isLoaded());
+        assertFalse(lazy.isDirty());
+        
+        assertEquals(2, lazy.getInt("key2"));
+        assertTrue(lazy.isLoaded());
+        assertFalse(lazy.isDirty());
+        assertEquals(jobDataMap, lazy);
+        
+        lazy.put("key3", "value3");
+        assertTrue(lazy.isDirty());
+        assertEquals(3, lazy.size());
+        
+        assertTrue(readBack(new JobDataMap()).isEmpty());
+    }
+    
+    public void testDecodedWithCodec() throws Exception {
+        JobDataMap serialized = readBack(jobDataMap);
+        
+        delegate.setJobDataMapCodec(new BinaryJobDataMapCodec());
+        assertEquals(jobDataMap, readBack(jobDataMap));
+        assertEquals(jobDataMap, serialized);
+    }
+    
+    public void testCloneAndSerialize() throws Exception {
+        JobDetail job = new JobDetail();
+        job.setJobDataMap(readBack(jobDataMap));
+        
+        JobDetail copy = (JobDetail) job.clone();
+        assertFalse(((LazyJobDataMap) copy.getJobDataMap()).isLoaded());
+        assertFalse(((LazyJobDataMap) job.getJobDataMap()).isLoaded());
+        copy.getJobDataMap().put("key1", "changed");
+        assertEquals("value1", job.getJobDataMap().getString("key1"));
+        
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(baos);
+        out.writeObject(readBack(jobDataMap));
+        out.close();
+        Object read = new ObjectInputStream(
+                new ByteArrayInputStream(baos.toByteArray())).readObject();
+        
+        assertEquals(JobDataMap.class, read.getClass());
+        assertEquals(jobDataMap, read);
+        assertFalse(((JobDataMap) read).isDirty());
+    }
+    
+    public void testDecodedOnceAcrossThreads() throws Exception {
+        for (int i = 0; i < 100; i++) {
+            jobDataMap.put("key" + i, "value" + i);
+        }
+        final LazyJobDataMap lazy = (LazyJobDataMap) readBack(jobDataMap);
+        final Object start = new Object();
+        final boolean[] started = new boolean[1];
+        final int[] sizes = new int[8];
+        
+        Thread[] readers = new Thread[sizes.length];
+        for (int i = 0; i < readers.length; i++) {
+            final int reader = i;
+            readers[i] = new Thread() {
+                public void run() {
+                    synchronized (start) {
+                        while (!started[0]) {
+                            try {
+                                start.wait();
+                            } catch (InterruptedException ignore) {
+                            }
+                        }
+                    }
+                    sizes[reader] = lazy.size();
+                }
+            };
+            readers[i].start();
+        }
+        synchronized (start) {
+            started[0] = true;
+            start.notifyAll();
+        }
+        for (int i = 0; i < readers.length; i++) {
+            readers[i].join();
+        }
+        
+        for (int i = 0; i < sizes.length; i++) {
+            assertEquals(jobDataMap.size(), sizes[i]);
+        }
+        assertTrue(lazy.isLoaded());
+        assertEquals(jobDataMap, lazy);
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2001-2009 James House
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.quartz.impl.jdbcjobstore;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.quartz.SchedulerMetrics;
+
+public class StatementCachingConnectionInvocationHandlerTest extends TestCase {
+
+    private List prepared;
+
+    private List closed;
+
+    private SchedulerMetrics metrics;
+
+    private Connection conn;
+
+    protected void setUp() {
+        prepared = new ArrayList();
+        closed = new ArrayList();
+        metrics = new SchedulerMetrics();
+
+        Connection target = (Connection) Proxy.newProxyInstance(
+            Connection.class.getClassLoader(), new Class[] {Connection.class},
+            new InvocationHandler() {
+                public Object invoke(Object proxy, Method method, Object[] args) {
+                    if (method.getName().equals("prepareStatement")) {
+                        return createStatement((String) args[0]);
+                    } else if (method.getName().equals("close")) {
+                        return null;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                }
+            });
+
+        conn = (Connection) Proxy.newProxyInstance(
+            Connection.class.getClassLoader(), new Class[] {Connection.class},
+            new StatementCachingConnectionInvocationHandler(target, 2, metrics));
+    }
+
+    public void testReusesClosedStatements() throws Exception {
+        PreparedStatement ps = conn.prepareStatement("SELECT 1");
+        ps.setString(1, "value");
+        ps.close();
+
+        PreparedStatement again = conn.prepareStatement("SELECT 1");
+        assertSame(ps, again);
+        assertEquals(1, prepared.size());
+        assertEquals(1, metrics.getStatementCacheHits());
+        assertEquals(1, metrics.getStatementCacheMisses());
+
+        // while it is in use, the same SQL gets a statement of its own
+        PreparedStatement other = conn.prepareStatement("SELECT 1");
+        assertNotSame(again, other);
+        assertEquals(2, prepared.size());
+        other.close();
+        assertEquals(1, closed.size());
+
+        again.close();
+        conn.close();
+        assertEquals(2, closed.size());
+    }
+
+    public void testClosesEvictedStatements() throws Exception {
+        conn.prepareStatement("SELECT 1").close();
+        conn.prepareStatement("SELECT 2").close();
+        conn.prepareStatement("SELECT 3").close();
+
+        assertEquals(1, closed.size());
+        assertEquals("SELECT 1", closed.get(0));
+    }
+
+    private PreparedStatement createStatement(final String sql) {
+        prepared.add(sql);
+        return (PreparedStatement) Proxy.newProxyInstance(
+            PreparedStatement.class.getClassLoader(), new Class[] {PreparedStatement.class},
+            new InvocationHandler() {
+                public Object invoke(Object proxy, Method method, Object[] args) {
+                    if (method.getName().equals("close")) {
+                        closed.add(sql);
+                    }
+                    return null;
+                }
+            });
+    }
+}
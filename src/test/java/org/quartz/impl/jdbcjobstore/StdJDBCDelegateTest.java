@@ -17,9 +17,28 @@ package org.quartz.impl.jdbcjobstore;
 
 import java.io.IOException;
 import java.io.NotSerializableException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 
 import org.apache.commons.logging.LogFactory;
+import org.quartz.CronTrigger;
 import org.quartz.JobDataMap;
+import org.quartz.Scheduler;
+import org.quartz.SimpleTrigger;
+import org.quartz.utils.Key;
 
 import junit.framework.TestCase;
 
@@ -47,4 +66,335 @@ public class StdJDBCDelegateTest extends TestCase {
             assertTrue(e.getMessage().indexOf("key3") >= 0);
         }
     }
+
+    public void testUpdateMisfiredTriggers() throws Exception {
+        StdJDBCDelegate delegate = new StdJDBCDelegate(LogFactory.getLog(getClass()), "QRTZ_", "INSTANCE");
+        
+        Date now = new Date();
+        SimpleTrigger simple = new SimpleTrigger("simple", "group", 
+                "job", "group", now, null, 5, 1000L);
+        simple.setNextFireTime(now);
+        simple.setTimesTriggered(2);
+        CronTrigger cron = new CronTrigger("cron", "group", "job", "group", "0 0 12 * * ?");
+        cron.setStartTime(now);
+        cron.setNextFireTime(now);
+        
+        List statements = new ArrayList();
+        List batches = new ArrayList();
+        Connection conn = createRecordingConnection(statements, batches);
+        
+        int[] updateCounts = delegate.updateMisfiredTriggers(
+                conn, Arrays.asList(new Object[] {simple, cron}), Constants.STATE_WAITING);
+        
+        assertEquals(2, updateCounts.length);
+        assertEquals(2, statements.size());
+        assertTrue(((String) statements.get(0)).startsWith("UPDATE QRTZ_TRIGGERS"));
+        assertTrue(((String) statements.get(1)).startsWith("UPDATE QRTZ_SIMPLE_TRIGGERS"));
+        
+        assertEquals(3, batches.size());
+        List rows = getBatches(statements, batches, "UPDATE QRTZ_TRIGGERS");
+        List simpleRow = (List) rows.get(0);
+        assertEquals(new BigDecimal(String.valueOf(now.getTime())), simpleRow.get(0));
+        assertEquals(Constants.STATE_WAITING, simpleRow.get(2));
+        assertEquals("simple", simpleRow.get(5));
+        assertEquals("cron", ((List) rows.get(1)).get(5));
+        List simpleTriggerRow = (List) getBatches(
+                statements, batches, "UPDATE QRTZ_SIMPLE_TRIGGERS").get(0);
+        assertEquals(new Integer(5), simpleTriggerRow.get(0));
+        assertEquals(new Integer(2), simpleTriggerRow.get(2));
+        assertEquals("simple", simpleTriggerRow.get(3));
+    }
+
+    public void testInsertSimpleTriggers() throws Exception {
+        StdJDBCDelegate delegate = new StdJDBCDelegate(LogFactory.getLog(getClass()), "QRTZ_", "INSTANCE");
+        
+        Date now = new Date();
+        SimpleTrigger first = new SimpleTrigger("recover_1", "group", now);
+        first.setJobName("job");
+        first.setJobGroup("group");
+        first.getJobDataMap().put("key", "value");
+        first.computeFirstFireTime(null);
+        SimpleTrigger second = new SimpleTrigger("recover_2", "group", now);
+        second.setJobName("job");
+        second.setJobGroup("group");
+        second.computeFirstFireTime(null);
+        
+        List statements = new ArrayList();
+        List batches = new ArrayList();
+        Connection conn = createRecordingConnection(statements, batches);
+        
+        int[] insertCounts = delegate.insertSimpleTriggers(
+                conn, Arrays.asList(new Object[] {first, second}), Constants.STATE_PAUSED);
+        
+        assertEquals(2, insertCounts.length);
+        assertEquals(2, statements.size());
+        assertTrue(((String) statements.get(0)).startsWith("INSERT INTO QRTZ_TRIGGERS"));
+        assertTrue(((String) statements.get(1)).startsWith("INSERT INTO QRTZ_SIMPLE_TRIGGERS"));
+        
+        assertEquals(4, batches.size());
+        List rows = getBatches(statements, batches, "INSERT INTO QRTZ_TRIGGERS");
+        List firstRow = (List) rows.get(0);
+        assertEquals("recover_1", firstRow.get(0));
+        assertEquals(Constants.STATE_PAUSED, firstRow.get(8));
+        assertEquals(Constants.TTYPE_SIMPLE, firstRow.get(9));
+        assertNotNull(firstRow.get(14));
+        assertEquals("recover_2", ((List) rows.get(1)).get(0));
+        rows = getBatches(statements, batches, "INSERT INTO QRTZ_SIMPLE_TRIGGERS");
+        assertEquals("recover_1", ((List) rows.get(0)).get(0));
+        assertEquals("recover_2", ((List) rows.get(1)).get(0));
+    }
+
+    public void testTablePrefixSubstitution() {
+        StdJDBCDelegate delegate = new StdJDBCDelegate(LogFactory.getLog(getClass()), "TEST_", "INSTANCE");
+        
+        String query = delegate.rtp(StdJDBCConstants.SELECT_TRIGGER_STATE);
+        assertTrue(query.indexOf(" FROM TEST_TRIGGERS ") > 0);
+        assertSame(query, delegate.rtp(StdJDBCConstants.SELECT_TRIGGER_STATE));
+        assertTrue(new DB2v6Delegate(LogFactory.getLog(getClass()), "TEST_", "INSTANCE")
+                .rtp(DB2v6Delegate.SELECT_NUM_JOBS).endsWith(" FROM TEST_JOB_DETAILS"));
+        
+        // queries built as they are used are substituted too
+        assertEquals("SELECT * FROM TEST_LOCKS", delegate.rtp("SELECT * FROM {0}LOCKS"));
+    }
+
+    public void testSelectNextTriggerToAcquireSkipLocked() {
+        StdJDBCDelegate std = new StdJDBCDelegate(LogFactory.getLog(getClass()), "QRTZ_", "INSTANCE");
+        assertFalse(std.supportsSkipLocked());
+        assertNull(std.getSelectNextTriggerToAcquireSkipLocked(10));
+        
+        StdJDBCDelegate postgres = new PostgreSQLDelegate(LogFactory.getLog(getClass()), "QRTZ_", "INSTANCE");
+        assertTrue(postgres.supportsSkipLocked());
+        assertTrue(postgres.getSelectNextTriggerToAcquireSkipLocked(10).endsWith(
+                " LIMIT 10 FOR UPDATE SKIP LOCKED"));
+        
+        StdJDBCDelegate mssql = new MSSQLDelegate(LogFactory.getLog(getClass()), "QRTZ_", "INSTANCE");
+        assertTrue(mssql.supportsSkipLocked());
+        String sql = mssql.getSelectNextTriggerToAcquireSkipLocked(10);
+        assertTrue(sql.startsWith("SELECT TOP 10 "));
+        assertTrue(sql.indexOf(" WITH (UPDLOCK, ROWLOCK, READPAST) WHERE ") > 0);
+    }
+    
+    public void testClusterRecoverInBulk() throws Exception {
+        final StdJDBCDelegate delegate = new StdJDBCDelegate(LogFactory.getLog(getClass()), "QRTZ_", "INSTANCE");
+        JobStoreSupport store = new JobStoreTX() {
+            protected DriverDelegate getDelegate() {
+                return delegate;
+            }
+        };
+        store.setInstanceId("INSTANCE");
+        
+        // jobs requesting recovery, one of which no longer exists
+        int count = 250;
+        List firedTriggerRecs = new ArrayList();
+        List existingJobs = new ArrayList();
+        for (int i = 0; i < count; i++) {
+            firedTriggerRecs.add(createFiredTriggerRecord(
+                    "trigger" + i, "job" + i, Constants.STATE_EXECUTING, true, false));
+            if (i != 7) {
+                Map row = new HashMap();
+                row.put(Constants.COL_JOB_NAME, "job" + i);
+                row.put(Constants.COL_JOB_GROUP, "group");
+                existingJobs.add(row);
+            }
+        }
+        firedTriggerRecs.add(createFiredTriggerRecord(
+                "acquired", "job", Constants.STATE_ACQUIRED, false, false));
+        firedTriggerRecs.add(createFiredTriggerRecord(
+                "stateful", "statefulJob", Constants.STATE_EXECUTING, false, true));
+        
+        SchedulerStateRecord failed = new SchedulerStateRecord();
+        failed.setSchedulerInstanceId("FAILED");
+        
+        List statements = new ArrayList();
+        List batches = new ArrayList();
+        Map queryRows = new HashMap();
+        queryRows.put("SELECT JOB_NAME, JOB_GROUP FROM QRTZ_JOB_DETAILS", existingJobs);
+        Connection conn = createRecordingConnection(statements, batches, queryRows);
+        
+        long recoverIds = store.clusterRecoverInBulk(conn, failed, firedTriggerRecs, 1000L);
+        
+        assertEquals(1000L + count - 1, recoverIds);
+        
+        // the stateful job's triggers are released
+        List rows = getBatches(statements, batches, "UPDATE QRTZ_TRIGGERS SET TRIGGER_STATE = ? WHERE JOB_NAME");
+        assertEquals(2, rows.size());
+        assertEquals(Arrays.asList(new Object[] {Constants.STATE_WAITING, "statefulJob", "group", Constants.STATE_BLOCKED}), rows.get(0));
+        assertEquals(Arrays.asList(new Object[] {Constants.STATE_PAUSED, "statefulJob", "group", Constants.STATE_PAUSED_BLOCKED}), rows.get(1));
+        
+        // as is the acquired trigger
+        rows = getBatches(statements, batches, "UPDATE QRTZ_TRIGGERS SET TRIGGER_STATE = ? WHERE TRIGGER_NAME");
+        assertEquals(Collections.singletonList(Arrays.asList(new Object[] {
+                Constants.STATE_WAITING, "acquired", "group", Constants.STATE_ACQUIRED})), rows);
+        
+        // the keys are matched 100 at a time
+        rows = getBatches(statements, batches, "SELECT JOB_NAME, JOB_GROUP FROM QRTZ_JOB_DETAILS");
+        assertEquals(3, rows.size());
+        assertEquals(200, ((List) rows.get(0)).size());
+        assertEquals(200, ((List) rows.get(1)).size());
+        assertEquals(100, ((List) rows.get(2)).size());
+        assertEquals(3, getBatches(statements, batches, 
+                "SELECT TRIGGER_NAME, TRIGGER_GROUP, JOB_DATA FROM QRTZ_TRIGGERS").size());
+        rows = getBatches(statements, batches, 
+                "SELECT TRIGGER_NAME, TRIGGER_GROUP FROM QRTZ_TRIGGERS WHERE TRIGGER_STATE = ?");
+        assertEquals(3, rows.size());
+        assertEquals(Constants.STATE_COMPLETE, ((List) rows.get(0)).get(0));
+        assertEquals(201, ((List) rows.get(0)).size());
+        assertEquals(105, ((List) rows.get(2)).size());
+        
+        // a recovery trigger is inserted for each job that still exists
+        rows = getBatches(statements, batches, "INSERT INTO QRTZ_TRIGGERS");
+        assertEquals(count - 1, rows.size());
+        List first = (List) rows.get(0);
+        assertEquals("recover_FAILED_1000", first.get(0));
+        assertEquals(Scheduler.DEFAULT_RECOVERY_GROUP, first.get(1));
+        assertEquals("job0", first.get(2));
+        assertEquals(Constants.STATE_WAITING, first.get(8));
+        assertEquals("job8", ((List) rows.get(7)).get(2));
+        assertEquals(count - 1, getBatches(statements, batches, 
+                "INSERT INTO QRTZ_SIMPLE_TRIGGERS").size());
+        
+        // and the failed instance's fired trigger records and state are removed
+        assertEquals(Collections.singletonList(Collections.singletonList("FAILED")), 
+                getBatches(statements, batches, "DELETE FROM QRTZ_FIRED_TRIGGERS"));
+        assertEquals(Collections.singletonList(Collections.singletonList("FAILED")), 
+                getBatches(statements, batches, "DELETE FROM QRTZ_SCHEDULER_STATE"));
+    }
+    
+    private static FiredTriggerRecord createFiredTriggerRecord(String triggerName, 
+            String jobName, String state, boolean requestsRecovery, boolean stateful) {
+        FiredTriggerRecord rec = new FiredTriggerRecord();
+        rec.setFireInstanceId("fired_" + triggerName);
+        rec.setFireInstanceState(state);
+        rec.setFireTimestamp(System.currentTimeMillis());
+        rec.setTriggerKey(new Key(triggerName, "group"));
+        rec.setJobKey(new Key(jobName, "group"));
+        rec.setJobRequestsRecovery(requestsRecovery);
+        rec.setJobIsStateful(stateful);
+        rec.setSchedulerInstanceId("FAILED");
+        return rec;
+    }
+    
+    /**
+     * The parameters of the batches and executions of the statements whose
+     * SQL starts with the given prefix.
+     */
+    private static List getBatches(List statements, List batches, String sqlPrefix) {
+        List matching = new ArrayList();
+        for (int i = 0; i < batches.size(); i++) {
+            Object[] batch = (Object[]) batches.get(i);
+            if (((String) statements.get(((Integer) batch[0]).intValue())).startsWith(sqlPrefix)) {
+                matching.add(batch[1]);
+            }
+        }
+        return matching;
+    }
+    
+    private static Connection createRecordingConnection(List statements, List batches) {
+        return createRecordingConnection(statements, batches, Collections.EMPTY_MAP);
+    }
+    
+    /**
+     * A Connection that adds the SQL of each statement prepared with it to
+     * the given List, and records their batches and executions in the given
+     * List of batches, for <code>getBatches()</code>.  Queries answer the
+     * rows, as Maps by column, given for the start of their SQL.
+     */
+    private static Connection createRecordingConnection(final List statements, 
+            final List batches, final Map queryRows) {
+        return (Connection) Proxy.newProxyInstance(
+            Connection.class.getClassLoader(), new Class[] {Connection.class}, 
+            new InvocationHandler() {
+                public Object invoke(Object proxy, Method method, Object[] args) {
+                    if (method.getName().equals("prepareStatement")) {
+                        String sql = (String) args[0];
+                        statements.add(sql);
+                        List rows = Collections.EMPTY_LIST;
+                        for (Iterator itr = queryRows.keySet().iterator(); itr.hasNext();) {
+                            String prefix = (String) itr.next();
+                            if (sql.startsWith(prefix)) {
+                                rows = (List) queryRows.get(prefix);
+                            }
+                        }
+                        return createRecordingStatement(
+                                statements.size() - 1, batches, rows);
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                }
+            });
+    }
+    
+    /**
+     * A PreparedStatement that adds the parameters of each batch added to it,
+     * or execution of it, as a List, to the given List of batches, along with
+     * the index of its SQL among the prepared statements.
+     */
+    private static PreparedStatement createRecordingStatement(final int index, 
+            final List batches, final List rows) {
+        return (PreparedStatement) Proxy.newProxyInstance(
+            PreparedStatement.class.getClassLoader(), new Class[] {PreparedStatement.class}, 
+            new InvocationHandler() {
+                private List parameters = new ArrayList();
+                private int batchCount = 0;
+                
+                public Object invoke(Object proxy, Method method, Object[] args) {
+                    String name = method.getName();
+                    if (name.equals("setMaxRows")) {
+                        return null;
+                    } else if (name.startsWith("set")) {
+                        int parameterIndex = ((Integer) args[0]).intValue() - 1;
+                        while (parameters.size() <= parameterIndex) {
+                            parameters.add(null);
+                        }
+                        parameters.set(parameterIndex, args[1]);
+                        return null;
+                    } else if (name.equals("addBatch")) {
+                        recordParameters();
+                        batchCount++;
+                        return null;
+                    } else if (name.equals("executeBatch")) {
+                        int[] updateCounts = new int[batchCount];
+                        Arrays.fill(updateCounts, 1);
+                        batchCount = 0;
+                        return updateCounts;
+                    } else if (name.equals("executeUpdate")) {
+                        recordParameters();
+                        return new Integer(1);
+                    } else if (name.equals("executeQuery")) {
+                        recordParameters();
+                        return createResultSet(rows);
+                    } else if (name.equals("close")) {
+                        return null;
+                    }
+                    throw new UnsupportedOperationException(name);
+                }
+                
+                private void recordParameters() {
+                    batches.add(new Object[] {new Integer(index), parameters});
+                    parameters = new ArrayList();
+                }
+            });
+    }
+    
+    /**
+     * A ResultSet of the given rows, each a Map of column values by name.
+     */
+    private static ResultSet createResultSet(final List rows) {
+        return (ResultSet) Proxy.newProxyInstance(
+            ResultSet.class.getClassLoader(), new Class[] {ResultSet.class}, 
+            new InvocationHandler() {
+                private int row = -1;
+                
+                public Object invoke(Object proxy, Method method, Object[] args) {
+                    String name = method.getName();
+                    if (name.equals("next")) {
+                        return Boolean.valueOf(++row < rows.size());
+                    } else if (name.equals("getString")) {
+                        return ((Map) rows.get(row)).get(args[0]);
+                    } else if (name.equals("close")) {
+                        return null;
+                    }
+                    throw new UnsupportedOperationException(name);
+                }
+            });
+    }
 }
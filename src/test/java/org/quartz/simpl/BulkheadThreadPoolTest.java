@@ -0,0 +1,141 @@
+/*
+ * Copyright 2001-2009 James House
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.quartz.simpl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.quartz.SchedulerConfigException;
+import org.quartz.SimpleTrigger;
+import org.quartz.Trigger;
+import org.quartz.spi.TriggerAcquisitionLimit;
+
+/**
+ * Unit test for BulkheadThreadPool.
+ */
+public class BulkheadThreadPoolTest extends TestCase {
+
+    private BulkheadThreadPool pool;
+
+    protected void setUp() throws Exception {
+        pool = new BulkheadThreadPool(4, Thread.NORM_PRIORITY);
+        pool.setBulkheads("reports(0,2)=REPORTS; alerts(1,2)=ALERTS,PAGES");
+        pool.initialize();
+    }
+
+    protected void tearDown() throws Exception {
+        pool.shutdown(true);
+    }
+
+    private static Trigger trigger(String group) {
+        return new SimpleTrigger("t", group);
+    }
+
+    public void testAcquisitionLimit() {
+        TriggerAcquisitionLimit limit = pool.createAcquisitionLimit(null);
+
+        // capped at its maximum
+        assertTrue(limit.acquire(trigger("REPORTS")));
+        assertTrue(limit.acquire(trigger("REPORTS")));
+        assertFalse(limit.acquire(trigger("REPORTS")));
+
+        // one thread is left for the default bulkhead, as one is kept for alerts
+        assertTrue(limit.acquire(trigger("DEFAULT")));
+        assertFalse(limit.acquire(trigger("DEFAULT")));
+
+        assertTrue(limit.acquire(trigger("PAGES")));
+        assertFalse(limit.acquire(trigger("ALERTS")));
+    }
+
+    public void testRunningJobsCountAgainstLimit() throws Exception {
+        final int[] signals = new int[1];
+        pool.setCapacitySignal(new Runnable() {
+            public void run() {
+                synchronized (signals) {
+                    signals[0]++;
+                }
+            }
+        });
+
+        QueuedThreadPoolTest.Gate gate = new QueuedThreadPoolTest.Gate();
+        assertTrue(pool.runInThread(gate, trigger("REPORTS")));
+        assertTrue(pool.runInThread(gate, trigger("REPORTS")));
+        gate.awaitEntered(2);
+        assertEquals(2, pool.getRunningCount("reports"));
+
+        TriggerAcquisitionLimit limit = pool.createAcquisitionLimit(null);
+        assertFalse(limit.acquire(trigger("REPORTS")));
+        assertTrue(limit.acquire(trigger("ALERTS")));
+
+        gate.open();
+        pool.shutdown(true);
+        assertEquals(0, pool.getRunningCount("reports"));
+        synchronized (signals) {
+            assertEquals(1, signals[0]);
+        }
+    }
+
+    public void testAcquiredTriggersCountAgainstLimit() {
+        List acquired = new ArrayList();
+        acquired.add(trigger("REPORTS"));
+        acquired.add(trigger("PAGES"));
+
+        TriggerAcquisitionLimit limit = pool.createAcquisitionLimit(acquired);
+        assertTrue(limit.acquire(trigger("REPORTS")));
+        assertFalse(limit.acquire(trigger("REPORTS")));
+
+        // alerts' minimum is met, so it may only take the last free thread
+        assertTrue(limit.acquire(trigger("ALERTS")));
+        assertFalse(limit.acquire(trigger("DEFAULT")));
+    }
+
+    public void testFullBulkheadRefusesWithoutBlocking() throws Exception {
+        final int[] signals = new int[1];
+        pool.setCapacitySignal(new Runnable() {
+            public void run() {
+                synchronized (signals) {
+                    signals[0]++;
+                }
+            }
+        });
+
+        QueuedThreadPoolTest.Gate gate = new QueuedThreadPoolTest.Gate();
+        assertTrue(pool.runInThread(gate, trigger("REPORTS")));
+        assertTrue(pool.runInThread(gate, trigger("REPORTS")));
+        gate.awaitEntered(2);
+
+        assertFalse(pool.runInThread(gate, trigger("REPORTS")));
+        assertEquals(2, pool.getRunningCount("reports"));
+
+        gate.open();
+        pool.shutdown(true);
+        synchronized (signals) {
+            assertEquals(1, signals[0]);
+        }
+    }
+
+    public void testTooManyThreadsReserved() {
+        BulkheadThreadPool small = new BulkheadThreadPool(2, Thread.NORM_PRIORITY);
+        small.setBulkheads("a(1,2)=A; b(2,2)=B");
+        try {
+            small.initialize();
+            fail("Expected SchedulerConfigException");
+        } catch (SchedulerConfigException expected) {
+        }
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2001-2009 James House
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.quartz.simpl;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import org.quartz.JobDetail;
+import org.quartz.SimpleTrigger;
+import org.quartz.Trigger;
+import org.quartz.jobs.NoOpJob;
+import org.quartz.spi.JobStore;
+import org.quartz.spi.TriggerFiredBundle;
+
+/**
+ * Runs the RAMJobStore tests against ConcurrentRAMJobStore, plus tests of
+ * the behavior that depends on its striped job and trigger catalog.
+ */
+public class ConcurrentRAMJobStoreTest extends RAMJobStoreTest {
+
+    protected JobStore createJobStore() {
+        ConcurrentRAMJobStore jobStore = new ConcurrentRAMJobStore();
+        // few stripes, so that groups share them
+        jobStore.setStripeCount(3);
+        return jobStore;
+    }
+
+    public void testGroupsAcrossStripes() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            JobDetail job = new JobDetail("job", "group" + i, NoOpJob.class);
+            job.setDurability(true);
+            this.fJobStore.storeJob(null, job, false);
+            Trigger trigger = new SimpleTrigger("trigger", "triggerGroup" + i,
+                    "job", "group" + i, new Date(), null, 0, 0);
+            this.fJobStore.storeTrigger(null, trigger, false);
+        }
+
+        assertEquals(11, this.fJobStore.getNumberOfJobs(null));
+        assertEquals(10, this.fJobStore.getNumberOfTriggers(null));
+        assertEquals(11, this.fJobStore.getJobGroupNames(null).length);
+        assertEquals(10, this.fJobStore.getTriggerGroupNames(null).length);
+        assertTrue(Arrays.asList(this.fJobStore.getTriggerGroupNames(null)).contains("triggerGroup7"));
+        assertEquals(1, this.fJobStore.getTriggersForJob(null, "job", "group7").length);
+
+        assertTrue(this.fJobStore.removeJob(null, "job", "group7"));
+        assertNull(this.fJobStore.retrieveTrigger(null, "trigger", "triggerGroup7"));
+        assertEquals(0, this.fJobStore.getTriggerNames(null, "triggerGroup7").length);
+        assertEquals(9, this.fJobStore.getNumberOfTriggers(null));
+
+        this.fJobStore.pauseAll(null);
+        assertEquals(Trigger.STATE_PAUSED, this.fJobStore.getTriggerState(null, "trigger", "triggerGroup3"));
+        this.fJobStore.resumeAll(null);
+        assertEquals(Trigger.STATE_NORMAL, this.fJobStore.getTriggerState(null, "trigger", "triggerGroup3"));
+    }
+
+    public void testRemoveTriggerRemovesOrphanedJob() throws Exception {
+        JobDetail job = new JobDetail("job2", "jobGroup2", NoOpJob.class);
+        this.fJobStore.storeJob(null, job, false);
+        Trigger trigger1 = new SimpleTrigger("trigger1", "triggerGroup1",
+                "job2", "jobGroup2", new Date(), null, 0, 0);
+        Trigger trigger2 = new SimpleTrigger("trigger2", "triggerGroup2",
+                "job2", "jobGroup2", new Date(), null, 0, 0);
+        this.fJobStore.storeTrigger(null, trigger1, false);
+        this.fJobStore.storeTrigger(null, trigger2, false);
+
+        assertTrue(this.fJobStore.removeTrigger(null, "trigger1", "triggerGroup1"));
+        assertNotNull(this.fJobStore.retrieveJob(null, "job2", "jobGroup2"));
+        assertTrue(this.fJobStore.removeTrigger(null, "trigger2", "triggerGroup2"));
+        assertNull(this.fJobStore.retrieveJob(null, "job2", "jobGroup2"));
+    }
+
+    public void testStatefulJobBlocksItsTriggers() throws Exception {
+        JobDetail job = new JobDetail("job2", "jobGroup2", StatefulNoOpJob.class);
+        job.setDurability(true);
+        this.fJobStore.storeJob(null, job, false);
+
+        long baseFireTime = System.currentTimeMillis() + 100000;
+        Trigger trigger1 = new SimpleTrigger("trigger1", "triggerGroup1",
+                "job2", "jobGroup2", new Date(baseFireTime), null, 0, 0);
+        Trigger trigger2 = new SimpleTrigger("trigger2", "triggerGroup2",
+                "job2", "jobGroup2", new Date(baseFireTime + 1000), null, 0, 0);
+        trigger1.computeFirstFireTime(null);
+        trigger2.computeFirstFireTime(null);
+        this.fJobStore.storeTrigger(null, trigger1, false);
+        this.fJobStore.storeTrigger(null, trigger2, false);
+
+        List acquired = this.fJobStore.acquireNextTriggers(null, baseFireTime, 1, 0L);
+        assertEquals(1, acquired.size());
+        Trigger firing = (Trigger) acquired.get(0);
+        TriggerFiredBundle bundle = this.fJobStore.triggerFired(null, firing);
+        assertNotNull(bundle);
+        assertEquals(Trigger.STATE_BLOCKED, this.fJobStore.getTriggerState(null, "trigger2", "triggerGroup2"));
+        assertNull(this.fJobStore.acquireNextTrigger(null, baseFireTime + 1000));
+
+        this.fJobStore.triggeredJobComplete(null, firing, bundle.getJobDetail(),
+                Trigger.INSTRUCTION_NOOP);
+        assertEquals(Trigger.STATE_NORMAL, this.fJobStore.getTriggerState(null, "trigger2", "triggerGroup2"));
+        assertEquals(trigger2, this.fJobStore.acquireNextTrigger(null, baseFireTime + 1000));
+    }
+}
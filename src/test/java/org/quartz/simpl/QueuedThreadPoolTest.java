@@ -0,0 +1,136 @@
+/*
+ * Copyright 2001-2009 James House
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.quartz.simpl;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit test for QueuedThreadPool.
+ */
+public class QueuedThreadPoolTest extends TestCase {
+
+    private QueuedThreadPool pool;
+
+    protected void tearDown() throws Exception {
+        if (pool != null) {
+            pool.shutdown(true);
+        }
+    }
+
+    /**
+     * A Runnable that blocks until released.
+     */
+    static class Gate implements Runnable {
+        private boolean open = false;
+        private int entered = 0;
+        private int completed = 0;
+
+        public synchronized void run() {
+            entered++;
+            notifyAll();
+            while (!open) {
+                try {
+                    wait();
+                } catch (InterruptedException ignore) {
+                }
+            }
+            completed++;
+            notifyAll();
+        }
+
+        synchronized void awaitEntered(int count) throws InterruptedException {
+            long end = System.currentTimeMillis() + 5000;
+            while (entered < count && System.currentTimeMillis() < end) {
+                wait(100);
+            }
+            assertEquals(count, entered);
+        }
+
+        synchronized void open() {
+            open = true;
+            notifyAll();
+        }
+
+        synchronized int getCompleted() {
+            return completed;
+        }
+    }
+
+    public void testAvailabilityIncludesQueue() throws Exception {
+        pool = new QueuedThreadPool(2, Thread.NORM_PRIORITY);
+        pool.setQueueCapacity(1);
+        pool.initialize();
+
+        assertEquals(3, pool.blockForAvailableThreads());
+
+        Gate gate = new Gate();
+        assertTrue(pool.runInThread(gate));
+        assertTrue(pool.runInThread(gate));
+        gate.awaitEntered(2);
+        assertEquals(1, pool.blockForAvailableThreads());
+
+        // queued, as both workers are busy
+        assertTrue(pool.runInThread(gate));
+        gate.awaitEntered(2);
+
+        gate.open();
+        gate.awaitEntered(3);
+        pool.shutdown(true);
+        assertEquals(3, gate.getCompleted());
+    }
+
+    public void testRunInThreadBlocksUntilAvailable() throws Exception {
+        pool = new QueuedThreadPool(1, Thread.NORM_PRIORITY);
+        pool.initialize();
+
+        final Gate gate = new Gate();
+        assertTrue(pool.runInThread(gate));
+        gate.awaitEntered(1);
+
+        Thread opener = new Thread() {
+            public void run() {
+                try {
+                    Thread.sleep(200);
+                } catch (InterruptedException ignore) {
+                }
+                gate.open();
+            }
+        };
+        opener.start();
+
+        // blocks until the gate is opened, and the worker freed
+        assertTrue(pool.runInThread(gate));
+        gate.awaitEntered(2);
+        pool.shutdown(true);
+        assertEquals(2, gate.getCompleted());
+    }
+
+    public void testVirtualThreadsOrFallback() throws Exception {
+        pool = new QueuedThreadPool(50, Thread.NORM_PRIORITY);
+        pool.setUseVirtualThreads(true);
+        pool.initialize();
+
+        // whether or not this JVM has virtual threads, the pool must work
+        Gate gate = new Gate();
+        for (int i = 0; i < 50; i++) {
+            assertTrue(pool.runInThread(gate));
+        }
+        gate.awaitEntered(50);
+        gate.open();
+        pool.shutdown(true);
+        assertEquals(50, gate.getCompleted());
+    }
+}
@@ -16,28 +16,39 @@
 package org.quartz.simpl;
 
 import java.util.Date;
+import java.util.List;
 
 import junit.framework.TestCase;
 
 import org.quartz.JobDetail;
+import org.quartz.JobPersistenceException;
 import org.quartz.ObjectAlreadyExistsException;
 import org.quartz.SimpleTrigger;
 import org.quartz.Trigger;
+import org.quartz.StatefulJob;
+import org.quartz.impl.calendar.BaseCalendar;
+import org.quartz.impl.calendar.HolidayCalendar;
 import org.quartz.jobs.NoOpJob;
 import org.quartz.spi.JobStore;
 import org.quartz.spi.SchedulerSignaler;
+import org.quartz.spi.TriggerAcquisitionLimit;
+import org.quartz.spi.TriggerFiredResult;
 
 /**
  * Unit test for RAMJobStore.  These tests were submitted by Johannes Zillmann
  * as part of issue QUARTZ-306.
  */
 public class RAMJobStoreTest extends TestCase {
-    private JobStore fJobStore;
-    private JobDetail fJobDetail;
+    protected JobStore fJobStore;
+    protected JobDetail fJobDetail;
     private SampleSignaler fSignaler;
 
+    protected JobStore createJobStore() {
+        return new RAMJobStore();
+    }
+
     protected void setUp() throws Exception {
-        this.fJobStore = new RAMJobStore();
+        this.fJobStore = createJobStore();
         this.fSignaler = new SampleSignaler();
         this.fJobStore.initialize(null, this.fSignaler);
 
@@ -90,6 +101,141 @@ public class RAMJobStoreTest extends TestCase {
             this.fJobStore.acquireNextTrigger(null, new Date(trigger1.getNextFireTime().getTime()).getTime() + 10000));
     }
 
+    public void testAcquireNextTriggerBatch() throws Exception {
+        long baseFireTime = System.currentTimeMillis() + 100000;
+        
+        Trigger trigger1 = 
+            new SimpleTrigger("trigger1", "triggerGroup1", this.fJobDetail.getName(), 
+                    this.fJobDetail.getGroup(), new Date(baseFireTime), null, 0, 0);
+        Trigger trigger2 = 
+            new SimpleTrigger("trigger2", "triggerGroup1", this.fJobDetail.getName(), 
+                    this.fJobDetail.getGroup(), new Date(baseFireTime + 1000), null, 0, 0);
+        Trigger trigger3 = 
+            new SimpleTrigger("trigger3", "triggerGroup1", this.fJobDetail.getName(), 
+                    this.fJobDetail.getGroup(), new Date(baseFireTime + 2000), null, 0, 0);
+        Trigger trigger4 = 
+            new SimpleTrigger("trigger4", "triggerGroup1", this.fJobDetail.getName(), 
+                    this.fJobDetail.getGroup(), new Date(baseFireTime + 60000), null, 0, 0);
+
+        trigger1.computeFirstFireTime(null);
+        trigger2.computeFirstFireTime(null);
+        trigger3.computeFirstFireTime(null);
+        trigger4.computeFirstFireTime(null);
+        this.fJobStore.storeTrigger(null, trigger1, false);
+        this.fJobStore.storeTrigger(null, trigger2, false);
+        this.fJobStore.storeTrigger(null, trigger3, false);
+        this.fJobStore.storeTrigger(null, trigger4, false);
+
+        assertTrue(this.fJobStore.acquireNextTriggers(null, 10, 10, 5000L).isEmpty());
+
+        // limited by maxCount
+        List acquired = this.fJobStore.acquireNextTriggers(null, baseFireTime, 2, 5000L);
+        assertEquals(2, acquired.size());
+        assertEquals(trigger1, acquired.get(0));
+        assertEquals(trigger2, acquired.get(1));
+        this.fJobStore.releaseAcquiredTrigger(null, (Trigger) acquired.get(0));
+        this.fJobStore.releaseAcquiredTrigger(null, (Trigger) acquired.get(1));
+
+        // limited by timeWindow
+        acquired = this.fJobStore.acquireNextTriggers(null, baseFireTime, 10, 5000L);
+        assertEquals(3, acquired.size());
+        assertEquals(trigger3, acquired.get(2));
+
+        List results = this.fJobStore.triggersFired(null, acquired);
+        assertEquals(3, results.size());
+        for (int i = 0; i < results.size(); i++) {
+            TriggerFiredResult result = (TriggerFiredResult) results.get(i);
+            assertEquals(acquired.get(i), result.getTrigger());
+            assertNull(result.getException());
+            assertNotNull(result.getTriggerFiredBundle());
+        }
+
+        acquired = this.fJobStore.acquireNextTriggers(null, baseFireTime + 60000, 10, 5000L);
+        assertEquals(1, acquired.size());
+        assertEquals(trigger4, acquired.get(0));
+    }
+
+    public void testAcquireNextTriggerBatchOfStatefulJob() throws Exception {
+        JobDetail statefulJob = new JobDetail("job2", "jobGroup1", StatefulNoOpJob.class);
+        statefulJob.setDurability(true);
+        this.fJobStore.storeJob(null, statefulJob, false);
+        
+        long baseFireTime = System.currentTimeMillis() + 100000;
+        
+        Trigger trigger1 = 
+            new SimpleTrigger("trigger1", "triggerGroup1", statefulJob.getName(), 
+                    statefulJob.getGroup(), new Date(baseFireTime), null, 0, 0);
+        Trigger trigger2 = 
+            new SimpleTrigger("trigger2", "triggerGroup1", statefulJob.getName(), 
+                    statefulJob.getGroup(), new Date(baseFireTime + 1000), null, 0, 0);
+        Trigger trigger3 = 
+            new SimpleTrigger("trigger3", "triggerGroup1", this.fJobDetail.getName(), 
+                    this.fJobDetail.getGroup(), new Date(baseFireTime + 2000), null, 0, 0);
+
+        trigger1.computeFirstFireTime(null);
+        trigger2.computeFirstFireTime(null);
+        trigger3.computeFirstFireTime(null);
+        this.fJobStore.storeTrigger(null, trigger1, false);
+        this.fJobStore.storeTrigger(null, trigger2, false);
+        this.fJobStore.storeTrigger(null, trigger3, false);
+
+        List acquired = this.fJobStore.acquireNextTriggers(null, baseFireTime, 10, 5000L);
+        assertEquals(2, acquired.size());
+        assertEquals(trigger1, acquired.get(0));
+        assertEquals(trigger3, acquired.get(1));
+        
+        // the skipped trigger must still be available
+        this.fJobStore.releaseAcquiredTrigger(null, (Trigger) acquired.get(0));
+        this.fJobStore.releaseAcquiredTrigger(null, (Trigger) acquired.get(1));
+        assertEquals(trigger1, this.fJobStore.acquireNextTrigger(null, baseFireTime));
+        assertEquals(trigger2, this.fJobStore.acquireNextTrigger(null, baseFireTime + 1000));
+    }
+
+    public void testAcquireNextTriggerBatchWithinLimit() throws Exception {
+        long baseFireTime = System.currentTimeMillis() + 100000;
+        
+        Trigger trigger1 = 
+            new SimpleTrigger("trigger1", "reports", this.fJobDetail.getName(), 
+                    this.fJobDetail.getGroup(), new Date(baseFireTime), null, 0, 0);
+        Trigger trigger2 = 
+            new SimpleTrigger("trigger2", "reports", this.fJobDetail.getName(), 
+                    this.fJobDetail.getGroup(), new Date(baseFireTime + 1000), null, 0, 0);
+        Trigger trigger3 = 
+            new SimpleTrigger("trigger3", "alerts", this.fJobDetail.getName(), 
+                    this.fJobDetail.getGroup(), new Date(baseFireTime + 2000), null, 0, 0);
+
+        trigger1.computeFirstFireTime(null);
+        trigger2.computeFirstFireTime(null);
+        trigger3.computeFirstFireTime(null);
+        this.fJobStore.storeTrigger(null, trigger1, false);
+        this.fJobStore.storeTrigger(null, trigger2, false);
+        this.fJobStore.storeTrigger(null, trigger3, false);
+
+        // one of the 'reports' triggers at a time
+        TriggerAcquisitionLimit limit = new TriggerAcquisitionLimit() {
+            private boolean reportAcquired = false;
+            
+            public boolean acquire(Trigger trigger) {
+                if (!trigger.getGroup().equals("reports")) {
+                    return true;
+                }
+                if (reportAcquired) {
+                    return false;
+                }
+                reportAcquired = true;
+                return true;
+            }
+        };
+        
+        List acquired = this.fJobStore.acquireNextTriggers(null, baseFireTime, 10, 5000L, limit);
+        assertEquals(2, acquired.size());
+        assertEquals(trigger1, acquired.get(0));
+        assertEquals(trigger3, acquired.get(1));
+        
+        // the trigger passed over must still be available
+        assertEquals(trigger2, this.fJobStore.acquireNextTrigger(null, baseFireTime + 1000));
+    }
+
     public void testTriggerStates() throws Exception {
         Trigger trigger = 
             new SimpleTrigger("trigger1", "triggerGroup1", this.fJobDetail.getName(), this.fJobDetail.getGroup(), 
@@ -171,6 +317,59 @@ public class RAMJobStoreTest extends TestCase {
     	assertEquals(Trigger.STATE_PAUSED, fJobStore.getTriggerState(null, tr.getName(), tr.getGroup()));
     }
     
+    public void testTriggersForJobAndCalendar() throws Exception {
+        fJobStore.storeCalendar(null, "cal", new BaseCalendar(), false, false);
+
+        Trigger tr1 = new SimpleTrigger("tr1", "trGroup", new Date());
+        tr1.setJobName(fJobDetail.getName());
+        tr1.setJobGroup(fJobDetail.getGroup());
+        tr1.setCalendarName("cal");
+        fJobStore.storeTrigger(null, tr1, false);
+
+        Trigger tr2 = new SimpleTrigger("tr2", "trGroup", new Date());
+        tr2.setJobName(fJobDetail.getName());
+        tr2.setJobGroup(fJobDetail.getGroup());
+        fJobStore.storeTrigger(null, tr2, false);
+
+        assertEquals(2, fJobStore.getTriggersForJob(null, fJobDetail.getName(), fJobDetail.getGroup()).length);
+
+        try {
+            fJobStore.removeCalendar(null, "cal");
+            fail("removed a calendar that is referenced by a trigger");
+        } catch (JobPersistenceException expected) {
+        }
+
+        // moving the trigger off the calendar releases it
+        tr1.setCalendarName(null);
+        assertTrue(fJobStore.replaceTrigger(null, "tr1", "trGroup", tr1));
+        assertEquals(2, fJobStore.getTriggersForJob(null, fJobDetail.getName(), fJobDetail.getGroup()).length);
+        assertTrue(fJobStore.removeCalendar(null, "cal"));
+
+        assertTrue(fJobStore.removeTrigger(null, "tr2", "trGroup"));
+        Trigger[] remaining = fJobStore.getTriggersForJob(null, fJobDetail.getName(), fJobDetail.getGroup());
+        assertEquals(1, remaining.length);
+        assertEquals("tr1", remaining[0].getName());
+        assertEquals(1, fJobStore.getNumberOfTriggers(null));
+    }
+
+    public void testStoredCalendarIsACopy() throws Exception {
+        long tomorrow = System.currentTimeMillis() + 24L * 60L * 60L * 1000L;
+        HolidayCalendar holidays = new HolidayCalendar();
+        fJobStore.storeCalendar(null, "cal", holidays, false, false);
+
+        // changes to the stored calendar, or to one retrieved, are not stored
+        holidays.addExcludedDate(new Date(tomorrow));
+        HolidayCalendar retrieved = (HolidayCalendar) fJobStore.retrieveCalendar(null, "cal");
+        assertTrue(retrieved.isTimeIncluded(tomorrow));
+        retrieved.addExcludedDate(new Date(tomorrow));
+
+        assertTrue(fJobStore.retrieveCalendar(null, "cal").isTimeIncluded(tomorrow));
+        assertTrue(((RAMJobStore) fJobStore).retrieveIndexedCalendar("cal").isTimeIncluded(tomorrow));
+    }
+
+    public static class StatefulNoOpJob extends NoOpJob implements StatefulJob {
+    }
+    
     public static class SampleSignaler implements SchedulerSignaler {
         int fMisfireCount = 0;
 
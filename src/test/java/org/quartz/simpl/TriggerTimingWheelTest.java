@@ -0,0 +1,191 @@
+/*
+ * Copyright 2001-2009 James House
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.quartz.simpl;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.TreeSet;
+
+import junit.framework.TestCase;
+
+import org.quartz.JobDetail;
+import org.quartz.SimpleTrigger;
+import org.quartz.Trigger;
+import org.quartz.jobs.NoOpJob;
+
+/**
+ * Unit test for TriggerTimingWheel, checked against the TreeSet it replaces.
+ */
+public class TriggerTimingWheelTest extends TestCase {
+
+    private static final long BASE_TIME = 1230000000000L;
+
+    private int triggerCount = 0;
+
+    private TriggerWrapper newTriggerWrapper(long fireTime, int priority) {
+        SimpleTrigger trigger = new SimpleTrigger("trigger" + (triggerCount++),
+                "group", new Date(fireTime));
+        trigger.setPriority(priority);
+        trigger.setNextFireTime(new Date(fireTime));
+        return new TriggerWrapper(trigger);
+    }
+
+    private void assertSameOrder(TreeSet expected, TriggerTimingWheel wheel) {
+        assertEquals(expected.size(), wheel.size());
+        while (!expected.isEmpty()) {
+            TriggerWrapper tw = (TriggerWrapper) wheel.first();
+            assertEquals(((TriggerWrapper) expected.first()).trigger.getNextFireTime(),
+                    tw.trigger.getNextFireTime());
+            assertEquals(((TriggerWrapper) expected.first()).trigger.getPriority(),
+                    tw.trigger.getPriority());
+            assertTrue(expected.remove(tw));
+            assertTrue(wheel.remove(tw));
+            assertFalse(wheel.contains(tw));
+        }
+        assertTrue(wheel.isEmpty());
+    }
+
+    public void testOrderAcrossLevels() {
+        TreeSet expected = new TreeSet(new TriggerComparator());
+        TriggerTimingWheel wheel = new TriggerTimingWheel();
+
+        // spread from milliseconds to months ahead, with ties
+        Random random = new Random(42);
+        for (int i = 0; i < 2000; i++) {
+            long offset = (long) Math.pow(2, random.nextInt(36)) + random.nextInt(3);
+            TriggerWrapper tw = newTriggerWrapper(BASE_TIME + offset, random.nextInt(3));
+            assertTrue(wheel.add(tw));
+            assertFalse(wheel.add(tw));
+            expected.add(tw);
+        }
+
+        assertSameOrder(expected, wheel);
+    }
+
+    public void testInterleavedAddAndRemove() {
+        TreeSet expected = new TreeSet(new TriggerComparator());
+        TriggerTimingWheel wheel = new TriggerTimingWheel();
+        List all = new ArrayList();
+
+        Random random = new Random(7);
+        long now = BASE_TIME;
+        for (int i = 0; i < 5000; i++) {
+            int op = random.nextInt(4);
+            if (op == 0 && !expected.isEmpty()) {
+                // fire the first trigger, and reschedule it
+                TriggerWrapper tw = (TriggerWrapper) wheel.first();
+                assertEquals(((TriggerWrapper) expected.first()).trigger.getNextFireTime(),
+                        tw.trigger.getNextFireTime());
+                wheel.remove(tw);
+                expected.remove(tw);
+                now = tw.trigger.getNextFireTime().getTime();
+                ((SimpleTrigger) tw.trigger).setNextFireTime(new Date(now + random.nextInt(100000)));
+                wheel.add(tw);
+                expected.add(tw);
+            } else if (op == 1 && !all.isEmpty()) {
+                TriggerWrapper tw = (TriggerWrapper) all.get(random.nextInt(all.size()));
+                assertEquals(expected.remove(tw), wheel.remove(tw));
+            } else {
+                // some in the past of the wheel's cursor
+                TriggerWrapper tw = newTriggerWrapper(
+                        now - 5000 + random.nextInt(1000000), random.nextInt(2));
+                all.add(tw);
+                wheel.add(tw);
+                expected.add(tw);
+            }
+        }
+
+        assertSameOrder(expected, wheel);
+    }
+
+    public void testTriggerWithoutNextFireTimeIsLast() {
+        TriggerTimingWheel wheel = new TriggerTimingWheel();
+        TriggerWrapper done = newTriggerWrapper(BASE_TIME, 5);
+        ((SimpleTrigger) done.trigger).setNextFireTime(null);
+        TriggerWrapper tw = newTriggerWrapper(BASE_TIME + 1000, 5);
+        wheel.add(done);
+        wheel.add(tw);
+
+        assertSame(tw, wheel.first());
+        assertSame(done, wheel.last());
+        wheel.remove(tw);
+        assertSame(done, wheel.first());
+        wheel.clear();
+        try {
+            wheel.first();
+            fail("first() of an empty wheel succeeded");
+        } catch (NoSuchElementException nsee) {
+            // expected
+        }
+    }
+
+    public void testSubSetsMatchTreeSet() {
+        TreeSet expected = new TreeSet(new TriggerComparator());
+        TriggerTimingWheel wheel = new TriggerTimingWheel();
+        List all = new ArrayList();
+        for (int i = 0; i < 10; i++) {
+            // distinct fire times, so the orders agree
+            TriggerWrapper tw = newTriggerWrapper(BASE_TIME + i * 1000L, 5);
+            wheel.add(tw);
+            expected.add(tw);
+            all.add(tw);
+        }
+
+        Object from = all.get(3);
+        Object to = all.get(7);
+        assertEquals(new ArrayList(expected.subSet(from, to)),
+                new ArrayList(wheel.subSet(from, to)));
+        assertEquals(new ArrayList(expected.headSet(to)),
+                new ArrayList(wheel.headSet(to)));
+        assertEquals(new ArrayList(expected.tailSet(from)),
+                new ArrayList(wheel.tailSet(from)));
+
+        // a copy, not a view
+        wheel.headSet(to).clear();
+        assertEquals(10, wheel.size());
+    }
+
+    public void testRAMJobStoreWithTimingWheel() throws Exception {
+        RAMJobStore jobStore = new RAMJobStore();
+        jobStore.initialize(null, new RAMJobStoreTest.SampleSignaler());
+
+        JobDetail job = new JobDetail("job1", "jobGroup1", NoOpJob.class);
+        job.setDurability(true);
+        jobStore.storeJob(null, job, false);
+
+        long baseFireTime = System.currentTimeMillis() + 100000;
+        Trigger trigger1 = new SimpleTrigger("trigger1", "triggerGroup1", "job1",
+                "jobGroup1", new Date(baseFireTime + 1000), null, 0, 0);
+        Trigger trigger2 = new SimpleTrigger("trigger2", "triggerGroup1", "job1",
+                "jobGroup1", new Date(baseFireTime), null, 0, 0);
+        trigger1.computeFirstFireTime(null);
+        trigger2.computeFirstFireTime(null);
+        jobStore.storeTrigger(null, trigger1, false);
+
+        // switching over keeps the triggers already stored
+        jobStore.setUseTimingWheel(true);
+        assertTrue(jobStore.isUseTimingWheel());
+        jobStore.storeTrigger(null, trigger2, false);
+
+        assertNull(jobStore.acquireNextTrigger(null, baseFireTime - 1));
+        assertEquals(trigger2, jobStore.acquireNextTrigger(null, baseFireTime));
+        assertEquals(trigger1, jobStore.acquireNextTrigger(null, baseFireTime + 1000));
+        assertNull(jobStore.acquireNextTrigger(null, baseFireTime + 1000));
+    }
+}
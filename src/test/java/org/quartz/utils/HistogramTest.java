@@ -0,0 +1,98 @@
+/* 
+ * Copyright 2001-2009 James House 
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not 
+ * use this file except in compliance with the License. You may obtain a copy 
+ * of the License at 
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0 
+ *   
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT 
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the 
+ * License for the specific language governing permissions and limitations 
+ * under the License.
+ */
+package org.quartz.utils;
+
+import org.quartz.SchedulerMetrics;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit test for Histogram, and the SchedulerMetrics built from them.
+ */
+public class HistogramTest extends TestCase {
+
+    public void testSmallValuesAreExact() {
+        Histogram histogram = new Histogram();
+        for (int i = 1; i <= 10; i++) {
+            histogram.record(i);
+        }
+        histogram.record(-5);
+
+        assertEquals(11, histogram.getCount());
+        assertEquals(55, histogram.getSum());
+        assertEquals(10, histogram.getMax());
+        assertEquals(5, histogram.getPercentile(0.5));
+        assertEquals(10, histogram.getPercentile(1.0));
+        assertEquals(0, histogram.getPercentile(0.0));
+    }
+
+    public void testLargeValuesWithinBucketError() {
+        Histogram histogram = new Histogram();
+        for (int i = 1; i <= 100000; i++) {
+            histogram.record(i);
+        }
+
+        long[] expected = new long[] {50000, 90000, 99000};
+        double[] fractions = new double[] {0.5, 0.9, 0.99};
+        for (int i = 0; i < fractions.length; i++) {
+            long p = histogram.getPercentile(fractions[i]);
+            assertTrue("p" + fractions[i] + " was " + p, 
+                    p >= expected[i] && p <= expected[i] * 1.07);
+        }
+        assertEquals(100000, histogram.getPercentile(1.0));
+        assertEquals(0, new Histogram().getPercentile(0.5));
+    }
+
+    public void testAddAndReset() {
+        Histogram a = new Histogram();
+        Histogram b = new Histogram();
+        a.record(3);
+        b.record(3000);
+        a.add(b);
+
+        assertEquals(2, a.getCount());
+        assertEquals(3003, a.getSum());
+        assertEquals(3000, a.getMax());
+        assertEquals(1, b.getCount());
+
+        a.reset();
+        assertEquals(0, a.getCount());
+        assertEquals(0, a.getMax());
+    }
+
+    public void testMetricsSnapshot() {
+        SchedulerMetrics metrics = new SchedulerMetrics();
+        metrics.recordJobRunTime("groupB", 20);
+        metrics.recordJobRunTime("groupA", 10);
+        metrics.recordMisfire();
+
+        SchedulerMetrics snapshot = metrics.snapshot();
+        metrics.recordJobRunTime("groupA", 30);
+        metrics.recordMisfire();
+
+        assertEquals(2, snapshot.getJobRunTime().getCount());
+        assertEquals(1, snapshot.getJobRunTime("groupA").getCount());
+        assertEquals(1, snapshot.getMisfireCount());
+        assertEquals("groupA", snapshot.getJobGroupNames()[0]);
+        assertEquals(3, metrics.getJobRunTime().getCount());
+        assertEquals(2, metrics.getMisfireCount());
+
+        metrics.reset();
+        assertEquals(0, metrics.getJobRunTime().getCount());
+        assertNull(metrics.getJobRunTime("groupA"));
+        assertEquals(2, snapshot.getJobGroupNames().length);
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2001-2009 James House
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.quartz.utils;
+
+import java.util.Date;
+
+import junit.framework.TestCase;
+
+import org.quartz.CronTrigger;
+import org.quartz.JobDetail;
+import org.quartz.SimpleTrigger;
+import org.quartz.Trigger;
+import org.quartz.jobs.NoOpJob;
+import org.quartz.simpl.RAMJobStore;
+
+public class LoadForecastTest extends TestCase {
+
+    private static final long MINUTE = 60L * 1000L;
+
+    private RAMJobStore jobStore;
+
+    private long start;
+
+    protected void setUp() throws Exception {
+        jobStore = new RAMJobStore();
+        jobStore.initialize(null, null);
+        jobStore.storeJob(null, new JobDetail("job", "group", NoOpJob.class) {
+            public boolean isDurable() {
+                return true;
+            }
+        }, false);
+
+        // the start of a minute, an hour from now
+        start = (System.currentTimeMillis() / MINUTE + 60) * MINUTE;
+    }
+
+    private void storeTrigger(Trigger trigger) throws Exception {
+        trigger.setJobName("job");
+        trigger.setJobGroup("group");
+        trigger.computeFirstFireTime(null);
+        jobStore.storeTrigger(null, trigger, false);
+    }
+
+    public void testForecast() throws Exception {
+        // every 20 seconds for ten minutes
+        storeTrigger(new SimpleTrigger("everyTwentySeconds", "group",
+                new Date(start), new Date(start + 10 * MINUTE - 1), 
+                SimpleTrigger.REPEAT_INDEFINITELY, 20000));
+        // every five minutes
+        storeTrigger(new CronTrigger("everyFiveMinutes", "group", "0 0/5 * * * ?"));
+        // once, in the third minute
+        storeTrigger(new SimpleTrigger("once", "other", new Date(start + 2 * MINUTE + 1)));
+
+        SimpleTrigger paused = new SimpleTrigger("paused", "other", new Date(start));
+        storeTrigger(paused);
+        jobStore.pauseTrigger(null, "paused", "other");
+
+        LoadForecast forecast = LoadForecast.forecast(jobStore, null,
+                new Date(start), 30, 3);
+        assertEquals(new Date(start), forecast.getStartTime());
+        assertEquals(30, forecast.getMinutes());
+        assertEquals(30 + 6 + 1, forecast.getTotalFireCount());
+
+        for (int i = 0; i < 30; i++) {
+            int expected = ((i < 10) ? 3 : 0) 
+                + ((new Date(start + i * MINUTE).getMinutes() % 5 == 0) ? 1 : 0) 
+                + ((i == 2) ? 1 : 0);
+            assertEquals("minute " + i, expected, forecast.getFireCount(i));
+        }
+        assertTrue(forecast.getFireCount(forecast.getBusiestMinute()) >= 4);
+    }
+
+    public void testEmptyStore() throws Exception {
+        LoadForecast forecast = LoadForecast.forecast(jobStore, null, 
+                new Date(start), 5);
+        assertEquals(0, forecast.getTotalFireCount());
+        assertEquals(0, forecast.getBusiestMinute());
+    }
+}
@@ -0,0 +1,31 @@
+#!/bin/sh
+
+# Runs the load test harness with the given properties file, e.g.
+#
+#   loadtest.sh loadtest_ram.properties
+#   loadtest.sh loadtest_hsqldb.properties
+#   loadtest.sh loadtest_derby_cluster.properties
+#
+# Run from this directory, so the schema scripts are found.
+
+# Change this to your JDK installation root
+#
+#JAVA_HOME=/usr/java/j2sdk1.4.0_01
+
+JRE=$JAVA_HOME/jre
+JAVA=$JRE/bin/java
+
+. ${QUARTZ}/examples/bin/buildcp.sh
+
+#
+# Set the path to your embedded database's jar file here
+JDBC_CP=/home/user/lib/hsqldb.jar:/home/user/lib/derby.jar
+
+# The compiled loadtest classes
+LOADTEST_CP=.
+
+QUARTZ_CP=$QUARTZ_CP:$JDBC_CP:$LOADTEST_CP
+
+LOGGING_PROPS="-Dlog4j.configuration=log4j.properties"
+
+$JAVA -classpath $QUARTZ_CP $LOGGING_PROPS loadtest.LoadTest $1
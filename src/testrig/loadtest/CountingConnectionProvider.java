@@ -0,0 +1,158 @@
+/* 
+ * Copyright 2001-2009 James House 
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not 
+ * use this file except in compliance with the License. You may obtain a copy 
+ * of the License at 
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0 
+ *   
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT 
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the 
+ * License for the specific language governing permissions and limitations 
+ * under the License.
+ */
+package loadtest;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.quartz.utils.ConnectionProvider;
+import org.quartz.utils.PoolingConnectionProvider;
+
+/**
+ * A <code>PoolingConnectionProvider</code> that counts the statements
+ * executed through its connections, for reporting statements per fire.
+ * Configured with the same properties as the standard data source:
+ * 
+ * <pre>
+ * org.quartz.dataSource.NAME.connectionProvider.class = loadtest.CountingConnectionProvider
+ * org.quartz.dataSource.NAME.driver = ...
+ * org.quartz.dataSource.NAME.URL = ...
+ * </pre>
+ */
+public class CountingConnectionProvider implements ConnectionProvider {
+
+    private static final Object COUNT_LOCK = new Object();
+
+    private static long statementCount = 0;
+
+    private String driver;
+
+    private String url;
+
+    private String user = "";
+
+    private String password = "";
+
+    private int maxConnections = PoolingConnectionProvider.DEFAULT_DB_MAX_CONNECTIONS;
+
+    private String validationQuery;
+
+    private PoolingConnectionProvider provider;
+
+    /**
+     * Returns the number of statements executed through every
+     * <code>CountingConnectionProvider</code>. A batch counts once.
+     */
+    public static long getStatementCount() {
+        synchronized (COUNT_LOCK) {
+            return statementCount;
+        }
+    }
+
+    static void countStatement() {
+        synchronized (COUNT_LOCK) {
+            statementCount++;
+        }
+    }
+
+    public void setDriver(String driver) {
+        this.driver = driver;
+    }
+
+    public void setURL(String url) {
+        this.url = url;
+    }
+
+    public void setUser(String user) {
+        this.user = user;
+    }
+
+    public void setPassword(String password) {
+        this.password = password;
+    }
+
+    public void setMaxConnections(int maxConnections) {
+        this.maxConnections = maxConnections;
+    }
+
+    public void setValidationQuery(String validationQuery) {
+        this.validationQuery = validationQuery;
+    }
+
+    public synchronized Connection getConnection() throws SQLException {
+        if (provider == null) {
+            provider = new PoolingConnectionProvider(driver, url, user,
+                    password, maxConnections, validationQuery);
+        }
+
+        Connection conn = provider.getConnection();
+        return (Connection) Proxy.newProxyInstance(
+                getClass().getClassLoader(), new Class[] {Connection.class},
+                new CountingHandler(conn));
+    }
+
+    public synchronized void shutdown() throws SQLException {
+        if (provider != null) {
+            provider.shutdown();
+            provider = null;
+        }
+    }
+
+    /**
+     * Wraps the statements a connection creates, and counts their
+     * executions.
+     */
+    static class CountingHandler implements InvocationHandler {
+        private Object target;
+
+        CountingHandler(Object target) {
+            this.target = target;
+        }
+
+        public Object invoke(Object proxy, Method method, Object[] args)
+            throws Throwable {
+            if (method.getName().startsWith("execute")) {
+                countStatement();
+            }
+
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException ite) {
+                throw ite.getTargetException();
+            }
+
+            if (result instanceof Statement) {
+                Class type = Statement.class;
+                if (result instanceof CallableStatement) {
+                    type = CallableStatement.class;
+                } else if (result instanceof PreparedStatement) {
+                    type = PreparedStatement.class;
+                }
+                result = Proxy.newProxyInstance(getClass().getClassLoader(),
+                        new Class[] {type}, new CountingHandler(result));
+            }
+            return result;
+        }
+    }
+}
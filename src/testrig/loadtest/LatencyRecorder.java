@@ -0,0 +1,123 @@
+/* 
+ * Copyright 2001-2009 James House 
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not 
+ * use this file except in compliance with the License. You may obtain a copy 
+ * of the License at 
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0 
+ *   
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT 
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the 
+ * License for the specific language governing permissions and limitations 
+ * under the License.
+ */
+package loadtest;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Collects the fire lateness (actual fire time minus scheduled fire time)
+ * of <code>LoadJob</code> executions into a histogram of one millisecond
+ * buckets, while recording is turned on.
+ */
+public class LatencyRecorder {
+
+    private static final int MAX_BUCKET = 60000;
+
+    private long[] buckets = new long[MAX_BUCKET + 1];
+
+    private long count = 0;
+
+    private long max = 0;
+
+    private Map firesByInstance = new HashMap();
+
+    private boolean recording = false;
+
+    private long startTime;
+
+    private long stopTime;
+
+    public synchronized void start() {
+        buckets = new long[MAX_BUCKET + 1];
+        count = 0;
+        max = 0;
+        firesByInstance.clear();
+        startTime = System.currentTimeMillis();
+        recording = true;
+    }
+
+    public synchronized void stop() {
+        stopTime = System.currentTimeMillis();
+        recording = false;
+    }
+
+    public synchronized void record(long lateness, String instanceId) {
+        if (!recording) {
+            return;
+        }
+
+        if (lateness < 0) {
+            lateness = 0;
+        }
+        buckets[(int) Math.min(lateness, MAX_BUCKET)]++;
+        count++;
+        max = Math.max(max, lateness);
+
+        long[] fires = (long[]) firesByInstance.get(instanceId);
+        if (fires == null) {
+            fires = new long[1];
+            firesByInstance.put(instanceId, fires);
+        }
+        fires[0]++;
+    }
+
+    public synchronized long getCount() {
+        return count;
+    }
+
+    public synchronized long getMax() {
+        return max;
+    }
+
+    /**
+     * The recording period, in milliseconds.
+     */
+    public synchronized long getDuration() {
+        return (recording ? System.currentTimeMillis() : stopTime) - startTime;
+    }
+
+    /**
+     * Returns the lateness, in milliseconds, that the given fraction of the
+     * recorded fires did not exceed. Lateness past a minute is reported as
+     * one minute.
+     */
+    public synchronized long getPercentile(double fraction) {
+        long target = (long) Math.ceil(count * fraction);
+        long seen = 0;
+        for (int i = 0; i <= MAX_BUCKET; i++) {
+            seen += buckets[i];
+            if (seen >= target && seen > 0) {
+                return i;
+            }
+        }
+        return 0;
+    }
+
+    public synchronized String getFiresByInstance() {
+        StringBuffer buf = new StringBuffer();
+        Iterator itr = firesByInstance.entrySet().iterator();
+        while (itr.hasNext()) {
+            Map.Entry entry = (Map.Entry) itr.next();
+            if (buf.length() > 0) {
+                buf.append(", ");
+            }
+            buf.append(entry.getKey()).append('=').append(((long[]) entry.getValue())[0]);
+        }
+        return buf.toString();
+    }
+}
@@ -0,0 +1,56 @@
+/* 
+ * Copyright 2001-2009 James House 
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not 
+ * use this file except in compliance with the License. You may obtain a copy 
+ * of the License at 
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0 
+ *   
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT 
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the 
+ * License for the specific language governing permissions and limitations 
+ * under the License.
+ */
+package loadtest;
+
+import org.quartz.Job;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+import org.quartz.SchedulerException;
+
+/**
+ * Records how late it was fired, and optionally works for a while.
+ */
+public class LoadJob implements Job {
+
+    public static final LatencyRecorder RECORDER = new LatencyRecorder();
+
+    /**
+     * How long each execution takes, in milliseconds.
+     */
+    public static final String WORK_TIME = "workTime";
+
+    public void execute(JobExecutionContext context)
+        throws JobExecutionException {
+        long lateness = System.currentTimeMillis()
+            - context.getScheduledFireTime().getTime();
+
+        String instanceId;
+        try {
+            instanceId = context.getScheduler().getSchedulerInstanceId();
+        } catch (SchedulerException se) {
+            throw new JobExecutionException(se);
+        }
+        RECORDER.record(lateness, instanceId);
+
+        if (context.getMergedJobDataMap().containsKey(WORK_TIME)) {
+            long workTime = context.getMergedJobDataMap().getLong(WORK_TIME);
+            try {
+                Thread.sleep(workTime);
+            } catch (InterruptedException ignore) {
+            }
+        }
+    }
+}
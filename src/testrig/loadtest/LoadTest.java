@@ -0,0 +1,310 @@
+/* 
+ * Copyright 2001-2009 James House 
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not 
+ * use this file except in compliance with the License. You may obtain a copy 
+ * of the License at 
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0 
+ *   
+ * Unless required by applicable law or agreed to in writing, software 
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT 
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the 
+ * License for the specific language governing permissions and limitations 
+ * under the License.
+ */
+package loadtest;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.FileReader;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Date;
+import java.util.Enumeration;
+import java.util.Properties;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.quartz.CronTrigger;
+import org.quartz.JobDetail;
+import org.quartz.JobExecutionContext;
+import org.quartz.Scheduler;
+import org.quartz.SimpleTrigger;
+import org.quartz.Trigger;
+import org.quartz.TriggerListener;
+import org.quartz.impl.SchedulerRepository;
+import org.quartz.impl.StdSchedulerFactory;
+
+/**
+ * <p>
+ * Puts a scheduler (or a cluster of them, sharing one database) under load,
+ * and reports fires per second, fire lateness percentiles and, for JDBC job
+ * stores, database statements per fire.
+ * </p>
+ * 
+ * <p>
+ * Takes a single properties file, holding both the Quartz configuration and
+ * the <code>loadtest.*</code> settings below. The scheduler instances all run
+ * in this JVM, each with its own copy of the data source.
+ * </p>
+ * 
+ * <pre>
+ * loadtest.instances      number of scheduler instances (default 1)
+ * loadtest.triggers       number of triggers, each with its own job (default 1000)
+ * loadtest.pattern        "spread": repeat every interval, start times spread over it
+ *                         "burst": repeat every interval, all at the same time
+ *                         "cron": all on loadtest.cronExpression
+ * loadtest.interval       repeat interval in milliseconds (default 1000)
+ * loadtest.cronExpression for the "cron" pattern (default "0/5 * * * * ?")
+ * loadtest.workTime       how long each job runs, in milliseconds (default 0)
+ * loadtest.warmup         seconds to run, after the first fire time, before
+ *                         measuring (default 10)
+ * loadtest.duration       seconds to measure (default 60)
+ * loadtest.schemaScript   SQL script to create the tables with, if any
+ * </pre>
+ */
+public class LoadTest {
+
+    private static Log _log = LogFactory.getLog(LoadTest.class);
+
+    private static final String DATA_SOURCE_PREFIX = StdSchedulerFactory.PROP_DATASOURCE_PREFIX + ".";
+
+    private Properties props;
+
+    private Scheduler[] schedulers;
+
+    private long misfireCount = 0;
+
+    private long firstFireTime;
+
+    public LoadTest(Properties props) {
+        this.props = props;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length != 1) {
+            System.err.println("usage: LoadTest <properties file>");
+            System.exit(1);
+        }
+
+        Properties props = new Properties();
+        FileInputStream in = new FileInputStream(args[0]);
+        try {
+            props.load(in);
+        } finally {
+            in.close();
+        }
+
+        new LoadTest(props).run();
+    }
+
+    public void run() throws Exception {
+        String schemaScript = props.getProperty("loadtest.schemaScript");
+        if (schemaScript != null) {
+            createSchema(schemaScript);
+        }
+
+        int instances = getInt("loadtest.instances", 1);
+        schedulers = new Scheduler[instances];
+        for (int i = 0; i < instances; i++) {
+            schedulers[i] = createScheduler(i);
+        }
+
+        scheduleTriggers(schedulers[0]);
+
+        for (int i = 0; i < instances; i++) {
+            schedulers[i].start();
+        }
+
+        _log.info("Warming up...");
+        Thread.sleep(Math.max(firstFireTime - System.currentTimeMillis(), 0)
+                + getInt("loadtest.warmup", 10) * 1000L);
+
+        _log.info("Measuring...");
+        long statements = CountingConnectionProvider.getStatementCount();
+        long misfires = getMisfireCount();
+        LoadJob.RECORDER.start();
+        Thread.sleep(getInt("loadtest.duration", 60) * 1000L);
+        LoadJob.RECORDER.stop();
+        statements = CountingConnectionProvider.getStatementCount() - statements;
+        misfires = getMisfireCount() - misfires;
+
+        for (int i = 0; i < instances; i++) {
+            schedulers[i].shutdown(true);
+        }
+
+        report(statements, misfires);
+    }
+
+    /**
+     * Creates the given scheduler instance, giving it its own copy of each
+     * data source so that they can be shut down independently.
+     */
+    protected Scheduler createScheduler(int index) throws Exception {
+        Properties instanceProps = new Properties();
+        Enumeration names = props.propertyNames();
+        while (names.hasMoreElements()) {
+            String name = (String) names.nextElement();
+            String value = props.getProperty(name);
+            if (name.startsWith(DATA_SOURCE_PREFIX)) {
+                int dot = name.indexOf('.', DATA_SOURCE_PREFIX.length());
+                name = name.substring(0, dot) + index + name.substring(dot);
+            } else if (name.equals(StdSchedulerFactory.PROP_JOB_STORE_PREFIX + ".dataSource")) {
+                value = value + index;
+            }
+            instanceProps.setProperty(name, value);
+        }
+        instanceProps.setProperty(StdSchedulerFactory.PROP_SCHED_INSTANCE_ID, "loadtest" + index);
+
+        Scheduler sched = new StdSchedulerFactory(instanceProps).getScheduler();
+        // cluster members share the scheduler name, so unbind each one so
+        // the next can be created
+        SchedulerRepository.getInstance().remove(sched.getSchedulerName());
+
+        sched.addGlobalTriggerListener(new MisfireCounter());
+        return sched;
+    }
+
+    protected void scheduleTriggers(Scheduler sched) throws Exception {
+        int triggerCount = getInt("loadtest.triggers", 1000);
+        String pattern = props.getProperty("loadtest.pattern", "spread");
+        long interval = getInt("loadtest.interval", 1000);
+        String cronExpression = props.getProperty("loadtest.cronExpression", "0/5 * * * * ?");
+        long workTime = getInt("loadtest.workTime", 0);
+
+        _log.info("Scheduling " + triggerCount + " triggers...");
+        // leave time to schedule them all before the first fires
+        long startTime = System.currentTimeMillis() + 5000L + triggerCount;
+        firstFireTime = startTime;
+        for (int i = 0; i < triggerCount; i++) {
+            JobDetail job = new JobDetail("job" + i, "loadtest", LoadJob.class);
+            if (workTime > 0) {
+                job.getJobDataMap().put(LoadJob.WORK_TIME, workTime);
+            }
+
+            Trigger trigger;
+            if ("cron".equals(pattern)) {
+                trigger = new CronTrigger("trigger" + i, "loadtest", cronExpression);
+                trigger.setStartTime(new Date(startTime));
+            } else if ("burst".equals(pattern)) {
+                trigger = new SimpleTrigger("trigger" + i, "loadtest", new Date(startTime),
+                        null, SimpleTrigger.REPEAT_INDEFINITELY, interval);
+            } else if ("spread".equals(pattern)) {
+                trigger = new SimpleTrigger("trigger" + i, "loadtest",
+                        new Date(startTime + (i * interval) / triggerCount),
+                        null, SimpleTrigger.REPEAT_INDEFINITELY, interval);
+            } else {
+                throw new IllegalArgumentException("Unknown loadtest.pattern: " + pattern);
+            }
+
+            sched.scheduleJob(job, trigger);
+        }
+    }
+
+    /**
+     * Runs the given script against the first data source, skipping
+     * comments and ignoring failed DROPs of tables that don't exist yet.
+     */
+    protected void createSchema(String script) throws Exception {
+        String dsName = props.getProperty(StdSchedulerFactory.PROP_JOB_STORE_PREFIX + ".dataSource");
+        String prefix = DATA_SOURCE_PREFIX + dsName + ".";
+        Class.forName(props.getProperty(prefix + "driver"));
+        Connection conn = DriverManager.getConnection(props.getProperty(prefix + "URL"),
+                props.getProperty(prefix + "user", ""), props.getProperty(prefix + "password", ""));
+
+        try {
+            Statement stmt = conn.createStatement();
+            BufferedReader reader = new BufferedReader(new FileReader(script));
+            StringBuffer sql = new StringBuffer();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.length() == 0 || line.startsWith("#") || line.startsWith("--")) {
+                    continue;
+                }
+                sql.append(line).append(' ');
+                if (line.endsWith(";")) {
+                    String command = sql.substring(0, sql.lastIndexOf(";"));
+                    sql.setLength(0);
+                    try {
+                        stmt.execute(command);
+                    } catch (SQLException sqle) {
+                        if (!command.toUpperCase().startsWith("DROP")) {
+                            throw sqle;
+                        }
+                    }
+                }
+            }
+            reader.close();
+            stmt.close();
+            if (!conn.getAutoCommit()) {
+                conn.commit();
+            }
+        } finally {
+            conn.close();
+        }
+    }
+
+    protected void report(long statements, long misfires) throws Exception {
+        LatencyRecorder recorder = LoadJob.RECORDER;
+        long fires = recorder.getCount();
+        double seconds = recorder.getDuration() / 1000.0;
+
+        System.out.println();
+        System.out.println("Job store:   " + schedulers[0].getMetaData().getJobStoreClass().getName()
+                + " (" + schedulers.length + " instance(s))");
+        System.out.println("Triggers:    " + getInt("loadtest.triggers", 1000)
+                + ", pattern " + props.getProperty("loadtest.pattern", "spread"));
+        System.out.println("Fires:       " + fires + " in " + seconds + "s = "
+                + (long) (fires / seconds) + " fires/sec");
+        System.out.println("By instance: " + recorder.getFiresByInstance());
+        System.out.println("Misfires:    " + misfires);
+        System.out.println("Lateness ms: p50=" + recorder.getPercentile(0.50)
+                + " p90=" + recorder.getPercentile(0.90)
+                + " p99=" + recorder.getPercentile(0.99)
+                + " p99.9=" + recorder.getPercentile(0.999)
+                + " max=" + recorder.getMax());
+        if (statements > 0) {
+            System.out.println("Statements:  " + statements + " = "
+                    + (fires > 0 ? (double) statements / fires : 0) + " per fire");
+        }
+    }
+
+    private int getInt(String name, int defaultValue) {
+        String value = props.getProperty(name);
+        return (value == null) ? defaultValue : Integer.parseInt(value.trim());
+    }
+
+    private synchronized long getMisfireCount() {
+        return misfireCount;
+    }
+
+    /**
+     * Counts the misfires of every scheduler instance.
+     */
+    class MisfireCounter implements TriggerListener {
+        public String getName() {
+            return "LoadTestMisfireCounter";
+        }
+
+        public void triggerMisfired(Trigger trigger) {
+            synchronized (LoadTest.this) {
+                misfireCount++;
+            }
+        }
+
+        public void triggerFired(Trigger trigger, JobExecutionContext context) {
+        }
+
+        public boolean vetoJobExecution(Trigger trigger, JobExecutionContext context) {
+            return false;
+        }
+
+        public void triggerComplete(Trigger trigger, JobExecutionContext context,
+                int triggerInstructionCode) {
+        }
+    }
+}
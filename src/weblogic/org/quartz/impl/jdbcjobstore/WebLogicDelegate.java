@@ -119,7 +119,7 @@ public class WebLogicDelegate extends StdJDBCDelegate {
     protected Object getJobDetailFromBlob(ResultSet rs, String colName)
         throws ClassNotFoundException, IOException, SQLException {
         
-        if (canUseProperties()) {
+        if (readJobDataAsStream()) {
             Blob blobLocator = rs.getBlob(colName);
             InputStream binaryInput = null;
             try {